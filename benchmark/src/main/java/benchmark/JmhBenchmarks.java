@@ -0,0 +1,274 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class runs the weather station benchmarks under JMH.  The
+            data is set up the same as the WeatherBenchmarks program: a month
+            is generated with a fixed seed into a temporary directory, and
+            the database is pointed at that directory so the append benchmark
+            and the indexes it feeds never touch the station database.  Each
+            trial runs in a JVM of its own, so the database directory is set
+            before any database class is used.
+
+            Build and run from the benchmark directory:
+              mvn package
+              java -jar target/benchmarks.jar
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package benchmark;
+
+import algorithms.Calculations;
+import data.consolerecord.DmpData;
+import data.consolerecord.DmpDataExtended;
+import data.consolerecord.HiLoData;
+import data.consolerecord.LoopData;
+import dbif.ArchiveGenerator;
+import dbif.ArchiveMonth;
+import dbif.DatabaseCommon;
+import dbif.DatabaseReader;
+import dbif.DatabaseWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.CCITT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JmhBenchmarks
+{
+  private static final long SEED = 1;
+
+  private File directory;
+  private String directoryPath;
+  private String monthFilename;
+  private ArchiveGenerator generator;
+  private DatabaseReader reader;
+  private CCITT ccitt;
+  private byte[] loopPacket;
+  private byte[] hiLowPacket;
+  private byte[] dmpPage;
+  private float[] temperature;
+  private float[] windSpeed;
+  private float[] humidity;
+  private float[] solarRad;
+  private int nextDerived;
+
+  private List<byte[]> appendRecords;
+  private File appendFile;
+  private DatabaseWriter writer;
+  private int nextAppend;
+
+  /**
+   * Method to generate the month and build the packets.
+   *
+   * @throws IOException The month could not be generated.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException
+  {
+    directory = Files.createTempDirectory("wxbench").toFile();
+    directoryPath = directory.getPath() + File.separator;
+    DatabaseCommon.setDirectory(directoryPath);
+
+    generator = new ArchiveGenerator(SEED, 5);
+    monthFilename = generator.writeMonth(directoryPath, WeatherBenchmarks.YEAR, WeatherBenchmarks.MONTH).getPath();
+    ArchiveMonth archive = ArchiveMonth.load(directoryPath, WeatherBenchmarks.YEAR, WeatherBenchmarks.MONTH);
+    List<byte[]> dmpRecords = BenchmarkData.getDmpRecords(archive);
+
+    reader = new DatabaseReader();
+    ccitt = new CCITT();
+    loopPacket = BenchmarkData.getLoopPacket(dmpRecords.get(dmpRecords.size() / 2));
+    hiLowPacket = BenchmarkData.getHiLowPacket(1);
+    dmpPage = BenchmarkData.getDmpPage(dmpRecords, 0);
+
+    int samples = WeatherBenchmarks.DERIVED_SAMPLES;
+    temperature = new float[samples];
+    windSpeed = new float[samples];
+    humidity = new float[samples];
+    solarRad = new float[samples];
+    for (int i = 0; i < samples; i++)
+    {
+      DmpData data = new DmpData();
+      data.setData(dmpRecords.get(i % dmpRecords.size()));
+      temperature[i] = data.getOutsideTemp();
+      windSpeed[i] = data.getAverageWindSpeed();
+      humidity[i] = data.getOutsideHumidity();
+      solarRad[i] = data.getSolarRadiation();
+    }
+
+    appendRecords = WeatherBenchmarks.getAppendRecords(generator, directoryPath);
+    appendFile = new File(reader.getFilename(WeatherBenchmarks.APPEND_YEAR, WeatherBenchmarks.MONTH));
+    writer = new DatabaseWriter();
+  }
+
+  /**
+   * Method to remove the temporary directory.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    WeatherBenchmarks.deleteDirectory(directory);
+  }
+
+  /**
+   * Internal method to get the index of the next derived value sample.
+   *
+   * @return The index.
+   */
+  private int nextSample()
+  {
+    return nextDerived++ & (WeatherBenchmarks.DERIVED_SAMPLES - 1);
+  }
+
+  @Benchmark
+  public int monthDecodeReader() throws IOException
+  {
+    reader.readData(WeatherBenchmarks.YEAR, WeatherBenchmarks.MONTH, monthFilename);
+    return reader.getRowCount();
+  }
+
+  @Benchmark
+  public int monthDecodeArchive() throws IOException
+  {
+    return ArchiveMonth.load(directoryPath, WeatherBenchmarks.YEAR, WeatherBenchmarks.MONTH).getTotalRecords();
+  }
+
+  @Benchmark
+  public int monthGenerate()
+  {
+    return generator.generateMonth(WeatherBenchmarks.YEAR, WeatherBenchmarks.MONTH).length;
+  }
+
+  /**
+   * Stores one record and updates the summary records the same as the CommandControl does when a DMP page arrives.
+   * The first day of the month is written over and over, removing the file each time the day is full.
+   */
+  @Benchmark
+  public short appendRecord() throws IOException
+  {
+    if (nextAppend == appendRecords.size())
+    {
+      Files.delete(appendFile.toPath());
+      nextAppend = 0;
+    }
+    DmpDataExtended data = new DmpDataExtended();
+    data.setData(appendRecords.get(nextAppend++));
+    writer.insertWeatherRecord(data);
+    data.calculateData(reader.getHeatDDTotal(), reader.getCoolDDTotal());
+    writer.updateSummaryRecords(data);
+    return data.getDateStamp();
+  }
+
+  @Benchmark
+  public float packetLoop()
+  {
+    LoopData loopData = new LoopData();
+    loopData.setData(loopPacket);
+    return loopData.getOutsideTempNative();
+  }
+
+  @Benchmark
+  public float packetHiLow()
+  {
+    HiLoData hiLoData = new HiLoData();
+    hiLoData.setData(hiLowPacket);
+    return hiLoData.getDailyHighPressureNative();
+  }
+
+  @Benchmark
+  public long packetDmpPage()
+  {
+    long total = 0;
+    for (int record = 0; record < 5; record++)
+    {
+      DmpData dmpData = new DmpData();
+      dmpData.setData(dmpPage, 1 + record * BenchmarkData.DMP_RECORD_SIZE);
+      total += dmpData.getOutsideTempNative();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public byte crcLoop()
+  {
+    return ccitt.calculateCRC(loopPacket, loopPacket.length)[0];
+  }
+
+  @Benchmark
+  public byte crcPage()
+  {
+    return ccitt.calculateCRC(dmpPage, dmpPage.length)[0];
+  }
+
+  @Benchmark
+  public int crcPageUpdate()
+  {
+    return CCITT.update(CCITT.INITIAL, dmpPage, 0, dmpPage.length);
+  }
+
+  @Benchmark
+  public int crcPageBytewise()
+  {
+    return CCITT.updateBytewise(CCITT.INITIAL, dmpPage, 0, dmpPage.length);
+  }
+
+  @Benchmark
+  public float derivedWindChill()
+  {
+    int i = nextSample();
+    return Calculations.calculateWindChill(temperature[i], windSpeed[i]);
+  }
+
+  @Benchmark
+  public float derivedDewPoint()
+  {
+    int i = nextSample();
+    return Calculations.calculateDewPoint(temperature[i], humidity[i]);
+  }
+
+  @Benchmark
+  public float derivedHeatIndex()
+  {
+    int i = nextSample();
+    return Calculations.calculateHeatIndex(temperature[i], humidity[i]);
+  }
+
+  @Benchmark
+  public float derivedThw()
+  {
+    int i = nextSample();
+    return Calculations.calculateTHW(temperature[i], windSpeed[i], humidity[i]);
+  }
+
+  @Benchmark
+  public float derivedThsw()
+  {
+    int i = nextSample();
+    return Calculations.calculateTHSW(temperature[i], windSpeed[i], humidity[i], solarRad[i]);
+  }
+}
@@ -10,19 +10,39 @@
   Purpose:	The main Weather Station class.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Create the main window on the event dispatch thread.
+            10/19/26  Run as a data logger with no window given -headless or no display.
 */
 import gui.MainWindow;
+import headless.HeadlessLogger;
+
+import javax.swing.*;
+import java.awt.*;
 
 public class WeatherStation
 {
   public static void main (String[] args)
   {
-    new WeatherStation();
+    boolean headless = GraphicsEnvironment.isHeadless();
+    for (String arg : args)
+    {
+      if (arg.equalsIgnoreCase("-headless"))
+        headless = true;
+    }
+    new WeatherStation(System.nanoTime(), headless);
   }
 
-  private WeatherStation()
+  private WeatherStation(long startTime, boolean headless)
   {
-    // Initialize the GUI.
-    new MainWindow();
+    if (headless)
+    {
+      // Only log the data, with no window.
+      new HeadlessLogger(startTime).start();
+    }
+    else
+    {
+      // Initialize the GUI.
+      SwingUtilities.invokeLater(() -> new MainWindow(startTime));
+    }
   }
 }
@@ -0,0 +1,26 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This interface is implemented by each operation measured by the
+            benchmark runner.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package benchmark;
+
+public interface Benchmark
+{
+  /**
+   * Method to perform the operation once.
+   *
+   * @return A value computed by the operation.  The runner consumes it so the work can not be optimized away.
+   * @throws Exception Any error ends the benchmark.
+   */
+  long run() throws Exception;
+}
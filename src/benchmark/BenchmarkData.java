@@ -0,0 +1,183 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class builds the console packets used by the benchmarks
+            from the records of a generated month, so the packets hold the
+            same kind of values the console sends.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package benchmark;
+
+import data.dbrecord.WeatherRecord;
+import dbif.ArchiveMonth;
+import util.CCITT;
+import util.TimeUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+final class BenchmarkData
+{
+  static final int DMP_RECORD_SIZE = 52;
+  static final int DMP_PAGE_SIZE = 267;
+  static final int LOOP_SIZE = 99;
+  static final int HI_LOW_SIZE = 438;
+
+  private static final CCITT ccitt = new CCITT();
+
+  private BenchmarkData()
+  {
+  }
+
+  /**
+   * Method to convert the weather records of a month to the 52 byte Rev "B" records of the DMP pages.
+   *
+   * @param archive The month.
+   * @return The records, oldest first.
+   */
+  static List<byte[]> getDmpRecords(ArchiveMonth archive)
+  {
+    List<byte[]> records = new ArrayList<>();
+    for (int day = 1; day <= 31; day++)
+    {
+      if (!archive.hasDay(day))
+        continue;
+
+      LocalDateTime midnight = LocalDate.of(archive.getYear(), archive.getMonth(), day).atStartOfDay();
+      for (int index = 0; index < archive.getWeatherRecordCount(day); index++)
+      {
+        int offset = archive.getWeatherRecordOffset(day, index);
+        LocalDateTime start = midnight.plusMinutes(archive.getShort(offset, WeatherRecord.PACKED_TIME_OFFSET) -
+                                                     archive.getArchiveInterval(offset));
+
+        byte[] record = new byte[DMP_RECORD_SIZE];
+        Arrays.fill(record, (byte)0xFF);
+        ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort(0, TimeUtil.getDateStamp(start.getDayOfMonth(), start.getMonthValue(), start.getYear()));
+        buffer.putShort(2, TimeUtil.getTimestamp(start.getHour(), start.getMinute()));
+        buffer.putShort(4, archive.getShort(offset, WeatherRecord.OUTSIDE_TEMP_OFFSET));
+        buffer.putShort(6, archive.getShort(offset, WeatherRecord.HI_OUTSIDE_TEMP_OFFSET));
+        buffer.putShort(8, archive.getShort(offset, WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET));
+        buffer.putShort(10, (short)(archive.getShort(offset, WeatherRecord.RAIN_OFFSET) & 0x0FFF));
+        buffer.putShort(12, archive.getShort(offset, WeatherRecord.HI_RAIN_RATE_OFFSET));
+        buffer.putShort(14, archive.getShort(offset, WeatherRecord.BAROMETER_OFFSET));
+        buffer.putShort(16, archive.getShort(offset, WeatherRecord.SOLAR_RAD_OFFSET));
+        buffer.putShort(18, archive.getShort(offset, WeatherRecord.NUM_WIND_SAMPLES_OFFSET));
+        buffer.putShort(20, archive.getShort(offset, WeatherRecord.INSIDE_TEMP_OFFSET));
+        record[22] = (byte)(archive.getShort(offset, WeatherRecord.INSIDE_HUMID_OFFSET) / 10);
+        record[23] = (byte)(archive.getShort(offset, WeatherRecord.OUTSIDE_HUMID_OFFSET) / 10);
+        record[24] = (byte)(archive.getShort(offset, WeatherRecord.WIND_SPEED_OFFSET) / 10);
+        record[25] = (byte)(archive.getShort(offset, WeatherRecord.HI_WIND_SPEED_OFFSET) / 10);
+        record[26] = archive.getByte(offset, WeatherRecord.HI_WIND_DIR_OFFSET);
+        record[27] = archive.getByte(offset, WeatherRecord.WIND_DIR_OFFSET);
+        record[28] = archive.getByte(offset, WeatherRecord.UV_OFFSET);
+        record[29] = archive.getByte(offset, WeatherRecord.ET_OFFSET);
+        buffer.putShort(30, archive.getShort(offset, WeatherRecord.HI_SOLAR_OFFSET));
+        record[32] = archive.getByte(offset, WeatherRecord.HI_UV_OFFSET);
+        record[33] = archive.getByte(offset, WeatherRecord.FORECAST_OFFSET);
+        record[42] = 0x00; // Rev B record
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Method to build a DMP page of five records with its sequence number and CRC.
+   *
+   * @param records The records.
+   * @param first The index of the first record of the page.
+   * @return The page.
+   */
+  static byte[] getDmpPage(List<byte[]> records, int first)
+  {
+    byte[] page = new byte[DMP_PAGE_SIZE];
+    page[0] = (byte)(first / 5);
+    for (int i = 0; i < 5; i++)
+      System.arraycopy(records.get((first + i) % records.size()), 0, page, 1 + i * DMP_RECORD_SIZE, DMP_RECORD_SIZE);
+    for (int i = 261; i < 265; i++)
+      page[i] = (byte)0xFF;
+    addCrc(page);
+    return page;
+  }
+
+  /**
+   * Method to build a LOOP packet from a DMP record.
+   *
+   * @param record The DMP record.
+   * @return The packet.
+   */
+  static byte[] getLoopPacket(byte[] record)
+  {
+    byte[] packet = new byte[LOOP_SIZE];
+    Arrays.fill(packet, (byte)0xFF);
+    packet[0] = 'L';
+    packet[1] = 'O';
+    packet[2] = 'O';
+    packet[3] = 0;
+    packet[4] = 0;
+    packet[5] = 0;
+    packet[6] = 0;
+    System.arraycopy(record, 14, packet, 7, 2);   // barometer
+    System.arraycopy(record, 20, packet, 9, 2);   // inside temp
+    packet[11] = record[22];
+    System.arraycopy(record, 4, packet, 12, 2);   // outside temp
+    packet[14] = record[24];
+    packet[15] = record[24];
+    packet[16] = (byte)((record[27] & 0x0F) * 22);
+    packet[17] = 0;
+    packet[33] = record[23];
+    System.arraycopy(record, 12, packet, 41, 2);  // rain rate
+    packet[43] = record[28];
+    System.arraycopy(record, 16, packet, 44, 2);  // solar radiation
+    for (int i = 46; i < 56; i++)
+      packet[i] = 0;
+    for (int i = 70; i < 87; i++)
+      packet[i] = 0;
+    packet[95] = 0x0A;
+    packet[96] = 0x0D;
+    addCrc(packet);
+    return packet;
+  }
+
+  /**
+   * Method to build a HILOWS packet.  The decoder only copies the fields, so random values are enough.
+   *
+   * @param seed The seed of the values.
+   * @return The packet.
+   */
+  static byte[] getHiLowPacket(long seed)
+  {
+    byte[] packet = new byte[HI_LOW_SIZE];
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < HI_LOW_SIZE - 2; i++)
+      packet[i] = (byte)random.nextInt(100);
+    addCrc(packet);
+    return packet;
+  }
+
+  /**
+   * Internal method to put the CRC of a packet in its last two bytes.
+   *
+   * @param packet The packet.
+   */
+  private static void addCrc(byte[] packet)
+  {
+    byte[] crc = ccitt.calculateCRCByteArray(packet, packet.length - 2);
+    packet[packet.length - 2] = crc[0];
+    packet[packet.length - 1] = crc[1];
+  }
+}
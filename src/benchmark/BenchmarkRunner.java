@@ -0,0 +1,189 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class runs the benchmarks.  Each benchmark is run for a
+            number of warmup iterations so the JIT compiler has settled, then
+            for a number of measured iterations of a fixed time.  The
+            operations are run in batches sized so the clock is only read
+            about every 100 microseconds.  The results are the operations per
+            second and the bytes allocated per operation, taken from the
+            thread allocation counter of the JVM when it is supported.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class BenchmarkRunner
+{
+  private static final long BATCH_NANOS = 100_000;
+
+  // Written once per iteration with the values returned by the operations.
+  private static volatile long blackhole;
+
+  private final int warmupIterations;
+  private final int measuredIterations;
+  private final long iterationNanos;
+  private final com.sun.management.ThreadMXBean threadBean;
+
+  /**
+   * Constructor.
+   *
+   * @param warmupIterations The number of iterations run before measuring.
+   * @param measuredIterations The number of iterations measured.
+   * @param iterationMillis The length of each iteration in milliseconds.
+   */
+  public BenchmarkRunner(int warmupIterations, int measuredIterations, int iterationMillis)
+  {
+    this.warmupIterations = warmupIterations;
+    this.measuredIterations = Math.max(1, measuredIterations);
+    this.iterationNanos = iterationMillis * 1_000_000L;
+
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean &&
+        ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+    {
+      threadBean = (com.sun.management.ThreadMXBean)bean;
+      threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+    else
+    {
+      threadBean = null;
+    }
+  }
+
+  /**
+   * Method to print the heading of the result lines.
+   */
+  public void printHeading()
+  {
+    System.out.println(String.format("%-24s %14s %12s %12s %10s %5s",
+                                     "Benchmark", "ops/s", "error", "B/op", "MB/s", "GCs"));
+  }
+
+  /**
+   * Method to run a benchmark and print its result line.
+   *
+   * @param name The name of the benchmark.
+   * @param benchmark The operation.
+   * @throws Exception The operation failed.
+   */
+  public void run(String name, Benchmark benchmark) throws Exception
+  {
+    // Grow the batch until it takes long enough that reading the clock does not count.
+    int batchSize = 1;
+    while (runBatch(benchmark, batchSize) < BATCH_NANOS && batchSize < (1 << 24))
+      batchSize *= 2;
+
+    for (int i = 0; i < warmupIterations; i++)
+      runIteration(benchmark, batchSize);
+
+    double[] opsPerSecond = new double[measuredIterations];
+    long totalOps = 0;
+    long totalNanos = 0;
+    long totalBytes = 0;
+    long gcCount = getGcCount();
+    for (int i = 0; i < measuredIterations; i++)
+    {
+      long startBytes = getAllocatedBytes();
+      long[] result = runIteration(benchmark, batchSize);
+      totalBytes += getAllocatedBytes() - startBytes;
+      totalOps += result[0];
+      totalNanos += result[1];
+      opsPerSecond[i] = result[0] * 1e9 / result[1];
+    }
+    gcCount = getGcCount() - gcCount;
+
+    double mean = 0;
+    for (double value : opsPerSecond)
+      mean += value;
+    mean /= measuredIterations;
+    double variance = 0;
+    for (double value : opsPerSecond)
+      variance += (value - mean) * (value - mean);
+    double error = measuredIterations > 1 ? Math.sqrt(variance / (measuredIterations - 1)) : 0;
+
+    String bytesPerOp = "n/a";
+    String megabytesPerSecond = "n/a";
+    if (threadBean != null)
+    {
+      bytesPerOp = String.format("%.1f", totalBytes / (double)totalOps);
+      megabytesPerSecond = String.format("%.1f", totalBytes * 1e9 / totalNanos / (1024 * 1024));
+    }
+    System.out.println(String.format("%-24s %14.1f %12.1f %12s %10s %5d",
+                                     name, mean, error, bytesPerOp, megabytesPerSecond, gcCount));
+  }
+
+  /**
+   * Internal method to run batches until the iteration time has passed.
+   *
+   * @param benchmark The operation.
+   * @param batchSize The number of operations between clock readings.
+   * @return The number of operations and the nanoseconds taken.
+   * @throws Exception The operation failed.
+   */
+  private long[] runIteration(Benchmark benchmark, int batchSize) throws Exception
+  {
+    long operations = 0;
+    long elapsed = 0;
+    while (elapsed < iterationNanos)
+    {
+      elapsed += runBatch(benchmark, batchSize);
+      operations += batchSize;
+    }
+    return new long[] { operations, elapsed };
+  }
+
+  /**
+   * Internal method to run one batch of operations.
+   *
+   * @param benchmark The operation.
+   * @param batchSize The number of operations.
+   * @return The nanoseconds taken.
+   * @throws Exception The operation failed.
+   */
+  private long runBatch(Benchmark benchmark, int batchSize) throws Exception
+  {
+    long sink = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < batchSize; i++)
+      sink += benchmark.run();
+    long elapsed = System.nanoTime() - start;
+    blackhole += sink;
+    return elapsed;
+  }
+
+  /**
+   * Internal method to get the bytes allocated by this thread so far.
+   *
+   * @return The bytes or zero if the JVM does not count them.
+   */
+  private long getAllocatedBytes()
+  {
+    if (threadBean == null)
+      return 0;
+    return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Internal method to get the number of garbage collections so far.
+   *
+   * @return The total of all the collectors.
+   */
+  private static long getGcCount()
+  {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+      count += Math.max(0, collector.getCollectionCount());
+    return count;
+  }
+}
@@ -0,0 +1,354 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This program measures the hot paths of the weather station: the
+            decoding of a month database file, the appending of archive
+            records, the decoding of the console packets, the CRC and the
+            derived values.  A month is generated with a fixed seed into a
+            temporary directory so every run measures the same data.
+
+            The database is pointed at the temporary directory, so the append
+            benchmark writes through the DatabaseWriter without touching the
+            station database, and the indexes the writer feeds keep their
+            files in the temporary directory too.  It writes to a month in
+            2063, the last year the date stamp can hold.  The generated month
+            is the month before it, which the wind bins are loaded from.
+
+            The same benchmarks are run by JMH from the benchmark module.
+
+            Options: -warmup n -iterations n -time ms -seed n -filter text
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Decode the DMP page records in place.
+            10/19/26  Compare the table driven CRC with the byte at a time CRC.
+            10/19/26  Use a database reader of its own.
+            10/19/26  Run the append benchmark against the temporary directory.
+*/
+package benchmark;
+
+import algorithms.Calculations;
+import data.consolerecord.DmpData;
+import data.consolerecord.DmpDataExtended;
+import data.consolerecord.HiLoData;
+import data.consolerecord.LoopData;
+import data.dbrecord.WindBins;
+import dbif.ArchiveGenerator;
+import dbif.ArchiveMonth;
+import dbif.DatabaseCommon;
+import dbif.DatabaseReader;
+import dbif.DatabaseWriter;
+import util.CCITT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+public class WeatherBenchmarks
+{
+  static final int YEAR = 2024;
+  static final int MONTH = 1;
+  static final int APPEND_YEAR = 2063;
+  static final int DERIVED_SAMPLES = 1024;
+
+  private final BenchmarkRunner runner;
+  private final String filter;
+  private final ArchiveGenerator generator;
+  private final String directory;
+
+  /**
+   * Constructor.
+   *
+   * @param runner The benchmark runner.
+   * @param filter Only the benchmarks whose name contains this text are run, or null to run all.
+   * @param seed The seed of the generated data.
+   * @param directory The temporary directory of the generated data, ending with a separator.
+   */
+  private WeatherBenchmarks(BenchmarkRunner runner, String filter, long seed, String directory)
+  {
+    this.runner = runner;
+    this.filter = filter;
+    this.generator = new ArchiveGenerator(seed, 5);
+    this.directory = directory;
+  }
+
+  /**
+   * Internal method to run a benchmark if it passes the filter.
+   *
+   * @param name The benchmark name.
+   * @param benchmark The operation.
+   * @throws Exception The operation failed.
+   */
+  private void run(String name, Benchmark benchmark) throws Exception
+  {
+    if (filter == null || name.contains(filter))
+      runner.run(name, benchmark);
+  }
+
+  /**
+   * Internal method to set up the data and run all the benchmarks.
+   *
+   * @throws Exception A benchmark failed.
+   */
+  private void runAll() throws Exception
+  {
+    File monthFile = generator.writeMonth(directory, YEAR, MONTH);
+    String monthFilename = monthFile.getPath();
+    ArchiveMonth archive = ArchiveMonth.load(directory, YEAR, MONTH);
+    List<byte[]> dmpRecords = BenchmarkData.getDmpRecords(archive);
+
+    System.out.println("Generated " + monthFile.length() + " bytes, " + archive.getTotalRecords() + " records.");
+    runner.printHeading();
+
+    // Month storage
+    DatabaseReader reader = new DatabaseReader();
+    run("month.decode.reader", () ->
+    {
+      reader.readData(YEAR, MONTH, monthFilename);
+      return reader.getRowCount();
+    });
+    run("month.decode.archive", () -> ArchiveMonth.load(directory, YEAR, MONTH).getTotalRecords());
+    run("month.generate", () -> generator.generateMonth(YEAR, MONTH).length);
+    runAppend();
+
+    // Console packets
+    byte[] loopPacket = BenchmarkData.getLoopPacket(dmpRecords.get(dmpRecords.size() / 2));
+    byte[] hiLowPacket = BenchmarkData.getHiLowPacket(1);
+    byte[] dmpPage = BenchmarkData.getDmpPage(dmpRecords, 0);
+    run("packet.loop", () ->
+    {
+      LoopData loopData = new LoopData();
+      loopData.setData(loopPacket);
+      return loopData.getOutsideTempNative();
+    });
+    run("packet.hilow", () ->
+    {
+      HiLoData hiLoData = new HiLoData();
+      hiLoData.setData(hiLowPacket);
+      return hiLoData.getDailyHighPressureNative();
+    });
+    run("packet.dmp.page", () ->
+    {
+      // Decode the records in place the same as the CommandControl.
+      long total = 0;
+      for (int record = 0; record < 5; record++)
+      {
+        DmpData dmpData = new DmpData();
+        dmpData.setData(dmpPage, 1 + record * BenchmarkData.DMP_RECORD_SIZE);
+        total += dmpData.getOutsideTempNative();
+      }
+      return total;
+    });
+
+    // CRC
+    CCITT ccitt = new CCITT();
+    run("crc.loop", () -> ccitt.calculateCRC(loopPacket, loopPacket.length)[0]);
+    run("crc.page", () -> ccitt.calculateCRC(dmpPage, dmpPage.length)[0]);
+    run("crc.page.update", () -> CCITT.update(CCITT.INITIAL, dmpPage, 0, dmpPage.length));
+    run("crc.page.bytewise", () -> CCITT.updateBytewise(CCITT.INITIAL, dmpPage, 0, dmpPage.length));
+    run("crc.hilow.update", () -> CCITT.update(CCITT.INITIAL, hiLowPacket, 0, hiLowPacket.length));
+    run("crc.hilow.bytewise", () -> CCITT.updateBytewise(CCITT.INITIAL, hiLowPacket, 0, hiLowPacket.length));
+
+    // Derived values, cycling through the values of the generated records.
+    float[] temperature = new float[DERIVED_SAMPLES];
+    float[] windSpeed = new float[DERIVED_SAMPLES];
+    float[] humidity = new float[DERIVED_SAMPLES];
+    float[] solarRad = new float[DERIVED_SAMPLES];
+    for (int i = 0; i < DERIVED_SAMPLES; i++)
+    {
+      DmpData data = new DmpData();
+      data.setData(dmpRecords.get(i % dmpRecords.size()));
+      temperature[i] = data.getOutsideTemp();
+      windSpeed[i] = data.getAverageWindSpeed();
+      humidity[i] = data.getOutsideHumidity();
+      solarRad[i] = data.getSolarRadiation();
+    }
+    int[] next = new int[1];
+    run("derived.windchill", () ->
+    {
+      int i = next[0]++ & (DERIVED_SAMPLES - 1);
+      return Float.floatToRawIntBits(Calculations.calculateWindChill(temperature[i], windSpeed[i]));
+    });
+    run("derived.dewpoint", () ->
+    {
+      int i = next[0]++ & (DERIVED_SAMPLES - 1);
+      return Float.floatToRawIntBits(Calculations.calculateDewPoint(temperature[i], humidity[i]));
+    });
+    run("derived.heatindex", () ->
+    {
+      int i = next[0]++ & (DERIVED_SAMPLES - 1);
+      return Float.floatToRawIntBits(Calculations.calculateHeatIndex(temperature[i], humidity[i]));
+    });
+    run("derived.thw", () ->
+    {
+      int i = next[0]++ & (DERIVED_SAMPLES - 1);
+      return Float.floatToRawIntBits(Calculations.calculateTHW(temperature[i], windSpeed[i], humidity[i]));
+    });
+    run("derived.thsw", () ->
+    {
+      int i = next[0]++ & (DERIVED_SAMPLES - 1);
+      return Float.floatToRawIntBits(Calculations.calculateTHSW(temperature[i], windSpeed[i], humidity[i],
+                                                                solarRad[i]));
+    });
+
+    Files.deleteIfExists(monthFile.toPath());
+  }
+
+  /**
+   * Internal method to run the append benchmark.  Each operation stores one record and updates the summary
+   * records the same as the CommandControl does when a DMP page arrives.  The first day of the month is written
+   * over and over, removing the file each time the day is full.
+   *
+   * @throws Exception The benchmark failed.
+   */
+  private void runAppend() throws Exception
+  {
+    String name = "append.record";
+    if (filter != null && !name.contains(filter))
+      return;
+
+    DatabaseReader reader = new DatabaseReader();
+    File appendFile = new File(reader.getFilename(APPEND_YEAR, MONTH));
+    List<byte[]> records = getAppendRecords(generator, directory);
+
+    DatabaseWriter writer = new DatabaseWriter();
+    int[] next = new int[1];
+    try
+    {
+      run(name, () ->
+      {
+        if (next[0] == records.size())
+        {
+          Files.delete(appendFile.toPath());
+          next[0] = 0;
+        }
+        DmpDataExtended data = new DmpDataExtended();
+        data.setData(records.get(next[0]++));
+        writer.insertWeatherRecord(data);
+        data.calculateData(reader.getHeatDDTotal(), reader.getCoolDDTotal());
+        writer.updateSummaryRecords(data);
+        return data.getDateStamp();
+      });
+    }
+    finally
+    {
+      Files.deleteIfExists(appendFile.toPath());
+    }
+  }
+
+  /**
+   * Method to generate the records appended by the append benchmark, the first day of the append month.  The month
+   * is generated into a directory of its own so it is not seen by the database.  The wind bins are loaded from the
+   * latest file the first time they are used, so they are loaded here before the appended file becomes the latest.
+   *
+   * @param generator The generator of the records.
+   * @param directory The temporary database directory, ending with a separator.
+   * @return The DMP records of the day.
+   * @throws IOException The month could not be generated.
+   */
+  static List<byte[]> getAppendRecords(ArchiveGenerator generator, String directory) throws IOException
+  {
+    WindBins.getInstance();
+
+    File sourceDirectory = new File(directory, "source");
+    if (!sourceDirectory.isDirectory() && !sourceDirectory.mkdir())
+      throw new IOException("Unable to create " + sourceDirectory);
+    String sourcePath = sourceDirectory.getPath() + File.separator;
+    generator.writeMonth(sourcePath, APPEND_YEAR, MONTH);
+    ArchiveMonth source = ArchiveMonth.load(sourcePath, APPEND_YEAR, MONTH);
+    return BenchmarkData.getDmpRecords(source).subList(0, source.getWeatherRecordCount(1));
+  }
+
+  /**
+   * Method to remove the temporary directory and everything in it.  The indexes fed by the writer save their files
+   * from threads of their own, so anything that can not be removed is left to the system.
+   *
+   * @param directory The directory.
+   */
+  static void deleteDirectory(File directory)
+  {
+    File[] files = directory.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        if (file.isDirectory())
+          deleteDirectory(file);
+        else
+          file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args The options.
+   */
+  public static void main(String[] args)
+  {
+    int warmupIterations = 5;
+    int measuredIterations = 5;
+    int iterationMillis = 1000;
+    long seed = 1;
+    String filter = null;
+    try
+    {
+      for (int i = 0; i < args.length; i += 2)
+      {
+        String value = args[i + 1];
+        switch (args[i])
+        {
+          case "-warmup":
+            warmupIterations = Integer.parseInt(value);
+            break;
+          case "-iterations":
+            measuredIterations = Integer.parseInt(value);
+            break;
+          case "-time":
+            iterationMillis = Integer.parseInt(value);
+            break;
+          case "-seed":
+            seed = Long.parseLong(value);
+            break;
+          case "-filter":
+            filter = value;
+            break;
+          default:
+            throw new IllegalArgumentException(args[i]);
+        }
+      }
+    }
+    catch (RuntimeException e)
+    {
+      System.out.println("Usage: WeatherBenchmarks [-warmup n] [-iterations n] [-time ms] [-seed n] [-filter text]");
+      return;
+    }
+
+    File directory = null;
+    try
+    {
+      directory = Files.createTempDirectory("wxbench").toFile();
+      DatabaseCommon.setDirectory(directory.getPath() + File.separator);
+      BenchmarkRunner runner = new BenchmarkRunner(warmupIterations, measuredIterations, iterationMillis);
+      new WeatherBenchmarks(runner, filter, seed, directory.getPath() + File.separator).runAll();
+    }
+    catch (Exception e)
+    {
+      System.out.println("Benchmark failed: " + e);
+      e.printStackTrace();
+    }
+    finally
+    {
+      if (directory != null)
+        deleteDirectory(directory);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class replays the weather records of existing database files
+            as the archive records of the simulator.  The simulated clock
+            starts at the first month replayed, so as the clock advances the
+            records become available to DMPAFT in the order they were stored.
+            Point the program at an empty database directory to have the
+            records written again.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package consolesimulator;
+
+import data.dbrecord.WeatherRecord;
+import dbif.ArchiveMonth;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ArchiveReplay implements ArchiveSource
+{
+  private static final int MONTH_CACHE_SIZE = 3;
+
+  private final String directory;
+  private final YearMonth firstMonth;
+  private final YearMonth lastMonth;
+
+  private final Map<YearMonth, ArchiveMonth> monthCache = new LinkedHashMap<YearMonth, ArchiveMonth>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<YearMonth, ArchiveMonth> eldest)
+    {
+      return size() > MONTH_CACHE_SIZE;
+    }
+  };
+  private final Set<YearMonth> missingMonths = new HashSet<>();
+
+  /**
+   * Constructor.
+   *
+   * @param directory The directory holding the database files, ending with a separator.
+   * @param firstMonth The first month to replay.
+   * @param lastMonth The last month to replay.
+   */
+  ArchiveReplay(String directory, YearMonth firstMonth, YearMonth lastMonth)
+  {
+    this.directory = directory;
+    this.firstMonth = firstMonth;
+    this.lastMonth = lastMonth;
+  }
+
+  @Override
+  public LocalDateTime getStartTime()
+  {
+    return firstMonth.atDay(1).atStartOfDay();
+  }
+
+  @Override
+  public List<byte[]> getRecordsAfter(LocalDateTime after, LocalDateTime until, int maxRecords)
+  {
+    // Work back from the current month so only the months holding the newest records are read.
+    Deque<byte[]> records = new ArrayDeque<>();
+    YearMonth month = YearMonth.from(until);
+    if (month.isAfter(lastMonth))
+      month = lastMonth;
+    YearMonth stopMonth = firstMonth;
+    if (after != null && YearMonth.from(after).isAfter(firstMonth))
+      stopMonth = YearMonth.from(after);
+
+    while (!month.isBefore(stopMonth) && records.size() < maxRecords)
+    {
+      ArchiveMonth archive = getMonth(month);
+      if (archive != null)
+      {
+        List<byte[]> monthRecords = getMonthRecords(archive, after, until);
+        for (int i = monthRecords.size() - 1; i >= 0 && records.size() < maxRecords; i--)
+          records.addFirst(monthRecords.get(i));
+      }
+      month = month.minusMonths(1);
+    }
+    return new ArrayList<>(records);
+  }
+
+  /**
+   * Internal method to get the records of a month that are in the time range.
+   *
+   * @param archive The month.
+   * @param after The start time of the last record the client has, or null for no limit.
+   * @param until The current simulated time.
+   * @return The 52 byte DMP records, oldest first.
+   */
+  private List<byte[]> getMonthRecords(ArchiveMonth archive, LocalDateTime after, LocalDateTime until)
+  {
+    List<byte[]> records = new ArrayList<>();
+    YearMonth month = YearMonth.of(archive.getYear(), archive.getMonth());
+    for (int day = 1; day <= month.lengthOfMonth(); day++)
+    {
+      if (!archive.hasDay(day))
+        continue;
+
+      LocalDateTime midnight = LocalDate.of(archive.getYear(), archive.getMonth(), day).atStartOfDay();
+      for (int index = 0; index < archive.getWeatherRecordCount(day); index++)
+      {
+        int recordOffset = archive.getWeatherRecordOffset(day, index);
+        if (archive.getDataType(recordOffset) != ArchiveMonth.WEATHER_RECORD_TYPE)
+          continue;
+
+        // The database time is the end of the interval, the DMP time is the start.
+        LocalDateTime end = midnight.plusMinutes(archive.getShort(recordOffset, WeatherRecord.PACKED_TIME_OFFSET));
+        LocalDateTime start = end.minusMinutes(archive.getArchiveInterval(recordOffset));
+        if (end.isAfter(until))
+          return records;
+        if (after != null && !start.isAfter(after))
+          continue;
+
+        records.add(convertRecord(archive, recordOffset, start));
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Internal method to convert a database weather record to a DMP record.  This is the reverse of what the
+   * DatabaseWriter does when it stores a DMP record.
+   *
+   * @param archive The month.
+   * @param recordOffset The byte offset of the weather record.
+   * @param start The start of the interval of the record.
+   * @return The 52 byte DMP record.
+   */
+  private byte[] convertRecord(ArchiveMonth archive, int recordOffset, LocalDateTime start)
+  {
+    byte[] record = DmpRecord.create(start);
+    DmpRecord.putShort(record, DmpRecord.OUTSIDE_TEMP_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.OUTSIDE_TEMP_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.HI_OUTSIDE_TEMP_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.HI_OUTSIDE_TEMP_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.LOW_OUTSIDE_TEMP_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET));
+    // The upper nibble of the stored rain holds the collector type.
+    DmpRecord.putShort(record, DmpRecord.RAINFALL_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.RAIN_OFFSET) & 0x0FFF);
+    DmpRecord.putShort(record, DmpRecord.HI_RAIN_RATE_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.HI_RAIN_RATE_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.BAROMETER_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.BAROMETER_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.SOLAR_RAD_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.SOLAR_RAD_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.NUM_WIND_SAMPLES_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.NUM_WIND_SAMPLES_OFFSET));
+    DmpRecord.putShort(record, DmpRecord.INSIDE_TEMP_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.INSIDE_TEMP_OFFSET));
+    record[DmpRecord.INSIDE_HUMID_OFFSET] =
+      tenthsToByte(archive.getShort(recordOffset, WeatherRecord.INSIDE_HUMID_OFFSET));
+    record[DmpRecord.OUTSIDE_HUMID_OFFSET] =
+      tenthsToByte(archive.getShort(recordOffset, WeatherRecord.OUTSIDE_HUMID_OFFSET));
+    record[DmpRecord.AVG_WIND_SPEED_OFFSET] =
+      tenthsToByte(archive.getShort(recordOffset, WeatherRecord.WIND_SPEED_OFFSET));
+    record[DmpRecord.HI_WIND_SPEED_OFFSET] =
+      tenthsToByte(archive.getShort(recordOffset, WeatherRecord.HI_WIND_SPEED_OFFSET));
+    record[DmpRecord.HI_WIND_DIR_OFFSET] = archive.getByte(recordOffset, WeatherRecord.HI_WIND_DIR_OFFSET);
+    record[DmpRecord.PREVAILING_DIR_OFFSET] = archive.getByte(recordOffset, WeatherRecord.WIND_DIR_OFFSET);
+    record[DmpRecord.AVG_UV_OFFSET] = archive.getByte(recordOffset, WeatherRecord.UV_OFFSET);
+    record[DmpRecord.ET_OFFSET] = archive.getByte(recordOffset, WeatherRecord.ET_OFFSET);
+    DmpRecord.putShort(record, DmpRecord.HI_SOLAR_RAD_OFFSET,
+                       archive.getShort(recordOffset, WeatherRecord.HI_SOLAR_OFFSET));
+    record[DmpRecord.HI_UV_OFFSET] = archive.getByte(recordOffset, WeatherRecord.HI_UV_OFFSET);
+    record[DmpRecord.FORECAST_RULE_OFFSET] = archive.getByte(recordOffset, WeatherRecord.FORECAST_OFFSET);
+    record[DmpRecord.SOIL_TEMP_1_OFFSET] = archive.getByte(recordOffset, WeatherRecord.SOIL_TEMP_1_OFFSET);
+    return record;
+  }
+
+  /**
+   * Internal method to convert a value stored in tenths to the whole value byte of the DMP record.
+   *
+   * @param tenths The stored value.
+   * @return The byte value or 0xFF if the value is dashed.
+   */
+  private byte tenthsToByte(short tenths)
+  {
+    if (tenths < 0 || tenths > 2540)
+      return (byte)0xFF;
+    return (byte)Math.round(tenths / 10f);
+  }
+
+  /**
+   * Internal method to get a month, reading it if it is not cached.
+   *
+   * @param month The month.
+   * @return The month or null if there is no database file for it.
+   */
+  private ArchiveMonth getMonth(YearMonth month)
+  {
+    if (missingMonths.contains(month))
+      return null;
+
+    ArchiveMonth archive = monthCache.get(month);
+    if (archive == null)
+    {
+      try
+      {
+        archive = ArchiveMonth.load(directory, month.getYear(), month.getMonthValue());
+        monthCache.put(month, archive);
+      }
+      catch (IOException e)
+      {
+        System.out.println("No replay data for " + month + ": " + e.getMessage());
+        missingMonths.add(month);
+      }
+    }
+    return archive;
+  }
+}
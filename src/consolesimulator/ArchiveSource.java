@@ -0,0 +1,41 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This interface is implemented by the sources of the archive
+            records served by the simulator, either generated or replayed
+            from existing database files.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package consolesimulator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+interface ArchiveSource
+{
+  /**
+   * Method to get the simulated time the clock starts at.
+   *
+   * @return The start time or null to start at the current time.
+   */
+  LocalDateTime getStartTime();
+
+  /**
+   * Method to get the archive records that start after a given time and are complete by another time.  Only the
+   * newest records are returned when there are more than the maximum, the same as the console that only holds a
+   * fixed number of records.
+   *
+   * @param after The start time of the last record the client has, or null to return all records.
+   * @param until The current simulated time.
+   * @param maxRecords The maximum number of records to return.
+   * @return The 52 byte DMP records, oldest first.
+   */
+  List<byte[]> getRecordsAfter(LocalDateTime after, LocalDateTime until, int maxRecords);
+}
@@ -0,0 +1,113 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class defines the layout of the 52 byte Rev "B" archive
+            record returned by the console in the DMP and DMPAFT pages and
+            provides the helpers used by the simulator to build them.  The
+            values are little endian, the same as the console sends them.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package consolesimulator;
+
+import util.TimeUtil;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+final class DmpRecord
+{
+  static final int SIZE = 52;
+
+  static final int DATE_STAMP_OFFSET       = 0;
+  static final int TIME_STAMP_OFFSET       = 2;
+  static final int OUTSIDE_TEMP_OFFSET     = 4;
+  static final int HI_OUTSIDE_TEMP_OFFSET  = 6;
+  static final int LOW_OUTSIDE_TEMP_OFFSET = 8;
+  static final int RAINFALL_OFFSET         = 10;
+  static final int HI_RAIN_RATE_OFFSET     = 12;
+  static final int BAROMETER_OFFSET        = 14;
+  static final int SOLAR_RAD_OFFSET        = 16;
+  static final int NUM_WIND_SAMPLES_OFFSET = 18;
+  static final int INSIDE_TEMP_OFFSET      = 20;
+  static final int INSIDE_HUMID_OFFSET     = 22;
+  static final int OUTSIDE_HUMID_OFFSET    = 23;
+  static final int AVG_WIND_SPEED_OFFSET   = 24;
+  static final int HI_WIND_SPEED_OFFSET    = 25;
+  static final int HI_WIND_DIR_OFFSET      = 26;
+  static final int PREVAILING_DIR_OFFSET   = 27;
+  static final int AVG_UV_OFFSET           = 28;
+  static final int ET_OFFSET               = 29;
+  static final int HI_SOLAR_RAD_OFFSET     = 30;
+  static final int HI_UV_OFFSET            = 32;
+  static final int FORECAST_RULE_OFFSET    = 33;
+  static final int SOIL_TEMP_1_OFFSET      = 38;
+  static final int RECORD_TYPE_OFFSET      = 42;
+
+  private DmpRecord()
+  {
+  }
+
+  /**
+   * Method to create a record for the start of an archive interval.  All the sensor values are set to the no
+   * sensor value of 0xFF so only the sensors present need to be filled in.
+   *
+   * @param intervalStart The start of the archive interval.
+   * @return The record.
+   */
+  static byte[] create(LocalDateTime intervalStart)
+  {
+    byte[] record = new byte[SIZE];
+    Arrays.fill(record, (byte)0xFF);
+    putShort(record, DATE_STAMP_OFFSET, TimeUtil.getDateStamp(intervalStart.getDayOfMonth(),
+                                                              intervalStart.getMonthValue(),
+                                                              intervalStart.getYear()));
+    putShort(record, TIME_STAMP_OFFSET, TimeUtil.getTimestamp(intervalStart.getHour(), intervalStart.getMinute()));
+    record[RECORD_TYPE_OFFSET] = 0x00;
+    return record;
+  }
+
+  /**
+   * Method to create an empty record used to fill out the last page.  The date stamp is all 0xFF values which
+   * is never newer than the last record stored, so the record is discarded.
+   *
+   * @return The record.
+   */
+  static byte[] createEmpty()
+  {
+    byte[] record = new byte[SIZE];
+    Arrays.fill(record, (byte)0xFF);
+    return record;
+  }
+
+  /**
+   * Method to add a short field, low byte first.
+   *
+   * @param record The record.
+   * @param offset The offset of the field.
+   * @param value The value.
+   */
+  static void putShort(byte[] record, int offset, int value)
+  {
+    record[offset] = (byte)value;
+    record[offset + 1] = (byte)(value >> 8);
+  }
+
+  /**
+   * Method to read a short field, low byte first.
+   *
+   * @param record The record.
+   * @param offset The offset of the field.
+   * @return The value.
+   */
+  static short getShort(byte[] record, int offset)
+  {
+    return (short)((record[offset] & 0xFF) | (record[offset + 1] << 8));
+  }
+}
@@ -13,6 +13,7 @@
             The communications mechanism is replaced by a simple socket mechanism.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Options start the multi-client SimulatorServer.
 */
 package consolesimulator;
 
@@ -78,7 +79,10 @@ public class Simulator
 
   private boolean waitingForEEBWRData = false;
   
-  private Simulator()
+  /**
+   * Method to serve one client at a time in real time.
+   */
+  private void serveSingleClient()
   {
     while (true)
     {
@@ -430,7 +434,7 @@ public class Simulator
     }
   }
 
-  private byte[] getAlarmData()
+  byte[] getAlarmData()
   {
     byte[] alarmData = new byte[96];
 
@@ -822,7 +826,7 @@ public class Simulator
     return loopData;
   }
 
-  private byte[] getSimulatedHiLowData()
+  byte[] getSimulatedHiLowData()
   {
     byte[] hiLowData = new byte[438];
 
@@ -1218,6 +1222,9 @@ public class Simulator
   
   public static void main(String[] args)
   {
-    new Simulator();
+    if (args.length > 0)
+      SimulatorServer.main(args);
+    else
+      new Simulator().serveSingleClient();
   }
 }
@@ -0,0 +1,832 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is a version of the simulator meant for load and soak
+            testing.  A single thread serves any number of clients using a
+            selector, each client with its own protocol state.  The simulated
+            clock runs faster than real time by the acceleration factor, which
+            speeds up the LOOP packets, the console archive record pointer in
+            them and so the DMPAFT downloads.  The archive records are either
+            generated from a seed or replayed from existing database files.
+
+            Usage: SimulatorServer [-port n] [-speed factor] [-seed n]
+                                   [-interval minutes] [-start yyyy-mm-ddThh:mm]
+                                   [-replay directory yyyy-mm [yyyy-mm]]
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Check and add the DMPAFT CRC without copying.
+*/
+package consolesimulator;
+
+import data.consolerecord.PressureTrend;
+import util.CCITT;
+import util.TimeUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SimulatorServer
+{
+  private static final byte ACK = 0x06;
+  private static final byte NAK = 0x21;
+  private static final byte ESC = 0x1B;
+  private static final String WAKEUP_RESP = "\n\r";
+  private static final String OK_RESP = "\n\rOK\n\r";
+  private static final String TEST_RESPONSE = "TEST\n\r";
+  private static final String VERSION_RESP = OK_RESP + "Feb 05 1960\n\r";
+  private static final String RXCHECK_RESP = OK_RESP + "18167 76 0 1369 63\n\r";
+
+  private static final int CONSOLE_ARCHIVE_RECORDS = 2560;
+  private static final int RECORDS_PER_PAGE = 5;
+  private static final int PAGE_SIZE = 267;
+  private static final int LOOP_SIZE = 99;
+  private static final int DMPAFT_TIME_SIZE = 6;
+  private static final int INPUT_BUFFER_SIZE = 4096;
+  private static final long LOOP_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(2);
+  private static final long RXCHECK_DELAY_NANOS = TimeUnit.SECONDS.toNanos(3);
+  private static final long STATS_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(10);
+  private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+  private final int port;
+  private final double acceleration;
+  private final int archiveInterval;
+  private final ArchiveSource archiveSource;
+  private final LocalDateTime startTime;
+  private final Simulator cannedData = new Simulator();
+  private final CCITT ccitt = new CCITT();
+  private final List<Session> sessions = new ArrayList<>();
+
+  private long realStartTime;
+
+  // The archive record the LOOP packets are built from, replaced each time the simulated clock enters a new
+  // archive interval.  The rain totals are kept from the records seen since the simulator started.
+  private long loopInterval = -1;
+  private LocalDateTime loopRecordTime;
+  private byte[] loopRecord;
+  private int dayRain;
+  private int monthRain;
+  private int yearRain;
+
+  private long loopsSent;
+  private long pagesSent;
+  private long nextStatsTime;
+
+  /**
+   * The state of one client connection.
+   */
+  private static class Session
+  {
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private final ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+    private final Deque<ByteBuffer> output = new ArrayDeque<>();
+    private Simulator.StateValue state = Simulator.StateValue.WAITING_FOR_NEXT_CMD;
+    private int eebwrBytesRemaining;
+    private int loopsRemaining;
+    private long nextLoopTime;
+    private byte[] delayedResponse;
+    private long delayedResponseTime;
+    private List<byte[]> pages;
+    private int nextPage;
+
+    private Session(SocketChannel channel)
+    {
+      this.channel = channel;
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param port The port to listen on.
+   * @param acceleration The number of simulated seconds that pass each real second.
+   * @param archiveInterval The archive interval in minutes.
+   * @param archiveSource The source of the archive records.
+   * @param startTime The simulated time the clock starts at.
+   */
+  SimulatorServer(int port, double acceleration, int archiveInterval, ArchiveSource archiveSource,
+                  LocalDateTime startTime)
+  {
+    this.port = port;
+    this.acceleration = acceleration;
+    this.archiveInterval = archiveInterval;
+    this.archiveSource = archiveSource;
+    this.startTime = startTime;
+  }
+
+  /**
+   * Method to serve the clients.  This does not return unless the server socket fails.
+   *
+   * @throws IOException The server socket could not be opened.
+   */
+  void run() throws IOException
+  {
+    try (Selector selector = Selector.open();
+         ServerSocketChannel serverChannel = ServerSocketChannel.open())
+    {
+      serverChannel.bind(new InetSocketAddress(port));
+      serverChannel.configureBlocking(false);
+      serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+      System.out.println("Waiting for clients on port " + port + ", speed " + acceleration + "x, starting at " +
+                           startTime + "...");
+
+      realStartTime = System.nanoTime();
+      nextStatsTime = realStartTime + STATS_PERIOD_NANOS;
+      while (true)
+      {
+        long timeout = serviceTimers();
+        if (timeout == 0)
+          selector.selectNow();
+        else
+          selector.select(timeout);
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext())
+        {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try
+          {
+            if (key.isAcceptable())
+              accept(selector, serverChannel);
+            else if (key.isReadable())
+              read(key);
+            if (key.isValid() && key.isWritable())
+              flush((Session)key.attachment());
+          }
+          catch (IOException e)
+          {
+            close((Session)key.attachment(), e.getMessage());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Internal method to get the simulated time.
+   *
+   * @return The simulated time.
+   */
+  private LocalDateTime getSimulatedTime()
+  {
+    return startTime.plusNanos((long)((System.nanoTime() - realStartTime) * acceleration));
+  }
+
+  /**
+   * Internal method to accept a new client.
+   *
+   * @param selector The selector.
+   * @param serverChannel The server channel.
+   * @throws IOException The client could not be registered.
+   */
+  private void accept(Selector selector, ServerSocketChannel serverChannel) throws IOException
+  {
+    SocketChannel channel = serverChannel.accept();
+    if (channel == null)
+      return;
+
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    Session session = new Session(channel);
+    session.key = channel.register(selector, SelectionKey.OP_READ, session);
+    sessions.add(session);
+    System.out.println("Client connected from " + channel.getRemoteAddress() + ", " + sessions.size() + " clients.");
+  }
+
+  /**
+   * Internal method to read from a client and handle the commands received.
+   *
+   * @param key The selection key of the client.
+   * @throws IOException The read failed.
+   */
+  private void read(SelectionKey key) throws IOException
+  {
+    Session session = (Session)key.attachment();
+    int count = session.channel.read(session.input);
+    if (count == -1)
+    {
+      close(session, "disconnected");
+      return;
+    }
+
+    session.input.flip();
+    handleInput(session);
+    session.input.compact();
+
+    // A full buffer without a complete command is garbage.
+    if (!session.input.hasRemaining())
+      session.input.clear();
+  }
+
+  /**
+   * Internal method to handle the bytes received from a client.  Bytes that are not a complete command are left
+   * in the buffer for the next read.
+   *
+   * @param session The client.
+   * @throws IOException A response could not be sent.
+   */
+  private void handleInput(Session session) throws IOException
+  {
+    ByteBuffer input = session.input;
+    while (input.hasRemaining())
+    {
+      switch (session.state)
+      {
+        case WAITING_FOR_DMPAFT_TIME:
+          if (input.remaining() < DMPAFT_TIME_SIZE)
+            return;
+          byte[] dateTime = new byte[DMPAFT_TIME_SIZE];
+          input.get(dateTime);
+          handleDmpAftTime(session, dateTime);
+          break;
+
+        case SENDING_DMPAFT_DATA:
+          handlePageResponse(session, input.get());
+          break;
+
+        case WAITING_FOR_NEXT_CMD:
+          if (session.eebwrBytesRemaining > 0)
+          {
+            // Discard the EEPROM data and CRC.
+            int skip = Math.min(session.eebwrBytesRemaining, input.remaining());
+            input.position(input.position() + skip);
+            session.eebwrBytesRemaining -= skip;
+            break;
+          }
+
+          int end = -1;
+          for (int i = input.position(); i < input.limit() && end == -1; i++)
+          {
+            if (input.get(i) == '\n')
+              end = i;
+          }
+          if (end == -1)
+            return;
+
+          byte[] commandBytes = new byte[end - input.position() + 1];
+          input.get(commandBytes);
+          handleCommand(session, trimCommand(new String(commandBytes, StandardCharsets.US_ASCII)));
+          break;
+      }
+    }
+  }
+
+  /**
+   * Internal method to remove any stray bytes received ahead of a command, such as the ACK sent after the last
+   * DMPAFT page.
+   *
+   * @param command The command including the line feed.
+   * @return The command.
+   */
+  private String trimCommand(String command)
+  {
+    int start = 0;
+    while (start < command.length() - 1 && (command.charAt(start) < ' ' || command.charAt(start) > '~'))
+      start++;
+    return command.substring(start);
+  }
+
+  /**
+   * Internal method to handle a command.
+   *
+   * @param session The client.
+   * @param command The command including the line feed.
+   * @throws IOException A response could not be sent.
+   */
+  private void handleCommand(Session session, String command) throws IOException
+  {
+    if (command.equals("\n"))
+    {
+      // A wakeup stops any LOOP packets still to be sent, the same as the console.
+      session.loopsRemaining = 0;
+      send(session, WAKEUP_RESP.getBytes(StandardCharsets.US_ASCII));
+    }
+    else if (command.equals("TEST\n"))
+    {
+      send(session, TEST_RESPONSE.getBytes(StandardCharsets.US_ASCII));
+    }
+    else if (command.equals("VERS\n"))
+    {
+      send(session, VERSION_RESP.getBytes(StandardCharsets.US_ASCII));
+    }
+    else if (command.equals("RXCHECK\n"))
+    {
+      session.delayedResponse = RXCHECK_RESP.getBytes(StandardCharsets.US_ASCII);
+      session.delayedResponseTime = System.nanoTime() + (long)(RXCHECK_DELAY_NANOS / acceleration);
+    }
+    else if (command.equals("RECEIVERS\n"))
+    {
+      send(session, (OK_RESP + "\u0003").getBytes(StandardCharsets.US_ASCII));
+    }
+    else if (command.equals("GETTIME\n"))
+    {
+      send(session, getTimeResponse());
+    }
+    else if (command.equals("LAMPS 1\n") || command.equals("LAMPS 0\n"))
+    {
+      send(session, OK_RESP.getBytes(StandardCharsets.US_ASCII));
+    }
+    else if (command.equals("EEBRD 52 5E\n"))
+    {
+      send(session, new byte[]{ACK});
+      send(session, cannedData.getAlarmData());
+    }
+    else if (command.startsWith("EEBWR"))
+    {
+      // The command is EEBWR offset length, the data is followed by a CRC.
+      String[] fields = command.trim().split(" ");
+      try
+      {
+        session.eebwrBytesRemaining = Integer.parseInt(fields[2]) + 2;
+      }
+      catch (ArrayIndexOutOfBoundsException | NumberFormatException e)
+      {
+        System.out.println("Invalid EEPROM write: " + command.trim());
+      }
+      send(session, new byte[]{ACK});
+    }
+    else if (command.equals("HILOWS\n"))
+    {
+      send(session, new byte[]{ACK});
+      send(session, cannedData.getSimulatedHiLowData());
+    }
+    else if (command.equals("DMPAFT\n"))
+    {
+      // No ACK is sent, the client sends the date once the console is awake, the same as the single client
+      // simulator.
+      session.state = Simulator.StateValue.WAITING_FOR_DMPAFT_TIME;
+    }
+    else if (command.startsWith("LOOP "))
+    {
+      try
+      {
+        session.loopsRemaining = Integer.parseInt(command.substring(5).trim());
+        session.nextLoopTime = System.nanoTime();
+        send(session, new byte[]{ACK});
+      }
+      catch (NumberFormatException e)
+      {
+        send(session, new byte[]{NAK});
+      }
+    }
+    else
+    {
+      System.out.println("Unsupported command: " + command.trim());
+    }
+  }
+
+  /**
+   * Internal method to handle the date and time of the last record the client has.  The records after it are
+   * split into pages and the number of pages is returned.
+   *
+   * @param session The client.
+   * @param dateTime The date stamp, time stamp and CRC.
+   * @throws IOException The response could not be sent.
+   */
+  private void handleDmpAftTime(Session session, byte[] dateTime) throws IOException
+  {
+    if (CCITT.update(CCITT.INITIAL, dateTime, 0, dateTime.length) != 0)
+    {
+      System.out.println("DMPAFT time value failed CRC check.  Aborting DMPAFT protocol.");
+      session.state = Simulator.StateValue.WAITING_FOR_NEXT_CMD;
+      send(session, new byte[]{ESC});
+      return;
+    }
+
+    LocalDateTime after = getRecordTime(dateTime);
+    List<byte[]> records = archiveSource.getRecordsAfter(after, getSimulatedTime(), CONSOLE_ARCHIVE_RECORDS);
+    session.pages = createPages(records);
+    session.nextPage = 0;
+
+    byte[] response = new byte[7];
+    response[0] = ACK;
+    DmpRecord.putShort(response, 1, session.pages.size());
+    DmpRecord.putShort(response, 3, 0); // The first page always starts with the first record wanted.
+    int responseCrc = CCITT.update(CCITT.INITIAL, response, 1, 4);
+    response[5] = (byte)(responseCrc >> 8);
+    response[6] = (byte)responseCrc;
+    send(session, response);
+    System.out.println("DMPAFT after " + after + ": " + records.size() + " records in " + session.pages.size() +
+                         " pages.");
+
+    session.state = session.pages.isEmpty() ?
+      Simulator.StateValue.WAITING_FOR_NEXT_CMD : Simulator.StateValue.SENDING_DMPAFT_DATA;
+  }
+
+  /**
+   * Internal method to handle the response to a page.  An ACK asks for the next page, a NAK asks for the page
+   * again and an ESC cancels the download.
+   *
+   * @param session The client.
+   * @param response The response byte.
+   * @throws IOException The page could not be sent.
+   */
+  private void handlePageResponse(Session session, byte response) throws IOException
+  {
+    switch (response)
+    {
+      case ACK:
+        if (session.nextPage < session.pages.size())
+        {
+          send(session, session.pages.get(session.nextPage++));
+          pagesSent++;
+        }
+        else
+        {
+          session.state = Simulator.StateValue.WAITING_FOR_NEXT_CMD;
+        }
+        break;
+      case NAK:
+        if (session.nextPage > 0)
+          send(session, session.pages.get(session.nextPage - 1));
+        break;
+      case ESC:
+        System.out.println("Received a cancel command.");
+        session.state = Simulator.StateValue.WAITING_FOR_NEXT_CMD;
+        break;
+    }
+  }
+
+  /**
+   * Internal method to split the records into pages of 5 records.  The last page is filled out with empty records.
+   *
+   * @param records The records.
+   * @return The pages including the sequence number and CRC.
+   */
+  private List<byte[]> createPages(List<byte[]> records)
+  {
+    List<byte[]> pages = new ArrayList<>();
+    for (int first = 0; first < records.size(); first += RECORDS_PER_PAGE)
+    {
+      byte[] page = new byte[PAGE_SIZE];
+      page[0] = (byte)pages.size();
+      for (int i = 0; i < RECORDS_PER_PAGE; i++)
+      {
+        byte[] record = first + i < records.size() ? records.get(first + i) : DmpRecord.createEmpty();
+        System.arraycopy(record, 0, page, 1 + i * DmpRecord.SIZE, DmpRecord.SIZE);
+      }
+      for (int i = 1 + RECORDS_PER_PAGE * DmpRecord.SIZE; i < PAGE_SIZE - 2; i++)
+        page[i] = (byte)0xFF;
+
+      byte[] crcArray = ccitt.calculateCRCByteArray(page, PAGE_SIZE - 2);
+      page[PAGE_SIZE - 2] = crcArray[0];
+      page[PAGE_SIZE - 1] = crcArray[1];
+      pages.add(page);
+    }
+    return pages;
+  }
+
+  /**
+   * Internal method to send the LOOP packets and delayed responses that are due and print the statistics.
+   *
+   * @return The milliseconds until the next one is due or 0 if one is due now.
+   */
+  private long serviceTimers()
+  {
+    long now = System.nanoTime();
+    long nextDue = Long.MAX_VALUE;
+
+    if (now >= nextStatsTime)
+    {
+      System.out.println(getSimulatedTime() + ": " + sessions.size() + " clients, " + loopsSent + " LOOP packets, " +
+                           pagesSent + " DMPAFT pages.");
+      nextStatsTime = now + STATS_PERIOD_NANOS;
+    }
+
+    for (Session session : new ArrayList<>(sessions))
+    {
+      try
+      {
+        if (session.delayedResponse != null)
+        {
+          if (now >= session.delayedResponseTime)
+          {
+            send(session, session.delayedResponse);
+            session.delayedResponse = null;
+          }
+          else
+          {
+            nextDue = Math.min(nextDue, session.delayedResponseTime);
+          }
+        }
+
+        if (session.loopsRemaining > 0)
+        {
+          // Hold the packet back while the client is not keeping up.
+          if (now >= session.nextLoopTime && session.output.isEmpty())
+          {
+            send(session, getLoopPacket());
+            loopsSent++;
+            session.loopsRemaining--;
+            session.nextLoopTime = Math.max(session.nextLoopTime + (long)(LOOP_PERIOD_NANOS / acceleration), now);
+          }
+          if (session.loopsRemaining > 0)
+            nextDue = Math.min(nextDue, session.nextLoopTime);
+        }
+      }
+      catch (IOException e)
+      {
+        close(session, e.getMessage());
+      }
+    }
+
+    if (nextDue == Long.MAX_VALUE)
+      return TimeUnit.NANOSECONDS.toMillis(nextStatsTime - now) + 1;
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(Math.min(nextDue, nextStatsTime) - now));
+  }
+
+  /**
+   * Internal method to build a LOOP packet.  The values come from the archive record of the current interval and
+   * the archive record pointer from the number of intervals passed, so a new pointer is seen each interval.
+   *
+   * @return The LOOP packet.
+   */
+  private byte[] getLoopPacket()
+  {
+    LocalDateTime now = getSimulatedTime();
+    long interval = ChronoUnit.MINUTES.between(EPOCH, now) / archiveInterval;
+    if (interval != loopInterval)
+    {
+      updateLoopRecord(now);
+      loopInterval = interval;
+    }
+
+    byte[] loopData = new byte[LOOP_SIZE];
+    for (int i = 0; i < loopData.length; i++)
+      loopData[i] = (byte)0xFF;
+    loopData[0] = 'L';
+    loopData[1] = 'O';
+    loopData[2] = 'O';
+    loopData[3] = (byte)PressureTrend.STEADY.value();
+    loopData[4] = 0;
+    DmpRecord.putShort(loopData, 5, (int)(interval % CONSOLE_ARCHIVE_RECORDS));
+
+    if (loopRecord != null)
+    {
+      DmpRecord.putShort(loopData, 7, DmpRecord.getShort(loopRecord, DmpRecord.BAROMETER_OFFSET));
+      DmpRecord.putShort(loopData, 9, DmpRecord.getShort(loopRecord, DmpRecord.INSIDE_TEMP_OFFSET));
+      loopData[11] = loopRecord[DmpRecord.INSIDE_HUMID_OFFSET];
+      DmpRecord.putShort(loopData, 12, DmpRecord.getShort(loopRecord, DmpRecord.OUTSIDE_TEMP_OFFSET));
+      loopData[14] = loopRecord[DmpRecord.AVG_WIND_SPEED_OFFSET];
+      loopData[15] = loopRecord[DmpRecord.AVG_WIND_SPEED_OFFSET];
+      int direction = loopRecord[DmpRecord.PREVAILING_DIR_OFFSET] & 0xFF;
+      DmpRecord.putShort(loopData, 16, direction < 16 ? Math.round(direction * 22.5f) : 0);
+      loopData[25] = loopRecord[DmpRecord.SOIL_TEMP_1_OFFSET];
+      loopData[33] = loopRecord[DmpRecord.OUTSIDE_HUMID_OFFSET];
+      DmpRecord.putShort(loopData, 41, DmpRecord.getShort(loopRecord, DmpRecord.HI_RAIN_RATE_OFFSET));
+      loopData[43] = loopRecord[DmpRecord.AVG_UV_OFFSET];
+      DmpRecord.putShort(loopData, 44, DmpRecord.getShort(loopRecord, DmpRecord.SOLAR_RAD_OFFSET));
+    }
+    DmpRecord.putShort(loopData, 46, 0); // storm rain, no storm
+    DmpRecord.putShort(loopData, 50, dayRain);
+    DmpRecord.putShort(loopData, 52, monthRain);
+    DmpRecord.putShort(loopData, 54, yearRain);
+
+    // Alarms and battery status
+    for (int i = 70; i < 75; i++)
+      loopData[i] = 0;
+    loopData[86] = 0;
+    DmpRecord.putShort(loopData, 87, 563);
+
+    loopData[89] = 0x18; // forecast icons
+    loopData[90] = loopRecord != null ? loopRecord[DmpRecord.FORECAST_RULE_OFFSET] : 0;
+    DmpRecord.putShort(loopData, 91, TimeUtil.getPackedTime(6, 30));
+    DmpRecord.putShort(loopData, 93, TimeUtil.getPackedTime(17, 30));
+    loopData[95] = 0x0A; // LF
+    loopData[96] = 0x0D; // CR
+
+    byte[] crcArray = ccitt.calculateCRCByteArray(loopData, LOOP_SIZE - 2);
+    loopData[97] = crcArray[0];
+    loopData[98] = crcArray[1];
+    return loopData;
+  }
+
+  /**
+   * Internal method to move the LOOP record up to the newest archive record and add the rain of the records
+   * passed to the totals.
+   *
+   * @param now The simulated time.
+   */
+  private void updateLoopRecord(LocalDateTime now)
+  {
+    LocalDateTime after = loopRecordTime;
+    if (after == null)
+      after = now.toLocalDate().atStartOfDay().minusMinutes(1);
+
+    for (byte[] record : archiveSource.getRecordsAfter(after, now, CONSOLE_ARCHIVE_RECORDS))
+    {
+      LocalDateTime recordTime = getRecordTime(record);
+      if (recordTime == null)
+        continue;
+
+      if (loopRecordTime == null || recordTime.getYear() != loopRecordTime.getYear())
+        yearRain = 0;
+      if (loopRecordTime == null || recordTime.getMonthValue() != loopRecordTime.getMonthValue())
+        monthRain = 0;
+      if (loopRecordTime == null || !recordTime.toLocalDate().equals(loopRecordTime.toLocalDate()))
+        dayRain = 0;
+
+      int rain = DmpRecord.getShort(record, DmpRecord.RAINFALL_OFFSET);
+      dayRain += rain;
+      monthRain += rain;
+      yearRain += rain;
+      loopRecordTime = recordTime;
+      loopRecord = record;
+    }
+  }
+
+  /**
+   * Internal method to get the time of a record from its date stamp and time stamp.
+   *
+   * @param record The record or DMPAFT request.
+   * @return The time or null if the date is not valid.
+   */
+  private LocalDateTime getRecordTime(byte[] record)
+  {
+    short dateStamp = DmpRecord.getShort(record, DmpRecord.DATE_STAMP_OFFSET);
+    short timeStamp = DmpRecord.getShort(record, DmpRecord.TIME_STAMP_OFFSET);
+    if (dateStamp <= 0)
+      return null;
+
+    try
+    {
+      return LocalDateTime.of(TimeUtil.getYear(dateStamp), TimeUtil.getMonth(dateStamp), TimeUtil.getDay(dateStamp),
+                              TimeUtil.getHour(timeStamp), TimeUtil.getMinute(timeStamp));
+    }
+    catch (RuntimeException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Internal method to build the GETTIME response from the simulated time.
+   *
+   * @return The ACK, time and CRC.
+   */
+  private byte[] getTimeResponse()
+  {
+    LocalDateTime now = getSimulatedTime();
+    byte[] time = {(byte)now.getSecond(), (byte)now.getMinute(), (byte)now.getHour(), (byte)now.getDayOfMonth(),
+                   (byte)now.getMonthValue(), (byte)(now.getYear() - 1900)};
+    byte[] crcArray = ccitt.calculateCRCByteArray(time, time.length);
+
+    byte[] response = new byte[9];
+    response[0] = ACK;
+    System.arraycopy(time, 0, response, 1, time.length);
+    response[7] = crcArray[0];
+    response[8] = crcArray[1];
+    return response;
+  }
+
+  /**
+   * Internal method to queue bytes to a client and write as much as the socket will take.
+   *
+   * @param session The client.
+   * @param bytes The bytes.
+   * @throws IOException The write failed.
+   */
+  private void send(Session session, byte[] bytes) throws IOException
+  {
+    session.output.add(ByteBuffer.wrap(bytes));
+    flush(session);
+  }
+
+  /**
+   * Internal method to write the queued bytes of a client.  Write interest is only registered while bytes are
+   * waiting.
+   *
+   * @param session The client.
+   * @throws IOException The write failed.
+   */
+  private void flush(Session session) throws IOException
+  {
+    while (!session.output.isEmpty())
+    {
+      ByteBuffer buffer = session.output.peek();
+      session.channel.write(buffer);
+      if (buffer.hasRemaining())
+        break;
+      session.output.remove();
+    }
+
+    if (session.key.isValid())
+      session.key.interestOps(session.output.isEmpty() ?
+                                SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+  }
+
+  /**
+   * Internal method to close a client.
+   *
+   * @param session The client.
+   * @param reason The reason for closing.
+   */
+  private void close(Session session, String reason)
+  {
+    if (session == null || !sessions.remove(session))
+      return;
+
+    try
+    {
+      session.channel.close();
+    }
+    catch (IOException e)
+    {
+      System.out.println(e.getMessage());
+    }
+    System.out.println("Client " + reason + ", " + sessions.size() + " clients.");
+  }
+
+  public static void main(String[] args)
+  {
+    int port = 1234;
+    double acceleration = 1;
+    long seed = 0;
+    int archiveInterval = 5;
+    LocalDateTime startTime = null;
+    ArchiveSource archiveSource = null;
+
+    try
+    {
+      for (int i = 0; i < args.length; i++)
+      {
+        switch (args[i])
+        {
+          case "-port":
+            port = Integer.parseInt(args[++i]);
+            break;
+          case "-speed":
+            acceleration = Double.parseDouble(args[++i]);
+            break;
+          case "-seed":
+            seed = Long.parseLong(args[++i]);
+            break;
+          case "-interval":
+            archiveInterval = Integer.parseInt(args[++i]);
+            break;
+          case "-start":
+            startTime = LocalDateTime.parse(args[++i]);
+            break;
+          case "-replay":
+            String directory = args[++i];
+            if (!directory.endsWith(File.separator))
+              directory = directory + File.separator;
+            YearMonth firstMonth = YearMonth.parse(args[++i]);
+            YearMonth lastMonth = firstMonth;
+            if (i + 1 < args.length && !args[i + 1].startsWith("-"))
+              lastMonth = YearMonth.parse(args[++i]);
+            archiveSource = new ArchiveReplay(directory, firstMonth, lastMonth);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    }
+    catch (RuntimeException e)
+    {
+      System.out.println(e.getMessage());
+      System.out.println("Usage: SimulatorServer [-port n] [-speed factor] [-seed n] [-interval minutes]");
+      System.out.println("                       [-start yyyy-mm-ddThh:mm] [-replay directory yyyy-mm [yyyy-mm]]");
+      return;
+    }
+
+    if (archiveSource == null)
+      archiveSource = new WeatherModel(seed, archiveInterval, startTime);
+    if (startTime == null)
+      startTime = archiveSource.getStartTime();
+    if (startTime == null)
+      startTime = LocalDateTime.now();
+
+    try
+    {
+      new SimulatorServer(port, acceleration, archiveInterval, archiveSource, startTime).run();
+    }
+    catch (IOException e)
+    {
+      System.out.println(e.getMessage());
+    }
+  }
+}
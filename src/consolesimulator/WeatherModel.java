@@ -0,0 +1,290 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class generates synthetic weather for the simulator.  The
+            weather is a seasonal and daily cycle plus smooth noise.  The
+            noise is calculated from the seed and the time only, so the same
+            seed always produces the same weather at a given time no matter
+            which client asks or in what order.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package consolesimulator;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+class WeatherModel implements ArchiveSource
+{
+  private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+  private static final double DAYS_IN_YEAR = 365.25;
+
+  // The noise channels, one per value, so the values do not move together.
+  private static final int TEMP_CHANNEL = 1;
+  private static final int TEMP_SHORT_CHANNEL = 2;
+  private static final int CLOUD_CHANNEL = 3;
+  private static final int RAIN_CHANNEL = 4;
+  private static final int PRESSURE_CHANNEL = 5;
+  private static final int WIND_CHANNEL = 6;
+  private static final int WIND_SHORT_CHANNEL = 7;
+  private static final int GUST_CHANNEL = 8;
+  private static final int WIND_DIR_CHANNEL = 9;
+  private static final int INSIDE_CHANNEL = 10;
+
+  private final long seed;
+  private final int archiveInterval;
+  private final LocalDateTime startTime;
+
+  /**
+   * Constructor.
+   *
+   * @param seed The seed of the weather.
+   * @param archiveInterval The archive interval in minutes.
+   * @param startTime The simulated time the clock starts at or null to start at the current time.
+   */
+  WeatherModel(long seed, int archiveInterval, LocalDateTime startTime)
+  {
+    this.seed = seed;
+    this.archiveInterval = archiveInterval;
+    this.startTime = startTime;
+  }
+
+  @Override
+  public LocalDateTime getStartTime()
+  {
+    return startTime;
+  }
+
+  @Override
+  public List<byte[]> getRecordsAfter(LocalDateTime after, LocalDateTime until, int maxRecords)
+  {
+    // The newest record is the last one to have ended by the current time.
+    LocalDateTime newest = floorToInterval(until).minusMinutes(archiveInterval);
+    LocalDateTime first = newest.minusMinutes((long)(maxRecords - 1) * archiveInterval);
+    if (after != null)
+    {
+      LocalDateTime firstAfter = floorToInterval(after).plusMinutes(archiveInterval);
+      if (firstAfter.isAfter(first))
+        first = firstAfter;
+    }
+
+    List<byte[]> records = new ArrayList<>();
+    for (LocalDateTime time = first; !time.isAfter(newest); time = time.plusMinutes(archiveInterval))
+      records.add(getArchiveRecord(time, archiveInterval));
+    return records;
+  }
+
+  /**
+   * Method to generate the archive record of an interval.  The weather is sampled each minute of the interval to
+   * get the averages, highs and lows.
+   *
+   * @param intervalStart The start of the interval.
+   * @param intervalMinutes The length of the interval in minutes.
+   * @return The 52 byte DMP record.
+   */
+  byte[] getArchiveRecord(LocalDateTime intervalStart, int intervalMinutes)
+  {
+    long startMinute = ChronoUnit.MINUTES.between(EPOCH, intervalStart);
+    double dayOfYear = intervalStart.getDayOfYear();
+
+    double tempSum = 0;
+    double highTemp = -Double.MAX_VALUE;
+    double lowTemp = Double.MAX_VALUE;
+    double windSum = 0;
+    double highWind = 0;
+    double solarSum = 0;
+    double highSolar = 0;
+    double highRainRate = 0;
+    double rainSum = 0;
+    for (int i = 0; i < intervalMinutes; i++)
+    {
+      long minute = startMinute + i;
+      double hour = intervalStart.getHour() + (intervalStart.getMinute() + i) / 60.0;
+
+      double temp = getOutsideTemp(minute, dayOfYear, hour);
+      tempSum += temp;
+      highTemp = Math.max(highTemp, temp);
+      lowTemp = Math.min(lowTemp, temp);
+
+      double wind = getWindSpeed(minute);
+      windSum += wind;
+      highWind = Math.max(highWind, wind + 3 + 5 * Math.abs(noise(GUST_CHANNEL, minute, 10)));
+
+      double solar = getSolarRadiation(minute, dayOfYear, hour);
+      solarSum += solar;
+      highSolar = Math.max(highSolar, solar);
+
+      double rainRate = getRainRate(minute);
+      highRainRate = Math.max(highRainRate, rainRate);
+      rainSum += rainRate / 60;
+    }
+    double outsideTemp = tempSum / intervalMinutes;
+    double seasonalTemp = getSeasonalTemp(dayOfYear);
+    double cloud = getCloudCover(startMinute);
+    double solar = solarSum / intervalMinutes;
+
+    byte[] record = DmpRecord.create(intervalStart);
+    DmpRecord.putShort(record, DmpRecord.OUTSIDE_TEMP_OFFSET, (int)Math.round(outsideTemp * 10));
+    DmpRecord.putShort(record, DmpRecord.HI_OUTSIDE_TEMP_OFFSET, (int)Math.round(highTemp * 10));
+    DmpRecord.putShort(record, DmpRecord.LOW_OUTSIDE_TEMP_OFFSET, (int)Math.round(lowTemp * 10));
+    DmpRecord.putShort(record, DmpRecord.RAINFALL_OFFSET, (int)Math.round(rainSum * 100));
+    DmpRecord.putShort(record, DmpRecord.HI_RAIN_RATE_OFFSET, (int)Math.round(highRainRate * 100));
+    DmpRecord.putShort(record, DmpRecord.BAROMETER_OFFSET,
+                       (int)Math.round(29920 + 350 * noise(PRESSURE_CHANNEL, startMinute, 2 * 24 * 60) -
+                                         100 * (cloud - 0.5)));
+    DmpRecord.putShort(record, DmpRecord.SOLAR_RAD_OFFSET, (int)Math.round(solar));
+    DmpRecord.putShort(record, DmpRecord.NUM_WIND_SAMPLES_OFFSET, intervalMinutes * 24);
+    DmpRecord.putShort(record, DmpRecord.INSIDE_TEMP_OFFSET,
+                       (int)Math.round(700 + 20 * noise(INSIDE_CHANNEL, startMinute, 12 * 60)));
+    record[DmpRecord.INSIDE_HUMID_OFFSET] =
+      (byte)Math.round(35 + 5 * noise(INSIDE_CHANNEL + 100, startMinute, 12 * 60));
+    record[DmpRecord.OUTSIDE_HUMID_OFFSET] =
+      (byte)Math.max(8, Math.min(100, Math.round(55 + 60 * (cloud - 0.5) - 1.5 * (outsideTemp - seasonalTemp))));
+    record[DmpRecord.AVG_WIND_SPEED_OFFSET] = (byte)Math.round(windSum / intervalMinutes);
+    record[DmpRecord.HI_WIND_SPEED_OFFSET] = (byte)Math.round(highWind);
+    byte windDirection = (byte)Math.floorMod(Math.round((noise(WIND_DIR_CHANNEL, startMinute, 24 * 60) + 1) * 12),
+                                             16);
+    record[DmpRecord.HI_WIND_DIR_OFFSET] = windDirection;
+    record[DmpRecord.PREVAILING_DIR_OFFSET] = windDirection;
+    record[DmpRecord.ET_OFFSET] = (byte)Math.round(solar / 1000 * 2.5 * intervalMinutes / 5);
+    DmpRecord.putShort(record, DmpRecord.HI_SOLAR_RAD_OFFSET, (int)Math.round(highSolar));
+    record[DmpRecord.FORECAST_RULE_OFFSET] = 0;
+    record[DmpRecord.SOIL_TEMP_1_OFFSET] = (byte)(Math.round(seasonalTemp) + 90);
+    return record;
+  }
+
+  /**
+   * Internal method to get the average temperature of the day of the year.  The coldest day is near January 20th.
+   *
+   * @param dayOfYear The day of the year.
+   * @return The temperature in degrees F.
+   */
+  private double getSeasonalTemp(double dayOfYear)
+  {
+    return 52 - 22 * Math.cos(2 * Math.PI * (dayOfYear - 20) / DAYS_IN_YEAR);
+  }
+
+  /**
+   * Internal method to get the outside temperature.  The warmest time of the day is 3 PM.
+   *
+   * @param minute The minute since the epoch.
+   * @param dayOfYear The day of the year.
+   * @param hour The hour of the day, including the fraction of the hour.
+   * @return The temperature in degrees F.
+   */
+  private double getOutsideTemp(long minute, double dayOfYear, double hour)
+  {
+    return getSeasonalTemp(dayOfYear) -
+      11 * Math.cos(2 * Math.PI * (hour - 3) / 24) +
+      10 * noise(TEMP_CHANNEL, minute, 3 * 24 * 60) +
+      3 * noise(TEMP_SHORT_CHANNEL, minute, 6 * 60);
+  }
+
+  /**
+   * Internal method to get the cloud cover.
+   *
+   * @param minute The minute since the epoch.
+   * @return The cloud cover, 0 for clear to 1 for overcast.
+   */
+  private double getCloudCover(long minute)
+  {
+    return (noise(CLOUD_CHANNEL, minute, 8 * 60) + 1) / 2;
+  }
+
+  /**
+   * Internal method to get the rain rate.  It only rains when it is nearly overcast.
+   *
+   * @param minute The minute since the epoch.
+   * @return The rain rate in inches per hour.
+   */
+  private double getRainRate(long minute)
+  {
+    double cloud = getCloudCover(minute);
+    if (cloud < 0.8 || noise(RAIN_CHANNEL, minute, 2 * 60) < 0)
+      return 0;
+    return (cloud - 0.8) * 5;
+  }
+
+  /**
+   * Internal method to get the wind speed.
+   *
+   * @param minute The minute since the epoch.
+   * @return The wind speed in MPH.
+   */
+  private double getWindSpeed(long minute)
+  {
+    return Math.max(0, 7 + 5 * noise(WIND_CHANNEL, minute, 6 * 60) + 3 * noise(WIND_SHORT_CHANNEL, minute, 60));
+  }
+
+  /**
+   * Internal method to get the solar radiation.  The day is longest at the summer solstice.
+   *
+   * @param minute The minute since the epoch.
+   * @param dayOfYear The day of the year.
+   * @param hour The hour of the day, including the fraction of the hour.
+   * @return The solar radiation in watts per square meter.
+   */
+  private double getSolarRadiation(long minute, double dayOfYear, double hour)
+  {
+    double season = Math.sin(2 * Math.PI * (dayOfYear - 80) / DAYS_IN_YEAR);
+    double dayLength = 12 + 3 * season;
+    double sunrise = 12 - dayLength / 2;
+    if (hour <= sunrise || hour >= sunrise + dayLength)
+      return 0;
+
+    double elevation = Math.sin(Math.PI * (hour - sunrise) / dayLength);
+    return 1000 * (0.75 + 0.25 * season) * elevation * (1 - 0.75 * getCloudCover(minute));
+  }
+
+  /**
+   * Internal method to get a smooth noise value.  Random values are picked at a fixed period from the seed and
+   * the values in between are blended.
+   *
+   * @param channel The value the noise is for.
+   * @param minute The minute since the epoch.
+   * @param periodMinutes The number of minutes between the random values.
+   * @return The noise, -1 to 1.
+   */
+  private double noise(int channel, long minute, int periodMinutes)
+  {
+    long knot = Math.floorDiv(minute, periodMinutes);
+    double fraction = (double)(minute - knot * periodMinutes) / periodMinutes;
+    double start = getKnotValue(channel, knot);
+    double end = getKnotValue(channel, knot + 1);
+    return start + (end - start) * (1 - Math.cos(Math.PI * fraction)) / 2;
+  }
+
+  /**
+   * Internal method to get the random value at a point in time.
+   *
+   * @param channel The value the noise is for.
+   * @param knot The number of the point in time.
+   * @return The random value, -1 to 1.
+   */
+  private double getKnotValue(int channel, long knot)
+  {
+    return new SplittableRandom(seed ^ knot * 0x9E3779B97F4A7C15L ^ (long)channel << 48).nextDouble() * 2 - 1;
+  }
+
+  /**
+   * Internal method to round a time down to the start of the archive interval it is in.
+   *
+   * @param time The time.
+   * @return The start of the interval.
+   */
+  private LocalDateTime floorToInterval(LocalDateTime time)
+  {
+    LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+    int minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+    return minute.minusMinutes(minuteOfDay % archiveInterval);
+  }
+}
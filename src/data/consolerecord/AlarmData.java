@@ -11,11 +11,10 @@
             current data values on the console.  The data is written to the EE PROM.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added setData with an offset so the data can be decoded in place.
 */
 package data.consolerecord;
 
-import util.ByteUtil;
-
 import java.math.BigInteger;
 
 public class AlarmData
@@ -51,74 +50,86 @@ public class AlarmData
 
   /**
    * Method called to set the data in one shot based on the buffer received from the console.
+   *
+   * @param buffer The bytes received from the console, starting with the first byte of the data.
    */
   public void setData (byte[] buffer)
   {
-    System.out.println(ByteUtil.bytesToHex(buffer)); // TODO: remove...
+    setData(buffer, 0);
+  }
+
+  /**
+   * Method called to set the data in one shot based on the buffer received from the console.
+   *
+   * @param buffer The bytes received from the console.
+   * @param offset The index of the first byte of the data within the buffer.
+   */
+  public void setData (byte[] buffer, int offset)
+  {
     byte[] tempBuffer = new byte[2];
 
     // Extract the barometer trends.
-    barRiseAlarm = buffer[0];
-    barFallAlarm = buffer[1];
+    barRiseAlarm = buffer[offset];
+    barFallAlarm = buffer[offset + 1];
 
     // Extract the time alarm.
-    tempBuffer[0] = buffer[3];
-    tempBuffer[1] = buffer[2];
+    tempBuffer[0] = buffer[offset + 3];
+    tempBuffer[1] = buffer[offset + 2];
     timeAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the time comp alarm.
-    tempBuffer[0] = buffer[5];
-    tempBuffer[1] = buffer[4];
+    tempBuffer[0] = buffer[offset + 5];
+    tempBuffer[1] = buffer[offset + 4];
     timeCompAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the temperature alarms.
-    lowInTempAlarm = buffer[6];
-    highInTempAlarm = buffer[7];
-    lowOutTempAlarm = buffer[8];
-    highOutTempAlarm = buffer[9];
-    lowSoil1TempAlarm = buffer[17];
-    highSoil1TempAlarm = buffer[32];
+    lowInTempAlarm = buffer[offset + 6];
+    highInTempAlarm = buffer[offset + 7];
+    lowOutTempAlarm = buffer[offset + 8];
+    highOutTempAlarm = buffer[offset + 9];
+    lowSoil1TempAlarm = buffer[offset + 17];
+    highSoil1TempAlarm = buffer[offset + 32];
 
     // Extract the humidity alarms.
-    lowInHumidAlarm = buffer[40];
-    highInHumidAlarm = buffer[41];
-    lowOutHumidAlarm = buffer[42];
-    highOutHumidAlarm = buffer[50];
+    lowInHumidAlarm = buffer[offset + 40];
+    highInHumidAlarm = buffer[offset + 41];
+    lowOutHumidAlarm = buffer[offset + 42];
+    highOutHumidAlarm = buffer[offset + 50];
 
     // Extract the various calculated temperature alarms.
-    lowDewAlarm = buffer[58];
-    highDewAlarm = buffer[59];
-    windChillAlarm = buffer[60];
-    heatIndexAlarm = buffer[61];
-    thswAlarm = buffer[62];
+    lowDewAlarm = buffer[offset + 58];
+    highDewAlarm = buffer[offset + 59];
+    windChillAlarm = buffer[offset + 60];
+    heatIndexAlarm = buffer[offset + 61];
+    thswAlarm = buffer[offset + 62];
 
     // Extract the wind alarms.
-    windSpeedAlarm = buffer[63];
-    windSpeed10MinAlarm = buffer[64];
+    windSpeedAlarm = buffer[offset + 63];
+    windSpeed10MinAlarm = buffer[offset + 64];
 
     // Extract the solar alarm.
-    tempBuffer[0] = buffer[84];
-    tempBuffer[1] = buffer[83];
+    tempBuffer[0] = buffer[offset + 84];
+    tempBuffer[1] = buffer[offset + 83];
     solarAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the rain rate alarm.
-    tempBuffer[0] = buffer[86];
-    tempBuffer[1] = buffer[85];
+    tempBuffer[0] = buffer[offset + 86];
+    tempBuffer[1] = buffer[offset + 85];
     rainRateAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the 15 minute rain alarm.
-    tempBuffer[0] = buffer[88];
-    tempBuffer[1] = buffer[87];
+    tempBuffer[0] = buffer[offset + 88];
+    tempBuffer[1] = buffer[offset + 87];
     rain15MinAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the 24 hour rain alarm.
-    tempBuffer[0] = buffer[90];
-    tempBuffer[1] = buffer[89];
+    tempBuffer[0] = buffer[offset + 90];
+    tempBuffer[1] = buffer[offset + 89];
     rain24HrAlarm = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the storm rain alarm.
-    tempBuffer[0] = buffer[92];
-    tempBuffer[1] = buffer[91];
+    tempBuffer[0] = buffer[offset + 92];
+    tempBuffer[1] = buffer[offset + 91];
     rainStormAlarm = (short) new BigInteger(tempBuffer).intValue();
   }
 
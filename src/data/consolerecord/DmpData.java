@@ -16,6 +16,7 @@
   Mods:		  09/01/21  Initial Release.
             10/15/21  Fixed ET calculation.
             01/13/22  Added set methods.
+            10/19/26  Added setData with an offset so the data can be decoded in place.
 */
 package data.consolerecord;
 
@@ -58,84 +59,98 @@ public class DmpData
   /**
    * Method called to set the data in one shot based on the buffer received from the console.
    * Note that the fields with no sensor are not implemented.
+   *
+   * @param buffer The bytes received from the console, starting with the first byte of the data.
    */
   public void setData (byte[] buffer)
+  {
+    setData(buffer, 0);
+  }
+
+  /**
+   * Method called to set the data in one shot based on the buffer received from the console.
+   * Note that the fields with no sensor are not implemented.
+   *
+   * @param buffer The bytes received from the console.
+   * @param offset The index of the first byte of the data within the buffer.
+   */
+  public void setData (byte[] buffer, int offset)
   {
     byte[] tempBuffer = new byte[2];
 
     // Extract the Date values.
-    tempBuffer[0] = buffer[1];
-    tempBuffer[1] = buffer[0];
+    tempBuffer[0] = buffer[offset + 1];
+    tempBuffer[1] = buffer[offset];
     dateStamp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time values.
-    tempBuffer[0] = buffer[3];
-    tempBuffer[1] = buffer[2];
+    tempBuffer[0] = buffer[offset + 3];
+    tempBuffer[1] = buffer[offset + 2];
     timeStamp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Outside Temp.
-    tempBuffer[0] = buffer[5];
-    tempBuffer[1] = buffer[4];
+    tempBuffer[0] = buffer[offset + 5];
+    tempBuffer[1] = buffer[offset + 4];
     outsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the High Outside Temp.
-    tempBuffer[0] = buffer[7];
-    tempBuffer[1] = buffer[6];
+    tempBuffer[0] = buffer[offset + 7];
+    tempBuffer[1] = buffer[offset + 6];
     highOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Low Outside Temp.
-    tempBuffer[0] = buffer[9];
-    tempBuffer[1] = buffer[8];
+    tempBuffer[0] = buffer[offset + 9];
+    tempBuffer[1] = buffer[offset + 8];
     lowOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Rainfall.
-    tempBuffer[0] = buffer[11];
-    tempBuffer[1] = buffer[10];
+    tempBuffer[0] = buffer[offset + 11];
+    tempBuffer[1] = buffer[offset + 10];
     rainfall = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the High Rain Rate.
-    tempBuffer[0] = buffer[13];
-    tempBuffer[1] = buffer[12];
+    tempBuffer[0] = buffer[offset + 13];
+    tempBuffer[1] = buffer[offset + 12];
     highRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Pressure.
-    tempBuffer[0] = buffer[15];
-    tempBuffer[1] = buffer[14];
+    tempBuffer[0] = buffer[offset + 15];
+    tempBuffer[1] = buffer[offset + 14];
     pressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Solar Radiation.
-    tempBuffer[0] = buffer[17];
-    tempBuffer[1] = buffer[16];
+    tempBuffer[0] = buffer[offset + 17];
+    tempBuffer[1] = buffer[offset + 16];
     solarRadiation = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Number of Wind Samples.
-    tempBuffer[0] = buffer[19];
-    tempBuffer[1] = buffer[18];
+    tempBuffer[0] = buffer[offset + 19];
+    tempBuffer[1] = buffer[offset + 18];
     numOfWindSamples = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Inside Temp.
-    tempBuffer[0] = buffer[21];
-    tempBuffer[1] = buffer[20];
+    tempBuffer[0] = buffer[offset + 21];
+    tempBuffer[1] = buffer[offset + 20];
     insideTemp = (short) new BigInteger(tempBuffer).intValue();
 
-    insideHumidity     = buffer[22];
-    outsideHumidity    = buffer[23];
-    averageWindSpeed   = buffer[24];
-    highWindSpeed      = buffer[25];
-    highWindDirection  = buffer[26];
-    prevailingWindDir  = buffer[27];
-    averageUV          = buffer[28];
-    evapotranspiration = buffer[29];
+    insideHumidity     = buffer[offset + 22];
+    outsideHumidity    = buffer[offset + 23];
+    averageWindSpeed   = buffer[offset + 24];
+    highWindSpeed      = buffer[offset + 25];
+    highWindDirection  = buffer[offset + 26];
+    prevailingWindDir  = buffer[offset + 27];
+    averageUV          = buffer[offset + 28];
+    evapotranspiration = buffer[offset + 29];
 
     // Extract the High Solar Radiation.
-    tempBuffer[0] = buffer[31];
-    tempBuffer[1] = buffer[30];
+    tempBuffer[0] = buffer[offset + 31];
+    tempBuffer[1] = buffer[offset + 30];
     highSolarRadiation = (short) new BigInteger(tempBuffer).intValue();
   
-    highUVIndex  = buffer[32];
-    forecastRule = buffer[33];
+    highUVIndex  = buffer[offset + 32];
+    forecastRule = buffer[offset + 33];
 
-    soilTemp1 = buffer[38];
+    soilTemp1 = buffer[offset + 38];
 
     // Locations 34 - 51 are for soil, leaf and extra humidity readings
   }
@@ -14,6 +14,7 @@
             10/15/21  Fixed ET calculation.
             10/16/21  Removed ET print.
             01/11/21  Avoided ET error.
+            10/19/26  Use a database reader of its own.
 */
 package data.consolerecord;
 
@@ -27,7 +28,7 @@ import java.time.LocalDateTime;
 
 public class DmpDataExtended extends DmpData
 {
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private static final DatabaseReader dbReader = new DatabaseReader();
   private final ConfigProperties PROPS = ConfigProperties.instance();
 
   private float windChill;
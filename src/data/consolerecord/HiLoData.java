@@ -13,6 +13,8 @@
             command.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added update of the extremes from LOOP data.
+            10/19/26  Added setData with an offset so the data can be decoded in place.
 */
 package data.consolerecord;
 
@@ -23,6 +25,8 @@ public class HiLoData
   private static final float TENTHS = 10;
   private static final float HUNDREDTHS = 100;
   private static final float THOUSANDTHS = 1000;
+  private static final short DASHED_SHORT = 32767;
+  private static final byte DASHED_BYTE = (byte)255;
 
   // Private class variables.
   private short dailyLowPressure           = 0;
@@ -115,357 +119,552 @@ public class HiLoData
   /**
    * Method called to set the data in one shot based on the
    * buffer received from the console.
+   *
+   * @param buffer The bytes received from the console, starting with the first byte of the data.
    */
   public void setData (byte[] buffer)
+  {
+    setData(buffer, 0);
+  }
+
+  /**
+   * Method called to set the data in one shot based on the
+   * buffer received from the console.
+   *
+   * @param buffer The bytes received from the console.
+   * @param offset The index of the first byte of the data within the buffer.
+   */
+  public void setData (byte[] buffer, int offset)
   {
     byte[] tempBuffer = new byte[2];
 
     // Extract the Daily Low Pressure.
-    tempBuffer[0] = buffer[1];
-    tempBuffer[1] = buffer[0];
+    tempBuffer[0] = buffer[offset + 1];
+    tempBuffer[1] = buffer[offset];
     dailyLowPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily High Pressure.
-    tempBuffer[0] = buffer[3];
-    tempBuffer[1] = buffer[2];
+    tempBuffer[0] = buffer[offset + 3];
+    tempBuffer[1] = buffer[offset + 2];
     dailyHighPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Low Pressure.
-    tempBuffer[0] = buffer[5];
-    tempBuffer[1] = buffer[4];
+    tempBuffer[0] = buffer[offset + 5];
+    tempBuffer[1] = buffer[offset + 4];
     monthlyLowPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Pressure.
-    tempBuffer[0] = buffer[7];
-    tempBuffer[1] = buffer[6];
+    tempBuffer[0] = buffer[offset + 7];
+    tempBuffer[1] = buffer[offset + 6];
     monthlyHighPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Low Pressure.
-    tempBuffer[0] = buffer[9];
-    tempBuffer[1] = buffer[8];
+    tempBuffer[0] = buffer[offset + 9];
+    tempBuffer[1] = buffer[offset + 8];
     yearlyLowPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Pressure.
-    tempBuffer[0] = buffer[11];
-    tempBuffer[1] = buffer[10];
+    tempBuffer[0] = buffer[offset + 11];
+    tempBuffer[1] = buffer[offset + 10];
     yearlyHighPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Pressure.
-    tempBuffer[0] = buffer[13];
-    tempBuffer[1] = buffer[12];
+    tempBuffer[0] = buffer[offset + 13];
+    tempBuffer[1] = buffer[offset + 12];
     timeOfLowPressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Pressure.
-    tempBuffer[0] = buffer[15];
-    tempBuffer[1] = buffer[14];
+    tempBuffer[0] = buffer[offset + 15];
+    tempBuffer[1] = buffer[offset + 14];
     timeOfHighPressure = (short) new BigInteger(tempBuffer).intValue();
 
-    dailyHighWindSpeed = buffer[16];
+    dailyHighWindSpeed = buffer[offset + 16];
 
     // Extract the Time of Wind Speed.
-    tempBuffer[0] = buffer[18];
-    tempBuffer[1] = buffer[17];
+    tempBuffer[0] = buffer[offset + 18];
+    tempBuffer[1] = buffer[offset + 17];
     timeOfHighWindSpeed = (short) new BigInteger(tempBuffer).intValue();
 
-    monthlyHighWindSpeed = buffer[19];
-    yearlyHighWindSpeed = buffer[20];
+    monthlyHighWindSpeed = buffer[offset + 19];
+    yearlyHighWindSpeed = buffer[offset + 20];
 
     // Extract the Daily High Inside Temp.
-    tempBuffer[0] = buffer[22];
-    tempBuffer[1] = buffer[21];
+    tempBuffer[0] = buffer[offset + 22];
+    tempBuffer[1] = buffer[offset + 21];
     dailyHighInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily Low Inside Temp.
-    tempBuffer[0] = buffer[24];
-    tempBuffer[1] = buffer[23];
+    tempBuffer[0] = buffer[offset + 24];
+    tempBuffer[1] = buffer[offset + 23];
     dailyLowInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Inside Temp.
-    tempBuffer[0] = buffer[26];
-    tempBuffer[1] = buffer[25];
+    tempBuffer[0] = buffer[offset + 26];
+    tempBuffer[1] = buffer[offset + 25];
     timeOfHighInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Inside Temp.
-    tempBuffer[0] = buffer[28];
-    tempBuffer[1] = buffer[27];
+    tempBuffer[0] = buffer[offset + 28];
+    tempBuffer[1] = buffer[offset + 27];
     timeOfLowInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Low Inside Temp.
-    tempBuffer[0] = buffer[30];
-    tempBuffer[1] = buffer[29];
+    tempBuffer[0] = buffer[offset + 30];
+    tempBuffer[1] = buffer[offset + 29];
     monthlyLowInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Inside Temp.
-    tempBuffer[0] = buffer[32];
-    tempBuffer[1] = buffer[31];
+    tempBuffer[0] = buffer[offset + 32];
+    tempBuffer[1] = buffer[offset + 31];
     monthlyHighInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Low Inside Temp.
-    tempBuffer[0] = buffer[34];
-    tempBuffer[1] = buffer[33];
+    tempBuffer[0] = buffer[offset + 34];
+    tempBuffer[1] = buffer[offset + 33];
     yearlyLowInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Inside Temp.
-    tempBuffer[0] = buffer[36];
-    tempBuffer[1] = buffer[35];
+    tempBuffer[0] = buffer[offset + 36];
+    tempBuffer[1] = buffer[offset + 35];
     yearlyHighInsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
-    dailyHighInsideHumidity = buffer[37];
-    dailyLowInsideHumidity = buffer[38];
+    dailyHighInsideHumidity = buffer[offset + 37];
+    dailyLowInsideHumidity = buffer[offset + 38];
   
     // Extract the Time of High Inside Humidity.
-    tempBuffer[0] = buffer[40];
-    tempBuffer[1] = buffer[39];
+    tempBuffer[0] = buffer[offset + 40];
+    tempBuffer[1] = buffer[offset + 39];
     timeOfHighInsideHumidity = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Inside Humidity.
-    tempBuffer[0] = buffer[42];
-    tempBuffer[1] = buffer[41];
+    tempBuffer[0] = buffer[offset + 42];
+    tempBuffer[1] = buffer[offset + 41];
     timeOfLowInsideHumidity = (short) new BigInteger(tempBuffer).intValue();
 
-    monthlyHighInsideHumidity = buffer[43];
-    monthlyLowInsideHumidity = buffer[44];
-    yearlyHighInsideHumidity = buffer[45];
-    yearlyLowInsideHumidity = buffer[46];
+    monthlyHighInsideHumidity = buffer[offset + 43];
+    monthlyLowInsideHumidity = buffer[offset + 44];
+    yearlyHighInsideHumidity = buffer[offset + 45];
+    yearlyLowInsideHumidity = buffer[offset + 46];
 
     // Extract the Daily Low Outside Temp.
-    tempBuffer[0] = buffer[48];
-    tempBuffer[1] = buffer[47];
+    tempBuffer[0] = buffer[offset + 48];
+    tempBuffer[1] = buffer[offset + 47];
     dailyLowOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily High Outside Temp.
-    tempBuffer[0] = buffer[50];
-    tempBuffer[1] = buffer[49];
+    tempBuffer[0] = buffer[offset + 50];
+    tempBuffer[1] = buffer[offset + 49];
     dailyHighOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Outside Temp.
-    tempBuffer[0] = buffer[52];
-    tempBuffer[1] = buffer[51];
+    tempBuffer[0] = buffer[offset + 52];
+    tempBuffer[1] = buffer[offset + 51];
     timeOfLowOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Outside Temp.
-    tempBuffer[0] = buffer[54];
-    tempBuffer[1] = buffer[53];
+    tempBuffer[0] = buffer[offset + 54];
+    tempBuffer[1] = buffer[offset + 53];
     timeOfHighOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Outside Temp.
-    tempBuffer[0] = buffer[56];
-    tempBuffer[1] = buffer[55];
+    tempBuffer[0] = buffer[offset + 56];
+    tempBuffer[1] = buffer[offset + 55];
     monthlyHighOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Low Outside Temp.
-    tempBuffer[0] = buffer[58];
-    tempBuffer[1] = buffer[57];
+    tempBuffer[0] = buffer[offset + 58];
+    tempBuffer[1] = buffer[offset + 57];
     monthlyLowOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Outside Temp.
-    tempBuffer[0] = buffer[60];
-    tempBuffer[1] = buffer[59];
+    tempBuffer[0] = buffer[offset + 60];
+    tempBuffer[1] = buffer[offset + 59];
     yearlyHighOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Low Outside Temp.
-    tempBuffer[0] = buffer[62];
-    tempBuffer[1] = buffer[61];
+    tempBuffer[0] = buffer[offset + 62];
+    tempBuffer[1] = buffer[offset + 61];
     yearlyLowOutsideTemp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily Low Dew Point.
-    tempBuffer[0] = buffer[64];
-    tempBuffer[1] = buffer[63];
+    tempBuffer[0] = buffer[offset + 64];
+    tempBuffer[1] = buffer[offset + 63];
     dailyLowDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily High Dew Point.
-    tempBuffer[0] = buffer[66];
-    tempBuffer[1] = buffer[65];
+    tempBuffer[0] = buffer[offset + 66];
+    tempBuffer[1] = buffer[offset + 65];
     dailyHighDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Dew Point.
-    tempBuffer[0] = buffer[68];
-    tempBuffer[1] = buffer[67];
+    tempBuffer[0] = buffer[offset + 68];
+    tempBuffer[1] = buffer[offset + 67];
     timeOfLowDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Dew Point.
-    tempBuffer[0] = buffer[70];
-    tempBuffer[1] = buffer[69];
+    tempBuffer[0] = buffer[offset + 70];
+    tempBuffer[1] = buffer[offset + 69];
     timeOfHighDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Dew Point.
-    tempBuffer[0] = buffer[72];
-    tempBuffer[1] = buffer[71];
+    tempBuffer[0] = buffer[offset + 72];
+    tempBuffer[1] = buffer[offset + 71];
     monthlyHighDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Low Dew Point.
-    tempBuffer[0] = buffer[74];
-    tempBuffer[1] = buffer[73];
+    tempBuffer[0] = buffer[offset + 74];
+    tempBuffer[1] = buffer[offset + 73];
     monthlyLowDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Dew Point.
-    tempBuffer[0] = buffer[76];
-    tempBuffer[1] = buffer[75];
+    tempBuffer[0] = buffer[offset + 76];
+    tempBuffer[1] = buffer[offset + 75];
     yearlyHighDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Low Dew Point.
-    tempBuffer[0] = buffer[78];
-    tempBuffer[1] = buffer[77];
+    tempBuffer[0] = buffer[offset + 78];
+    tempBuffer[1] = buffer[offset + 77];
     yearlyLowDewPoint = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily Low Wind Chill.
-    tempBuffer[0] = buffer[80];
-    tempBuffer[1] = buffer[79];
+    tempBuffer[0] = buffer[offset + 80];
+    tempBuffer[1] = buffer[offset + 79];
     dailyLowWindChill = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Low Wind Chill.
-    tempBuffer[0] = buffer[82];
-    tempBuffer[1] = buffer[81];
+    tempBuffer[0] = buffer[offset + 82];
+    tempBuffer[1] = buffer[offset + 81];
     timeOfLowWindChill = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Low Wind Chill.
-    tempBuffer[0] = buffer[84];
-    tempBuffer[1] = buffer[83];
+    tempBuffer[0] = buffer[offset + 84];
+    tempBuffer[1] = buffer[offset + 83];
     monthlyLowWindChill = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Low Wind Chill.
-    tempBuffer[0] = buffer[86];
-    tempBuffer[1] = buffer[85];
+    tempBuffer[0] = buffer[offset + 86];
+    tempBuffer[1] = buffer[offset + 85];
     yearlyLowWindChill = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Daily High Heat Index.
-    tempBuffer[0] = buffer[88];
-    tempBuffer[1] = buffer[87];
+    tempBuffer[0] = buffer[offset + 88];
+    tempBuffer[1] = buffer[offset + 87];
     dailyHighHeatIndex = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Heat Index.
-    tempBuffer[0] = buffer[90];
-    tempBuffer[1] = buffer[89];
+    tempBuffer[0] = buffer[offset + 90];
+    tempBuffer[1] = buffer[offset + 89];
     timeOfHighHeatIndex = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Heat Index.
-    tempBuffer[0] = buffer[92];
-    tempBuffer[1] = buffer[91];
+    tempBuffer[0] = buffer[offset + 92];
+    tempBuffer[1] = buffer[offset + 91];
     monthlyHighHeatIndex = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Heat Index.
-    tempBuffer[0] = buffer[94];
-    tempBuffer[1] = buffer[93];
+    tempBuffer[0] = buffer[offset + 94];
+    tempBuffer[1] = buffer[offset + 93];
     yearlyHighHeatIndex = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the day's high THSW.
-    tempBuffer[0] = buffer[96];
-    tempBuffer[1] = buffer[95];
+    tempBuffer[0] = buffer[offset + 96];
+    tempBuffer[1] = buffer[offset + 95];
     dailyHighTHSW = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the time of day's high THSW.
-    tempBuffer[0] = buffer[98];
-    tempBuffer[1] = buffer[97];
+    tempBuffer[0] = buffer[offset + 98];
+    tempBuffer[1] = buffer[offset + 97];
     timeOfDailyHighTHSW = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the month's high THSW.
-    tempBuffer[0] = buffer[100];
-    tempBuffer[1] = buffer[99];
+    tempBuffer[0] = buffer[offset + 100];
+    tempBuffer[1] = buffer[offset + 99];
     monthlyHighTHSW = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the year's high THSW.
-    tempBuffer[0] = buffer[102];
-    tempBuffer[1] = buffer[101];
+    tempBuffer[0] = buffer[offset + 102];
+    tempBuffer[1] = buffer[offset + 101];
     yearlyHighTHSW = (short) new BigInteger(tempBuffer).intValue();
     
     // Extract the Daily High Solar Radiation.
-    tempBuffer[0] = buffer[104];
-    tempBuffer[1] = buffer[103];
+    tempBuffer[0] = buffer[offset + 104];
+    tempBuffer[1] = buffer[offset + 103];
     dailyHighSolarRadiation = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of Daily High Solar Radiation.
-    tempBuffer[0] = buffer[106];
-    tempBuffer[1] = buffer[105];
+    tempBuffer[0] = buffer[offset + 106];
+    tempBuffer[1] = buffer[offset + 105];
     timeOfHighSolarRadiation = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Solar Radiation.
-    tempBuffer[0] = buffer[108];
-    tempBuffer[1] = buffer[107];
+    tempBuffer[0] = buffer[offset + 108];
+    tempBuffer[1] = buffer[offset + 107];
     monthlyHighSolarRadiation = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Solar Radiation.
-    tempBuffer[0] = buffer[110];
-    tempBuffer[1] = buffer[109];
+    tempBuffer[0] = buffer[offset + 110];
+    tempBuffer[1] = buffer[offset + 109];
     yearlyHighSolarRadiation = (short) new BigInteger(tempBuffer).intValue();
   
-    dailyHighUV = buffer[111];
+    dailyHighUV = buffer[offset + 111];
   
     // Extract the Time of Daily High UV.
-    tempBuffer[0] = buffer[113];
-    tempBuffer[1] = buffer[112];
+    tempBuffer[0] = buffer[offset + 113];
+    tempBuffer[1] = buffer[offset + 112];
     timeOfDailyHighUV = (short) new BigInteger(tempBuffer).intValue();
     
-    monthlyHighUV = buffer[114];
-    yearlyHighUV = buffer[115];
+    monthlyHighUV = buffer[offset + 114];
+    yearlyHighUV = buffer[offset + 115];
   
     // Extract the Daily High Rain Rate.
-    tempBuffer[0] = buffer[117];
-    tempBuffer[1] = buffer[116];
+    tempBuffer[0] = buffer[offset + 117];
+    tempBuffer[1] = buffer[offset + 116];
     dailyHighRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Rain Rate.
-    tempBuffer[0] = buffer[119];
-    tempBuffer[1] = buffer[118];
+    tempBuffer[0] = buffer[offset + 119];
+    tempBuffer[1] = buffer[offset + 118];
     timeOfHighRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Hourly High Rain Rate.
-    tempBuffer[0] = buffer[121];
-    tempBuffer[1] = buffer[120];
+    tempBuffer[0] = buffer[offset + 121];
+    tempBuffer[1] = buffer[offset + 120];
     hourlyHighRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly High Rain Rate.
-    tempBuffer[0] = buffer[123];
-    tempBuffer[1] = buffer[122];
+    tempBuffer[0] = buffer[offset + 123];
+    tempBuffer[1] = buffer[offset + 122];
     monthlyHighRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly High Rain Rate.
-    tempBuffer[0] = buffer[125];
-    tempBuffer[1] = buffer[124];
+    tempBuffer[0] = buffer[offset + 125];
+    tempBuffer[1] = buffer[offset + 124];
     yearlyHighRainRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Location 126 - 275 are for extra leaf and soil values.
-    dailyLowSoil1Temp = buffer[133];
-    dailyHighSoil1Temp = buffer[148];
+    dailyLowSoil1Temp = buffer[offset + 133];
+    dailyHighSoil1Temp = buffer[offset + 148];
 
     // Extract the Time of Low Soil1 Temp.
-    tempBuffer[0] = buffer[172];
-    tempBuffer[1] = buffer[173];
+    tempBuffer[0] = buffer[offset + 172];
+    tempBuffer[1] = buffer[offset + 173];
     timeOfLowSoil1Temp = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Soil1 Temp.
-    tempBuffer[0] = buffer[202];
-    tempBuffer[1] = buffer[203];
+    tempBuffer[0] = buffer[offset + 202];
+    tempBuffer[1] = buffer[offset + 203];
     timeOfHighSoil1Temp = (short) new BigInteger(tempBuffer).intValue();
 
-    monthlyHighSoil1Temp = buffer[223];
-    monthlyLowSoil1Temp = buffer[238];
-    yearlyHighSoil1Temp = buffer[253];
-    yearlyLowSoil1Temp = buffer[268];
+    monthlyHighSoil1Temp = buffer[offset + 223];
+    monthlyLowSoil1Temp = buffer[offset + 238];
+    yearlyHighSoil1Temp = buffer[offset + 253];
+    yearlyLowSoil1Temp = buffer[offset + 268];
 
     // There are extra interspersed humidity readings in the next section
-    dailyLowOutsideHumidity = buffer[276];
-    dailyHighOutsideHumidity = buffer[284];
+    dailyLowOutsideHumidity = buffer[offset + 276];
+    dailyHighOutsideHumidity = buffer[offset + 284];
 
     // Extract the Time of Low Outside Humidity.
-    tempBuffer[0] = buffer[293];
-    tempBuffer[1] = buffer[292];
+    tempBuffer[0] = buffer[offset + 293];
+    tempBuffer[1] = buffer[offset + 292];
     timeOfLowOutsideHumidity = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Time of High Outside Humidity.
-    tempBuffer[0] = buffer[309];
-    tempBuffer[1] = buffer[308];
+    tempBuffer[0] = buffer[offset + 309];
+    tempBuffer[1] = buffer[offset + 308];
     timeOfHighOutsideHumidity = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the byte values.
-    monthlyHighOutsideHumidity = buffer[324];
-    monthlyLowOutsideHumidity  = buffer[332];
-    yearlyHighOutsideHumidity  = buffer[340];
-    yearlyLowOutsideHumidity   = buffer[348];
+    monthlyHighOutsideHumidity = buffer[offset + 324];
+    monthlyLowOutsideHumidity  = buffer[offset + 332];
+    yearlyHighOutsideHumidity  = buffer[offset + 340];
+    yearlyLowOutsideHumidity   = buffer[offset + 348];
     
     // Locations 356 - 395 are for soil moisture readings.
     // Locations 396 - 435 are for leaf wetness readings.
   }
 
+  /**
+   * Method called to fold the readings of a LOOP packet into the extremes.  This keeps the extremes current between
+   * HILOWS snapshots.  Dashed readings, sent when a sensor is missing, are ignored.  When a period starts over, its
+   * extremes are set to the current reading.
+   *
+   * @param loopData The LOOP data.
+   * @param time The time of day of the readings as hhmm.
+   * @param newDay Whether or not this is the first reading of the day.
+   * @param newMonth Whether or not this is the first reading of the month.
+   * @param newYear Whether or not this is the first reading of the year.
+   */
+  public void update(LoopData loopData, short time, boolean newDay, boolean newMonth, boolean newYear)
+  {
+    short pressure = (short)Math.round(loopData.getPressure() * THOUSANDTHS);
+    if (pressure != 0)
+    {
+      if (newDay || pressure < dailyLowPressure)
+      {
+        dailyLowPressure = pressure;
+        timeOfLowPressure = time;
+      }
+      if (newDay || pressure > dailyHighPressure)
+      {
+        dailyHighPressure = pressure;
+        timeOfHighPressure = time;
+      }
+      if (newMonth || pressure < monthlyLowPressure)
+        monthlyLowPressure = pressure;
+      if (newMonth || pressure > monthlyHighPressure)
+        monthlyHighPressure = pressure;
+      if (newYear || pressure < yearlyLowPressure)
+        yearlyLowPressure = pressure;
+      if (newYear || pressure > yearlyHighPressure)
+        yearlyHighPressure = pressure;
+    }
+
+    byte windSpeed = loopData.getWindSpeed();
+    if (windSpeed != DASHED_BYTE)
+    {
+      if (newDay || (windSpeed & 0xFF) > (dailyHighWindSpeed & 0xFF))
+      {
+        dailyHighWindSpeed = windSpeed;
+        timeOfHighWindSpeed = time;
+      }
+      if (newMonth || (windSpeed & 0xFF) > (monthlyHighWindSpeed & 0xFF))
+        monthlyHighWindSpeed = windSpeed;
+      if (newYear || (windSpeed & 0xFF) > (yearlyHighWindSpeed & 0xFF))
+        yearlyHighWindSpeed = windSpeed;
+    }
+
+    short insideTemp = (short)Math.round(loopData.getInsideTemp() * TENTHS);
+    if (insideTemp != DASHED_SHORT)
+    {
+      if (newDay || insideTemp < dailyLowInsideTemp)
+      {
+        dailyLowInsideTemp = insideTemp;
+        timeOfLowInsideTemp = time;
+      }
+      if (newDay || insideTemp > dailyHighInsideTemp)
+      {
+        dailyHighInsideTemp = insideTemp;
+        timeOfHighInsideTemp = time;
+      }
+      if (newMonth || insideTemp < monthlyLowInsideTemp)
+        monthlyLowInsideTemp = insideTemp;
+      if (newMonth || insideTemp > monthlyHighInsideTemp)
+        monthlyHighInsideTemp = insideTemp;
+      if (newYear || insideTemp < yearlyLowInsideTemp)
+        yearlyLowInsideTemp = insideTemp;
+      if (newYear || insideTemp > yearlyHighInsideTemp)
+        yearlyHighInsideTemp = insideTemp;
+    }
+
+    short outsideTemp = (short)Math.round(loopData.getOutsideTemp() * TENTHS);
+    if (outsideTemp != DASHED_SHORT)
+    {
+      if (newDay || outsideTemp < dailyLowOutsideTemp)
+      {
+        dailyLowOutsideTemp = outsideTemp;
+        timeOfLowOutsideTemp = time;
+      }
+      if (newDay || outsideTemp > dailyHighOutsideTemp)
+      {
+        dailyHighOutsideTemp = outsideTemp;
+        timeOfHighOutsideTemp = time;
+      }
+      if (newMonth || outsideTemp < monthlyLowOutsideTemp)
+        monthlyLowOutsideTemp = outsideTemp;
+      if (newMonth || outsideTemp > monthlyHighOutsideTemp)
+        monthlyHighOutsideTemp = outsideTemp;
+      if (newYear || outsideTemp < yearlyLowOutsideTemp)
+        yearlyLowOutsideTemp = outsideTemp;
+      if (newYear || outsideTemp > yearlyHighOutsideTemp)
+        yearlyHighOutsideTemp = outsideTemp;
+    }
+
+    byte insideHumidity = loopData.getInsideHumidity();
+    if (insideHumidity != DASHED_BYTE)
+    {
+      if (newDay || insideHumidity < dailyLowInsideHumidity)
+      {
+        dailyLowInsideHumidity = insideHumidity;
+        timeOfLowInsideHumidity = time;
+      }
+      if (newDay || insideHumidity > dailyHighInsideHumidity)
+      {
+        dailyHighInsideHumidity = insideHumidity;
+        timeOfHighInsideHumidity = time;
+      }
+      if (newMonth || insideHumidity < monthlyLowInsideHumidity)
+        monthlyLowInsideHumidity = insideHumidity;
+      if (newMonth || insideHumidity > monthlyHighInsideHumidity)
+        monthlyHighInsideHumidity = insideHumidity;
+      if (newYear || insideHumidity < yearlyLowInsideHumidity)
+        yearlyLowInsideHumidity = insideHumidity;
+      if (newYear || insideHumidity > yearlyHighInsideHumidity)
+        yearlyHighInsideHumidity = insideHumidity;
+    }
+
+    byte outsideHumidity = loopData.getOutsideHumidity();
+    if (outsideHumidity != DASHED_BYTE)
+    {
+      if (newDay || outsideHumidity < dailyLowOutsideHumidity)
+      {
+        dailyLowOutsideHumidity = outsideHumidity;
+        timeOfLowOutsideHumidity = time;
+      }
+      if (newDay || outsideHumidity > dailyHighOutsideHumidity)
+      {
+        dailyHighOutsideHumidity = outsideHumidity;
+        timeOfHighOutsideHumidity = time;
+      }
+      if (newMonth || outsideHumidity < monthlyLowOutsideHumidity)
+        monthlyLowOutsideHumidity = outsideHumidity;
+      if (newMonth || outsideHumidity > monthlyHighOutsideHumidity)
+        monthlyHighOutsideHumidity = outsideHumidity;
+      if (newYear || outsideHumidity < yearlyLowOutsideHumidity)
+        yearlyLowOutsideHumidity = outsideHumidity;
+      if (newYear || outsideHumidity > yearlyHighOutsideHumidity)
+        yearlyHighOutsideHumidity = outsideHumidity;
+    }
+
+    // The soil temperature is an unsigned byte offset by 90 degrees.
+    int soilTemp = loopData.getSoilTemp1() + 90;
+    if (soilTemp != (DASHED_BYTE & 0xFF))
+    {
+      if (newDay || soilTemp < (dailyLowSoil1Temp & 0xFF))
+      {
+        dailyLowSoil1Temp = (byte)soilTemp;
+        timeOfLowSoil1Temp = time;
+      }
+      if (newDay || soilTemp > (dailyHighSoil1Temp & 0xFF))
+      {
+        dailyHighSoil1Temp = (byte)soilTemp;
+        timeOfHighSoil1Temp = time;
+      }
+      if (newMonth || soilTemp < (monthlyLowSoil1Temp & 0xFF))
+        monthlyLowSoil1Temp = (byte)soilTemp;
+      if (newMonth || soilTemp > (monthlyHighSoil1Temp & 0xFF))
+        monthlyHighSoil1Temp = (byte)soilTemp;
+      if (newYear || soilTemp < (yearlyLowSoil1Temp & 0xFF))
+        yearlyLowSoil1Temp = (byte)soilTemp;
+      if (newYear || soilTemp > (yearlyHighSoil1Temp & 0xFF))
+        yearlyHighSoil1Temp = (byte)soilTemp;
+    }
+
+    short solarRadiation = loopData.getSolarRadiation();
+    if (solarRadiation != DASHED_SHORT)
+    {
+      if (newDay || solarRadiation > dailyHighSolarRadiation)
+      {
+        dailyHighSolarRadiation = solarRadiation;
+        timeOfHighSolarRadiation = time;
+      }
+      if (newMonth || solarRadiation > monthlyHighSolarRadiation)
+        monthlyHighSolarRadiation = solarRadiation;
+      if (newYear || solarRadiation > yearlyHighSolarRadiation)
+        yearlyHighSolarRadiation = solarRadiation;
+    }
+  }
+
   public float getDailyLowPressure()
   {
     return dailyLowPressure / THOUSANDTHS;
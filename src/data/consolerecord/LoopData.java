@@ -13,6 +13,7 @@
 
   Mods:		  09/01/21 Initial Release.
             10/18/21  Got Daily Solar Energy working.
+            10/19/26  Added setData with an offset so the data can be decoded in place.
 */
 package data.consolerecord;
 
@@ -111,146 +112,160 @@ public class LoopData
   /**
    * Method called to set the data in one shot based on the
    * buffer received from the console.
+   *
+   * @param buffer The bytes received from the console, starting with the first byte of the data.
    */
   public void setData (byte[] buffer)
+  {
+    setData(buffer, 0);
+  }
+
+  /**
+   * Method called to set the data in one shot based on the
+   * buffer received from the console.
+   *
+   * @param buffer The bytes received from the console.
+   * @param offset The index of the first byte of the data within the buffer.
+   */
+  public void setData (byte[] buffer, int offset)
   {
     byte[] tempBuffer = new byte[2];
 
     // Extract the barometer trend.
-    pressureTrend = buffer[3];
+    pressureTrend = buffer[offset + 3];
 
     // location 3 is packet type.  0 = LOOP, 1 = LOOP2.  Old console = 0, new console = ???
   
     // Extract the next record location.
-    tempBuffer[0] = buffer[6];
-    tempBuffer[1] = buffer[5];
+    tempBuffer[0] = buffer[offset + 6];
+    tempBuffer[1] = buffer[offset + 5];
     nextRecord = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Pressure.
-    tempBuffer[0] = buffer[8];
-    tempBuffer[1] = buffer[7];
+    tempBuffer[0] = buffer[offset + 8];
+    tempBuffer[1] = buffer[offset + 7];
     pressure = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Inside Temp.
-    tempBuffer[0] = buffer[10];
-    tempBuffer[1] = buffer[9];
+    tempBuffer[0] = buffer[offset + 10];
+    tempBuffer[1] = buffer[offset + 9];
     insideTemp = (short) new BigInteger(tempBuffer).intValue();
   
-    insideHumidity = buffer[11];
+    insideHumidity = buffer[offset + 11];
   
     // Extract the Outside Temp.
-    tempBuffer[0] = buffer[13];
-    tempBuffer[1] = buffer[12];
+    tempBuffer[0] = buffer[offset + 13];
+    tempBuffer[1] = buffer[offset + 12];
     outsideTemp = (short) new BigInteger(tempBuffer).intValue();
   
-    windSpeed        = buffer[14];
-    averageWindSpeed = buffer[15]; // 10 minute avg wind speed
+    windSpeed        = buffer[offset + 14];
+    averageWindSpeed = buffer[offset + 15]; // 10 minute avg wind speed
   
     // Extract the Wind Direction
-    tempBuffer[0] = buffer[17];
-    tempBuffer[1] = buffer[16];
+    tempBuffer[0] = buffer[offset + 17];
+    tempBuffer[1] = buffer[offset + 16];
     windDirection = (short) new BigInteger(tempBuffer).intValue();
 
     // locations 18-24 are for up to 7 extra temperature stations.
     // locations 25-28 are for up to 4 soil temperature sensor.
-    soilTemp1 = buffer[25];
+    soilTemp1 = buffer[offset + 25];
     // locations 29-32 are for up to 4 leaf temperature sensor.
   
-    outsideHumidity = buffer[33];
+    outsideHumidity = buffer[offset + 33];
     // locations 34-40 are for extra humidity sensors.
   
     // Extract the Rain Rate.
-    tempBuffer[0] = buffer[42];
-    tempBuffer[1] = buffer[41];
+    tempBuffer[0] = buffer[offset + 42];
+    tempBuffer[1] = buffer[offset + 41];
     rainRate = (short) new BigInteger(tempBuffer).intValue();
     
-    uv = buffer[43];
+    uv = buffer[offset + 43];
 
     // Extract the Solar Radiation.
-    tempBuffer[0] = buffer[45];
-    tempBuffer[1] = buffer[44];
+    tempBuffer[0] = buffer[offset + 45];
+    tempBuffer[1] = buffer[offset + 44];
     solarRadiation = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Storm Rate.
-    tempBuffer[0] = buffer[47];
-    tempBuffer[1] = buffer[46];
+    tempBuffer[0] = buffer[offset + 47];
+    tempBuffer[1] = buffer[offset + 46];
     stormRate = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Storm Date.
-    if (buffer[48] == (byte)0xFF && buffer[49] == (byte)0xFF)
+    if (buffer[offset + 48] == (byte)0xFF && buffer[offset + 49] == (byte)0xFF)
     {
       noStormDate = true;
     }
     else
     {
       noStormDate = false;
-      startStormDateMonth = ByteUtil.getStormDateMonth(buffer[49]);
-      startStormDateYear = ByteUtil.getStormDateYear(buffer[48]);
-      startStormDateDay = ByteUtil.getStormDateDay(new byte[]{buffer[48], buffer[49]});
+      startStormDateMonth = ByteUtil.getStormDateMonth(buffer[offset + 49]);
+      startStormDateYear = ByteUtil.getStormDateYear(buffer[offset + 48]);
+      startStormDateDay = ByteUtil.getStormDateDay(new byte[]{buffer[offset + 48], buffer[offset + 49]});
     }
 
     // Extract the Daily Rain.
-    tempBuffer[0] = buffer[51];
-    tempBuffer[1] = buffer[50];
+    tempBuffer[0] = buffer[offset + 51];
+    tempBuffer[1] = buffer[offset + 50];
     dailyRain = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Monthly Rain.
-    tempBuffer[0] = buffer[53];
-    tempBuffer[1] = buffer[52];
+    tempBuffer[0] = buffer[offset + 53];
+    tempBuffer[1] = buffer[offset + 52];
     monthlyRain = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Yearly Rain.
-    tempBuffer[0] = buffer[55];
-    tempBuffer[1] = buffer[54];
+    tempBuffer[0] = buffer[offset + 55];
+    tempBuffer[1] = buffer[offset + 54];
     yearlyRain = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the daily evapotransporation.
-    tempBuffer[0] = buffer[57];
-    tempBuffer[1] = buffer[56];
+    tempBuffer[0] = buffer[offset + 57];
+    tempBuffer[1] = buffer[offset + 56];
     dailyET = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the monthly evapotransporation.
-    tempBuffer[0] = buffer[59];
-    tempBuffer[1] = buffer[58];
+    tempBuffer[0] = buffer[offset + 59];
+    tempBuffer[1] = buffer[offset + 58];
     monthlyET = (short) new BigInteger(tempBuffer).intValue();
   
     // Extract the yearly evapotransporation.
-    tempBuffer[0] = buffer[61];
-    tempBuffer[1] = buffer[60];
+    tempBuffer[0] = buffer[offset + 61];
+    tempBuffer[1] = buffer[offset + 60];
     yearlyET = (short) new BigInteger(tempBuffer).intValue();
   
     // locations 62-65 are for up to 4 soil moisture sensors.
     // locations 66-69 are for up to 4 leaf wetness sensors.
   
-    insideAlarms = buffer[70];
-    rainAlarms = buffer[71];
-    outsideAlarmsByte1 = buffer[72];
-    outsideAlarmsByte2 = buffer[73];
-    outsideHumidAlarms = buffer[74];
+    insideAlarms = buffer[offset + 70];
+    rainAlarms = buffer[offset + 71];
+    outsideAlarmsByte1 = buffer[offset + 72];
+    outsideAlarmsByte2 = buffer[offset + 73];
+    outsideHumidAlarms = buffer[offset + 74];
   
     // locations 75-81 are for extra temperature and humidity alarms.
-    extraTempAlarms1 = buffer[75];
+    extraTempAlarms1 = buffer[offset + 75];
 
     // locations 82-85 are for leaf and soil alarms.
     
-    transBatteryStatus = buffer[86];
+    transBatteryStatus = buffer[offset + 86];
   
     // Extract the Console Battery Voltage.
-    tempBuffer[0] = buffer[88];
-    tempBuffer[1] = buffer[87];
+    tempBuffer[0] = buffer[offset + 88];
+    tempBuffer[1] = buffer[offset + 87];
     consoleBatteryVolt = (short) new BigInteger(tempBuffer).intValue();
 
-    forecastIcons = buffer[89];
-    forecastRuleNumber = buffer[90];
+    forecastIcons = buffer[offset + 89];
+    forecastRuleNumber = buffer[offset + 90];
 
     // Extract the Sunrise Time.
-    tempBuffer[0] = buffer[92];
-    tempBuffer[1] = buffer[91];
+    tempBuffer[0] = buffer[offset + 92];
+    tempBuffer[1] = buffer[offset + 91];
     sunriseTime = (short) new BigInteger(tempBuffer).intValue();
 
     // Extract the Sunset Time.
-    tempBuffer[0] = buffer[94];
-    tempBuffer[1] = buffer[93];
+    tempBuffer[0] = buffer[offset + 94];
+    tempBuffer[1] = buffer[offset + 93];
     sunsetTime = (short) new BigInteger(tempBuffer).intValue();
   }
 
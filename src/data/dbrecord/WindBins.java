@@ -12,6 +12,7 @@
             DB files once evey 5 minutes.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Use a database reader of its own.
 */
 package data.dbrecord;
 
@@ -24,7 +25,6 @@ import java.util.*;
 
 public class WindBins
 {
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
   private static final DatabaseCommon dbCommon = DatabaseCommon.getInstance();
 
   // This holds the days wind bins, one per wind direction that holds the total counts within the last hour.
@@ -45,6 +45,8 @@ public class WindBins
 
   private WindBins()
   {
+    DatabaseReader dbReader = new DatabaseReader();
+
     // Read current daily wind dir bins from day's summary record.
     for (WindDirection direction : WindDirection.values())
     {
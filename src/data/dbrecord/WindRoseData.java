@@ -10,19 +10,23 @@
   Purpose:	This class generates and holds the data for the wind rose.
 
   Mods:		  10/13/21  Initial Release.
+            10/19/26  Added month, season, year and all time from the rollup index.
+            10/19/26  Use a database reader of its own.
 */
 package data.dbrecord;
 
 import dbif.DatabaseReader;
+import dbif.WindRoseIndex;
 import gui.graph.GraphDefs;
 import gui.windrose.WindSpeedLevel;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class WindRoseData
 {
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
 
   private static final int numOfSlices = 16;
   private WindSlice[] slices = new WindSlice[numOfSlices];
@@ -77,9 +81,10 @@ public class WindRoseData
   /**
    * Method that generates the data to display on the wind rose.  The time period is counted back from time now to
    * determine the time to start retrieving data.  The data is parsed into 16 separate slices and into 5 mph bins
-   * within the slices.
+   * within the slices.  The periods of a month and longer are summed from the daily wind rollup index rather than
+   * read from the database files.
    *
-   * @param timePeriod The time period as Hour, Half Day, Day, Half Week and Week.
+   * @param timePeriod The time period as Hour, Half Day, Day, Half Week, Week, Month, Season, Year and All Time.
    */
   public void generateData(String timePeriod)
   {
@@ -102,6 +107,26 @@ public class WindRoseData
       startDate = endDate.minusDays(3);
     else if (timePeriod.equalsIgnoreCase(GraphDefs.WEEK_STRING))
       startDate = endDate.minusWeeks(1);
+    else if (timePeriod.equalsIgnoreCase(GraphDefs.MONTH_STRING))
+    {
+      generateIndexData(endDate.toLocalDate().minusMonths(1).plusDays(1), endDate.toLocalDate());
+      return;
+    }
+    else if (timePeriod.equalsIgnoreCase(GraphDefs.SEASON_STRING))
+    {
+      generateIndexData(endDate.toLocalDate().minusMonths(3).plusDays(1), endDate.toLocalDate());
+      return;
+    }
+    else if (timePeriod.equalsIgnoreCase(GraphDefs.YEAR_STRING))
+    {
+      generateIndexData(endDate.toLocalDate().minusYears(1).plusDays(1), endDate.toLocalDate());
+      return;
+    }
+    else if (timePeriod.equalsIgnoreCase(GraphDefs.ALL_TIME_STRING))
+    {
+      generateIndexData(LocalDate.MIN, endDate.toLocalDate());
+      return;
+    }
     else
       return;
 
@@ -198,6 +223,35 @@ public class WindRoseData
     }
   }
 
+  /**
+   * Internal method that loads the slices from the daily wind rollup index.  The data points are minutes rather than
+   * records, which gives the same percentages.
+   *
+   * @param startDate The first date, inclusive.
+   * @param endDate The last date, inclusive.
+   */
+  private void generateIndexData(LocalDate startDate, LocalDate endDate)
+  {
+    long[] minutes = WindRoseIndex.getInstance().getMinutes(startDate, endDate);
+
+    numOfCalmPoints = (int)minutes[WindRoseIndex.CALM_BIN];
+    dataPoints = numOfCalmPoints;
+    for (WindDirection nextDirection : WindDirection.values())
+    {
+      for (WindSpeedLevel nextLevel : WindSpeedLevel.values())
+      {
+        int count = (int)minutes[WindRoseIndex.getBin(nextDirection.value(), nextLevel.value())];
+        slices[nextDirection.value()].addToBinCount(nextLevel.value(), count);
+        dataPoints += count;
+      }
+    }
+
+    for (WindSlice nextSlice : slices)
+    {
+      nextSlice.calculatePercentages(dataPoints);
+    }
+  }
+
   /**
    * Internal method that sets up the database reader to read a specific year/month file.
    *
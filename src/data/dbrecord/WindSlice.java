@@ -14,6 +14,7 @@
             multiplied by 100 before returning the actual value.
 
   Mods:		  10/13/21  Initial Release.
+            10/19/26  Added counts from the rollup index.
 */
 package data.dbrecord;
 
@@ -70,6 +71,17 @@ public class WindSlice
     speedCounts[binNumber]++;
   }
 
+  /**
+   * Method to add a number of data points to a specific bin.
+   *
+   * @param binNumber The bin to add to.
+   * @param count The number of data points.
+   */
+  public void addToBinCount(int binNumber, int count)
+  {
+    speedCounts[binNumber] += count;
+  }
+
   /**
    * Method called to calculate the percentages of all bins.
    *
@@ -0,0 +1,799 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class runs the aggregate queries over the archive: the count,
+            lowest, highest, average, total and percentiles of weather record
+            fields over hour, day, month, season or year buckets, or over the
+            whole range.  Each month is scanned on its own thread and the
+            months' buckets are merged at the end.  A closed month is read from
+            its cold storage file, only the columns of the query and only the
+            blocks that can hold the range.  Any other month is read with the
+            ArchiveMonth and the days outside the range or rejected by the day
+            filter are found through the day index and never touched.  The
+            DatabaseReader and its shared state are never used, so a query can
+            run at any time from any thread.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Added the minutes of data in a bucket.
+*/
+package dbif;
+
+import data.dbrecord.WeatherRecord;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+public class ArchiveAggregator
+{
+  private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final int MINUTES_PER_DAY = 1440;
+
+  // The archive interval is one byte, so a record never starts more than this many minutes before its time.
+  private static final int MAX_ARCHIVE_INTERVAL = 255;
+
+  private final ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+  private final ColdStorage coldStorage = ColdStorage.getInstance();
+  private final LatencyHistogram queryLatency = MetricsRegistry.getInstance().histogram("query.aggregate");
+  private final ExecutorService executor;
+
+  /**
+   * The sizes of the buckets.
+   */
+  public enum Bucket
+  {
+    HOUR, DAY, MONTH, SEASON, YEAR, ALL;
+
+    /**
+     * Method to get the start of the bucket holding a time.
+     *
+     * @param time The time.
+     * @param rangeStart The start of the query, the start of the single bucket of ALL.
+     * @return The start of the bucket.
+     */
+    public LocalDateTime getStart(LocalDateTime time, LocalDateTime rangeStart)
+    {
+      switch (this)
+      {
+        case HOUR:
+          return time.truncatedTo(ChronoUnit.HOURS);
+        case DAY:
+          return time.truncatedTo(ChronoUnit.DAYS);
+        case MONTH:
+          return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        case SEASON:
+          // The meteorological seasons, so December starts the winter that runs into the next year.
+          LocalDateTime month = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+          return month.minusMonths(month.getMonthValue() % 3);
+        case YEAR:
+          return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+        default:
+          return rangeStart;
+      }
+    }
+  }
+
+  /**
+   * The values a bucket can be reduced to.
+   */
+  public enum Function
+  {
+    COUNT, MIN, MAX, AVG, SUM, MEDIAN;
+
+    /**
+     * Method to reduce a bucket to one value.
+     *
+     * @param aggregate The bucket's values of a field.
+     * @return The value.
+     */
+    public float apply(Aggregate aggregate)
+    {
+      switch (this)
+      {
+        case COUNT:
+          return aggregate.getCount();
+        case MIN:
+          return aggregate.getMin();
+        case MAX:
+          return aggregate.getMax();
+        case AVG:
+          return aggregate.getAvg();
+        case SUM:
+          return (float)aggregate.getSum();
+        default:
+          return aggregate.getPercentile(50);
+      }
+    }
+  }
+
+  /**
+   * The values of one field in one bucket.  The values that are not readings are left out.
+   */
+  public static final class Aggregate
+  {
+    private int count = 0;
+    private float min = Float.NaN;
+    private float max = Float.NaN;
+    private double sum = 0;
+    private float[] values;
+    private boolean sorted = false;
+
+    /**
+     * Constructor.
+     *
+     * @param keepValues Whether the values are kept for the percentiles.
+     */
+    private Aggregate(boolean keepValues)
+    {
+      values = keepValues ? new float[64] : null;
+    }
+
+    /**
+     * Internal method to add a value.
+     *
+     * @param value The value or NaN if the sensor has no value.
+     */
+    private void add(float value)
+    {
+      if (Float.isNaN(value))
+        return;
+      if (count == 0 || value < min)
+        min = value;
+      if (count == 0 || value > max)
+        max = value;
+      sum += value;
+      if (values != null)
+      {
+        if (count == values.length)
+          values = Arrays.copyOf(values, count * 2);
+        values[count] = value;
+      }
+      count++;
+    }
+
+    /**
+     * Internal method to add the values of the same bucket from another month.
+     *
+     * @param other The other month's values.
+     */
+    private void merge(Aggregate other)
+    {
+      if (other.count == 0)
+        return;
+      if (count == 0 || other.min < min)
+        min = other.min;
+      if (count == 0 || other.max > max)
+        max = other.max;
+      sum += other.sum;
+      if (values != null)
+      {
+        values = Arrays.copyOf(values, Math.max(values.length, count + other.count));
+        System.arraycopy(other.values, 0, values, count, other.count);
+      }
+      count += other.count;
+    }
+
+    public int getCount()
+    {
+      return count;
+    }
+
+    /**
+     * Method to get the lowest value.
+     *
+     * @return The value or NaN if there are no values.
+     */
+    public float getMin()
+    {
+      return min;
+    }
+
+    /**
+     * Method to get the highest value.
+     *
+     * @return The value or NaN if there are no values.
+     */
+    public float getMax()
+    {
+      return max;
+    }
+
+    public double getSum()
+    {
+      return sum;
+    }
+
+    /**
+     * Method to get the average value.
+     *
+     * @return The value or NaN if there are no values.
+     */
+    public float getAvg()
+    {
+      return count == 0 ? Float.NaN : (float)(sum / count);
+    }
+
+    /**
+     * Method to get a percentile of the values, interpolated between the two nearest values.  The query must have
+     * kept the values.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value or NaN if there are no values.
+     */
+    public float getPercentile(double percentile)
+    {
+      if (values == null)
+        throw new IllegalStateException("The query did not keep the values.");
+      if (count == 0)
+        return Float.NaN;
+
+      if (!sorted)
+      {
+        Arrays.sort(values, 0, count);
+        sorted = true;
+      }
+      double rank = Math.max(0, Math.min(100, percentile)) / 100 * (count - 1);
+      int lower = (int)rank;
+      int upper = Math.min(lower + 1, count - 1);
+      return (float)(values[lower] + (values[upper] - values[lower]) * (rank - lower));
+    }
+  }
+
+  /**
+   * One bucket of a query's result.
+   */
+  public static final class Result
+  {
+    private final LocalDateTime start;
+    private final List<ArchiveField> fields;
+    private final Aggregate[] aggregates;
+
+    private Result(LocalDateTime start, List<ArchiveField> fields, Aggregate[] aggregates)
+    {
+      this.start = start;
+      this.fields = fields;
+      this.aggregates = aggregates;
+    }
+
+    public LocalDateTime getStart()
+    {
+      return start;
+    }
+
+    /**
+     * Method to get the values of a field of the query.
+     *
+     * @param field The field.
+     * @return The values.
+     */
+    public Aggregate get(ArchiveField field)
+    {
+      int index = fields.indexOf(field);
+      if (index < 0)
+        throw new IllegalArgumentException(field + " is not a field of the query.");
+      return aggregates[index];
+    }
+
+    /**
+     * Method to get the minutes of data in the bucket, the total of the archive intervals of its records.  This
+     * tells a full day from a day with gaps.
+     *
+     * @return The minutes.
+     */
+    public int getMinutes()
+    {
+      return (int)aggregates[fields.size()].getSum();
+    }
+  }
+
+  /**
+   * An aggregate query.  A record is in the range when its archive interval starts in it, and is put in the bucket
+   * its archive interval starts in.
+   */
+  public static final class Query
+  {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final Bucket bucket;
+    private final List<ArchiveField> fields;
+    private boolean keepValues = false;
+    private Predicate<LocalDate> dayFilter = null;
+
+    /**
+     * Constructor.
+     *
+     * @param start The start of the range.
+     * @param end The end of the range, not included.
+     * @param bucket The size of the buckets.
+     * @param fields The fields.
+     */
+    public Query(LocalDateTime start, LocalDateTime end, Bucket bucket, ArchiveField... fields)
+    {
+      this.start = start;
+      this.end = end;
+      this.firstDay = start.toLocalDate();
+      this.lastDay = end.minusNanos(1).toLocalDate();
+      this.bucket = bucket;
+      this.fields = Collections.unmodifiableList(Arrays.asList(fields.clone()));
+    }
+
+    /**
+     * Constructor for a range of whole days.
+     *
+     * @param firstDay The first day.
+     * @param lastDay The last day, included.
+     * @param bucket The size of the buckets.
+     * @param fields The fields.
+     */
+    public Query(LocalDate firstDay, LocalDate lastDay, Bucket bucket, ArchiveField... fields)
+    {
+      this(firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay(), bucket, fields);
+    }
+
+    /**
+     * Method to keep every value so the percentiles of the buckets can be found.
+     *
+     * @return The query.
+     */
+    public Query keepValues()
+    {
+      keepValues = true;
+      return this;
+    }
+
+    /**
+     * Method to only read the days a filter accepts.  The filter is checked before any record of the day is read.
+     *
+     * @param filter The filter.
+     * @return The query.
+     */
+    public Query whereDay(Predicate<LocalDate> filter)
+    {
+      dayFilter = dayFilter == null ? filter : dayFilter.and(filter);
+      return this;
+    }
+
+    /**
+     * Internal method to tell if a day is read.
+     *
+     * @param date The day.
+     * @return Whether the day is in the range and accepted by the filter.
+     */
+    private boolean acceptsDay(LocalDate date)
+    {
+      return !date.isBefore(firstDay) && !date.isAfter(lastDay) && (dayFilter == null || dayFilter.test(date));
+    }
+
+    /**
+     * Internal method to make the values of a new bucket.
+     *
+     * @return The values, one for each field and then the archive intervals.
+     */
+    private Aggregate[] newAggregates()
+    {
+      Aggregate[] aggregates = new Aggregate[fields.size() + 1];
+      for (int i = 0; i < fields.size(); i++)
+        aggregates[i] = new Aggregate(keepValues);
+      aggregates[fields.size()] = new Aggregate(false);
+      return aggregates;
+    }
+  }
+
+  /**
+   * The buckets of one month as they are filled.
+   */
+  private static final class MonthScan
+  {
+    private final Query query;
+    private final TreeMap<LocalDateTime, Aggregate[]> buckets = new TreeMap<>();
+    private LocalDateTime dayStart;
+    private boolean wholeDay;
+    private int lastKey;
+    private Aggregate[] current;
+
+    MonthScan(Query query)
+    {
+      this.query = query;
+    }
+
+    /**
+     * Method called before the records of a day.
+     *
+     * @param date The day.
+     */
+    void startDay(LocalDate date)
+    {
+      dayStart = date.atStartOfDay();
+      wholeDay = !dayStart.isBefore(query.start) && !dayStart.plusDays(1).isAfter(query.end);
+      current = null;
+    }
+
+    /**
+     * Method to get the bucket of a record of the day.  Within a day only an hour bucket can change, so the
+     * bucket is only looked up again when the hour does.
+     *
+     * @param minutes The minutes from midnight to the start of the record's archive interval.
+     * @return The values of the bucket or null if the record is not in the range.
+     */
+    Aggregate[] getAggregates(int minutes)
+    {
+      if (!wholeDay)
+      {
+        LocalDateTime time = dayStart.plusMinutes(minutes);
+        if (time.isBefore(query.start) || !time.isBefore(query.end))
+          return null;
+      }
+
+      int key = query.bucket == Bucket.HOUR ? minutes / 60 : 0;
+      if (current == null || key != lastKey)
+      {
+        LocalDateTime start = query.bucket.getStart(dayStart.plusMinutes(minutes), query.start);
+        current = buckets.computeIfAbsent(start, time -> query.newAggregates());
+        lastKey = key;
+      }
+      return current;
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final ArchiveAggregator INSTANCE = new ArchiveAggregator();
+  }
+
+  public static ArchiveAggregator getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private ArchiveAggregator()
+  {
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    executor = Executors.newFixedThreadPool(THREADS, runnable ->
+    {
+      Thread thread = new Thread(runnable, "Aggregator-" + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Method to run a query.
+   *
+   * @param query The query.
+   * @return The buckets that have records, in time order.
+   * @throws IOException A month could not be read.
+   */
+  public List<Result> run(Query query) throws IOException
+  {
+    long startTime = System.nanoTime();
+    List<Result> results = new ArrayList<>();
+    if (!query.end.isAfter(query.start))
+      return results;
+
+    YearMonth latest = catalog.getLatestMonth();
+    List<YearMonth> months = new ArrayList<>();
+    for (ArchiveCatalog.Entry entry : catalog.getEntries(YearMonth.from(query.start)))
+    {
+      if (entry.getYearMonth().isAfter(YearMonth.from(query.lastDay)))
+        break;
+      months.add(entry.getYearMonth());
+    }
+
+    TreeMap<LocalDateTime, Aggregate[]> buckets = new TreeMap<>();
+    try
+    {
+      if (months.size() == 1)
+      {
+        merge(buckets, scanMonth(query, months.get(0), !months.get(0).equals(latest)));
+      }
+      else
+      {
+        List<Future<TreeMap<LocalDateTime, Aggregate[]>>> futures = new ArrayList<>();
+        for (YearMonth yearMonth : months)
+          futures.add(executor.submit(() -> scanMonth(query, yearMonth, !yearMonth.equals(latest))));
+
+        try
+        {
+          for (Future<TreeMap<LocalDateTime, Aggregate[]>> future : futures)
+            merge(buckets, future.get());
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("The query was interrupted.");
+        }
+        catch (ExecutionException e)
+        {
+          if (e.getCause() instanceof IOException)
+            throw (IOException)e.getCause();
+          if (e.getCause() instanceof RuntimeException)
+            throw (RuntimeException)e.getCause();
+          throw new IOException(e.getCause());
+        }
+        finally
+        {
+          for (Future<TreeMap<LocalDateTime, Aggregate[]>> future : futures)
+            future.cancel(true);
+        }
+      }
+    }
+    finally
+    {
+      queryLatency.recordSince(startTime);
+    }
+
+    for (Map.Entry<LocalDateTime, Aggregate[]> bucket : buckets.entrySet())
+      results.add(new Result(bucket.getKey(), query.fields, bucket.getValue()));
+    return results;
+  }
+
+  /**
+   * Method to reduce each bucket of one field to one value.
+   *
+   * @param field The field.
+   * @param firstDay The first day.
+   * @param lastDay The last day, included.
+   * @param bucket The size of the buckets.
+   * @param function The value of each bucket.
+   * @return The value of each bucket that has readings by the start of the bucket.
+   * @throws IOException A month could not be read.
+   */
+  public SortedMap<LocalDateTime, Float> aggregate(ArchiveField field, LocalDate firstDay, LocalDate lastDay,
+                                                   Bucket bucket, Function function) throws IOException
+  {
+    Query query = new Query(firstDay, lastDay, bucket, field);
+    if (function == Function.MEDIAN)
+      query.keepValues();
+
+    SortedMap<LocalDateTime, Float> values = new TreeMap<>();
+    for (Result result : run(query))
+    {
+      Aggregate aggregate = result.get(field);
+      if (aggregate.getCount() > 0)
+        values.put(result.getStart(), function.apply(aggregate));
+    }
+    return values;
+  }
+
+  /**
+   * Internal method to add one month's buckets to the result.  A bucket longer than a month is in more than one.
+   *
+   * @param buckets The result.
+   * @param month The month's buckets.
+   */
+  private static void merge(TreeMap<LocalDateTime, Aggregate[]> buckets, TreeMap<LocalDateTime, Aggregate[]> month)
+  {
+    for (Map.Entry<LocalDateTime, Aggregate[]> bucket : month.entrySet())
+    {
+      Aggregate[] existing = buckets.putIfAbsent(bucket.getKey(), bucket.getValue());
+      if (existing != null)
+      {
+        for (int i = 0; i < existing.length; i++)
+          existing[i].merge(bucket.getValue()[i]);
+      }
+    }
+  }
+
+  /**
+   * Internal method to scan one month, from the cold storage when the month is closed and has a current file.
+   *
+   * @param query The query.
+   * @param yearMonth The month.
+   * @param closed Whether the month is closed.
+   * @return The month's buckets.
+   * @throws IOException The month could not be read.
+   */
+  private TreeMap<LocalDateTime, Aggregate[]> scanMonth(Query query, YearMonth yearMonth, boolean closed)
+    throws IOException
+  {
+    if (closed)
+    {
+      ColumnarMonth columnarMonth = coldStorage.getMonth(yearMonth);
+      if (columnarMonth != null)
+        return scanColumns(query, yearMonth, columnarMonth);
+    }
+    return scanRecords(query, ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue()));
+  }
+
+  /**
+   * Internal method to scan the records of a month's database file.
+   *
+   * @param query The query.
+   * @param archive The month.
+   * @return The month's buckets.
+   */
+  private static TreeMap<LocalDateTime, Aggregate[]> scanRecords(Query query, ArchiveMonth archive)
+  {
+    MonthScan scan = new MonthScan(query);
+    ArchiveField[] fields = query.fields.toArray(new ArchiveField[0]);
+    YearMonth yearMonth = YearMonth.of(archive.getYear(), archive.getMonth());
+    for (int day = 1; day <= yearMonth.lengthOfMonth(); day++)
+    {
+      LocalDate date = yearMonth.atDay(day);
+      if (!archive.hasDay(day) || !query.acceptsDay(date))
+        continue;
+
+      scan.startDay(date);
+      for (int index = 0; index < archive.getWeatherRecordCount(day); index++)
+      {
+        int recordOffset = archive.getWeatherRecordOffset(day, index);
+        if (archive.getDataType(recordOffset) != ArchiveMonth.WEATHER_RECORD_TYPE)
+          continue;
+
+        // The record time is the end of the archive interval.
+        int minutes = archive.getShort(recordOffset, WeatherRecord.PACKED_TIME_OFFSET) -
+          archive.getArchiveInterval(recordOffset);
+        Aggregate[] aggregates = scan.getAggregates(Math.max(0, minutes));
+        if (aggregates == null)
+          continue;
+
+        for (int i = 0; i < fields.length; i++)
+          aggregates[i].add(fields[i].read(archive, recordOffset));
+        aggregates[fields.length].add(archive.getArchiveInterval(recordOffset));
+      }
+    }
+    return scan.buckets;
+  }
+
+  /**
+   * Internal method to scan the columns of a month's cold storage file.  Only the run of blocks whose times can
+   * be in the range is read.
+   *
+   * @param query The query.
+   * @param yearMonth The month.
+   * @param columnarMonth The month's cold storage.
+   * @return The month's buckets.
+   * @throws IOException The file could not be read.
+   */
+  private static TreeMap<LocalDateTime, Aggregate[]> scanColumns(Query query, YearMonth yearMonth,
+                                                                 ColumnarMonth columnarMonth) throws IOException
+  {
+    MonthScan scan = new MonthScan(query);
+    LocalDateTime monthStart = yearMonth.atDay(1).atStartOfDay();
+    long from = ChronoUnit.MINUTES.between(monthStart, query.start);
+    long to = ChronoUnit.MINUTES.between(monthStart, query.end);
+
+    int firstBlock = -1;
+    int lastBlock = -1;
+    for (int block = 0; block < columnarMonth.getNumOfBlocks(); block++)
+    {
+      if (columnarMonth.getBlockMax(ColdColumn.TIME, block) >= from &&
+          columnarMonth.getBlockMin(ColdColumn.TIME, block) - MAX_ARCHIVE_INTERVAL < to)
+      {
+        if (firstBlock < 0)
+          firstBlock = block;
+        lastBlock = block;
+      }
+    }
+    if (firstBlock < 0)
+      return scan.buckets;
+
+    ArchiveField[] fields = query.fields.toArray(new ArchiveField[0]);
+    int[] times = columnarMonth.readColumn(ColdColumn.TIME, firstBlock, lastBlock + 1);
+    int[] intervals = columnarMonth.readColumn(ColdColumn.ARCHIVE_INTERVAL, firstBlock, lastBlock + 1);
+    int[][] values = new int[fields.length][];
+    for (int i = 0; i < fields.length; i++)
+      values[i] = columnarMonth.readColumn(fields[i].getColdColumn(), firstBlock, lastBlock + 1);
+
+    int lastDay = 0;
+    boolean dayAccepted = false;
+    for (int record = 0; record < times.length; record++)
+    {
+      // The packed time of a day runs up to 24:00, the end of its last interval.
+      int day = (times[record] - 1) / MINUTES_PER_DAY + 1;
+      if (day != lastDay)
+      {
+        lastDay = day;
+        dayAccepted = day <= yearMonth.lengthOfMonth() && query.acceptsDay(yearMonth.atDay(day));
+        if (dayAccepted)
+          scan.startDay(yearMonth.atDay(day));
+      }
+      if (!dayAccepted)
+        continue;
+
+      int packedTime = times[record] - (day - 1) * MINUTES_PER_DAY;
+      Aggregate[] aggregates = scan.getAggregates(Math.max(0, packedTime - intervals[record]));
+      if (aggregates == null)
+        continue;
+
+      for (int i = 0; i < fields.length; i++)
+        aggregates[i].add(fields[i].decode(values[i][record]));
+      aggregates[fields.length].add(intervals[record]);
+    }
+    return scan.buckets;
+  }
+
+  /**
+   * Method used to test the class.  The closed months are scanned both from the database files and from the cold
+   * storage to check they give the same buckets, and then some queries over the whole archive are timed.
+   *
+   * @param args Not used.
+   * @throws IOException A month could not be read.
+   */
+  public static void main(String[] args) throws IOException
+  {
+    ArchiveAggregator aggregator = ArchiveAggregator.getInstance();
+    ColdStorage.getInstance().refresh();
+
+    YearMonth first = aggregator.catalog.getFirstMonth();
+    YearMonth latest = aggregator.catalog.getLatestMonth();
+    if (first == null)
+    {
+      System.out.println("There are no database files.");
+      return;
+    }
+
+    Query check = new Query(first.atDay(3).atTime(7, 30), latest.atEndOfMonth().atTime(18, 0), Bucket.HOUR,
+                            ArchiveField.values()).keepValues();
+    for (YearMonth yearMonth = first; yearMonth.isBefore(latest); yearMonth = yearMonth.plusMonths(1))
+    {
+      ColumnarMonth columnarMonth = aggregator.coldStorage.getMonth(yearMonth);
+      if (columnarMonth == null)
+        continue;
+
+      TreeMap<LocalDateTime, Aggregate[]> records =
+        scanRecords(check, ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue()));
+      TreeMap<LocalDateTime, Aggregate[]> columns = scanColumns(check, yearMonth, columnarMonth);
+      int differences = records.keySet().equals(columns.keySet()) ? 0 : 1;
+      for (Map.Entry<LocalDateTime, Aggregate[]> bucket : records.entrySet())
+      {
+        Aggregate[] other = columns.get(bucket.getKey());
+        for (int i = 0; other != null && i < check.fields.size(); i++)
+        {
+          Aggregate aggregate = bucket.getValue()[i];
+          if (aggregate.getCount() != other[i].getCount() || aggregate.getSum() != other[i].getSum() ||
+              Float.compare(aggregate.getPercentile(90), other[i].getPercentile(90)) != 0)
+            differences++;
+        }
+      }
+      System.out.println(yearMonth + ": " + records.size() + " hour buckets, " + differences + " differences");
+    }
+
+    LocalDate firstDay = first.atDay(1);
+    LocalDate lastDay = latest.atEndOfMonth();
+    for (Bucket bucket : new Bucket[] {Bucket.DAY, Bucket.MONTH, Bucket.SEASON, Bucket.ALL})
+    {
+      long start = System.nanoTime();
+      SortedMap<LocalDateTime, Float> medians =
+        aggregator.aggregate(ArchiveField.OUTSIDE_TEMP, firstDay, lastDay, bucket, Function.MEDIAN);
+      System.out.println(bucket + " median outside temperature, " + medians.size() + " buckets in " +
+                         (System.nanoTime() - start) / 1000 + " us, first " +
+                         (medians.isEmpty() ? "none" : medians.firstKey() + " " + medians.get(medians.firstKey())));
+    }
+
+    long start = System.nanoTime();
+    Query weekends = new Query(firstDay, lastDay, Bucket.MONTH, ArchiveField.RAIN, ArchiveField.OUTSIDE_TEMP)
+      .whereDay(date -> date.getDayOfWeek().getValue() >= 6);
+    for (Result result : aggregator.run(weekends))
+      System.out.println("Weekends of " + YearMonth.from(result.getStart()) + ": rain " +
+                         result.get(ArchiveField.RAIN).getSum() + ", average temperature " +
+                         result.get(ArchiveField.OUTSIDE_TEMP).getAvg());
+    System.out.println("Weekend query in " + (System.nanoTime() - start) / 1000 + " us");
+  }
+}
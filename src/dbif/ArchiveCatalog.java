@@ -0,0 +1,480 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class keeps a catalog of the month database files: the size,
+            modified time, total records and day index of each file.  The
+            directory is listed once and then watched, so finding the latest
+            file or the files of a range of months does not list the directory
+            again.  Only the header of a file is read when it changes.  The
+            writer also updates the catalog itself after each write, so the
+            new month, records and summaries are seen before the watch event
+            arrives, or when the directory can not be watched at all.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Updated by the writer after every write.
+            10/19/26  Never replace an entry with an older read, test in a temporary directory.
+*/
+package dbif;
+
+import util.Logger;
+import util.TimeUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class ArchiveCatalog
+{
+  private static final int DAY_INDEX_RECORD_SIZE = 6;
+
+  private final Logger logger = Logger.getInstance();
+  private final String directory = DatabaseCommon.getDirectory();
+  private final ConcurrentSkipListMap<YearMonth, Entry> entries = new ConcurrentSkipListMap<>();
+
+  /**
+   * The catalog entry of one month database file.  An entry is never changed, a new one replaces it.
+   */
+  public static class Entry
+  {
+    private final YearMonth yearMonth;
+    private final long size;
+    private final long lastModified;
+    private final int totalRecords;
+
+    // Indexed by day of month.  The count includes the two summary records.
+    private final int[] recordsInDay = new int[32];
+    private final int[] dayStartRecord = new int[32];
+
+    /**
+     * Constructor.
+     *
+     * @param yearMonth The month of the file.
+     * @param size The file length in bytes.
+     * @param lastModified The modified time in milliseconds since epoch.
+     * @param header The header block of the file.
+     */
+    private Entry(YearMonth yearMonth, long size, long lastModified, byte[] header)
+    {
+      this.yearMonth = yearMonth;
+      this.size = size;
+      this.lastModified = lastModified;
+      totalRecords = getInt(header, DatabaseCommon.TOTAL_RECORDS_OFFSET);
+      for (int day = 1; day <= 31; day++)
+      {
+        int offset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + day * DAY_INDEX_RECORD_SIZE;
+        recordsInDay[day] = (header[offset] & 0xFF) | (header[offset + 1] & 0xFF) << 8;
+        dayStartRecord[day] = getInt(header, offset + 2);
+      }
+    }
+
+    /**
+     * Internal method to get a four byte little endian value.
+     *
+     * @param bytes The bytes.
+     * @param offset The offset of the low byte.
+     * @return The value.
+     */
+    private static int getInt(byte[] bytes, int offset)
+    {
+      return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 |
+        (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    public YearMonth getYearMonth()
+    {
+      return yearMonth;
+    }
+
+    public String getFilename()
+    {
+      return DatabaseCommon.getFilename(yearMonth.getYear(), yearMonth.getMonthValue());
+    }
+
+    public long getSize()
+    {
+      return size;
+    }
+
+    public long getLastModified()
+    {
+      return lastModified;
+    }
+
+    public int getTotalRecords()
+    {
+      return totalRecords;
+    }
+
+    /**
+     * Method to get the number of records of a day from the day index.
+     *
+     * @param day The day of the month.
+     * @return The number of records including the two summary records, zero if the day has no data.
+     */
+    public int getRecordsInDay(int day)
+    {
+      return recordsInDay[day];
+    }
+
+    /**
+     * Method to get the record number of the first summary record of a day from the day index.
+     *
+     * @param day The day of the month.
+     * @return The record number.
+     */
+    public int getDayStartRecord(int day)
+    {
+      return dayStartRecord[day];
+    }
+
+    /**
+     * Method to tell if the day index has a day.
+     *
+     * @param day The day of the month.
+     * @return Whether the day has data.
+     */
+    public boolean hasDay(int day)
+    {
+      return recordsInDay[day] != 0;
+    }
+
+    /**
+     * Internal method to tell if this entry was read from a later state of the file than another one.  A file is
+     * only ever appended to or written in place, so a later state is never older and never shorter.
+     *
+     * @param other The other entry of the month.
+     * @return Whether this entry is newer.
+     */
+    private boolean isNewerThan(Entry other)
+    {
+      return lastModified > other.lastModified || (lastModified == other.lastModified && size > other.size);
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final ArchiveCatalog INSTANCE = new ArchiveCatalog();
+  }
+
+  public static ArchiveCatalog getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  /**
+   * Constructor.  The watch is started before the directory is listed so no change is missed in between.
+   */
+  private ArchiveCatalog()
+  {
+    startWatching();
+    rescan();
+  }
+
+  /**
+   * Method to list the directory and rebuild the whole catalog.  This is only needed when watch events were lost.
+   */
+  public void rescan()
+  {
+    File[] listOfFiles = new File(directory).listFiles((dir, name) ->
+                                                         name.toLowerCase().endsWith(DatabaseCommon.FILE_EXT));
+    List<YearMonth> found = new ArrayList<>();
+    if (listOfFiles != null)
+    {
+      for (File file : listOfFiles)
+      {
+        YearMonth yearMonth = getYearMonth(file.getName());
+        if (yearMonth != null && update(yearMonth))
+          found.add(yearMonth);
+      }
+    }
+    entries.keySet().retainAll(found);
+  }
+
+  /**
+   * Method to read the header of a month's file again, or remove the month if the file no longer exists.
+   *
+   * @param year The year.
+   * @param month The month.
+   */
+  public void update(int year, int month)
+  {
+    update(YearMonth.of(year, month));
+  }
+
+  /**
+   * Internal method to read the header of a month's file into the catalog.  The writer and the watch thread both
+   * update the catalog, so an entry read slowly never replaces a newer one stored meanwhile.
+   *
+   * @param yearMonth The month.
+   * @return Whether the month is in the catalog.
+   */
+  private boolean update(YearMonth yearMonth)
+  {
+    File file = new File(directory + DatabaseCommon.getFilename(yearMonth.getYear(), yearMonth.getMonthValue()));
+    try (RandomAccessFile monthFile = new RandomAccessFile(file, "r"))
+    {
+      // The time and size are taken before the header, so they never claim a later state than the header read.
+      long lastModified = file.lastModified();
+      long size = monthFile.length();
+
+      // A file the writer has only just created may not have its header yet.
+      byte[] header = new byte[DatabaseCommon.HEADER_BLOCK_SIZE];
+      if (size >= header.length)
+        monthFile.readFully(header);
+      Entry entry = new Entry(yearMonth, size, lastModified, header);
+      entries.compute(yearMonth, (key, current) -> current != null && current.isNewerThan(entry) ? current : entry);
+      return true;
+    }
+    catch (IOException e)
+    {
+      // The file was removed.
+      entries.remove(yearMonth);
+      return false;
+    }
+  }
+
+  /**
+   * Internal method to get the month of a database filename.
+   *
+   * @param filename The filename.
+   * @return The month or null if this is not a database file name.
+   */
+  private static YearMonth getYearMonth(String filename)
+  {
+    if (!filename.toLowerCase().endsWith(DatabaseCommon.FILE_EXT))
+      return null;
+
+    try
+    {
+      return YearMonth.of(TimeUtil.getYear(filename), TimeUtil.getMonth(filename));
+    }
+    catch (RuntimeException e)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Internal method to start the thread that keeps the catalog up to date with the directory.  If the directory
+   * cannot be watched the catalog is only updated by the writer and by a rescan.
+   */
+  private void startWatching()
+  {
+    WatchService watchService;
+    try
+    {
+      watchService = FileSystems.getDefault().newWatchService();
+      Paths.get(directory).register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      logger.logData("ArchiveCatalog: Unable to watch " + directory + ": " + e.getLocalizedMessage());
+      return;
+    }
+
+    Thread thread = new Thread(() -> watch(watchService), "ArchiveCatalog");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Internal method that applies the watch events until the directory can no longer be watched.
+   *
+   * @param watchService The watch service the directory is registered with.
+   */
+  private void watch(WatchService watchService)
+  {
+    try
+    {
+      while (true)
+      {
+        WatchKey key = watchService.take();
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+          {
+            rescan();
+            continue;
+          }
+
+          YearMonth yearMonth = getYearMonth(((Path)event.context()).getFileName().toString());
+          if (yearMonth != null)
+            update(yearMonth);
+        }
+
+        if (!key.reset())
+        {
+          logger.logData("ArchiveCatalog: " + directory + " is no longer watched.");
+          return;
+        }
+      }
+    }
+    catch (InterruptedException | ClosedWatchServiceException e)
+    {
+      // The thread is ending.
+    }
+  }
+
+  /**
+   * Method to get the latest month with a database file.
+   *
+   * @return The month or null if there are no database files.
+   */
+  public YearMonth getLatestMonth()
+  {
+    Map.Entry<YearMonth, Entry> last = entries.lastEntry();
+    return last == null ? null : last.getKey();
+  }
+
+  /**
+   * Method to get the first month with a database file.
+   *
+   * @return The month or null if there are no database files.
+   */
+  public YearMonth getFirstMonth()
+  {
+    Map.Entry<YearMonth, Entry> first = entries.firstEntry();
+    return first == null ? null : first.getKey();
+  }
+
+  /**
+   * Method to get the catalog entry of a month.
+   *
+   * @param yearMonth The month.
+   * @return The entry or null if there is no database file for the month.
+   */
+  public Entry getEntry(YearMonth yearMonth)
+  {
+    return entries.get(yearMonth);
+  }
+
+  /**
+   * Method to tell if there is a database file for a month.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @return Whether the file exists.
+   */
+  public boolean contains(int year, int month)
+  {
+    return entries.containsKey(YearMonth.of(year, month));
+  }
+
+  /**
+   * Method to get the entries of all the months in month order.
+   *
+   * @return The entries, a snapshot that does not change.
+   */
+  public Collection<Entry> getEntries()
+  {
+    return new ArrayList<>(entries.values());
+  }
+
+  /**
+   * Method to get the entries of the months from a month on in month order.
+   *
+   * @param from The first month.
+   * @return The entries, a snapshot that does not change.
+   */
+  public Collection<Entry> getEntries(YearMonth from)
+  {
+    return new ArrayList<>(entries.tailMap(from, true).values());
+  }
+
+  /**
+   * Method used to test the class.  The month files are copied to a temporary directory and the catalog is made of
+   * that, so the file copied in and deleted by the test is never seen by a station using the real archive.
+   *
+   * @param args Not used.
+   * @throws Exception The test failed.
+   */
+  public static void main(String[] args) throws Exception
+  {
+    Path archive = Paths.get(DatabaseCommon.getDirectory());
+    Path testDirectory = Files.createTempDirectory("wxcatalog");
+    File[] monthFiles = archive.toFile().listFiles((dir, name) -> getYearMonth(name) != null);
+    if (monthFiles != null)
+    {
+      for (File monthFile : monthFiles)
+        Files.copy(monthFile.toPath(), testDirectory.resolve(monthFile.getName()));
+    }
+    DatabaseCommon.setDirectory(testDirectory.toString() + File.separator);
+    try
+    {
+      testCatalog();
+    }
+    finally
+    {
+      File[] testFiles = testDirectory.toFile().listFiles();
+      if (testFiles != null)
+      {
+        for (File testFile : testFiles)
+          Files.delete(testFile.toPath());
+      }
+      Files.delete(testDirectory);
+    }
+  }
+
+  /**
+   * Internal method used by the test to list the catalog and check that a file copied in and deleted is seen.
+   *
+   * @throws Exception The test failed.
+   */
+  private static void testCatalog() throws Exception
+  {
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    for (Entry entry : catalog.getEntries())
+    {
+      int days = 0;
+      for (int day = 1; day <= 31; day++)
+        days += entry.hasDay(day) ? 1 : 0;
+      System.out.println(entry.getFilename() + ": " + entry.getSize() + " bytes, " + entry.getTotalRecords() +
+                         " records, " + days + " days");
+    }
+    System.out.println("Latest: " + catalog.getLatestMonth());
+
+    // A file copied in is seen by the watch.
+    YearMonth latest = catalog.getLatestMonth();
+    if (latest != null)
+    {
+      YearMonth copy = YearMonth.of(2063, 12);
+      Path target = Paths.get(catalog.directory + DatabaseCommon.getFilename(copy.getYear(), copy.getMonthValue()));
+      Files.copy(Paths.get(catalog.directory + catalog.getEntry(latest).getFilename()), target);
+      try
+      {
+        for (int i = 0; i < 100 && !catalog.contains(copy.getYear(), copy.getMonthValue()); i++)
+          Thread.sleep(100);
+        System.out.println("After copy: " + catalog.getLatestMonth());
+      }
+      finally
+      {
+        Files.delete(target);
+      }
+      for (int i = 0; i < 100 && catalog.contains(copy.getYear(), copy.getMonthValue()); i++)
+        Thread.sleep(100);
+      System.out.println("After delete: " + catalog.getLatestMonth());
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This enumeration defines the climates the archive generator can
+            produce.  EXTREME is not a real climate, it pushes the values to
+            the edges of what the records can hold for stress testing.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package dbif;
+
+public enum ArchiveClimate
+{
+  //                 mean  season  daily  humid  rain   rate  wind  clouds
+  TEMPERATE        (50.0,  25.0,   10.0,  65.0,  0.25,  4,     8.0,  0.7),
+  HIGH_DESERT      (48.0,  22.0,   15.0,  40.0,  0.12,  3,    10.0,  0.4),
+  HUMID_SUBTROPICAL(68.0,  15.0,    8.0,  80.0,  0.35,  8,     6.0,  0.8),
+  MARITIME         (52.0,   8.0,    5.0,  80.0,  0.45,  2,    12.0,  0.9),
+  ARCTIC           (15.0,  30.0,    5.0,  75.0,  0.15,  1,    12.0,  0.6),
+  EXTREME          (55.0,  45.0,   25.0,  50.0,  0.50,  40,   30.0,  0.7);
+
+  private final double meanTemp;
+  private final double seasonalSwing;
+  private final double dailySwing;
+  private final double humidity;
+  private final double rainChance;
+  private final int rainIntensity;
+  private final double windSpeed;
+  private final double cloudiness;
+
+  /**
+   * Constructor.
+   *
+   * @param meanTemp The yearly average temperature in degrees F.
+   * @param seasonalSwing The difference between the average and the warmest day of the year.
+   * @param dailySwing The difference between the day's average and the afternoon high.
+   * @param humidity The average relative humidity.
+   * @param rainChance The chance that a day has rain.
+   * @param rainIntensity The most rain clicks in one archive interval.
+   * @param windSpeed The highest daily base wind speed in MPH.
+   * @param cloudiness The most the clouds cut the solar radiation.
+   */
+  ArchiveClimate(double meanTemp, double seasonalSwing, double dailySwing, double humidity, double rainChance,
+                 int rainIntensity, double windSpeed, double cloudiness)
+  {
+    this.meanTemp = meanTemp;
+    this.seasonalSwing = seasonalSwing;
+    this.dailySwing = dailySwing;
+    this.humidity = humidity;
+    this.rainChance = rainChance;
+    this.rainIntensity = rainIntensity;
+    this.windSpeed = windSpeed;
+    this.cloudiness = cloudiness;
+  }
+
+  public double meanTemp()
+  {
+    return meanTemp;
+  }
+
+  public double seasonalSwing()
+  {
+    return seasonalSwing;
+  }
+
+  public double dailySwing()
+  {
+    return dailySwing;
+  }
+
+  public double humidity()
+  {
+    return humidity;
+  }
+
+  public double rainChance()
+  {
+    return rainChance;
+  }
+
+  public int rainIntensity()
+  {
+    return rainIntensity;
+  }
+
+  public double windSpeed()
+  {
+    return windSpeed;
+  }
+
+  public double cloudiness()
+  {
+    return cloudiness;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This enum lists the weather record fields that can be aggregated,
+            with the name used in the web API, the scale of the stored value
+            and the column that holds the field in the cold storage.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package dbif;
+
+import data.dbrecord.WeatherRecord;
+
+public enum ArchiveField
+{
+  OUTSIDE_TEMP("outsideTemp", WeatherRecord.OUTSIDE_TEMP_OFFSET, 10, ColdColumn.OUTSIDE_TEMP),
+  HI_OUTSIDE_TEMP("hiOutsideTemp", WeatherRecord.HI_OUTSIDE_TEMP_OFFSET, 10, ColdColumn.HI_OUTSIDE_TEMP),
+  LOW_OUTSIDE_TEMP("lowOutsideTemp", WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET, 10, ColdColumn.LOW_OUTSIDE_TEMP),
+  INSIDE_TEMP("insideTemp", WeatherRecord.INSIDE_TEMP_OFFSET, 10, ColdColumn.INSIDE_TEMP),
+  PRESSURE("pressure", WeatherRecord.BAROMETER_OFFSET, 1000, ColdColumn.BAROMETER),
+  OUTSIDE_HUMIDITY("outsideHumidity", WeatherRecord.OUTSIDE_HUMID_OFFSET, 10, ColdColumn.OUTSIDE_HUMIDITY),
+  INSIDE_HUMIDITY("insideHumidity", WeatherRecord.INSIDE_HUMID_OFFSET, 10, ColdColumn.INSIDE_HUMIDITY),
+  RAIN("rain", WeatherRecord.RAIN_OFFSET, 100, ColdColumn.RAIN),
+  HI_RAIN_RATE("hiRainRate", WeatherRecord.HI_RAIN_RATE_OFFSET, 100, ColdColumn.HI_RAIN_RATE),
+  WIND_SPEED("windSpeed", WeatherRecord.WIND_SPEED_OFFSET, 10, ColdColumn.WIND_SPEED),
+  HI_WIND_SPEED("hiWindSpeed", WeatherRecord.HI_WIND_SPEED_OFFSET, 10, ColdColumn.HI_WIND_SPEED),
+  SOLAR_RADIATION("solarRadiation", WeatherRecord.SOLAR_RAD_OFFSET, 1, ColdColumn.SOLAR_RADIATION),
+  HI_SOLAR_RADIATION("hiSolarRadiation", WeatherRecord.HI_SOLAR_OFFSET, 1, ColdColumn.HI_SOLAR_RADIATION);
+
+  private static final short DASHED_VALUE = (short)0x8000;
+  private static final short NO_SENSOR_VALUE = 0x7FFF;
+
+  private final String name;
+  private final int offset;
+  private final float scale;
+  private final ColdColumn coldColumn;
+
+  ArchiveField(String name, int offset, float scale, ColdColumn coldColumn)
+  {
+    this.name = name;
+    this.offset = offset;
+    this.scale = scale;
+    this.coldColumn = coldColumn;
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  ColdColumn getColdColumn()
+  {
+    return coldColumn;
+  }
+
+  /**
+   * Method to get the field of a name used in the web API.
+   *
+   * @param name The name.
+   * @return The field or null if there is no field of that name.
+   */
+  public static ArchiveField fromName(String name)
+  {
+    for (ArchiveField field : values())
+    {
+      if (field.name.equals(name))
+        return field;
+    }
+    return null;
+  }
+
+  /**
+   * Method to read the field of a weather record.
+   *
+   * @param archive The month.
+   * @param recordOffset The byte offset of the record.
+   * @return The value or NaN if the sensor has no value.
+   */
+  public float read(ArchiveMonth archive, int recordOffset)
+  {
+    return decode(archive.getShort(recordOffset, offset));
+  }
+
+  /**
+   * Method to scale a stored value of the field.
+   *
+   * @param raw The value as stored in the record or the cold storage column.
+   * @return The value or NaN if the sensor has no value.
+   */
+  float decode(int raw)
+  {
+    if (this == RAIN)
+      return (raw & 0x0FFF) / scale; // The top bits are the rain collector type.
+    if (raw == DASHED_VALUE || raw == NO_SENSOR_VALUE)
+      return Float.NaN;
+    return raw / scale;
+  }
+}
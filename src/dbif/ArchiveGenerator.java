@@ -0,0 +1,430 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class generates synthetic month database files in the
+            WeatherLink format.  The weather follows seasonal and daily cycles
+            of the chosen climate with random day to day changes and an
+            optional warming trend.  The same seed always produces the same
+            bytes, so the files can be used to measure and compare the
+            readers and writers on a known data set of any size.
+
+            Each month is generated from its own random stream and the day to
+            day values only depend on the date, so any month can be generated
+            on its own and still join up with the months around it.  This is
+            what lets a span of months be generated in parallel.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Added climates, the warming trend and parallel spans.
+            10/19/26  Build the summary records with the DaySummaryBuilder.
+*/
+package dbif;
+
+import algorithms.Calculations;
+import data.dbrecord.DailySummary1Record;
+import data.dbrecord.DailySummary2Record;
+import data.dbrecord.WeatherRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ArchiveGenerator
+{
+  private static final int MINUTES_IN_DAY = 1440;
+  private static final short DASHED_VALUE = (short)0x8000;
+
+  private final long seed;
+  private final int archiveInterval;
+  private final ArchiveClimate climate;
+  private final double trendPerDecade;
+
+  /**
+   * Constructor for a temperate climate without a trend.
+   *
+   * @param seed The seed of the random values.
+   * @param archiveInterval The archive interval in minutes.  This must divide evenly into a day.
+   */
+  public ArchiveGenerator(long seed, int archiveInterval)
+  {
+    this(seed, archiveInterval, ArchiveClimate.TEMPERATE, 0);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param seed The seed of the random values.
+   * @param archiveInterval The archive interval in minutes.  This must divide evenly into a day.
+   * @param climate The climate to generate.
+   * @param trendPerDecade The change of the temperatures in degrees F per decade, starting from 2000.
+   */
+  public ArchiveGenerator(long seed, int archiveInterval, ArchiveClimate climate, double trendPerDecade)
+  {
+    if (archiveInterval <= 0 || MINUTES_IN_DAY % archiveInterval != 0)
+      throw new IllegalArgumentException("Archive interval must divide evenly into a day: " + archiveInterval);
+
+    this.seed = seed;
+    this.archiveInterval = archiveInterval;
+    this.climate = climate;
+    this.trendPerDecade = trendPerDecade;
+  }
+
+  /**
+   * Method to generate the bytes of a full month database file.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @return The file bytes.
+   */
+  public byte[] generateMonth(int year, int month)
+  {
+    int daysInMonth = YearMonth.of(year, month).lengthOfMonth();
+    int recordsInDay = MINUTES_IN_DAY / archiveInterval + 2;
+    int totalRecords = daysInMonth * recordsInDay;
+
+    ByteBuffer file = ByteBuffer.allocate(DatabaseCommon.HEADER_BLOCK_SIZE + totalRecords * DatabaseCommon.RECORD_SIZE);
+    file.order(ByteOrder.LITTLE_ENDIAN);
+
+    // The header is the ID code followed by 7 zeros and the 0x05, 0x03 values, the same as the DatabaseWriter.
+    file.put(DatabaseCommon.FILE_HEADER.getBytes(StandardCharsets.UTF_8));
+    file.put(DatabaseCommon.TOTAL_RECORDS_OFFSET - 2, (byte)0x05);
+    file.put(DatabaseCommon.TOTAL_RECORDS_OFFSET - 1, (byte)0x03);
+    file.putInt(DatabaseCommon.TOTAL_RECORDS_OFFSET, totalRecords);
+
+    SplittableRandom random = new SplittableRandom(seed ^ (year * 12L + month) * 0x9E3779B97F4A7C15L);
+    for (int day = 1; day <= daysInMonth; day++)
+    {
+      int startRecord = (day - 1) * recordsInDay;
+      int indexOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + day * 6;
+      file.putShort(indexOffset, (short)recordsInDay);
+      file.putInt(indexOffset + 2, startRecord);
+
+      generateDay(file, DatabaseCommon.HEADER_BLOCK_SIZE + startRecord * DatabaseCommon.RECORD_SIZE,
+                  LocalDate.of(year, month, day), random);
+    }
+    return file.array();
+  }
+
+  /**
+   * Method to generate a month and write it to a directory.  Any existing file is replaced.
+   *
+   * @param directory The directory to write to, ending with a separator.
+   * @param year The year.
+   * @param month The month.
+   * @return The file written.
+   * @throws IOException The file could not be written.
+   */
+  public File writeMonth(String directory, int year, int month) throws IOException
+  {
+    Path path = Paths.get(directory + DatabaseCommon.getFilename(year, month));
+    Files.write(path, generateMonth(year, month));
+    return path.toFile();
+  }
+
+  /**
+   * Method to generate a span of months and write them to a directory.  The months are spread over a pool of
+   * threads, each one building a whole month in memory before it is written.
+   *
+   * @param directory The directory to write to, ending with a separator.
+   * @param firstMonth The first month.
+   * @param months The number of months.
+   * @param threads The number of threads.
+   * @return The total bytes written.
+   * @throws IOException A file could not be written.
+   */
+  public long writeMonths(String directory, YearMonth firstMonth, int months, int threads) throws IOException
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try
+    {
+      List<Future<File>> files = new ArrayList<>();
+      for (int i = 0; i < months; i++)
+      {
+        YearMonth month = firstMonth.plusMonths(i);
+        files.add(executor.submit(() -> writeMonth(directory, month.getYear(), month.getMonthValue())));
+      }
+
+      long totalBytes = 0;
+      for (Future<File> file : files)
+        totalBytes += file.get().length();
+      return totalBytes;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while generating the months", e);
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof IOException)
+        throw (IOException)e.getCause();
+      throw new IOException(e.getCause());
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Internal method to generate the two summary records and the weather records of a day.
+   *
+   * @param file The file buffer.
+   * @param offset The offset of the day's first summary record.
+   * @param date The date.
+   * @param random The random values of the month.
+   */
+  private void generateDay(ByteBuffer file, int offset, LocalDate date, SplittableRandom random)
+  {
+    DayValues today = new DayValues(date);
+    DayValues tomorrow = new DayValues(date.plusDays(1));
+    double season = Math.cos(2 * Math.PI * (date.getDayOfYear() - 200) / 365.25);
+    double normalTemp = climate.meanTemp() + climate.seasonalSwing() * season +
+      trendPerDecade * (date.getYear() - 2000 + date.getDayOfYear() / 365.25) / 10;
+    double dayLength = 12 + 3 * season;
+    double sunrise = 12 - dayLength / 2;
+
+    DaySummaryBuilder summary = new DaySummaryBuilder();
+    // The THSW calculation uses the current time of day, so the sun is added to the THW here to keep the files
+    // repeatable.  The summary builder leaves the THSW values alone for the same reason.
+    DaySummaryBuilder.Extreme thsw = new DaySummaryBuilder.Extreme();
+
+    int recordOffset = offset + 2 * DatabaseCommon.RECORD_SIZE;
+    for (int time = archiveInterval; time <= MINUTES_IN_DAY; time += archiveInterval)
+    {
+      double fraction = time / (double)MINUTES_IN_DAY;
+      double hour = time / 60.0;
+
+      // Temperatures and humidity follow the season and the time of day.
+      double temp = normalTemp + climate.dailySwing() * Math.cos(2 * Math.PI * (hour - 15) / 24) +
+        blend(today.tempAnomaly, tomorrow.tempAnomaly, fraction) + random.nextDouble() - 0.5;
+      int tempTenths = (int)Math.round(temp * 10);
+      int hiTenths = tempTenths + random.nextInt(8);
+      int lowTenths = tempTenths - random.nextInt(8);
+      int inTenths = 700 + (int)Math.round(20 * Math.cos(2 * Math.PI * (hour - 17) / 24));
+      boolean raining = today.rainy && time > today.rainStart && time <= today.rainStart + today.rainLength;
+      double humidity = Math.max(5, Math.min(100, climate.humidity() - (temp - normalTemp) * 2 + (raining ? 30 : 0)));
+      int humidTenths = (int)Math.round(humidity) * 10;
+      int inHumidTenths = (40 + random.nextInt(3)) * 10;
+      int barThousandths = (int)Math.round((29.92 + blend(today.pressure, tomorrow.pressure, fraction) +
+        0.02 * Math.sin(2 * Math.PI * hour / 12)) * 1000);
+
+      // Wind picks up in the afternoon and swings around the direction of the day.
+      double speed = Math.max(0, today.windBase + 3 * Math.sin(Math.PI * (hour - 8) / 12) + random.nextDouble() * 2 - 1);
+      int speedTenths = (int)Math.round(speed * 10);
+      int hiSpeedTenths = speedTenths + random.nextInt(60);
+      int direction = (today.windDir + random.nextInt(3) + 15) % 16;
+      int samples = archiveInterval * 24 - random.nextInt(3);
+
+      // Rain falls in one event on the rainy days.
+      int clicks = raining ? random.nextInt(today.rainIntensity + 1) : 0;
+      int hiRate = clicks == 0 ? 0 : clicks * 60 / archiveInterval + random.nextInt(20);
+
+      // The sun is up between sunrise and sunset with the clouds of the day.
+      double sun = Math.sin(Math.PI * (hour - sunrise) / dayLength);
+      int solarRad = 0;
+      if (sun > 0)
+        solarRad = (int)Math.round(1000 * (0.75 + 0.25 * season) * (1 - today.cloudiness) * sun);
+      int hiSolarRad = solarRad == 0 ? 0 : solarRad + random.nextInt(40);
+      int uvTenths = (int)Math.round(solarRad * 0.09);
+      int hiUvTenths = uvTenths == 0 ? 0 : uvTenths + random.nextInt(4);
+      int et = (int)Math.round(solarRad * archiveInterval / 3000.0);
+
+      byte[] weather = new byte[DatabaseCommon.RECORD_SIZE];
+      ByteBuffer record = ByteBuffer.wrap(weather).order(ByteOrder.LITTLE_ENDIAN);
+      record.put(0, (byte)ArchiveMonth.WEATHER_RECORD_TYPE);
+      record.put(1, (byte)archiveInterval);
+      record.putShort(WeatherRecord.PACKED_TIME_OFFSET, (short)time);
+      record.putShort(WeatherRecord.OUTSIDE_TEMP_OFFSET, (short)tempTenths);
+      record.putShort(WeatherRecord.HI_OUTSIDE_TEMP_OFFSET, (short)hiTenths);
+      record.putShort(WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET, (short)lowTenths);
+      record.putShort(WeatherRecord.INSIDE_TEMP_OFFSET, (short)inTenths);
+      record.putShort(WeatherRecord.BAROMETER_OFFSET, (short)barThousandths);
+      record.putShort(WeatherRecord.OUTSIDE_HUMID_OFFSET, (short)humidTenths);
+      record.putShort(WeatherRecord.INSIDE_HUMID_OFFSET, (short)inHumidTenths);
+      record.putShort(WeatherRecord.RAIN_OFFSET, (short)(0x1000 | clicks & 0x0FFF));
+      record.putShort(WeatherRecord.HI_RAIN_RATE_OFFSET, (short)hiRate);
+      record.putShort(WeatherRecord.WIND_SPEED_OFFSET, (short)speedTenths);
+      record.putShort(WeatherRecord.HI_WIND_SPEED_OFFSET, (short)hiSpeedTenths);
+      record.put(WeatherRecord.WIND_DIR_OFFSET, (byte)direction);
+      record.put(WeatherRecord.HI_WIND_DIR_OFFSET, (byte)direction);
+      record.putShort(WeatherRecord.NUM_WIND_SAMPLES_OFFSET, (short)samples);
+      record.putShort(WeatherRecord.SOLAR_RAD_OFFSET, (short)solarRad);
+      record.putShort(WeatherRecord.HI_SOLAR_OFFSET, (short)hiSolarRad);
+      record.put(WeatherRecord.UV_OFFSET, (byte)uvTenths);
+      record.put(WeatherRecord.HI_UV_OFFSET, (byte)hiUvTenths);
+      for (int i = 38; i < 44; i++)
+        weather[i] = DatabaseCommon.UNDEFINED_BYTE_VALUE;
+      for (int i = 44; i < 56; i += 2)
+        record.putShort(i, DASHED_VALUE);
+      record.put(WeatherRecord.FORECAST_OFFSET, (byte)(today.rainy ? 45 : 8));
+      record.put(WeatherRecord.ET_OFFSET, (byte)et);
+      for (int i = WeatherRecord.SOIL_TEMP_1_OFFSET; i < DatabaseCommon.RECORD_SIZE; i++)
+        weather[i] = DatabaseCommon.UNDEFINED_BYTE_VALUE;
+      file.position(recordOffset);
+      file.put(weather);
+      summary.add(file, recordOffset);
+      recordOffset += DatabaseCommon.RECORD_SIZE;
+
+      float tempF = tempTenths / 10f;
+      float thwF = Calculations.calculateTHW(tempF, speedTenths / 10f, humidTenths / 10f);
+      thsw.add(Math.round((thwF + solarRad / 100f) * 10), time);
+    }
+
+    // The summary records start out as the DatabaseWriter creates them, then the builder fills in the values.
+    int summary1 = offset;
+    int summary2 = offset + DatabaseCommon.RECORD_SIZE;
+    file.put(summary1, (byte)ArchiveMonth.SUMMARY_1_RECORD_TYPE);
+    file.putShort(summary1 + DailySummary1Record.HI_10_MIN_SPEED_OFFSET, DaySummaryBuilder.DASHED_VALUE);
+    file.putShort(summary1 + DailySummary1Record.DAILY_UV_DOSE_OFFSET, DaySummaryBuilder.DASHED_VALUE);
+    DaySummaryBuilder.putTime(file, summary1 + DailySummary1Record.TIME_HIGH_OUT_TEMP_OFFSET_1,
+                              DailySummary1Record.TIME_OF_HIGH_AVG_WIND_SPEED_INDEX, DaySummaryBuilder.NO_TIME_VALUE);
+    file.put(summary2, (byte)ArchiveMonth.SUMMARY_2_RECORD_TYPE);
+    file.put(summary2 + 1, DatabaseCommon.UNDEFINED_BYTE_VALUE);
+    for (int i = DailySummary2Record.COOL_DD_OFFSET + 2; i < DatabaseCommon.RECORD_SIZE; i++)
+      file.put(summary2 + i, (byte)((i % 2) == 0 ? 0x00 : 0x80));
+    summary.write(file, summary1, summary2);
+
+    int time2 = summary2 + DailySummary2Record.TIME_HIGH_SOLAR_OFFSET_1;
+    file.putShort(summary2 + DailySummary2Record.HI_THSW_OFFSET, (short)thsw.high);
+    file.putShort(summary2 + DailySummary2Record.LOW_THSW_OFFSET, (short)thsw.low);
+    DaySummaryBuilder.putTime(file, time2, DailySummary2Record.TIME_OF_HIGH_OUT_THSW_INDEX, thsw.highTime);
+    DaySummaryBuilder.putTime(file, time2, DailySummary2Record.TIME_OF_LOW_OUT_THSW_INDEX, thsw.lowTime);
+  }
+
+  /**
+   * Linear blend between today's value and tomorrow's so the days join up.
+   *
+   * @param value Today's value.
+   * @param nextValue Tomorrow's value.
+   * @param fraction The fraction of the day gone.
+   * @return The blended value.
+   */
+  private static double blend(double value, double nextValue, double fraction)
+  {
+    return value + (nextValue - value) * fraction;
+  }
+
+  /**
+   * The values that change from one day to the next.  They only depend on the date and the seed.
+   */
+  private class DayValues
+  {
+    private final double tempAnomaly;
+    private final double pressure;
+    private final double cloudiness;
+    private final double windBase;
+    private final int windDir;
+    private final boolean rainy;
+    private final int rainStart;
+    private final int rainLength;
+    private final int rainIntensity;
+
+    private DayValues(LocalDate date)
+    {
+      Random random = new Random(seed * 31 + date.toEpochDay());
+      tempAnomaly = random.nextGaussian() * 6;
+      pressure = random.nextGaussian() * 0.15;
+      cloudiness = random.nextDouble() * climate.cloudiness();
+      windBase = random.nextDouble() * climate.windSpeed();
+      windDir = random.nextInt(16);
+      rainy = random.nextDouble() < climate.rainChance();
+      rainStart = random.nextInt(MINUTES_IN_DAY);
+      rainLength = 30 + random.nextInt(240);
+      rainIntensity = 1 + random.nextInt(climate.rainIntensity());
+    }
+  }
+
+  /**
+   * Generate months of database files.
+   *
+   * @param args The directory, the first month as yyyy-mm, the number of months and the options.
+   */
+  public static void main(String[] args)
+  {
+    String usage = "Usage: ArchiveGenerator directory yyyy-mm months [-seed n] [-interval minutes] " +
+      "[-climate name] [-trend degreesPerDecade] [-threads n]";
+    if (args.length < 3)
+    {
+      System.out.println(usage);
+      return;
+    }
+
+    String directory = args[0].endsWith(File.separator) ? args[0] : args[0] + File.separator;
+    YearMonth firstMonth;
+    int months;
+    long seed = 1;
+    int interval = 5;
+    ArchiveClimate climate = ArchiveClimate.TEMPERATE;
+    double trend = 0;
+    int threads = Runtime.getRuntime().availableProcessors();
+    try
+    {
+      firstMonth = YearMonth.parse(args[1]);
+      months = Integer.parseInt(args[2]);
+      for (int i = 3; i < args.length; i += 2)
+      {
+        String value = args[i + 1];
+        switch (args[i])
+        {
+          case "-seed":
+            seed = Long.parseLong(value);
+            break;
+          case "-interval":
+            interval = Integer.parseInt(value);
+            break;
+          case "-climate":
+            climate = ArchiveClimate.valueOf(value.toUpperCase());
+            break;
+          case "-trend":
+            trend = Double.parseDouble(value);
+            break;
+          case "-threads":
+            threads = Integer.parseInt(value);
+            break;
+          default:
+            throw new IllegalArgumentException(args[i]);
+        }
+      }
+    }
+    catch (RuntimeException e)
+    {
+      System.out.println(usage);
+      return;
+    }
+
+    try
+    {
+      long start = System.nanoTime();
+      ArchiveGenerator generator = new ArchiveGenerator(seed, interval, climate, trend);
+      long totalBytes = generator.writeMonths(directory, firstMonth, months, threads);
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      System.out.println("Wrote " + months + " months starting " + firstMonth + " (" + totalBytes + " bytes) in " +
+                         millis + " ms using " + threads + " threads.");
+    }
+    catch (IOException | IllegalArgumentException e)
+    {
+      System.out.println("Unable to write the database files: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class loads an entire month database file into memory with a
+            single read and provides direct access to the raw record fields.
+            Unlike the DatabaseReader, no record objects are created and no
+            shared state is touched, so index and report builders can scan the
+            archive without disturbing the views that use the reader.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Added loading from a given directory.
+            10/19/26  Record the time to load a month.
+            10/19/26  Added copying a whole record.
+*/
+package dbif;
+
+import data.dbrecord.WeatherRecord;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class ArchiveMonth
+{
+  public static final int WEATHER_RECORD_TYPE = 1;
+  public static final int SUMMARY_1_RECORD_TYPE = 2;
+  public static final int SUMMARY_2_RECORD_TYPE = 3;
+
+  private static final LatencyHistogram LOAD_LATENCY = MetricsRegistry.getInstance().histogram("db.monthLoad");
+
+  private final int year;
+  private final int month;
+  private final byte[] data;
+  private final int totalRecords;
+
+  // Indexed by day of month.  The start is the record number of the day's first summary record and the
+  // count includes the two summary records.  Days without data have a count of zero.
+  private final int[] dayStartRecord = new int[32];
+  private final int[] recordsInDay = new int[32];
+
+  /**
+   * Constructor that walks the records and builds the day table.
+   *
+   * @param year The year of the data.
+   * @param month The month of the data.
+   * @param data The raw bytes of the database file.
+   */
+  ArchiveMonth(int year, int month, byte[] data)
+  {
+    this.year = year;
+    this.month = month;
+    this.data = data;
+
+    int numOfRecords = (data[DatabaseCommon.TOTAL_RECORDS_OFFSET] & 0xFF) |
+      (data[DatabaseCommon.TOTAL_RECORDS_OFFSET + 1] & 0xFF) << 8 |
+      (data[DatabaseCommon.TOTAL_RECORDS_OFFSET + 2] & 0xFF) << 16 |
+      (data[DatabaseCommon.TOTAL_RECORDS_OFFSET + 3] & 0xFF) << 24;
+
+    // Never trust the header beyond the bytes actually present.
+    int recordsPresent = (data.length - DatabaseCommon.HEADER_BLOCK_SIZE) / DatabaseCommon.RECORD_SIZE;
+    totalRecords = Math.max(0, Math.min(numOfRecords, recordsPresent));
+
+    // Set day to the day before the first day with data, the same as the DatabaseReader does.  Each time a
+    // summary record #1 is encountered the day is incremented.
+    int day = -1;
+    for (int i = 0; i < 32 && day == -1; i++)
+    {
+      int offset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + i * 6;
+      int count = (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+      if (count != 0)
+        day = i - 1;
+    }
+
+    for (int record = 0; record < totalRecords; record++)
+    {
+      int dataType = data[getRecordOffset(record)];
+      if (dataType == SUMMARY_1_RECORD_TYPE)
+      {
+        day++;
+        if (day > 31)
+          break;
+        dayStartRecord[day] = record;
+      }
+      if (day >= 1 && day <= 31)
+        recordsInDay[day]++;
+    }
+  }
+
+  /**
+   * Read the database file for the given year and month.
+   *
+   * @param year The year to read.
+   * @param month The month to read.
+   * @return The loaded month.
+   * @throws IOException The file does not exist or could not be read.
+   */
+  public static ArchiveMonth load(int year, int month) throws IOException
+  {
+    return load(DatabaseCommon.getDirectory(), year, month);
+  }
+
+  /**
+   * Read the database file for the given year and month from a directory other than the database directory.
+   *
+   * @param directory The directory holding the database files, ending with a separator.
+   * @param year The year to read.
+   * @param month The month to read.
+   * @return The loaded month.
+   * @throws IOException The file does not exist or could not be read.
+   */
+  public static ArchiveMonth load(String directory, int year, int month) throws IOException
+  {
+    long start = System.nanoTime();
+    byte[] data = Files.readAllBytes(Paths.get(directory + DatabaseCommon.getFilename(year, month)));
+    LOAD_LATENCY.recordSince(start);
+    if (data.length < DatabaseCommon.HEADER_BLOCK_SIZE)
+      throw new IOException("Truncated database file: " + DatabaseCommon.getFilename(year, month));
+    return new ArchiveMonth(year, month, data);
+  }
+
+  /**
+   * Read only the header of the database file for the given year and month and return the number of records in each
+   * day, including the two summary records.  This is enough to size a view without reading the records.
+   *
+   * @param year The year to read.
+   * @param month The month to read.
+   * @return The number of records indexed by day of month.  Days without data have a count of zero.
+   * @throws IOException The file does not exist or could not be read.
+   */
+  public static int[] readRecordsInDay(int year, int month) throws IOException
+  {
+    byte[] header = new byte[DatabaseCommon.HEADER_BLOCK_SIZE];
+    try (RandomAccessFile monthFile =
+           new RandomAccessFile(DatabaseCommon.getDirectory() + DatabaseCommon.getFilename(year, month), "r"))
+    {
+      monthFile.readFully(header);
+    }
+
+    int[] recordsInDay = new int[32];
+    for (int day = 1; day <= 31; day++)
+    {
+      int offset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + day * 6;
+      recordsInDay[day] = (header[offset] & 0xFF) | (header[offset + 1] & 0xFF) << 8;
+    }
+    return recordsInDay;
+  }
+
+  public int getYear()
+  {
+    return year;
+  }
+
+  public int getMonth()
+  {
+    return month;
+  }
+
+  /**
+   * Method to get the total number of records, summary records included.
+   *
+   * @return The number of records in the file.
+   */
+  public int getTotalRecords()
+  {
+    return totalRecords;
+  }
+
+  /**
+   * Method to determine if there is any data for a given day.
+   *
+   * @param day The day of the month.
+   * @return Whether or not the day has records.
+   */
+  public boolean hasDay(int day)
+  {
+    return day >= 1 && day <= 31 && recordsInDay[day] > 0;
+  }
+
+  /**
+   * Method to get the record number of the first summary record of a day.
+   *
+   * @param day The day of the month.
+   * @return The record number.
+   */
+  public int getDayStartRecord(int day)
+  {
+    return dayStartRecord[day];
+  }
+
+  /**
+   * Method to get the number of records in a day, including the two summary records.
+   *
+   * @param day The day of the month.
+   * @return The number of records.
+   */
+  public int getRecordsInDay(int day)
+  {
+    return recordsInDay[day];
+  }
+
+  /**
+   * Method to get the number of 5 minute weather records in a day.
+   *
+   * @param day The day of the month.
+   * @return The number of weather records.
+   */
+  public int getWeatherRecordCount(int day)
+  {
+    return Math.max(0, recordsInDay[day] - 2);
+  }
+
+  /**
+   * Method to get the byte offset of the nth weather record of a day.
+   *
+   * @param day The day of the month.
+   * @param index The index of the weather record within the day, starting at zero.
+   * @return The byte offset of the start of the record.
+   */
+  public int getWeatherRecordOffset(int day, int index)
+  {
+    return getRecordOffset(dayStartRecord[day] + 2 + index);
+  }
+
+  /**
+   * Method to get the byte offset of a record.
+   *
+   * @param record The record number.
+   * @return The byte offset of the start of the record.
+   */
+  public int getRecordOffset(int record)
+  {
+    return DatabaseCommon.HEADER_BLOCK_SIZE + record * DatabaseCommon.RECORD_SIZE;
+  }
+
+  /**
+   * Method to get the data type of the record at a byte offset.
+   *
+   * @param recordOffset The byte offset of the record.
+   * @return 1 = Weather Record, 2 = Daily Summary Record #1, 3 = Daily Summary Record #2.
+   */
+  public int getDataType(int recordOffset)
+  {
+    return data[recordOffset];
+  }
+
+  /**
+   * Method to read a little endian short value.
+   *
+   * @param recordOffset The byte offset of the record.
+   * @param fieldOffset The offset of the field within the record.
+   * @return The value.
+   */
+  public short getShort(int recordOffset, int fieldOffset)
+  {
+    int offset = recordOffset + fieldOffset;
+    return (short)((data[offset] & 0xFF) | (data[offset + 1] << 8));
+  }
+
+  /**
+   * Method to read a single byte value.
+   *
+   * @param recordOffset The byte offset of the record.
+   * @param fieldOffset The offset of the field within the record.
+   * @return The value.
+   */
+  public byte getByte(int recordOffset, int fieldOffset)
+  {
+    return data[recordOffset + fieldOffset];
+  }
+
+  /**
+   * Method to copy a whole record.
+   *
+   * @param recordOffset The byte offset of the record.
+   * @return The record bytes.
+   */
+  public byte[] getRecord(int recordOffset)
+  {
+    return Arrays.copyOfRange(data, recordOffset, recordOffset + DatabaseCommon.RECORD_SIZE);
+  }
+
+  /**
+   * Method to get the number of minutes a weather record represents.
+   *
+   * @param recordOffset The byte offset of the weather record.
+   * @return The archive interval in minutes.
+   */
+  public int getArchiveInterval(int recordOffset)
+  {
+    return data[recordOffset + WeatherRecord.ARCHIVE_INTERVAL_OFFSET] & 0xFF;
+  }
+}
@@ -0,0 +1,707 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the climate normals of the station: for each
+            calendar day and each month the mean, standard deviation and
+            percentiles of the key daily values over all the archived years.
+            The daily values of each complete day are kept in a table persisted
+            next to the database files.  The table is built once with the
+            ArchiveAggregator, one month per thread, and a day is added when it
+            ends, so asking how today compares to normal never scans the
+            archive.  A calendar day's normal takes in the days a week either
+            side of it in every year, so a few years of data already give a
+            smooth baseline.  The database files remain the source of truth;
+            when the table is loaded, the days after the last one in it are
+            always scanned again.
+
+            The table is only changed on the ClimateNormals thread, which adds
+            the days to a copy and makes the normals from it before it replaces
+            the table, so the writer and the readers never wait for a build.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Build the table off the lock and replace it as a whole.
+*/
+package dbif;
+
+import data.consolerecord.DmpDataExtended;
+import util.Logger;
+import util.TimeUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ClimateNormals
+{
+  private static final String TABLE_FILENAME = "normals.idx";
+  private static final String TABLE_ID = "WXNRM";
+  private static final int TABLE_VERSION = 1;
+
+  // A day is only used when it has data for this many of its minutes.
+  private static final int MIN_DAY_MINUTES = 1296;
+
+  // A month's mean is only used when this share of its days are complete, a month's total only when all are.
+  private static final float MIN_MONTH_DAYS = 0.9f;
+
+  // The days either side of a calendar day that are part of its normal.
+  private static final int WINDOW_DAYS = 7;
+  private static final int CALENDAR_DAYS = 366;
+
+  private final Logger logger = Logger.getInstance();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, "ClimateNormals");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  // The daily values of each complete day, indexed by element, NaN where the day has no readings, and the normals
+  // made from them.  Only replaced by the ClimateNormals thread, null until the first update.
+  private volatile Table table = null;
+
+  // The day of the last archive record written, set by the writer.
+  private final AtomicReference<LocalDate> lastRecordDate = new AtomicReference<>();
+
+  /**
+   * The daily values the normals are kept for.
+   */
+  public enum Element
+  {
+    MEAN_TEMP("meanTemp", ArchiveField.OUTSIDE_TEMP, ArchiveAggregator.Function.AVG),
+    HIGH_TEMP("highTemp", ArchiveField.HI_OUTSIDE_TEMP, ArchiveAggregator.Function.MAX),
+    LOW_TEMP("lowTemp", ArchiveField.LOW_OUTSIDE_TEMP, ArchiveAggregator.Function.MIN),
+    RAIN("rain", ArchiveField.RAIN, ArchiveAggregator.Function.SUM),
+    MEAN_WIND("meanWind", ArchiveField.WIND_SPEED, ArchiveAggregator.Function.AVG),
+    HIGH_WIND("highWind", ArchiveField.HI_WIND_SPEED, ArchiveAggregator.Function.MAX),
+    MEAN_SOLAR("meanSolar", ArchiveField.SOLAR_RADIATION, ArchiveAggregator.Function.AVG),
+    MEAN_HUMIDITY("meanHumidity", ArchiveField.OUTSIDE_HUMIDITY, ArchiveAggregator.Function.AVG),
+    MEAN_PRESSURE("meanPressure", ArchiveField.PRESSURE, ArchiveAggregator.Function.AVG);
+
+    private final String name;
+    private final ArchiveField field;
+    private final ArchiveAggregator.Function function;
+
+    Element(String name, ArchiveField field, ArchiveAggregator.Function function)
+    {
+      this.name = name;
+      this.field = field;
+      this.function = function;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * Method to tell if the month's value is the total of the daily values rather than their mean.
+     *
+     * @return Whether the element is a total.
+     */
+    public boolean isTotal()
+    {
+      return function == ArchiveAggregator.Function.SUM;
+    }
+  }
+
+  /**
+   * The normal of one element over the years.
+   */
+  public static final class Normal
+  {
+    private final int count;
+    private final float mean;
+    private final float stdDev;
+    private final float[] sorted;
+
+    /**
+     * Constructor.
+     *
+     * @param samples The values of the years, at least one.
+     * @param count The number of values.
+     */
+    private Normal(float[] samples, int count)
+    {
+      this.count = count;
+      sorted = Arrays.copyOf(samples, count);
+      Arrays.sort(sorted);
+
+      double sum = 0;
+      for (float sample : sorted)
+        sum += sample;
+      double average = sum / count;
+      double squares = 0;
+      for (float sample : sorted)
+        squares += (sample - average) * (sample - average);
+      mean = (float)average;
+      stdDev = count < 2 ? Float.NaN : (float)Math.sqrt(squares / (count - 1));
+    }
+
+    /**
+     * Method to get the number of values the normal was made from.
+     *
+     * @return The number of days for a calendar day's normal, the number of years for a month's normal.
+     */
+    public int getCount()
+    {
+      return count;
+    }
+
+    public float getMean()
+    {
+      return mean;
+    }
+
+    /**
+     * Method to get the sample standard deviation.
+     *
+     * @return The standard deviation or NaN if there is only one value.
+     */
+    public float getStdDev()
+    {
+      return stdDev;
+    }
+
+    /**
+     * Method to get a percentile of the values, interpolated between the two nearest values.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value.
+     */
+    public float getPercentile(double percentile)
+    {
+      double rank = Math.max(0, Math.min(100, percentile)) / 100 * (count - 1);
+      int lower = (int)rank;
+      int upper = Math.min(lower + 1, count - 1);
+      return (float)(sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower));
+    }
+
+    /**
+     * Method to get how far a value is from normal in standard deviations.
+     *
+     * @param value The value.
+     * @return The number of standard deviations, NaN if the normal has no spread.
+     */
+    public float getAnomaly(float value)
+    {
+      return stdDev > 0 ? (value - mean) / stdDev : Float.NaN;
+    }
+  }
+
+  /**
+   * The daily values of the complete days and the normals made from them.  A table is never changed once it is
+   * published, a new one replaces it.
+   */
+  private static final class Table
+  {
+    private final TreeMap<LocalDate, float[]> dayValues;
+    private final Normal[][] dayNormals;
+    private final Normal[][] monthNormals;
+
+    /**
+     * Constructor.  The normals are made from the daily values.
+     *
+     * @param dayValues The daily values of the complete days, not changed afterwards.
+     */
+    private Table(TreeMap<LocalDate, float[]> dayValues)
+    {
+      this.dayValues = dayValues;
+
+      Element[] elements = Element.values();
+      dayNormals = new Normal[elements.length][CALENDAR_DAYS];
+      monthNormals = new Normal[elements.length][13];
+
+      // The values of each calendar day and of each month of each year.
+      List<List<float[]>> calendarDays = new ArrayList<>();
+      for (int i = 0; i < CALENDAR_DAYS; i++)
+        calendarDays.add(new ArrayList<>());
+      TreeMap<YearMonth, List<float[]>> months = new TreeMap<>();
+      for (Map.Entry<LocalDate, float[]> entry : dayValues.entrySet())
+      {
+        LocalDate date = entry.getKey();
+        calendarDays.get(getCalendarIndex(date.getMonthValue(), date.getDayOfMonth())).add(entry.getValue());
+        months.computeIfAbsent(YearMonth.from(date), yearMonth -> new ArrayList<>()).add(entry.getValue());
+      }
+
+      float[] samples = new float[dayValues.size() + 1];
+      for (Element element : elements)
+      {
+        int index = element.ordinal();
+        for (int day = 0; day < CALENDAR_DAYS; day++)
+        {
+          int count = 0;
+          for (int offset = -WINDOW_DAYS; offset <= WINDOW_DAYS; offset++)
+          {
+            for (float[] values : calendarDays.get(Math.floorMod(day + offset, CALENDAR_DAYS)))
+            {
+              if (!Float.isNaN(values[index]))
+                samples[count++] = values[index];
+            }
+          }
+          if (count > 0)
+            dayNormals[index][day] = new Normal(samples, count);
+        }
+
+        float[][] monthSamples = new float[13][months.size()];
+        int[] monthCounts = new int[13];
+        for (Map.Entry<YearMonth, List<float[]>> entry : months.entrySet())
+        {
+          YearMonth yearMonth = entry.getKey();
+          int needed = element.isTotal() ? yearMonth.lengthOfMonth() :
+            (int)Math.ceil(yearMonth.lengthOfMonth() * MIN_MONTH_DAYS);
+          double sum = 0;
+          int days = 0;
+          for (float[] values : entry.getValue())
+          {
+            if (!Float.isNaN(values[index]))
+            {
+              sum += values[index];
+              days++;
+            }
+          }
+          if (days < needed)
+            continue;
+
+          int month = yearMonth.getMonthValue();
+          monthSamples[month][monthCounts[month]++] = (float)(element.isTotal() ? sum : sum / days);
+        }
+        for (int month = 1; month <= 12; month++)
+        {
+          if (monthCounts[month] > 0)
+            monthNormals[index][month] = new Normal(monthSamples[month], monthCounts[month]);
+        }
+      }
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final ClimateNormals INSTANCE = new ClimateNormals();
+  }
+
+  public static ClimateNormals getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private ClimateNormals() { }
+
+  /**
+   * Method to bring the table up to date on the ClimateNormals thread.
+   */
+  public void updateInBackground()
+  {
+    executor.execute(this::updateTable);
+  }
+
+  /**
+   * Method to add the complete days after the last day in the table up to yesterday and wait until they are added.
+   * The first update reads the table file, or builds the table from the whole archive if there is none.
+   */
+  public void update()
+  {
+    waitFor(executor.submit(this::updateTable));
+  }
+
+  /**
+   * Method called as each new archive record is written.  When the record is the first of a new day, the day
+   * before is complete and is added to the table on the ClimateNormals thread.
+   *
+   * @param data The archive record.
+   */
+  public void addRecord(DmpDataExtended data)
+  {
+    short dateStamp = data.getDateStamp();
+    LocalDate date = LocalDate.of(TimeUtil.getYear(dateStamp), TimeUtil.getMonth(dateStamp),
+                                  TimeUtil.getDay(dateStamp));
+    LocalDate previous = lastRecordDate.getAndSet(date);
+    if (previous != null && date.isAfter(previous))
+      updateInBackground();
+  }
+
+  /**
+   * Method to compute a day again from the database file on the ClimateNormals thread.  This is called when a record
+   * is edited.
+   *
+   * @param date The day.
+   */
+  public void refreshDay(LocalDate date)
+  {
+    executor.execute(() -> refreshTableDay(date));
+  }
+
+  /**
+   * Internal method to add the days after the last day in the table up to yesterday, run on the ClimateNormals
+   * thread.  The days are added to a copy of the table, which then replaces it.
+   */
+  private void updateTable()
+  {
+    long startTime = System.currentTimeMillis();
+    Table current = table;
+    TreeMap<LocalDate, float[]> days = current == null ? readTableFile() : current.dayValues;
+
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    LocalDate from = days.isEmpty() ? null : days.lastKey().plusDays(1);
+    if (from == null && catalog.getFirstMonth() != null)
+      from = catalog.getFirstMonth().atDay(1);
+    LocalDate to = LocalDate.now().minusDays(1);
+
+    int added = 0;
+    if (from != null && !from.isAfter(to))
+    {
+      if (current != null)
+        days = new TreeMap<>(days);
+      added = addDays(days, from, to);
+    }
+    if (current == null || added > 0)
+      table = new Table(days);
+    if (added > 0)
+      save(days);
+    if (current == null)
+    {
+      logger.logData("ClimateNormals: loaded " + days.size() + " days, " + added + " new, in " +
+                     (System.currentTimeMillis() - startTime) + " ms.");
+    }
+  }
+
+  /**
+   * Internal method to compute a day again, run on the ClimateNormals thread.  A table that is not loaded yet is
+   * left alone.
+   *
+   * @param date The day.
+   */
+  private void refreshTableDay(LocalDate date)
+  {
+    Table current = table;
+    if (current == null || !date.isBefore(LocalDate.now()))
+      return;
+
+    TreeMap<LocalDate, float[]> days = new TreeMap<>(current.dayValues);
+    boolean removed = days.remove(date) != null;
+    if (addDays(days, date, date) > 0 || removed)
+    {
+      table = new Table(days);
+      save(days);
+    }
+  }
+
+  /**
+   * Internal method to compute the daily values of a range of days with one aggregate query and add the complete
+   * days to a table.
+   *
+   * @param days The daily values of the table.
+   * @param from The first day.
+   * @param to The last day.
+   * @return The number of days added.
+   */
+  private int addDays(TreeMap<LocalDate, float[]> days, LocalDate from, LocalDate to)
+  {
+    Element[] elements = Element.values();
+    ArchiveField[] fields = new ArchiveField[elements.length];
+    for (int i = 0; i < elements.length; i++)
+      fields[i] = elements[i].field;
+
+    List<ArchiveAggregator.Result> results;
+    try
+    {
+      results = ArchiveAggregator.getInstance().run(
+        new ArchiveAggregator.Query(from, to, ArchiveAggregator.Bucket.DAY, fields));
+    }
+    catch (IOException e)
+    {
+      logger.logData("ClimateNormals: Unable to read the days from " + from + ": " + e.getLocalizedMessage());
+      return 0;
+    }
+
+    int added = 0;
+    for (ArchiveAggregator.Result result : results)
+    {
+      if (result.getMinutes() < MIN_DAY_MINUTES)
+        continue;
+
+      float[] values = new float[elements.length];
+      for (int i = 0; i < elements.length; i++)
+      {
+        ArchiveAggregator.Aggregate aggregate = result.get(fields[i]);
+        values[i] = aggregate.getCount() == 0 ? Float.NaN : elements[i].function.apply(aggregate);
+      }
+      days.put(result.getStart().toLocalDate(), values);
+      added++;
+    }
+    return added;
+  }
+
+  /**
+   * Internal method to get the table, waiting for the first update if it is not loaded yet.
+   *
+   * @return The table or null if it could not be loaded.
+   */
+  private Table getTable()
+  {
+    Table current = table;
+    if (current == null)
+    {
+      update();
+      current = table;
+    }
+    return current;
+  }
+
+  /**
+   * Internal method to wait for work submitted to the ClimateNormals thread.
+   *
+   * @param future The work.
+   */
+  private void waitFor(Future<?> future)
+  {
+    try
+    {
+      future.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e)
+    {
+      logger.logData("ClimateNormals: Unable to update the table: " + e.getCause());
+    }
+  }
+
+  /**
+   * Method to get the normal of a calendar day.
+   *
+   * @param element The element.
+   * @param monthDay The calendar day.
+   * @return The normal or null if there are no days near it in the table.
+   */
+  public Normal getDayNormal(Element element, MonthDay monthDay)
+  {
+    Table current = getTable();
+    return current == null ? null :
+      current.dayNormals[element.ordinal()][getCalendarIndex(monthDay.getMonthValue(), monthDay.getDayOfMonth())];
+  }
+
+  /**
+   * Method to get the normal of a month.  Each year gives one value, the mean of the month's daily values or their
+   * total for an element that is a total.
+   *
+   * @param element The element.
+   * @param month The month, 1 to 12.
+   * @return The normal or null if no year has enough complete days in the month.
+   */
+  public Normal getMonthNormal(Element element, int month)
+  {
+    Table current = getTable();
+    return current == null ? null : current.monthNormals[element.ordinal()][month];
+  }
+
+  /**
+   * Method to get how far a day's value is from the normal of its calendar day.
+   *
+   * @param element The element.
+   * @param date The day.
+   * @param value The day's value.
+   * @return The value less the normal mean or NaN if there is no normal.
+   */
+  public float getDeparture(Element element, LocalDate date, float value)
+  {
+    Normal normal = getDayNormal(element, MonthDay.from(date));
+    return normal == null ? Float.NaN : value - normal.getMean();
+  }
+
+  /**
+   * Method to get the normal means of the months.
+   *
+   * @param element The element.
+   * @return The means indexed by month with index 0 unused, NaN for a month with no normal.
+   */
+  public float[] getMonthlyMeans(Element element)
+  {
+    float[] means = new float[13];
+    means[0] = Float.NaN;
+    for (int month = 1; month <= 12; month++)
+    {
+      Normal normal = getMonthNormal(element, month);
+      means[month] = normal == null ? Float.NaN : normal.getMean();
+    }
+    return means;
+  }
+
+  /**
+   * Method to get the number of complete days in the table.
+   *
+   * @return The number of days.
+   */
+  public int getDays()
+  {
+    Table current = getTable();
+    return current == null ? 0 : current.dayValues.size();
+  }
+
+  /**
+   * Internal method to get the index of a calendar day, the day of the year in a leap year less one.
+   *
+   * @param month The month.
+   * @param day The day of the month.
+   * @return The index, 0 to 365.
+   */
+  private static int getCalendarIndex(int month, int day)
+  {
+    return MonthDay.of(month, day).atYear(2000).getDayOfYear() - 1;
+  }
+
+  /**
+   * Internal method to write the table file.  The file is written to a temporary file first and then moved into
+   * place so that a power failure never leaves a partial table.
+   *
+   * @param dayValues The daily values of the table.
+   */
+  private void save(TreeMap<LocalDate, float[]> dayValues)
+  {
+    String filename = DatabaseCommon.getDirectory() + TABLE_FILENAME;
+    File tempFile = new File(filename + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+    {
+      out.writeUTF(TABLE_ID);
+      out.writeInt(TABLE_VERSION);
+      out.writeInt(Element.values().length);
+      out.writeInt(dayValues.size());
+      for (Map.Entry<LocalDate, float[]> entry : dayValues.entrySet())
+      {
+        out.writeInt((int)entry.getKey().toEpochDay());
+        for (float value : entry.getValue())
+          out.writeFloat(value);
+      }
+    }
+    catch (IOException e)
+    {
+      logger.logData("ClimateNormals: save: Unable to write table: " + e.getLocalizedMessage());
+      return;
+    }
+
+    try
+    {
+      Files.move(tempFile.toPath(), Paths.get(filename), StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (IOException e)
+    {
+      logger.logData("ClimateNormals: save: Unable to replace table: " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Method to remove the table file of a database directory, so the table is built again from the archive the next
+   * time it is loaded.  This is for the programs that change the archive while the station program is stopped.
+   *
+   * @param directory The database directory, ending with a separator.
+   * @throws IOException The file could not be removed.
+   */
+  static void deleteTableFile(String directory) throws IOException
+  {
+    Files.deleteIfExists(Paths.get(directory + TABLE_FILENAME));
+  }
+
+  /**
+   * Internal method to read the table file.  A missing, old or corrupt file simply gives an empty table, which
+   * causes a full rebuild.
+   *
+   * @return The daily values of the table.
+   */
+  private TreeMap<LocalDate, float[]> readTableFile()
+  {
+    TreeMap<LocalDate, float[]> dayValues = new TreeMap<>();
+    File file = new File(DatabaseCommon.getDirectory() + TABLE_FILENAME);
+    if (!file.exists())
+      return dayValues;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      if (!TABLE_ID.equals(in.readUTF()) || in.readInt() != TABLE_VERSION ||
+          in.readInt() != Element.values().length)
+      {
+        logger.logData("ClimateNormals: table file is out of date, rebuilding.");
+        return dayValues;
+      }
+
+      int days = in.readInt();
+      for (int i = 0; i < days; i++)
+      {
+        LocalDate date = LocalDate.ofEpochDay(in.readInt());
+        float[] values = new float[Element.values().length];
+        for (int element = 0; element < values.length; element++)
+          values[element] = in.readFloat();
+        dayValues.put(date, values);
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      logger.logData("ClimateNormals: table file is corrupt, rebuilding: " + e.getLocalizedMessage());
+      dayValues.clear();
+    }
+    return dayValues;
+  }
+
+  /**
+   * Method used to test the class.  The table is built from the archive, or loaded, and the month normals and the
+   * departures of the last day in the table are shown.
+   *
+   * @param args Not used.
+   */
+  public static void main(String[] args)
+  {
+    ClimateNormals normals = ClimateNormals.getInstance();
+    long start = System.nanoTime();
+    normals.update();
+    System.out.println(normals.getDays() + " complete days in " + (System.nanoTime() - start) / 1000000 + " ms");
+    if (normals.getDays() == 0)
+      return;
+
+    for (Element element : Element.values())
+    {
+      StringBuilder line = new StringBuilder(element.getName() + ":");
+      for (int month = 1; month <= 12; month++)
+      {
+        Normal normal = normals.getMonthNormal(element, month);
+        if (normal != null)
+          line.append(String.format(" %d=%.2f", month, normal.getMean()));
+      }
+      System.out.println(line);
+    }
+
+    LocalDate last = normals.table.dayValues.lastKey();
+    float[] values = normals.table.dayValues.get(last);
+    start = System.nanoTime();
+    for (Element element : Element.values())
+    {
+      Normal normal = normals.getDayNormal(element, MonthDay.from(last));
+      System.out.println(String.format("%s %s %.2f: normal %.2f sd %.2f p10 %.2f p50 %.2f p90 %.2f of %d, " +
+                                         "departure %.2f", last, element.getName(), values[element.ordinal()],
+                                       normal.getMean(), normal.getStdDev(), normal.getPercentile(10),
+                                       normal.getPercentile(50), normal.getPercentile(90), normal.getCount(),
+                                       normals.getDeparture(element, last, values[element.ordinal()])));
+    }
+    System.out.println("Lookups in " + (System.nanoTime() - start) / 1000 + " us");
+  }
+}
@@ -0,0 +1,105 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This enum lists the columns of the cold storage files, one for each
+            weather record field that the station fills in.  The extra, leaf
+            and soil sensor slots the station does not have are left out.  The
+            values are the native values of the record, so a column is decoded
+            with the same scaling as the field of the WeatherRecord.  New
+            columns are only ever added at the end.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package dbif;
+
+import data.dbrecord.WeatherRecord;
+
+public enum ColdColumn
+{
+  // The minutes from the start of the month to the end of the record's interval.
+  TIME(-1, 0),
+  ARCHIVE_INTERVAL(WeatherRecord.ARCHIVE_INTERVAL_OFFSET, 1),
+  OUTSIDE_TEMP(WeatherRecord.OUTSIDE_TEMP_OFFSET, 2),
+  HI_OUTSIDE_TEMP(WeatherRecord.HI_OUTSIDE_TEMP_OFFSET, 2),
+  LOW_OUTSIDE_TEMP(WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET, 2),
+  INSIDE_TEMP(WeatherRecord.INSIDE_TEMP_OFFSET, 2),
+  BAROMETER(WeatherRecord.BAROMETER_OFFSET, 2),
+  OUTSIDE_HUMIDITY(WeatherRecord.OUTSIDE_HUMID_OFFSET, 2),
+  INSIDE_HUMIDITY(WeatherRecord.INSIDE_HUMID_OFFSET, 2),
+  RAIN(WeatherRecord.RAIN_OFFSET, 2),
+  HI_RAIN_RATE(WeatherRecord.HI_RAIN_RATE_OFFSET, 2),
+  WIND_SPEED(WeatherRecord.WIND_SPEED_OFFSET, 2),
+  HI_WIND_SPEED(WeatherRecord.HI_WIND_SPEED_OFFSET, 2),
+  WIND_DIRECTION(WeatherRecord.WIND_DIR_OFFSET, 1),
+  HI_WIND_DIRECTION(WeatherRecord.HI_WIND_DIR_OFFSET, 1),
+  WIND_SAMPLES(WeatherRecord.NUM_WIND_SAMPLES_OFFSET, 2),
+  SOLAR_RADIATION(WeatherRecord.SOLAR_RAD_OFFSET, 2),
+  HI_SOLAR_RADIATION(WeatherRecord.HI_SOLAR_OFFSET, 2),
+  UV(WeatherRecord.UV_OFFSET, 1),
+  HI_UV(WeatherRecord.HI_UV_OFFSET, 1),
+  FORECAST(WeatherRecord.FORECAST_OFFSET, 1),
+  ET(WeatherRecord.ET_OFFSET, 1),
+  SOIL_TEMP_1(WeatherRecord.SOIL_TEMP_1_OFFSET, 1);
+
+  private static final int MINUTES_PER_DAY = 1440;
+  private static final int DASHED_VALUE = (short)0x8000;
+  private static final int NO_SENSOR_VALUE = 0x7FFF;
+  private static final int NO_BYTE_VALUE = 0xFF;
+
+  private final int offset;
+  private final int width;
+
+  ColdColumn(int offset, int width)
+  {
+    this.offset = offset;
+    this.width = width;
+  }
+
+  /**
+   * Method to read the column's value from a weather record.  Two byte fields are signed and one byte fields are
+   * unsigned, the same as the WeatherRecord reads them.
+   *
+   * @param archive The month.
+   * @param day The day of the month.
+   * @param recordOffset The byte offset of the weather record.
+   * @return The value.
+   */
+  int read(ArchiveMonth archive, int day, int recordOffset)
+  {
+    switch (width)
+    {
+      case 0:
+        return (day - 1) * MINUTES_PER_DAY + archive.getShort(recordOffset, WeatherRecord.PACKED_TIME_OFFSET);
+      case 1:
+        return archive.getByte(recordOffset, offset) & 0xFF;
+      default:
+        return archive.getShort(recordOffset, offset);
+    }
+  }
+
+  /**
+   * Method to tell if a value is the console's marker for no reading.  These values are left out of the block
+   * statistics so the lowest and highest are real readings.
+   *
+   * @param value The value.
+   * @return Whether the value is not a reading.
+   */
+  public boolean isMissing(int value)
+  {
+    switch (width)
+    {
+      case 0:
+        return false;
+      case 1:
+        return value == NO_BYTE_VALUE;
+      default:
+        return value == DASHED_VALUE || value == NO_SENSOR_VALUE;
+    }
+  }
+}
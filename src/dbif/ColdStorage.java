@@ -0,0 +1,298 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class keeps the cold storage files of the closed months, every
+            month but the latest, in the cold directory of the database.  The
+            files are brought up to date at startup and when a new month file
+            is made.  The DatabaseWriter has a month's file made again after
+            it edits a record of a closed month.  The .wlk files stay the
+            source of the data and are never changed here.  A scan of past
+            years asks this class for a month and falls back to the .wlk file
+            when there is no current cold storage file, such as while an
+            edited month is being stored again.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Store a closed month again after a record edit.
+*/
+package dbif;
+
+import metrics.MetricsRegistry;
+import util.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ColdStorage
+{
+  public static final String COLD_DIRECTORY = "cold";
+
+  private final Logger logger = Logger.getInstance();
+  private final File directory = new File(DatabaseCommon.getDirectory(), COLD_DIRECTORY);
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, "ColdStorage");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  private static class SingletonHelper
+  {
+    private static final ColdStorage INSTANCE = new ColdStorage();
+  }
+
+  public static ColdStorage getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private ColdStorage()
+  {
+    MetricsRegistry.getInstance().gauge("cold.months", () ->
+    {
+      String[] names = directory.list((dir, name) -> name.endsWith(ColumnarMonth.FILE_EXT));
+      return names == null ? 0 : names.length;
+    });
+  }
+
+  /**
+   * Method to bring the cold storage files up to date on the ColdStorage thread.
+   */
+  public void refreshInBackground()
+  {
+    executor.execute(this::refresh);
+  }
+
+  /**
+   * Method to make the cold storage file of a month again on the ColdStorage thread after its .wlk file was
+   * edited.  Nothing is made for the latest month.
+   *
+   * @param yearMonth The month.
+   */
+  public void refreshMonthInBackground(YearMonth yearMonth)
+  {
+    executor.execute(() -> refreshMonth(yearMonth));
+  }
+
+  /**
+   * Method to make the cold storage file of each closed month that has none or whose .wlk file has changed, and
+   * to remove the files whose .wlk file is gone.
+   *
+   * @return The number of files made.
+   */
+  public synchronized int refresh()
+  {
+    if (!makeDirectory())
+      return 0;
+
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    YearMonth latest = catalog.getLatestMonth();
+    int made = 0;
+    for (ArchiveCatalog.Entry entry : catalog.getEntries())
+    {
+      YearMonth yearMonth = entry.getYearMonth();
+      if (!yearMonth.equals(latest) && getMonth(yearMonth) == null && store(yearMonth))
+        made++;
+    }
+
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(ColumnarMonth.FILE_EXT));
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        String name = file.getName();
+        String source = name.substring(0, name.length() - ColumnarMonth.FILE_EXT.length()) + DatabaseCommon.FILE_EXT;
+        if (!new File(DatabaseCommon.getDirectory(), source).exists() && !file.delete())
+          logger.logData("ColdStorage: Unable to remove " + file);
+      }
+    }
+    return made;
+  }
+
+  /**
+   * Internal method to make the cold storage file of one closed month if its .wlk file has changed.
+   *
+   * @param yearMonth The month.
+   */
+  private synchronized void refreshMonth(YearMonth yearMonth)
+  {
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    if (catalog.getEntry(yearMonth) == null || yearMonth.equals(catalog.getLatestMonth()) ||
+        getMonth(yearMonth) != null)
+      return;
+
+    if (makeDirectory())
+      store(yearMonth);
+  }
+
+  /**
+   * Internal method to make the cold storage file of a month from its .wlk file.
+   *
+   * @param yearMonth The month.
+   * @return Whether the file was made.
+   */
+  private boolean store(YearMonth yearMonth)
+  {
+    File source = getSourceFile(yearMonth);
+    long sourceSize = source.length();
+    long sourceModified = source.lastModified();
+    try
+    {
+      ArchiveMonth archive = ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue());
+      long size = ColumnarMonth.write(archive, sourceSize, sourceModified, getColdFile(yearMonth));
+      logger.logData("ColdStorage: " + source.getName() + " " + sourceSize + " bytes stored in " + size + " bytes.");
+      return true;
+    }
+    catch (IOException e)
+    {
+      logger.logData("ColdStorage: Unable to store " + source.getName() + ": " + e.getLocalizedMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Internal method to create the cold directory if it does not exist.
+   *
+   * @return Whether the directory exists.
+   */
+  private boolean makeDirectory()
+  {
+    if (directory.isDirectory() || directory.mkdirs())
+      return true;
+
+    logger.logData("ColdStorage: Unable to create " + directory);
+    return false;
+  }
+
+  /**
+   * Method to get the cold storage file of a month.
+   *
+   * @param yearMonth The month.
+   * @return The month or null if there is no cold storage file made from the .wlk file as it is now.
+   */
+  public ColumnarMonth getMonth(YearMonth yearMonth)
+  {
+    File file = getColdFile(yearMonth);
+    if (!file.exists())
+      return null;
+
+    try
+    {
+      ColumnarMonth month = ColumnarMonth.open(file);
+      return month.isCurrent(getSourceFile(yearMonth)) ? month : null;
+    }
+    catch (IOException e)
+    {
+      // An old version or a damaged file, it is made again on the next refresh.
+      return null;
+    }
+  }
+
+  /**
+   * Internal method to get the .wlk file of a month.
+   *
+   * @param yearMonth The month.
+   * @return The file.
+   */
+  private File getSourceFile(YearMonth yearMonth)
+  {
+    return new File(DatabaseCommon.getDirectory(),
+                    DatabaseCommon.getFilename(yearMonth.getYear(), yearMonth.getMonthValue()));
+  }
+
+  /**
+   * Internal method to get the cold storage file of a month.
+   *
+   * @param yearMonth The month.
+   * @return The file.
+   */
+  private File getColdFile(YearMonth yearMonth)
+  {
+    return new File(directory, String.format("%04d-%02d%s", yearMonth.getYear(), yearMonth.getMonthValue(),
+                                             ColumnarMonth.FILE_EXT));
+  }
+
+  /**
+   * Method used to test the class.  The cold storage files are brought up to date and then the outside
+   * temperature of every closed month is scanned from the .wlk files and from the cold storage files, checking
+   * the values are the same and showing the bytes read and the time each takes.
+   *
+   * @param args Not used.
+   * @throws IOException A file could not be read.
+   */
+  public static void main(String[] args) throws IOException
+  {
+    ColdStorage coldStorage = ColdStorage.getInstance();
+    System.out.println("Made " + coldStorage.refresh() + " cold storage files.");
+
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    YearMonth latest = catalog.getLatestMonth();
+    for (int pass = 1; pass <= 3; pass++)
+    {
+      long wlkBytes = 0;
+      long coldBytes = 0;
+      long wlkNanos = 0;
+      long coldNanos = 0;
+      long wlkSum = 0;
+      long coldSum = 0;
+      int records = 0;
+      for (ArchiveCatalog.Entry entry : catalog.getEntries())
+      {
+        YearMonth yearMonth = entry.getYearMonth();
+        if (yearMonth.equals(latest))
+          continue;
+
+        long start = System.nanoTime();
+        ArchiveMonth archive = ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue());
+        int[] expected = new int[entry.getTotalRecords()];
+        int count = 0;
+        for (int day = 1; day <= 31; day++)
+          for (int index = 0; index < archive.getWeatherRecordCount(day); index++)
+            expected[count++] = ColdColumn.OUTSIDE_TEMP.read(archive, day, archive.getWeatherRecordOffset(day, index));
+        for (int i = 0; i < count; i++)
+          wlkSum += expected[i];
+        wlkNanos += System.nanoTime() - start;
+        wlkBytes += entry.getSize();
+
+        start = System.nanoTime();
+        ColumnarMonth month = coldStorage.getMonth(yearMonth);
+        if (month == null)
+        {
+          System.out.println(entry.getFilename() + " has no cold storage file.");
+          continue;
+        }
+        int[] values = month.readColumn(ColdColumn.OUTSIDE_TEMP);
+        for (int value : values)
+          coldSum += value;
+        coldNanos += System.nanoTime() - start;
+        coldBytes += month.getColumnLength(ColdColumn.OUTSIDE_TEMP);
+        records += values.length;
+
+        if (values.length != count)
+          System.out.println(entry.getFilename() + ": " + values.length + " values, expected " + count);
+        for (int column = 0; column < ColdColumn.values().length; column++)
+        {
+          ColdColumn coldColumn = ColdColumn.values()[column];
+          int[] stored = month.readColumn(coldColumn);
+          int index = 0;
+          for (int day = 1; day <= 31; day++)
+            for (int i = 0; i < archive.getWeatherRecordCount(day); i++)
+              if (stored[index++] != coldColumn.read(archive, day, archive.getWeatherRecordOffset(day, i)))
+                throw new IllegalStateException(entry.getFilename() + " " + coldColumn + " differs at " + (index - 1));
+        }
+      }
+      System.out.println("Pass " + pass + ", " + records + " records: .wlk " + wlkBytes + " bytes " +
+                         wlkNanos / 1000 + " us sum " + wlkSum + ", cold " + coldBytes + " bytes " +
+                         coldNanos / 1000 + " us sum " + coldSum);
+    }
+  }
+}
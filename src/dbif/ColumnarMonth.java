@@ -0,0 +1,439 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class reads and writes the cold storage file of one closed
+            month.  The weather records are stored column by column instead of
+            record by record, so a scan of one field reads only that field.
+            Each column is cut into blocks of records.  A block stores the
+            change from one value to the next as a zigzag varint, which is a
+            single byte for nearly every reading, and a block whose values are
+            all the same stores nothing at all.  The directory at the front has
+            the first value and the lowest and highest reading of every block,
+            so a search can skip the blocks that cannot match without reading
+            them.  The month's .wlk file is the source of the data: the file
+            records the size and modified time of the .wlk file it was made
+            from and is made again when they differ.
+
+            File layout, big endian:
+              int     magic "WCOL"
+              short   version
+              short   year
+              byte    month
+              long    size of the .wlk file
+              long    modified time of the .wlk file
+              int     number of records
+              int     records per block
+              short   number of columns
+              then for each column, for each block:
+                int   first value
+                int   lowest reading
+                int   highest reading
+                int   file offset of the block's data
+                int   length of the block's data, zero if all the values equal the first
+              then the data of each column, one block after another.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package dbif;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+public final class ColumnarMonth
+{
+  public static final String FILE_EXT = ".wcol";
+  public static final int BLOCK_SIZE = 1024;
+
+  private static final int MAGIC = 0x57434F4C;
+  private static final int VERSION = 1;
+  private static final int FIXED_HEADER_SIZE = 35;
+  private static final int BLOCK_ENTRY_SIZE = 20;
+
+  private static final Counter BYTES_READ = MetricsRegistry.getInstance().counter("cold.bytesRead");
+
+  private final File file;
+  private final int year;
+  private final int month;
+  private final long sourceSize;
+  private final long sourceModified;
+  private final int numOfRecords;
+  private final int blockSize;
+  private final int numOfBlocks;
+  private final int numOfColumns;
+
+  // Indexed by column then block.
+  private final int[][] blockFirst;
+  private final int[][] blockMin;
+  private final int[][] blockMax;
+  private final int[][] blockOffset;
+  private final int[][] blockLength;
+
+  /**
+   * Constructor that reads the header and the block directory.
+   *
+   * @param file The cold storage file.
+   * @throws IOException The file could not be read or is not a cold storage file of this version.
+   */
+  private ColumnarMonth(File file) throws IOException
+  {
+    this.file = file;
+    try (RandomAccessFile columnFile = new RandomAccessFile(file, "r"))
+    {
+      byte[] fixed = new byte[FIXED_HEADER_SIZE];
+      columnFile.readFully(fixed);
+      ByteBuffer header = ByteBuffer.wrap(fixed);
+      if (header.getInt() != MAGIC || header.getShort() != VERSION)
+        throw new IOException(file.getName() + " is not a cold storage file of version " + VERSION);
+
+      year = header.getShort();
+      month = header.get();
+      sourceSize = header.getLong();
+      sourceModified = header.getLong();
+      numOfRecords = header.getInt();
+      blockSize = header.getInt();
+      numOfColumns = header.getShort();
+      if (numOfRecords < 0 || blockSize <= 0 || numOfColumns < 0)
+        throw new IOException(file.getName() + " has a bad header");
+      numOfBlocks = (numOfRecords + blockSize - 1) / blockSize;
+
+      byte[] entries = new byte[numOfColumns * numOfBlocks * BLOCK_ENTRY_SIZE];
+      columnFile.readFully(entries);
+      ByteBuffer directory = ByteBuffer.wrap(entries);
+      blockFirst = new int[numOfColumns][numOfBlocks];
+      blockMin = new int[numOfColumns][numOfBlocks];
+      blockMax = new int[numOfColumns][numOfBlocks];
+      blockOffset = new int[numOfColumns][numOfBlocks];
+      blockLength = new int[numOfColumns][numOfBlocks];
+      for (int column = 0; column < numOfColumns; column++)
+      {
+        for (int block = 0; block < numOfBlocks; block++)
+        {
+          blockFirst[column][block] = directory.getInt();
+          blockMin[column][block] = directory.getInt();
+          blockMax[column][block] = directory.getInt();
+          blockOffset[column][block] = directory.getInt();
+          blockLength[column][block] = directory.getInt();
+        }
+      }
+      BYTES_READ.add(fixed.length + entries.length);
+    }
+  }
+
+  /**
+   * Method to open a cold storage file.
+   *
+   * @param file The file.
+   * @return The month, with only the header and block directory read.
+   * @throws IOException The file could not be read or is not a cold storage file of this version.
+   */
+  public static ColumnarMonth open(File file) throws IOException
+  {
+    return new ColumnarMonth(file);
+  }
+
+  /**
+   * Method to write the cold storage file of a month.  The file is written beside the target and then moved over
+   * it, so a reader never sees half a file.
+   *
+   * @param archive The month, loaded from the source file.
+   * @param sourceSize The size of the source file when it was loaded.
+   * @param sourceModified The modified time of the source file when it was loaded.
+   * @param target The cold storage file.
+   * @return The size of the file written.
+   * @throws IOException The file could not be written.
+   */
+  static long write(ArchiveMonth archive, long sourceSize, long sourceModified, File target) throws IOException
+  {
+    // The weather records in time order, skipping the summary records.
+    int numOfRecords = 0;
+    for (int day = 1; day <= 31; day++)
+      numOfRecords += archive.getWeatherRecordCount(day);
+    int[] recordDay = new int[numOfRecords];
+    int[] recordOffset = new int[numOfRecords];
+    int record = 0;
+    for (int day = 1; day <= 31; day++)
+    {
+      for (int index = 0; index < archive.getWeatherRecordCount(day); index++)
+      {
+        recordDay[record] = day;
+        recordOffset[record] = archive.getWeatherRecordOffset(day, index);
+        record++;
+      }
+    }
+
+    ColdColumn[] columns = ColdColumn.values();
+    int numOfBlocks = (numOfRecords + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    int[][] directory = new int[columns.length * numOfBlocks][];
+    byte[][] columnData = new byte[columns.length][];
+    int[] columnLength = new int[columns.length];
+
+    // A varint of a zigzag value is at most five bytes.
+    byte[] buffer = new byte[numOfRecords * 5];
+    int[] values = new int[BLOCK_SIZE];
+    int dataOffset = FIXED_HEADER_SIZE + directory.length * BLOCK_ENTRY_SIZE;
+    for (ColdColumn column : columns)
+    {
+      int length = 0;
+      for (int block = 0; block < numOfBlocks; block++)
+      {
+        int start = block * BLOCK_SIZE;
+        int count = Math.min(BLOCK_SIZE, numOfRecords - start);
+        boolean constant = true;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++)
+        {
+          int value = column.read(archive, recordDay[start + i], recordOffset[start + i]);
+          values[i] = value;
+          constant &= value == values[0];
+          if (!column.isMissing(value))
+          {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+          }
+        }
+
+        int blockStart = length;
+        if (!constant)
+        {
+          int previous = 0;
+          for (int i = 0; i < count; i++)
+          {
+            int delta = values[i] - previous;
+            previous = values[i];
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7F) != 0)
+            {
+              buffer[length++] = (byte)(zigzag & 0x7F | 0x80);
+              zigzag >>>= 7;
+            }
+            buffer[length++] = (byte)zigzag;
+          }
+        }
+        directory[column.ordinal() * numOfBlocks + block] =
+          new int[] {values[0], min, max, dataOffset + blockStart, length - blockStart};
+      }
+      columnData[column.ordinal()] = Arrays.copyOf(buffer, length);
+      columnLength[column.ordinal()] = length;
+      dataOffset += length;
+    }
+
+    File temporary = new File(target.getPath() + ".tmp");
+    try (DataOutputStream out =
+           new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 65536)))
+    {
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(archive.getYear());
+      out.writeByte(archive.getMonth());
+      out.writeLong(sourceSize);
+      out.writeLong(sourceModified);
+      out.writeInt(numOfRecords);
+      out.writeInt(BLOCK_SIZE);
+      out.writeShort(columns.length);
+      for (int[] entry : directory)
+        for (int value : entry)
+          out.writeInt(value);
+      for (int column = 0; column < columns.length; column++)
+        out.write(columnData[column], 0, columnLength[column]);
+    }
+    Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+    return dataOffset;
+  }
+
+  /**
+   * Method to tell if the file was made from the source file as it is now.
+   *
+   * @param source The month's .wlk file.
+   * @return Whether the source file has the size and modified time the file was made from.
+   */
+  public boolean isCurrent(File source)
+  {
+    return source.length() == sourceSize && source.lastModified() == sourceModified;
+  }
+
+  /**
+   * Method to tell if the file has a column.  A file from before a column was added does not have it.
+   *
+   * @param column The column.
+   * @return Whether the column is stored.
+   */
+  public boolean hasColumn(ColdColumn column)
+  {
+    return column.ordinal() < numOfColumns;
+  }
+
+  /**
+   * Method to read all the values of a column.  Only the bytes of the column are read, with one read.
+   *
+   * @param column The column.
+   * @return The values in record order.
+   * @throws IOException The file could not be read.
+   */
+  public int[] readColumn(ColdColumn column) throws IOException
+  {
+    return readColumn(column, 0, numOfBlocks);
+  }
+
+  /**
+   * Method to read the values of a run of blocks of a column.  Only the bytes of those blocks are read, with one
+   * read, so a search that found the blocks it needs from the block statistics reads nothing else.
+   *
+   * @param column The column.
+   * @param fromBlock The first block.
+   * @param toBlock The block after the last block.
+   * @return The values of the blocks in record order.
+   * @throws IOException The file could not be read.
+   */
+  public int[] readColumn(ColdColumn column, int fromBlock, int toBlock) throws IOException
+  {
+    if (!hasColumn(column))
+      throw new IllegalArgumentException(file.getName() + " has no " + column + " column");
+    if (fromBlock < 0 || toBlock > numOfBlocks || fromBlock > toBlock)
+      throw new IndexOutOfBoundsException("Blocks " + fromBlock + " to " + toBlock + " of " + numOfBlocks);
+
+    int index = column.ordinal();
+    int firstRecord = fromBlock * blockSize;
+    int[] values = new int[Math.min(toBlock * blockSize, numOfRecords) - firstRecord];
+    if (values.length == 0)
+      return values;
+
+    int start = blockOffset[index][fromBlock];
+    int end = blockOffset[index][toBlock - 1] + blockLength[index][toBlock - 1];
+    byte[] data = new byte[end - start];
+    if (data.length > 0)
+    {
+      try (RandomAccessFile columnFile = new RandomAccessFile(file, "r"))
+      {
+        columnFile.seek(start);
+        columnFile.readFully(data);
+      }
+      BYTES_READ.add(data.length);
+    }
+
+    int position = 0;
+    int next = 0;
+    for (int block = fromBlock; block < toBlock; block++)
+    {
+      int count = Math.min(blockSize, numOfRecords - block * blockSize);
+      if (blockLength[index][block] == 0)
+      {
+        Arrays.fill(values, next, next + count, blockFirst[index][block]);
+        next += count;
+        continue;
+      }
+
+      int value = 0;
+      int blockEnd = next + count;
+      while (next < blockEnd)
+      {
+        int zigzag = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+          b = data[position++];
+          zigzag |= (b & 0x7F) << shift;
+          shift += 7;
+        }
+        while (b < 0);
+        value += (zigzag >>> 1) ^ -(zigzag & 1);
+        values[next++] = value;
+      }
+    }
+    return values;
+  }
+
+  public int getYear()
+  {
+    return year;
+  }
+
+  public int getMonth()
+  {
+    return month;
+  }
+
+  public int getNumOfRecords()
+  {
+    return numOfRecords;
+  }
+
+  public int getBlockSize()
+  {
+    return blockSize;
+  }
+
+  public int getNumOfBlocks()
+  {
+    return numOfBlocks;
+  }
+
+  /**
+   * Method to tell if a block of a column has any readings.
+   *
+   * @param column The column.
+   * @param block The block.
+   * @return Whether any value of the block is a reading, so its lowest and highest are set.
+   */
+  public boolean hasReadings(ColdColumn column, int block)
+  {
+    return blockMin[column.ordinal()][block] <= blockMax[column.ordinal()][block];
+  }
+
+  /**
+   * Method to get the lowest reading of a block of a column.
+   *
+   * @param column The column.
+   * @param block The block.
+   * @return The lowest reading, Integer.MAX_VALUE if the block has no readings.
+   */
+  public int getBlockMin(ColdColumn column, int block)
+  {
+    return blockMin[column.ordinal()][block];
+  }
+
+  /**
+   * Method to get the highest reading of a block of a column.
+   *
+   * @param column The column.
+   * @param block The block.
+   * @return The highest reading, Integer.MIN_VALUE if the block has no readings.
+   */
+  public int getBlockMax(ColdColumn column, int block)
+  {
+    return blockMax[column.ordinal()][block];
+  }
+
+  /**
+   * Method to get the number of bytes a column's data takes in the file.
+   *
+   * @param column The column.
+   * @return The length in bytes.
+   */
+  public int getColumnLength(ColdColumn column)
+  {
+    int index = column.ordinal();
+    if (numOfBlocks == 0)
+      return 0;
+    return blockOffset[index][numOfBlocks - 1] + blockLength[index][numOfBlocks - 1] - blockOffset[index][0];
+  }
+}
@@ -0,0 +1,496 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This is the base class for the rollup indexes.  A rollup index
+            keeps one histogram per day of the minutes spent in each bin, where
+            the bins are defined by the subclass.  The index is built once from
+            the database files, persisted next to them and kept current as
+            records are inserted.  Reports over any date range are then a sum
+            of daily histograms rather than a rescan of the 5 minute data.
+            The database files remain the source of truth; when the index is
+            loaded, the last indexed day onward is always rescanned so a
+            partially saved day is never trusted.  The scan is done without
+            holding the index, so records inserted meanwhile are held and
+            added after it unless the scan already read them.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Scan the files in the archive catalog.
+            10/19/26  Load in the background without blocking the inserts, and
+                      never count a record inserted during the scan twice.
+*/
+package dbif;
+
+import data.dbrecord.WeatherRecord;
+import util.Logger;
+import util.TimeUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public abstract class DailyHistogramIndex
+{
+  private static final String INDEX_ID = "WXIDX";
+  private static final int INDEX_VERSION = 1;
+
+  private final Logger logger = Logger.getInstance();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, getClass().getSimpleName());
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  // Held only while loading, so the inserts and queries never wait for a scan on the index itself.
+  private final Object loadLock = new Object();
+
+  // Each array is trimmed after the last non-zero bin, so a day with only low bins costs little.
+  private TreeMap<LocalDate, short[]> dayHistograms = new TreeMap<>();
+  private volatile boolean loaded = false;
+  private volatile boolean loading = false;
+
+  // The end of the last record the load scanned.  An insert at or before it is already counted.
+  private LocalDateTime scannedThrough = null;
+
+  // The inserts that arrive while the index is loading.
+  private final List<PendingMinutes> pending = new ArrayList<>();
+
+  /**
+   * The minutes of one record inserted while the index is loading.
+   */
+  private static final class PendingMinutes
+  {
+    private final LocalDateTime time;
+    private final int bin;
+    private final int minutes;
+
+    private PendingMinutes(LocalDateTime time, int bin, int minutes)
+    {
+      this.time = time;
+      this.bin = bin;
+      this.minutes = minutes;
+    }
+  }
+
+  /**
+   * Method to get the filename of the index file.  The file is kept in the database directory.
+   *
+   * @return The filename.
+   */
+  protected abstract String getIndexFilename();
+
+  /**
+   * Method to get the number of bins in a day's histogram.
+   *
+   * @return The number of bins.
+   */
+  protected abstract int getNumberOfBins();
+
+  /**
+   * Method to determine the bin a weather record falls within.
+   *
+   * @param archiveMonth The loaded database file.
+   * @param recordOffset The byte offset of the weather record.
+   * @return The bin number or -1 if the record should not be counted.
+   */
+  protected abstract int getBin(ArchiveMonth archiveMonth, int recordOffset);
+
+  /**
+   * Method to load the index on its own thread.
+   */
+  public void loadInBackground()
+  {
+    // The inserts are held from now on, not only once the load starts.
+    loading = !loaded;
+    executor.execute(this::ensureLoaded);
+  }
+
+  /**
+   * Method that makes sure the index is in memory.  The first call reads the index file, then rescans the database
+   * files from the last indexed day onward.  If there is no index file, the entire archive is scanned.  The scan is
+   * built apart and then put in place, adding the records inserted meanwhile that it did not read.
+   */
+  protected void ensureLoaded()
+  {
+    if (loaded)
+      return;
+
+    synchronized (loadLock)
+    {
+      if (loaded)
+        return;
+
+      long startTime = System.currentTimeMillis();
+      loading = true;
+      TreeMap<LocalDate, short[]> histograms = readIndexFile();
+
+      LocalDate resumeDate = null;
+      if (!histograms.isEmpty())
+      {
+        resumeDate = histograms.lastKey();
+        histograms.tailMap(resumeDate, true).clear();
+      }
+      LocalDateTime through = scanArchive(histograms, resumeDate);
+
+      synchronized (this)
+      {
+        dayHistograms = histograms;
+        scannedThrough = through;
+        loaded = true;
+        loading = false;
+        for (PendingMinutes minutes : pending)
+          addMinutes(minutes.time, minutes.bin, minutes.minutes);
+        pending.clear();
+        save();
+      }
+
+      logger.logData(getClass().getSimpleName() + ": loaded " + histograms.size() + " days in " +
+                     (System.currentTimeMillis() - startTime) + " ms.");
+    }
+  }
+
+  /**
+   * Method to get a day's histogram.  The array may be shorter than the number of bins, the missing bins are zero.
+   *
+   * @param date The date.
+   * @return A copy of the histogram or null if there is no data for the day.
+   */
+  protected short[] getDayHistogram(LocalDate date)
+  {
+    ensureLoaded();
+    synchronized (this)
+    {
+      short[] histogram = dayHistograms.get(date);
+      return histogram == null ? null : histogram.clone();
+    }
+  }
+
+  /**
+   * Method to sum the daily histograms over a range of dates.
+   *
+   * @param startDate The first date, inclusive.
+   * @param endDate The last date, inclusive.
+   * @param totals The bin totals, added to.  Must be at least the number of bins long.
+   * @return The number of days with data.
+   */
+  protected int sumRange(LocalDate startDate, LocalDate endDate, long[] totals)
+  {
+    ensureLoaded();
+    if (endDate.isBefore(startDate))
+      return 0;
+
+    int days = 0;
+    synchronized (this)
+    {
+      for (short[] histogram : dayHistograms.subMap(startDate, true, endDate, true).values())
+      {
+        for (int bin = 0; bin < histogram.length; bin++)
+          totals[bin] += histogram[bin];
+        days++;
+      }
+    }
+    return days;
+  }
+
+  /**
+   * Method to get the first date in the index.
+   *
+   * @return The first date or null if the index is empty.
+   */
+  public LocalDate getFirstDate()
+  {
+    ensureLoaded();
+    synchronized (this)
+    {
+      return dayHistograms.isEmpty() ? null : dayHistograms.firstKey();
+    }
+  }
+
+  /**
+   * Method to get the last date in the index.
+   *
+   * @return The last date or null if the index is empty.
+   */
+  public LocalDate getLastDate()
+  {
+    ensureLoaded();
+    synchronized (this)
+    {
+      return dayHistograms.isEmpty() ? null : dayHistograms.lastKey();
+    }
+  }
+
+  /**
+   * Method called as each new archive record is written.  If the index is loading, the minutes are held until it
+   * is loaded.  If the index has not been asked for at all nothing is done, the record is picked up by the rescan
+   * when it is.  When a new day starts, the completed days are saved.
+   *
+   * @param dateStamp The console date stamp of the record.
+   * @param timeStamp The console time stamp of the start of the record's interval.
+   * @param bin The bin of the record or -1 if it is not counted.
+   * @param minutes The number of minutes the record represents.
+   */
+  protected synchronized void addMinutes(short dateStamp, short timeStamp, int bin, int minutes)
+  {
+    // The time stored in the database is the end of the interval.
+    LocalDate date = LocalDate.of(TimeUtil.getYear(dateStamp), TimeUtil.getMonth(dateStamp),
+                                  TimeUtil.getDay(dateStamp));
+    LocalDateTime time = date.atStartOfDay().plusMinutes(TimeUtil.getPackedTime((short)(timeStamp + 5)));
+    if (!loaded)
+    {
+      if (loading)
+        pending.add(new PendingMinutes(time, bin, minutes));
+      return;
+    }
+    addMinutes(time, bin, minutes);
+  }
+
+  /**
+   * Internal method to add the minutes of a record to its day, unless the load already read the record.
+   *
+   * @param time The end of the record's interval.
+   * @param bin The bin of the record or -1 if it is not counted.
+   * @param minutes The number of minutes the record represents.
+   */
+  private void addMinutes(LocalDateTime time, int bin, int minutes)
+  {
+    if (scannedThrough != null && !time.isAfter(scannedThrough))
+      return;
+
+    // A record at midnight ends the day before.
+    LocalDate date = time.minusMinutes(1).toLocalDate();
+    if (!dayHistograms.isEmpty() && date.isAfter(dayHistograms.lastKey()))
+      save();
+
+    short[] histogram = dayHistograms.get(date);
+    if (histogram == null)
+    {
+      histogram = new short[0];
+      dayHistograms.put(date, histogram);
+    }
+
+    if (bin >= 0 && bin < getNumberOfBins())
+    {
+      if (bin >= histogram.length)
+      {
+        histogram = Arrays.copyOf(histogram, bin + 1);
+        dayHistograms.put(date, histogram);
+      }
+      histogram[bin] += minutes;
+    }
+  }
+
+  /**
+   * Method to rebuild a single day from the database file on the index's thread.  This is called when a record is
+   * edited.
+   *
+   * @param date The date to rebuild.
+   */
+  public void refreshDay(LocalDate date)
+  {
+    if (loaded || loading)
+      executor.execute(() -> rebuildDay(date));
+  }
+
+  /**
+   * Internal method to rebuild a single day.  The file is read without holding the index.
+   *
+   * @param date The date to rebuild.
+   */
+  private void rebuildDay(LocalDate date)
+  {
+    ensureLoaded();
+    try
+    {
+      ArchiveMonth archiveMonth = ArchiveMonth.load(date.getYear(), date.getMonthValue());
+      TreeMap<LocalDate, short[]> day = new TreeMap<>();
+      if (archiveMonth.hasDay(date.getDayOfMonth()))
+        indexDay(day, archiveMonth, date.getDayOfMonth());
+
+      synchronized (this)
+      {
+        if (day.isEmpty())
+          dayHistograms.remove(date);
+        else
+          dayHistograms.put(date, day.get(date));
+        save();
+      }
+    }
+    catch (IOException e)
+    {
+      logger.logData(getClass().getSimpleName() + ": refreshDay: Unable to read data: " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Method to write the index file.  The file is written to a temporary file first and then moved into place so that
+   * a power failure never leaves a partial index.
+   */
+  public synchronized void save()
+  {
+    if (!loaded)
+      return;
+
+    String filename = DatabaseCommon.getDirectory() + getIndexFilename();
+    File tempFile = new File(filename + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+    {
+      out.writeUTF(INDEX_ID);
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(getNumberOfBins());
+      out.writeInt(dayHistograms.size());
+      for (Map.Entry<LocalDate, short[]> entry : dayHistograms.entrySet())
+      {
+        short[] histogram = entry.getValue();
+        out.writeInt((int)entry.getKey().toEpochDay());
+        out.writeShort(histogram.length);
+        for (short value : histogram)
+          out.writeShort(value);
+      }
+    }
+    catch (IOException e)
+    {
+      logger.logData(getClass().getSimpleName() + ": save: Unable to write index: " + e.getLocalizedMessage());
+      return;
+    }
+
+    try
+    {
+      Files.move(tempFile.toPath(), Paths.get(filename), StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (IOException e)
+    {
+      logger.logData(getClass().getSimpleName() + ": save: Unable to replace index: " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Internal method to read the index file.  A missing, old or corrupt file simply leaves the index empty, which
+   * causes a full rebuild.
+   *
+   * @return The days read.
+   */
+  private TreeMap<LocalDate, short[]> readIndexFile()
+  {
+    TreeMap<LocalDate, short[]> histograms = new TreeMap<>();
+    File file = new File(DatabaseCommon.getDirectory() + getIndexFilename());
+    if (!file.exists())
+      return histograms;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      if (!INDEX_ID.equals(in.readUTF()) || in.readInt() != INDEX_VERSION || in.readInt() != getNumberOfBins())
+      {
+        logger.logData(getClass().getSimpleName() + ": index file is out of date, rebuilding.");
+        return histograms;
+      }
+
+      int days = in.readInt();
+      for (int i = 0; i < days; i++)
+      {
+        LocalDate date = LocalDate.ofEpochDay(in.readInt());
+        short[] histogram = new short[in.readShort()];
+        for (int bin = 0; bin < histogram.length; bin++)
+          histogram[bin] = in.readShort();
+        histograms.put(date, histogram);
+      }
+    }
+    catch (IOException | RuntimeException e)
+    {
+      logger.logData(getClass().getSimpleName() + ": index file is corrupt, rebuilding: " + e.getLocalizedMessage());
+      histograms.clear();
+    }
+    return histograms;
+  }
+
+  /**
+   * Internal method to scan the database files and add each day to the index.
+   *
+   * @param histograms The days, added to.
+   * @param startDate The first date to index or null to index everything.
+   * @return The end of the last record read or null if none was.
+   */
+  private LocalDateTime scanArchive(TreeMap<LocalDate, short[]> histograms, LocalDate startDate)
+  {
+    LocalDateTime through = null;
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    YearMonth startMonth = startDate == null ? catalog.getFirstMonth() : YearMonth.from(startDate);
+    if (startMonth == null)
+      return null;
+
+    for (ArchiveCatalog.Entry entry : catalog.getEntries(startMonth))
+    {
+      YearMonth yearMonth = entry.getYearMonth();
+      try
+      {
+        ArchiveMonth archiveMonth = ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue());
+        for (int day = 1; day <= yearMonth.lengthOfMonth(); day++)
+        {
+          if (!archiveMonth.hasDay(day))
+            continue;
+          if (startDate != null && yearMonth.atDay(day).isBefore(startDate))
+            continue;
+          LocalDateTime last = indexDay(histograms, archiveMonth, day);
+          if (last != null && (through == null || last.isAfter(through)))
+            through = last;
+        }
+      }
+      catch (IOException e)
+      {
+        logger.logData(getClass().getSimpleName() + ": Unable to index " + entry.getFilename() + ": " +
+                       e.getLocalizedMessage());
+      }
+    }
+    return through;
+  }
+
+  /**
+   * Internal method to build the histogram for one day.
+   *
+   * @param histograms The days, added to.
+   * @param archiveMonth The loaded database file.
+   * @param day The day of the month.
+   * @return The end of the last weather record of the day or null if it has none.
+   */
+  private LocalDateTime indexDay(TreeMap<LocalDate, short[]> histograms, ArchiveMonth archiveMonth, int day)
+  {
+    short[] histogram = new short[getNumberOfBins()];
+    int lastBin = -1;
+    int lastTime = -1;
+    for (int index = 0; index < archiveMonth.getWeatherRecordCount(day); index++)
+    {
+      int recordOffset = archiveMonth.getWeatherRecordOffset(day, index);
+      if (archiveMonth.getDataType(recordOffset) != ArchiveMonth.WEATHER_RECORD_TYPE)
+        continue;
+
+      lastTime = Math.max(lastTime, archiveMonth.getShort(recordOffset, WeatherRecord.PACKED_TIME_OFFSET));
+      int bin = getBin(archiveMonth, recordOffset);
+      if (bin >= 0 && bin < histogram.length)
+      {
+        histogram[bin] += archiveMonth.getArchiveInterval(recordOffset);
+        lastBin = Math.max(lastBin, bin);
+      }
+    }
+    LocalDate date = LocalDate.of(archiveMonth.getYear(), archiveMonth.getMonth(), day);
+    histograms.put(date, Arrays.copyOf(histogram, lastBin + 1));
+    return lastTime < 0 ? null : date.atStartOfDay().plusMinutes(lastTime);
+  }
+}
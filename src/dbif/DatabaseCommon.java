@@ -10,6 +10,8 @@
   Purpose:	Common class for the database reader and writer classes.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Find the latest file from the archive catalog.
+            10/19/26  Allow the database directory to be overridden.
 */
 package dbif;
 
@@ -18,6 +20,7 @@ import util.ConfigProperties;
 import util.TimeUtil;
 
 import java.io.*;
+import java.time.YearMonth;
 
 public class DatabaseCommon
 {
@@ -40,6 +43,9 @@ public class DatabaseCommon
   public static final String FILE_HEADER = "WDAT5.3";
   private static final int RECORDS_IN_DAY = 24 * 60 / PROPS.getArchiveInterval() + 2;
 
+  // Directory used in place of the configured one, or null.
+  private static volatile String directoryOverride;
+
   public static final short UNDEFINED_SHORT_VALUE = (short)0x8000;
   public static final byte  UNDEFINED_BYTE_VALUE = (byte)0xFF;
   public static final String UNDEFINED_STRING_VALUE = "---";
@@ -190,13 +196,9 @@ public class DatabaseCommon
    */
   static String getLatestFilename()
   {
-    String yearString = String.valueOf(getLatestYear());
-    int latestMonth = getLatestMonth();
-    String monthString = String.valueOf(latestMonth);
-    if (latestMonth < 10)
-      monthString = "0" + monthString;
-
-    return yearString + "-" + monthString + FILE_EXT;
+    // One lookup, so the year and month always come from the same catalog entry.
+    YearMonth latest = ArchiveCatalog.getInstance().getLatestMonth();
+    return latest == null ? getFilename(0, 0) : getFilename(latest.getYear(), latest.getMonthValue());
   }
 
   /**
@@ -221,70 +223,35 @@ public class DatabaseCommon
    */
   static String getDirectory()
   {
-    if (PROPS.getTestMode())
+    if (directoryOverride != null)
+      return directoryOverride;
+    else if (PROPS.getTestMode())
       return PROPS.getTestDatabaseLocation();
     else
       return PROPS.getDatabaseLocation();
   }
 
   /**
-   * Method to determine the last year that data was saved.  This is determined by searching the
-   * directory that stores the database files looking for the latest filename.
-   * @return The latest year as an integer.
+   * Method to point the database at a directory other than the configured one, such as the temporary database of
+   * the benchmarks.  The archive catalog and the indexes keep the directory they were created with, so this must be
+   * called before any of the database classes are used.
+   *
+   * @param directory The database directory, ending with a separator.
    */
-  public static int getLatestYear()
+  public static void setDirectory(String directory)
   {
-    File folder;
-    if (PROPS.getTestMode())
-      folder = new File(PROPS.getTestDatabaseLocation());
-    else
-      folder = new File(PROPS.getDatabaseLocation());
-
-    File[] listOfFiles = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(FILE_EXT));
-    if (listOfFiles == null || listOfFiles.length == 0)
-      return 0;
-
-    int newestYear = 0;
-    for (File file : listOfFiles)
-    {
-      int nextYear = TimeUtil.getYear(file.getName());
-      if (nextYear > newestYear)
-        newestYear = nextYear;
-    }
-    return newestYear;
+    directoryOverride = directory;
   }
 
   /**
-   * Method to determine the last month that data was saved.  This is determined by searching the
-   * directory that stores the database files looking for the latest filename.
-   * @return The latest month as an integer.
+   * Method to determine the last year that data was saved.  This is the year of the latest file in the archive
+   * catalog.
+   * @return The latest year as an integer.
    */
-  private static int getLatestMonth()
+  public static int getLatestYear()
   {
-    int latestYear = getLatestYear();
-
-    File folder;
-    if (PROPS.getTestMode())
-      folder = new File(PROPS.getTestDatabaseLocation());
-    else
-      folder = new File(PROPS.getDatabaseLocation());
-
-    File[] listOfFiles = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(FILE_EXT));
-    if (listOfFiles == null)
-      return 0;
-
-    int newestMonth = 0;
-    for (File file : listOfFiles)
-    {
-      int nextYear = TimeUtil.getYear(file.getName());
-      if (nextYear == latestYear)
-      {
-        int nextMonth = TimeUtil.getMonth(file.getName());
-        if (nextMonth > newestMonth)
-          newestMonth = nextMonth;
-      }
-    }
-    return newestMonth;
+    YearMonth latest = ArchiveCatalog.getInstance().getLatestMonth();
+    return latest == null ? 0 : latest.getYear();
   }
 
   /**
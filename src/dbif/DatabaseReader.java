@@ -17,11 +17,18 @@
             10/15/21  Fixed ET calculation.
             10/18/21  Added Summary 1 & 2 data tables.
             01/11/21  Avoided ET error.
+            10/19/26  Read the rain totals of the files in the archive catalog.
+            10/19/26  Record the time to decode a month.
+            10/19/26  Aggregate the ET data with the ArchiveAggregator.
+            10/19/26  Skip the days with an undefined rain total.
+            10/19/26  Each user has its own reader instead of sharing one.
 */
 package dbif;
 
 import algorithms.Calculations;
 import data.dbrecord.*;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.ByteUtil;
 import util.Logger;
 import util.TimeUtil;
@@ -48,25 +55,17 @@ public class DatabaseReader
   private final List<WeatherRecordExtended> daysRecords = new ArrayList<>();
   private final int[] recordsInDay = new int[32];
   private final Logger logger = Logger.getInstance();
+  private final LatencyHistogram decodeLatency = MetricsRegistry.getInstance().histogram("db.monthDecode");
 
   // Data bins: monthly and yearly.  All time values are in milliseconds since epoch
   private final HashMap<Long, Float> yearlyBins  = new HashMap<>(); // time index is by season with a value of January 1st.
   private final HashMap<Long, Float> monthlyBins = new HashMap<>(); // time index is by month with a value of the 1st.
 
-  private static class SingletonHelper
-  {
-    private static final DatabaseReader INSTANCE = new DatabaseReader();
-  }
-
-  public static DatabaseReader getInstance()
-  {
-    return SingletonHelper.INSTANCE;
-  }
-
   /**
-   * Constructor that reads and pre-populates the last packed time.
+   * Constructor.  A reader holds the records it last read, so each user has its own reader and never shares one
+   * across threads.
    */
-  private DatabaseReader() { }
+  public DatabaseReader() { }
 
   /**
    * This method reads a wind bin value with an even index.  In the wind bin value area, two values share three bytes.
@@ -286,53 +285,31 @@ public class DatabaseReader
     monthlyBins.clear();
     yearlyBins.clear();
 
-    // Loop through each weather DB file.
-    File folder = new File(DatabaseCommon.getDirectory());
-    File[] listOfFiles = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(DatabaseCommon.FILE_EXT));
-    if (listOfFiles == null || listOfFiles.length == 0)
-      return;
-
-    for (File file : listOfFiles)
+    // Loop through each weather DB file in the archive catalog, which already holds the day index of each.
+    for (ArchiveCatalog.Entry entry : ArchiveCatalog.getInstance().getEntries())
     {
       float monthlyRainTotal = 0;
 
       // For each file read each summary record's rain total and add up.
-      try (RandomAccessFile updateFile = new RandomAccessFile(DatabaseCommon.getDirectory() + file.getName(), "rw"))
+      try (RandomAccessFile updateFile = new RandomAccessFile(DatabaseCommon.getDirectory() + entry.getFilename(), "r"))
       {
         // For each day summary record, index into summary record 1's rain total.
         for (int day = 1; day <= 31; day++)
         {
-          // Extract the records in day.
-          int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + ((day - 1) * 6);
-          byte[] recordsInDayByteArray = new byte[2];
-          updateFile.seek(dayRecordOffset);
-          recordsInDayByteArray[1] = updateFile.readByte();
-          updateFile.seek(dayRecordOffset + 1);
-          recordsInDayByteArray[0] = updateFile.readByte();
-          int recordsInDay = ByteUtil.byteArrayToShort(recordsInDayByteArray);
-
-          if (recordsInDay != 0)
+          if (entry.hasDay(day))
           {
-            // Index into the header and retrieve the day index record.
-            byte[] recordsByteArray = new byte[4];
-            updateFile.seek(dayRecordOffset + 2);
-            recordsByteArray[3] = updateFile.readByte();
-            updateFile.seek(dayRecordOffset + 3);
-            recordsByteArray[2] = updateFile.readByte();
-            updateFile.seek(dayRecordOffset + 4);
-            recordsByteArray[1] = updateFile.readByte();
-            updateFile.seek(dayRecordOffset + 5);
-            recordsByteArray[0] = updateFile.readByte();
-
-            int rainOffset = ByteUtil.byteArrayToInt(recordsByteArray) * DatabaseCommon.RECORD_SIZE +
+            int rainOffset = entry.getDayStartRecord(day) * DatabaseCommon.RECORD_SIZE +
               DatabaseCommon.HEADER_BLOCK_SIZE + DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET;
             byte[] rainTotalByteArray = new byte[2];
             updateFile.seek(rainOffset);
             rainTotalByteArray[1] = updateFile.readByte();
             updateFile.seek(rainOffset + 1);
             rainTotalByteArray[0] = updateFile.readByte();
-            float daysRain = ByteUtil.byteArrayToShort(rainTotalByteArray);
-            daysRain = daysRain / 100f; // Divide by 100 and then another 10 later on...
+            short daysRainNative = ByteUtil.byteArrayToShort(rainTotalByteArray);
+            if (daysRainNative == DatabaseCommon.UNDEFINED_BYTE_VALUE ||
+                daysRainNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+              continue;
+            float daysRain = daysRainNative / 100f; // Divide by 100 and then another 10 later on...
             monthlyRainTotal = monthlyRainTotal + daysRain;
           }
         }
@@ -345,8 +322,8 @@ public class DatabaseReader
       // For some reason dividing by 1000 right off the bat causes the numbers to be low.
       monthlyRainTotal = monthlyRainTotal / 10;
 
-      int year = TimeUtil.getYear(file.getName());
-      int month = TimeUtil.getMonth(file.getName());
+      int year = entry.getYearMonth().getYear();
+      int month = entry.getYearMonth().getMonthValue();
       LocalDateTime localMonthDate = LocalDateTime.of(year, month, 1, 0, 0);
       long monthDate = localMonthDate.atZone(ZoneId.of("America/Denver")).toInstant().toEpochMilli();
       monthlyBins.put(monthDate, monthlyRainTotal);
@@ -509,6 +486,7 @@ public class DatabaseReader
 
   /**
    * Method to get the min/max temperature, min/max humidity and average solar radiation for the last 24 hour period.
+   * The records are aggregated by the ArchiveAggregator, so the records read by this reader are not changed.
    *
    * @param endDate The date/time for the end of the period, typically time now.
    * @return The data contained within a record.
@@ -517,103 +495,39 @@ public class DatabaseReader
   {
     EvapotransRecord etRecord = new EvapotransRecord();
 
-    LocalDateTime startDate = endDate.minusDays(1);
-
+    List<ArchiveAggregator.Result> results;
     try
     {
-      readData(startDate.getYear(), startDate.getMonthValue(),
-               getFilename(startDate.getYear(), startDate.getMonthValue()));
-      reset();
+      results = ArchiveAggregator.getInstance().run(
+        new ArchiveAggregator.Query(endDate.minusDays(1), endDate, ArchiveAggregator.Bucket.ALL,
+                                    ArchiveField.OUTSIDE_TEMP, ArchiveField.OUTSIDE_HUMIDITY,
+                                    ArchiveField.SOLAR_RADIATION, ArchiveField.WIND_SPEED));
     }
-    catch (Exception e)
+    catch (IOException e)
     {
       logger.logData("DatabaseReader: getEvapotransData: Unable to read data: " + e.getLocalizedMessage());
       return null;
     }
+    if (results.isEmpty())
+      return etRecord;
 
-    float totalSolar = 0.0f;
-    int totalPoints = 0;
-    float totalWindSpeed = 0.0f;
-    boolean startFound = false;
-    DataFileRecord nextRecord = getNextRecord();
-    while (nextRecord != null)
+    ArchiveAggregator.Result result = results.get(0);
+    ArchiveAggregator.Aggregate temperature = result.get(ArchiveField.OUTSIDE_TEMP);
+    if (temperature.getCount() > 0)
     {
-      if (nextRecord instanceof WeatherRecord)
-      {
-        WeatherRecord record = (WeatherRecord) nextRecord;
-
-        // Skip forward to the correct day/hour record.
-        if (!startFound)
-        {
-          LocalDateTime time = record.getTimestamp();
-          if (startDate.getDayOfMonth() <= time.getDayOfMonth() &&
-              startDate.getHour() <= time.getHour() &&
-              startDate.getMinute() <= time.getMinute())
-          {
-            startFound = true;
-          }
-          else
-          {
-            nextRecord = getNextRecord();
-            continue;
-          }
-        }
-
-        if (record.getOutsideTemp() < etRecord.getMinTemp())
-          etRecord.setMinTemp(record.getOutsideTemp());
-        if (record.getOutsideTemp() > etRecord.getMaxTemp())
-          etRecord.setMaxTemp(record.getOutsideTemp());
-        if (record.getOutsideHumidity() < etRecord.getMinHumidity())
-          etRecord.setMinHumidity(record.getOutsideHumidity());
-        if (record.getOutsideHumidity() > etRecord.getMaxHumidity())
-          etRecord.setMaxHumidity(record.getOutsideHumidity());
-
-        totalPoints++;
-        totalSolar = totalSolar + record.getSolarRadiation();
-        totalWindSpeed = totalWindSpeed + record.getAverageWindSpeed();
-      }
-      nextRecord = getNextRecord();
+      etRecord.setMinTemp(temperature.getMin());
+      etRecord.setMaxTemp(temperature.getMax());
     }
-
-    // If the data crosses the month boundary then there is another file's worth of data to read.
-    if (startDate.getYear() != endDate.getYear() || startDate.getMonthValue() != endDate.getMonthValue())
+    ArchiveAggregator.Aggregate humidity = result.get(ArchiveField.OUTSIDE_HUMIDITY);
+    if (humidity.getCount() > 0)
     {
-      try
-      {
-        readData(endDate.getYear(), endDate.getMonthValue(), getFilename(endDate.getYear(), endDate.getMonthValue()));
-        reset();
-      }
-      catch (IOException e)
-      {
-        logger.logData("DatabaseReader: getEvapotransData: Unable to read data: " + e.getLocalizedMessage());
-        return null;
-      }
-
-      nextRecord = getNextRecord();
-      while (nextRecord != null)
-      {
-        if (nextRecord instanceof WeatherRecord)
-        {
-          WeatherRecord record = (WeatherRecord) nextRecord;
-
-          if (record.getOutsideTemp() < etRecord.getMinTemp())
-            etRecord.setMinTemp(record.getOutsideTemp());
-          if (record.getOutsideTemp() > etRecord.getMaxTemp())
-            etRecord.setMaxTemp(record.getOutsideTemp());
-          if (record.getOutsideHumidity() < etRecord.getMinHumidity())
-            etRecord.setMinHumidity(record.getOutsideHumidity());
-          if (record.getOutsideHumidity() > etRecord.getMaxHumidity())
-            etRecord.setMaxHumidity(record.getOutsideHumidity());
-
-          totalPoints++;
-          totalSolar = totalSolar + record.getSolarRadiation();
-          totalWindSpeed = totalWindSpeed + record.getAverageWindSpeed();
-        }
-        nextRecord = getNextRecord();
-      }
+      etRecord.setMinHumidity(humidity.getMin());
+      etRecord.setMaxHumidity(humidity.getMax());
     }
-    etRecord.setAvgSolarRad(totalSolar / (float)totalPoints);
-    etRecord.setAvgWindSpeed(totalWindSpeed / (float)totalPoints);
+    if (result.get(ArchiveField.SOLAR_RADIATION).getCount() > 0)
+      etRecord.setAvgSolarRad(result.get(ArchiveField.SOLAR_RADIATION).getAvg());
+    if (result.get(ArchiveField.WIND_SPEED).getCount() > 0)
+      etRecord.setAvgWindSpeed(result.get(ArchiveField.WIND_SPEED).getAvg());
     return etRecord;
   }
 
@@ -810,6 +724,21 @@ public class DatabaseReader
    * @throws IOException There is something wrong with the file.
    */
   public void readData(int year, int month, String dbFilename) throws IOException
+  {
+    long start = System.nanoTime();
+    decodeData(year, month, dbFilename);
+    decodeLatency.recordSince(start);
+  }
+
+  /**
+   * Internal method to read and decode the data file, timed by readData.
+   *
+   * @param year  The year to retrieve.
+   * @param month The month to retrieve.
+   * @param dbFilename The filename and directory location of the file to read.  If null then use standard location.
+   * @throws IOException There is something wrong with the file.
+   */
+  private void decodeData(int year, int month, String dbFilename) throws IOException
   {
     clearDaysRecords();
 
@@ -1495,7 +1424,7 @@ public class DatabaseReader
 
   public static void main(String[] args)
   {
-    DatabaseReader database = DatabaseReader.getInstance();
+    DatabaseReader database = new DatabaseReader();
     int year = 2019;
     int month = 6;
     int day = 9;
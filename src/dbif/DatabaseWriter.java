@@ -23,6 +23,18 @@
             01/10/22  End of year DMPAFT error.
             01/11/22  Minor logging tweaks.
             01/13/22  Tweaked ET method.
+            10/19/26  Added rollup index updates.
+            10/19/26  Rebuild the day's summary records after a weather record edit.
+            10/19/26  Add new files to the archive catalog.
+            10/19/26  Record the insert and summary update times.
+            10/19/26  Store the closed month in the cold storage.
+            10/19/26  Keep the climate normals current.
+            10/19/26  Offer each summary update and edit to the records index.
+            10/19/26  Use a database reader of its own.
+            10/19/26  Make the writes and the edit rebuild one at a time.
+            10/19/26  Update the archive catalog after every write.
+            10/19/26  Only write the summary fields a weather record edit changes.
+            10/19/26  Store an edited closed month in the cold storage again.
 */
 package dbif;
 
@@ -30,6 +42,8 @@ import algorithms.Calculations;
 import data.consolerecord.DmpData;
 import data.consolerecord.DmpDataExtended;
 import data.dbrecord.*;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.ByteUtil;
 import util.ConfigProperties;
 import util.Logger;
@@ -37,15 +51,24 @@ import util.TimeUtil;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 
 public class DatabaseWriter
 {
   private static final double LANGLEYS = 0.0716667; // Note: this does not jive with Watts/m2 to Langleys, but is what Davis uses.
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private static final DatabaseCommon DB_COMMON = DatabaseCommon.getInstance();
-  private static final DatabaseReader DB_READER = DatabaseReader.getInstance();
+  private static final DatabaseReader DB_READER = new DatabaseReader();
+
+  // The station and the data editors each have a writer of their own on the same month files, so the writes are
+  // made one at a time.  A summary rebuild after an edit reads and writes back the whole day, so it must not run
+  // between the reads and the writes of a summary update.
+  private static final Object WRITE_LOCK = new Object();
   private final Logger logger = Logger.getInstance();
+  private final LatencyHistogram insertLatency = MetricsRegistry.getInstance().histogram("db.weatherInsert");
+  private final LatencyHistogram summaryLatency = MetricsRegistry.getInstance().histogram("db.summaryUpdate");
   private final String databaseLocation;
 
   public DatabaseWriter()
@@ -278,6 +301,12 @@ public class DatabaseWriter
     {
       e.printStackTrace();
     }
+
+    // The new month is the latest from now on, do not wait for the directory watch to see it.
+    ArchiveCatalog.getInstance().update(year, month);
+
+    // The month before is closed now, store it in the cold storage.
+    ColdStorage.getInstance().refreshInBackground();
   }
 
   /**
@@ -448,6 +477,21 @@ public class DatabaseWriter
    * @param data  The data to write.
    */
   public void insertWeatherRecord(DmpDataExtended data)
+  {
+    long start = System.nanoTime();
+    synchronized (WRITE_LOCK)
+    {
+      writeWeatherRecord(data);
+    }
+    insertLatency.recordSince(start);
+  }
+
+  /**
+   * Internal method to write the weather record, timed by insertWeatherRecord.
+   *
+   * @param data  The data to write.
+   */
+  private void writeWeatherRecord(DmpDataExtended data)
   {
     // The time in the dump record is at the start of the interval.
     // The time to write to the DB is at the end of the interval.
@@ -648,7 +692,16 @@ public class DatabaseWriter
     catch (IOException e)
     {
       e.printStackTrace();
+      return;
     }
+
+    // The readers take the size and day index of the file from the catalog, do not wait for the directory watch.
+    ArchiveCatalog.getInstance().update(year, month);
+
+    // Keep the rollup indexes current.
+    SunshineIndex.getInstance().addRecord(data);
+    WindRoseIndex.getInstance().addRecord(data);
+    ClimateNormals.getInstance().addRecord(data);
   }
 
   /**
@@ -657,6 +710,36 @@ public class DatabaseWriter
    * @param data The DMP record representing the last archive interval of data.
    */
   public void updateSummaryRecords(DmpDataExtended data)
+  {
+    long start = System.nanoTime();
+    byte[] summary;
+    synchronized (WRITE_LOCK)
+    {
+      summary = writeSummaryRecords(data);
+
+      // The summary records are in the latest file.
+      YearMonth latest = ArchiveCatalog.getInstance().getLatestMonth();
+      if (summary != null && latest != null)
+        ArchiveCatalog.getInstance().update(latest.getYear(), latest.getMonthValue());
+    }
+    summaryLatency.recordSince(start);
+
+    // Offer the day so far to the records index.
+    if (summary != null)
+    {
+      short dateStamp = data.getDateStamp();
+      RecordsIndex.getInstance().addSummary(LocalDate.of(TimeUtil.getYear(dateStamp), TimeUtil.getMonth(dateStamp),
+                                                         TimeUtil.getDay(dateStamp)), summary);
+    }
+  }
+
+  /**
+   * Internal method to update the summary records, timed by updateSummaryRecords.
+   *
+   * @param data The DMP record representing the last archive interval of data.
+   * @return The updated Daily Summary 1 record or null if the file could not be updated.
+   */
+  private byte[] writeSummaryRecords(DmpDataExtended data)
   {
     try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + DatabaseCommon.getLatestFilename(),
                                                             "rw"))
@@ -1208,10 +1291,16 @@ public class DatabaseWriter
             break;
         }
       }
+
+      byte[] summary = new byte[DatabaseCommon.RECORD_SIZE];
+      updateFile.seek(summaryRecordOffset);
+      updateFile.readFully(summary);
+      return summary;
     }
     catch (IOException e)
     {
       e.printStackTrace();
+      return null;
     }
   }
 
@@ -1226,60 +1315,83 @@ public class DatabaseWriter
     int year = timestamp.getYear();
     int month = timestamp.getMonth().getValue();
     String filename = DatabaseCommon.getFilename(year, month);
+    byte[] originalRecord = new byte[DatabaseCommon.RECORD_SIZE];
+    int offset;
 
-    try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
+    synchronized (WRITE_LOCK)
     {
-      int day = record.getTimestamp().getDayOfMonth();
-      byte archiveInterval = record.getArchiveInterval();
+      try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
+      {
+        int day = record.getTimestamp().getDayOfMonth();
+        byte archiveInterval = record.getArchiveInterval();
 
-      // Index into the header and retrieve the day index record.
-      int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
-      byte[] byteArray = new byte[4];
-      updateFile.seek(dayRecordOffset - 4);
-      byteArray[3] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 3);
-      byteArray[2] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 2);
-      byteArray[1] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 1);
-      byteArray[0] = updateFile.readByte();
-      int startPos = ByteUtil.byteArrayToInt(byteArray);
-
-      // This assumes the archive interval for this record is good for all day.
-      short packedTime = TimeUtil.getPackedTime(timestamp.getHour(), timestamp.getMinute());
-      int offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE +
-        ((packedTime / archiveInterval) + 2) * DatabaseCommon.RECORD_SIZE;
-
-      byte iconFlags = 0x10;
-      updateFile.seek(offset + 2);
-      updateFile.write(iconFlags);
-
-      writeShortValue(updateFile, offset + WeatherRecord.OUTSIDE_TEMP_OFFSET, record.getOutsideTempNative());
-      writeShortValue(updateFile, offset + WeatherRecord.HI_OUTSIDE_TEMP_OFFSET, record.getHighOutsideTempNative());
-      writeShortValue(updateFile, offset + WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET, record.getLowOutsideTempNative());
-      writeShortValue(updateFile, offset + WeatherRecord.INSIDE_TEMP_OFFSET, record.getInsideTempNative());
-      writeShortValue(updateFile, offset + WeatherRecord.BAROMETER_OFFSET, record.getPressureNative());
-      writeShortValue(updateFile, offset + WeatherRecord.OUTSIDE_HUMID_OFFSET, record.getOutsideHumidityNative());
-      writeShortValue(updateFile, offset + WeatherRecord.INSIDE_HUMID_OFFSET, record.getInsideHumidityNative());
-      writeShortValue(updateFile, offset + WeatherRecord.RAIN_OFFSET, record.getRainfallNative());
-      writeShortValue(updateFile, offset + WeatherRecord.HI_RAIN_RATE_OFFSET, record.getHighRainRateNative());
-      writeShortValue(updateFile, offset + WeatherRecord.WIND_SPEED_OFFSET, record.getAverageWindSpeedNative());
-      writeShortValue(updateFile, offset + WeatherRecord.HI_WIND_SPEED_OFFSET, record.getHighWindSpeedNative());
-      writeShortValue(updateFile, offset + WeatherRecord.WIND_DIR_OFFSET, record.getWindDirectionNative());
-      writeShortValue(updateFile, offset + WeatherRecord.HI_WIND_DIR_OFFSET, record.getHighWIndDirectionNative());
-      writeShortValue(updateFile, offset + WeatherRecord.NUM_WIND_SAMPLES_OFFSET, record.getNumOfWindSamples());
-      writeShortValue(updateFile, offset + WeatherRecord.SOLAR_RAD_OFFSET, record.getSolarRadiation());
-      writeShortValue(updateFile, offset + WeatherRecord.HI_SOLAR_OFFSET, record.getHighSolarRadiation());
-      writeShortValue(updateFile, offset + WeatherRecord.FORECAST_OFFSET, record.getForecast());
-
-      byte soilTemp1Byte = record.getSoilTemp1Native();
-      updateFile.seek(offset + WeatherRecord.SOIL_TEMP_1_OFFSET);
-      updateFile.write(soilTemp1Byte);
-    }
-    catch (IOException e)
-    {
-      e.printStackTrace();
+        // Index into the header and retrieve the day index record.
+        int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
+        byte[] byteArray = new byte[4];
+        updateFile.seek(dayRecordOffset - 4);
+        byteArray[3] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 3);
+        byteArray[2] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 2);
+        byteArray[1] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 1);
+        byteArray[0] = updateFile.readByte();
+        int startPos = ByteUtil.byteArrayToInt(byteArray);
+
+        // This assumes the archive interval for this record is good for all day.
+        short packedTime = TimeUtil.getPackedTime(timestamp.getHour(), timestamp.getMinute());
+        offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE +
+          ((packedTime / archiveInterval) + 2) * DatabaseCommon.RECORD_SIZE;
+
+        // Keep the record as it was, so only the summary fields the edit changes are written.
+        updateFile.seek(offset);
+        updateFile.readFully(originalRecord);
+
+        byte iconFlags = 0x10;
+        updateFile.seek(offset + 2);
+        updateFile.write(iconFlags);
+
+        writeShortValue(updateFile, offset + WeatherRecord.OUTSIDE_TEMP_OFFSET, record.getOutsideTempNative());
+        writeShortValue(updateFile, offset + WeatherRecord.HI_OUTSIDE_TEMP_OFFSET, record.getHighOutsideTempNative());
+        writeShortValue(updateFile, offset + WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET, record.getLowOutsideTempNative());
+        writeShortValue(updateFile, offset + WeatherRecord.INSIDE_TEMP_OFFSET, record.getInsideTempNative());
+        writeShortValue(updateFile, offset + WeatherRecord.BAROMETER_OFFSET, record.getPressureNative());
+        writeShortValue(updateFile, offset + WeatherRecord.OUTSIDE_HUMID_OFFSET, record.getOutsideHumidityNative());
+        writeShortValue(updateFile, offset + WeatherRecord.INSIDE_HUMID_OFFSET, record.getInsideHumidityNative());
+        writeShortValue(updateFile, offset + WeatherRecord.RAIN_OFFSET, record.getRainfallNative());
+        writeShortValue(updateFile, offset + WeatherRecord.HI_RAIN_RATE_OFFSET, record.getHighRainRateNative());
+        writeShortValue(updateFile, offset + WeatherRecord.WIND_SPEED_OFFSET, record.getAverageWindSpeedNative());
+        writeShortValue(updateFile, offset + WeatherRecord.HI_WIND_SPEED_OFFSET, record.getHighWindSpeedNative());
+        writeShortValue(updateFile, offset + WeatherRecord.WIND_DIR_OFFSET, record.getWindDirectionNative());
+        writeShortValue(updateFile, offset + WeatherRecord.HI_WIND_DIR_OFFSET, record.getHighWIndDirectionNative());
+        writeShortValue(updateFile, offset + WeatherRecord.NUM_WIND_SAMPLES_OFFSET, record.getNumOfWindSamples());
+        writeShortValue(updateFile, offset + WeatherRecord.SOLAR_RAD_OFFSET, record.getSolarRadiation());
+        writeShortValue(updateFile, offset + WeatherRecord.HI_SOLAR_OFFSET, record.getHighSolarRadiation());
+        writeShortValue(updateFile, offset + WeatherRecord.FORECAST_OFFSET, record.getForecast());
+
+        byte soilTemp1Byte = record.getSoilTemp1Native();
+        updateFile.seek(offset + WeatherRecord.SOIL_TEMP_1_OFFSET);
+        updateFile.write(soilTemp1Byte);
+      }
+      catch (IOException e)
+      {
+        e.printStackTrace();
+        return;
+      }
+
+      // The summary records of the day are computed from its weather records, so update the fields the edit
+      // changes.  This holds the write lock, so it does not race the summary updates of the current day.
+      new SummaryRebuilder(databaseLocation, false, false).rebuildEditedRecord(timestamp.toLocalDate(), offset,
+                                                                              originalRecord);
+      ArchiveCatalog.getInstance().update(year, month);
     }
+
+    // The edit may have changed values held by the rollup indexes.
+    SunshineIndex.getInstance().refreshDay(timestamp.toLocalDate());
+    WindRoseIndex.getInstance().refreshDay(timestamp.toLocalDate());
+    ClimateNormals.getInstance().refreshDay(timestamp.toLocalDate());
+    RecordsIndex.getInstance().refreshDay(timestamp.toLocalDate());
+    ColdStorage.getInstance().refreshMonthInBackground(YearMonth.of(year, month));
   }
 
   /**
@@ -1291,60 +1403,68 @@ public class DatabaseWriter
   {
     String filename = DatabaseCommon.getFilename(year, month);
 
-    try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
+    synchronized (WRITE_LOCK)
     {
-      // Index into the header and retrieve the day index record.
-      int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
-      byte[] byteArray = new byte[4];
-      updateFile.seek(dayRecordOffset - 4);
-      byteArray[3] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 3);
-      byteArray[2] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 2);
-      byteArray[1] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 1);
-      byteArray[0] = updateFile.readByte();
-      int startPos = ByteUtil.byteArrayToInt(byteArray);
-
-      // The daily summary #2 record is always the second record of the day.
-      int offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE + DatabaseCommon.RECORD_SIZE;
-
-      // Skip over the dataType and todaysWeather fields.
-      updateFile.seek(offset + 4);
-
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_OUT_TEMP_OFFSET, record.getHiOutTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_OUT_TEMP_OFFSET, record.getLowOutTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_IN_TEMP_OFFSET, record.getHiInTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_IN_TEMP_OFFSET, record.getLowInTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_OUT_TEMP_OFFSET, record.getAvgOutTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_IN_TEMP_OFFSET, record.getAvgInTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_CHILL_OFFSET, record.getHiChillNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_CHILL_OFFSET, record.getLowChillNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_DEW_OFFSET, record.getHiDewNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_DEW_OFFSET, record.getLowDewNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_CHILL_OFFSET, record.getAvgChillNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_DEW_OFFSET, record.getAvgDewNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_OUT_HUMID_OFFSET, record.getHiOutHumidNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_OUT_HUMID_OFFSET, record.getLowOutHumidNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_IN_HUMID_OFFSET, record.getHiInHumidNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_IN_HUMID_OFFSET, record.getLowInHumidNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_OUT_HUMID_OFFSET, record.getAvgOutTempNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_BAR_OFFSET, record.getHiBarNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.LOW_BAR_OFFSET, record.getLowBarNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_BAR_OFFSET, record.getAvgBarNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_WIND_SPEED_OFFSET, record.getHiSpeedNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.AVG_WIND_SPEED_OFFSET, record.getAvgSpeedNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.DAILY_WIND_RUN_TOTAL_OFFSET, record.getDailyWindRunTotalNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_10_MIN_SPEED_OFFSET, record.getHiTenMinSpeedNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET, record.getDirHiSpeedNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.DIR_HI_10_MIN_SPEED_OFFSET, record.getDirHiTenMinNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET, record.getDailyRainTotalNative());
-      writeShortValue(updateFile, offset + DailySummary1Record.HI_RAIN_RATE_OFFSET, record.getHiRainRateNative());
-    }
-    catch (IOException e)
-    {
-      e.printStackTrace();
+      try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
+      {
+        // Index into the header and retrieve the day index record.
+        int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
+        byte[] byteArray = new byte[4];
+        updateFile.seek(dayRecordOffset - 4);
+        byteArray[3] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 3);
+        byteArray[2] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 2);
+        byteArray[1] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 1);
+        byteArray[0] = updateFile.readByte();
+        int startPos = ByteUtil.byteArrayToInt(byteArray);
+
+        // The daily summary #2 record is always the second record of the day.
+        int offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE + DatabaseCommon.RECORD_SIZE;
+
+        // Skip over the dataType and todaysWeather fields.
+        updateFile.seek(offset + 4);
+
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_OUT_TEMP_OFFSET, record.getHiOutTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_OUT_TEMP_OFFSET, record.getLowOutTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_IN_TEMP_OFFSET, record.getHiInTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_IN_TEMP_OFFSET, record.getLowInTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_OUT_TEMP_OFFSET, record.getAvgOutTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_IN_TEMP_OFFSET, record.getAvgInTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_CHILL_OFFSET, record.getHiChillNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_CHILL_OFFSET, record.getLowChillNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_DEW_OFFSET, record.getHiDewNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_DEW_OFFSET, record.getLowDewNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_CHILL_OFFSET, record.getAvgChillNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_DEW_OFFSET, record.getAvgDewNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_OUT_HUMID_OFFSET, record.getHiOutHumidNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_OUT_HUMID_OFFSET, record.getLowOutHumidNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_IN_HUMID_OFFSET, record.getHiInHumidNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_IN_HUMID_OFFSET, record.getLowInHumidNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_OUT_HUMID_OFFSET, record.getAvgOutTempNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_BAR_OFFSET, record.getHiBarNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.LOW_BAR_OFFSET, record.getLowBarNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_BAR_OFFSET, record.getAvgBarNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_WIND_SPEED_OFFSET, record.getHiSpeedNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.AVG_WIND_SPEED_OFFSET, record.getAvgSpeedNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.DAILY_WIND_RUN_TOTAL_OFFSET, record.getDailyWindRunTotalNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_10_MIN_SPEED_OFFSET, record.getHiTenMinSpeedNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET, record.getDirHiSpeedNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.DIR_HI_10_MIN_SPEED_OFFSET, record.getDirHiTenMinNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET, record.getDailyRainTotalNative());
+        writeShortValue(updateFile, offset + DailySummary1Record.HI_RAIN_RATE_OFFSET, record.getHiRainRateNative());
+      }
+      catch (IOException e)
+      {
+        e.printStackTrace();
+        return;
+      }
+      ArchiveCatalog.getInstance().update(year, month);
     }
+
+    RecordsIndex.getInstance().refreshDay(LocalDate.of(year, month, day));
+    ColdStorage.getInstance().refreshMonthInBackground(YearMonth.of(year, month));
   }
 
   /**
@@ -1356,55 +1476,62 @@ public class DatabaseWriter
   {
     String filename = DatabaseCommon.getFilename(year, month);
 
-    try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
-    {
-      // Index into the header and retrieve the day index record.
-      int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
-      byte[] byteArray = new byte[4];
-      updateFile.seek(dayRecordOffset - 4);
-      byteArray[3] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 3);
-      byteArray[2] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 2);
-      byteArray[1] = updateFile.readByte();
-      updateFile.seek(dayRecordOffset - 1);
-      byteArray[0] = updateFile.readByte();
-      int startPos = ByteUtil.byteArrayToInt(byteArray);
-
-      // The daily summary #2 record is always the second record of the day.
-      int offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE + DatabaseCommon.RECORD_SIZE;
-
-      // Skip over the dataType and todaysWeather fields.
-      updateFile.seek(offset + 4);
-
-      writeShortValue(updateFile, offset + DailySummary2Record.NUM_OF_WIND_PACKETS_OFFSET, (short)record.getNumOfWindPackets());
-      writeShortValue(updateFile, offset + DailySummary2Record.HI_SOLAR_OFFSET, (short)record.getHiSolar());
-      writeShortValue(updateFile, offset + DailySummary2Record.DAILY_SOLAR_ENERGY_OFFSET, record.getDailySolarEnergyNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.MIN_SUNLIGHT_OFFSET, record.getMinSunlight());
-      writeShortValue(updateFile, offset + DailySummary2Record.DAILY_ET_TOTAL_OFFSET, record.getDailyETTotalNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.HI_HEAT_OFFSET, record.getHiHeatNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.LOW_HEAT_OFFSET, record.getLowHeatNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.AVG_HEAT_OFFSET, record.getAvgHeatNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.HI_THSW_OFFSET, record.getHiTHSWNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.LOW_THSW_OFFSET, record.getLowTHSWNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.HI_THW_OFFSET, record.getHiTHWNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.LOW_THW_OFFSET, record.getLowTHWNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.HEAT_DD_OFFSET, record.getIntegratedHeatDD65Native());
-      writeShortValue(updateFile, offset + DailySummary2Record.HI_WET_BULB_OFFSET, record.getHiWetBuldTempNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.LOW_WET_BULB_OFFSET, record.getLowWetBulbTempNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.AVG_WET_BULB_OFFSET, record.getAvgWetBulbTempNative());
-      writeShortValue(updateFile, offset + DailySummary2Record.COOL_DD_OFFSET, record.getIntegratedCoolDD65Native());
-    }
-    catch (IOException e)
+    synchronized (WRITE_LOCK)
     {
-      e.printStackTrace();
+      try (RandomAccessFile updateFile = new RandomAccessFile(databaseLocation + filename, "rw"))
+      {
+        // Index into the header and retrieve the day index record.
+        int dayRecordOffset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + 6 + (day * 6);
+        byte[] byteArray = new byte[4];
+        updateFile.seek(dayRecordOffset - 4);
+        byteArray[3] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 3);
+        byteArray[2] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 2);
+        byteArray[1] = updateFile.readByte();
+        updateFile.seek(dayRecordOffset - 1);
+        byteArray[0] = updateFile.readByte();
+        int startPos = ByteUtil.byteArrayToInt(byteArray);
+
+        // The daily summary #2 record is always the second record of the day.
+        int offset = DatabaseCommon.HEADER_BLOCK_SIZE + startPos * DatabaseCommon.RECORD_SIZE + DatabaseCommon.RECORD_SIZE;
+
+        // Skip over the dataType and todaysWeather fields.
+        updateFile.seek(offset + 4);
+
+        writeShortValue(updateFile, offset + DailySummary2Record.NUM_OF_WIND_PACKETS_OFFSET, (short)record.getNumOfWindPackets());
+        writeShortValue(updateFile, offset + DailySummary2Record.HI_SOLAR_OFFSET, (short)record.getHiSolar());
+        writeShortValue(updateFile, offset + DailySummary2Record.DAILY_SOLAR_ENERGY_OFFSET, record.getDailySolarEnergyNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.MIN_SUNLIGHT_OFFSET, record.getMinSunlight());
+        writeShortValue(updateFile, offset + DailySummary2Record.DAILY_ET_TOTAL_OFFSET, record.getDailyETTotalNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.HI_HEAT_OFFSET, record.getHiHeatNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.LOW_HEAT_OFFSET, record.getLowHeatNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.AVG_HEAT_OFFSET, record.getAvgHeatNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.HI_THSW_OFFSET, record.getHiTHSWNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.LOW_THSW_OFFSET, record.getLowTHSWNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.HI_THW_OFFSET, record.getHiTHWNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.LOW_THW_OFFSET, record.getLowTHWNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.HEAT_DD_OFFSET, record.getIntegratedHeatDD65Native());
+        writeShortValue(updateFile, offset + DailySummary2Record.HI_WET_BULB_OFFSET, record.getHiWetBuldTempNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.LOW_WET_BULB_OFFSET, record.getLowWetBulbTempNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.AVG_WET_BULB_OFFSET, record.getAvgWetBulbTempNative());
+        writeShortValue(updateFile, offset + DailySummary2Record.COOL_DD_OFFSET, record.getIntegratedCoolDD65Native());
+      }
+      catch (IOException e)
+      {
+        e.printStackTrace();
+        return;
+      }
+      ArchiveCatalog.getInstance().update(year, month);
     }
+
+    ColdStorage.getInstance().refreshMonthInBackground(YearMonth.of(year, month));
   }
 
   public static void main(String[] args)
   {
     DatabaseWriter dbWriter = new DatabaseWriter();
-    DatabaseReader dbReader = DatabaseReader.getInstance();
+    DatabaseReader dbReader = new DatabaseReader();
 
     // Get the last record's timestamp
     try
@@ -0,0 +1,384 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class computes the two daily summary records of a day from
+            the day's weather records.  The records are read and the summary
+            is written straight in the month file bytes, in the units of the
+            database the same as the DatabaseWriter uses when it updates the
+            summary records during ingest.  The degree days and the solar
+            energy are totaled with the same arithmetic as the DatabaseWriter,
+            rounding the running total to the stored units each interval, so a
+            day rebuilt after an edit goes on from where ingest left it.  The
+            wind direction minutes use the archive interval of each record.
+
+            The THSW values are left alone.  The calculation uses the current
+            time of day, so they cannot be computed again from old records.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Total the degree days and solar energy the same as ingest.
+*/
+package dbif;
+
+import algorithms.Calculations;
+import data.dbrecord.DailySummary1Record;
+import data.dbrecord.DailySummary2Record;
+import data.dbrecord.WeatherRecord;
+
+import java.nio.ByteBuffer;
+
+final class DaySummaryBuilder
+{
+  static final int NO_TIME_VALUE = 0x7FF;
+  static final short DASHED_VALUE = (short)0x8000;
+
+  private static final short DASHED_HIGH_VALUE = (short)0x7FFF;
+  private static final int NO_SENSOR_BYTE = 0xFF;
+  private static final double INTERVALS_IN_DAY = 288.0; // The DatabaseWriter totals 5 minute intervals.
+  private static final double LANGLEYS = 0.0716667; // The same factor the DatabaseWriter uses.
+
+  private final Extreme outTemp = new Extreme();
+  private final Extreme inTemp = new Extreme();
+  private final Extreme chill = new Extreme();
+  private final Extreme dew = new Extreme();
+  private final Extreme outHumid = new Extreme();
+  private final Extreme inHumid = new Extreme();
+  private final Extreme bar = new Extreme();
+  private final Extreme wind = new Extreme();
+  private final Extreme rainRate = new Extreme();
+  private final Extreme uv = new Extreme();
+  private final Extreme solar = new Extreme();
+  private final Extreme heat = new Extreme();
+  private final Extreme thw = new Extreme();
+  private final Extreme wetBulb = new Extreme();
+  private final int[] dirMinutes = new int[16];
+  private int records;
+  private int dataSpan;
+  private int hiWindDir = NO_SENSOR_BYTE;
+  private int rainClicks;
+  private int windSamples;
+  private int etTotal;
+  private long windRunTenths;
+  private short solarEnergy;
+  private int sunlightMinutes;
+  private short heatDD;
+  private short coolDD;
+
+  /**
+   * Method to add one weather record to the day.
+   *
+   * @param file The month file, little endian.
+   * @param offset The offset of the weather record.
+   */
+  void add(ByteBuffer file, int offset)
+  {
+    int interval = file.get(offset + WeatherRecord.ARCHIVE_INTERVAL_OFFSET) & 0xFF;
+    int time = file.getShort(offset + WeatherRecord.PACKED_TIME_OFFSET);
+    records++;
+    dataSpan += interval;
+
+    short temp = file.getShort(offset + WeatherRecord.OUTSIDE_TEMP_OFFSET);
+    short hiTemp = file.getShort(offset + WeatherRecord.HI_OUTSIDE_TEMP_OFFSET);
+    short lowTemp = file.getShort(offset + WeatherRecord.LOW_OUTSIDE_TEMP_OFFSET);
+    short humid = file.getShort(offset + WeatherRecord.OUTSIDE_HUMID_OFFSET);
+    short speed = file.getShort(offset + WeatherRecord.WIND_SPEED_OFFSET);
+    short hiSpeed = file.getShort(offset + WeatherRecord.HI_WIND_SPEED_OFFSET);
+    short solarRad = file.getShort(offset + WeatherRecord.SOLAR_RAD_OFFSET);
+
+    if (isValid(temp))
+    {
+      outTemp.add(temp, isValid(hiTemp) ? hiTemp : temp, isValid(lowTemp) ? lowTemp : temp, time);
+
+      float tempF = temp / 10f;
+      if (tempF < 65.0)
+        heatDD = (short)Math.round((heatDD / 10.0f + (65.0 - tempF) / INTERVALS_IN_DAY) * 10.0);
+      if (tempF > 65.0)
+        coolDD = (short)Math.round((coolDD / 10.0f + (tempF - 65.0) / INTERVALS_IN_DAY) * 10.0);
+
+      if (isValid(speed))
+        chill.add(Math.round(Calculations.calculateWindChill(tempF, speed / 10f) * 10), time);
+
+      if (isValid(humid))
+      {
+        float humidPercent = humid / 10f;
+        dew.add(Math.round(Calculations.calculateDewPoint(tempF, humidPercent) * 10), time);
+        heat.add(Math.round(Calculations.calculateHeatIndex(tempF, humidPercent) * 10), time);
+        wetBulb.add(Math.round(Calculations.calculateWetBulbTemperature(tempF, humidPercent) * 10), time);
+        if (isValid(speed))
+          thw.add(Math.round(Calculations.calculateTHW(tempF, speed / 10f, humidPercent) * 10), time);
+      }
+    }
+
+    short inside = file.getShort(offset + WeatherRecord.INSIDE_TEMP_OFFSET);
+    if (isValid(inside))
+      inTemp.add(inside, time);
+    if (isValid(humid))
+      outHumid.add(humid, time);
+    short inHumidity = file.getShort(offset + WeatherRecord.INSIDE_HUMID_OFFSET);
+    if (isValid(inHumidity))
+      inHumid.add(inHumidity, time);
+    short barometer = file.getShort(offset + WeatherRecord.BAROMETER_OFFSET);
+    if (isValid(barometer) && barometer != 0)
+      bar.add(barometer, time);
+
+    if (isValid(speed))
+    {
+      int high = isValid(hiSpeed) ? hiSpeed : speed;
+      if (high > wind.high)
+        hiWindDir = file.get(offset + WeatherRecord.HI_WIND_DIR_OFFSET) & 0xFF;
+      wind.add(speed, high, speed, time);
+      windRunTenths += (long)speed * interval;
+    }
+    int direction = file.get(offset + WeatherRecord.WIND_DIR_OFFSET) & 0xFF;
+    if (direction < dirMinutes.length)
+      dirMinutes[direction] += interval;
+    windSamples += file.getShort(offset + WeatherRecord.NUM_WIND_SAMPLES_OFFSET) & 0xFFFF;
+
+    rainClicks += file.getShort(offset + WeatherRecord.RAIN_OFFSET) & 0x0FFF;
+    short hiRate = file.getShort(offset + WeatherRecord.HI_RAIN_RATE_OFFSET);
+    if (isValid(hiRate))
+      rainRate.add(hiRate, time);
+
+    if (isValid(solarRad) && solarRad >= 0)
+    {
+      short hiSolar = file.getShort(offset + WeatherRecord.HI_SOLAR_OFFSET);
+      solar.add(isValid(hiSolar) ? hiSolar : solarRad, time);
+      solarEnergy = (short)Math.round(((solarEnergy / LANGLEYS) + solarRad) * LANGLEYS);
+      if (solarRad > 0)
+        sunlightMinutes += interval;
+    }
+
+    int hiUv = file.get(offset + WeatherRecord.HI_UV_OFFSET) & 0xFF;
+    if (hiUv != NO_SENSOR_BYTE)
+      uv.add(hiUv, time);
+    int et = file.get(offset + WeatherRecord.ET_OFFSET) & 0xFF;
+    if (et != NO_SENSOR_BYTE)
+      etTotal += et;
+  }
+
+  /**
+   * Method to tell if any weather records have been added.
+   *
+   * @return Whether the day is empty.
+   */
+  boolean isEmpty()
+  {
+    return records == 0;
+  }
+
+  /**
+   * Method to write the computed values into the two summary records of the day.  Values without any valid
+   * samples, the THSW values, the record types and the fields Davis does not use keep what the records held.
+   *
+   * @param file The month file, little endian.
+   * @param summary1 The offset of the daily summary record 1.
+   * @param summary2 The offset of the daily summary record 2, normally the record after summary record 1.
+   */
+  void write(ByteBuffer file, int summary1, int summary2)
+  {
+    int time1 = summary1 + DailySummary1Record.TIME_HIGH_OUT_TEMP_OFFSET_1;
+    int time2 = summary2 + DailySummary2Record.TIME_HIGH_SOLAR_OFFSET_1;
+
+    file.putShort(summary1 + DailySummary1Record.DATA_SPAN_OFFSET, (short)dataSpan);
+    putHighLow(file, summary1 + DailySummary1Record.HI_OUT_TEMP_OFFSET,
+               summary1 + DailySummary1Record.LOW_OUT_TEMP_OFFSET, summary1 + DailySummary1Record.AVG_OUT_TEMP_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_OUT_TEMP_INDEX, DailySummary1Record.TIME_OF_LOW_OUT_TEMP_INDEX,
+               outTemp);
+    putHighLow(file, summary1 + DailySummary1Record.HI_IN_TEMP_OFFSET,
+               summary1 + DailySummary1Record.LOW_IN_TEMP_OFFSET, summary1 + DailySummary1Record.AVG_IN_TEMP_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_IN_TEMP_INDEX, DailySummary1Record.TIME_OF_LOW_IN_TEMP_INDEX,
+               inTemp);
+    putHighLow(file, summary1 + DailySummary1Record.HI_CHILL_OFFSET,
+               summary1 + DailySummary1Record.LOW_CHILL_OFFSET, summary1 + DailySummary1Record.AVG_CHILL_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_WIND_CHILL_INDEX,
+               DailySummary1Record.TIME_OF_LOW_WIND_CHILL_INDEX, chill);
+    putHighLow(file, summary1 + DailySummary1Record.HI_DEW_OFFSET,
+               summary1 + DailySummary1Record.LOW_DEW_OFFSET, summary1 + DailySummary1Record.AVG_DEW_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_DEW_POINT_INDEX, DailySummary1Record.TIME_OF_LOW_DEW_POINT_INDEX,
+               dew);
+    putHighLow(file, summary1 + DailySummary1Record.HI_OUT_HUMID_OFFSET,
+               summary1 + DailySummary1Record.LOW_OUT_HUMID_OFFSET, summary1 + DailySummary1Record.AVG_OUT_HUMID_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_OUT_HUMID_INDEX,
+               DailySummary1Record.TIME_OF_LOW_OUT_HUMID_INDEX, outHumid);
+    putHighLow(file, summary1 + DailySummary1Record.HI_IN_HUMID_OFFSET,
+               summary1 + DailySummary1Record.LOW_IN_HUMID_OFFSET, -1,
+               time1, DailySummary1Record.TIME_OF_HIGH_IN_HUMID_INDEX, DailySummary1Record.TIME_OF_LOW_IN_HUMID_INDEX,
+               inHumid);
+    putHighLow(file, summary1 + DailySummary1Record.HI_BAR_OFFSET,
+               summary1 + DailySummary1Record.LOW_BAR_OFFSET, summary1 + DailySummary1Record.AVG_BAR_OFFSET,
+               time1, DailySummary1Record.TIME_OF_HIGH_PRESSURE_INDEX, DailySummary1Record.TIME_OF_LOW_PRESSURE_INDEX,
+               bar);
+
+    if (wind.count > 0)
+    {
+      file.putShort(summary1 + DailySummary1Record.HI_WIND_SPEED_OFFSET, (short)wind.high);
+      file.putShort(summary1 + DailySummary1Record.AVG_WIND_SPEED_OFFSET, wind.average());
+      file.put(summary1 + DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET, (byte)hiWindDir);
+      putTime(file, time1, DailySummary1Record.TIME_OF_HIGH_WIND_SPEED_INDEX, wind.highTime);
+    }
+    file.putShort(summary1 + DailySummary1Record.DAILY_WIND_RUN_TOTAL_OFFSET, (short)Math.round(windRunTenths / 60.0));
+
+    file.putShort(summary1 + DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET, (short)(rainClicks * 10));
+    if (rainRate.count > 0)
+    {
+      file.putShort(summary1 + DailySummary1Record.HI_RAIN_RATE_OFFSET, (short)rainRate.high);
+      putTime(file, time1, DailySummary1Record.TIME_OF_HIGH_RAIN_RATE_INDEX,
+              rainRate.high == 0 ? NO_TIME_VALUE : rainRate.highTime);
+    }
+    if (uv.count > 0)
+    {
+      file.put(summary1 + DailySummary1Record.HI_UV_OFFSET, (byte)uv.high);
+      putTime(file, time1, DailySummary1Record.TIME_OF_HIGH_UV_INDEX, uv.highTime);
+    }
+
+    file.putShort(summary2 + DailySummary2Record.NUM_OF_WIND_PACKETS_OFFSET, (short)windSamples);
+    if (solar.count > 0)
+    {
+      file.putShort(summary2 + DailySummary2Record.HI_SOLAR_OFFSET, (short)solar.high);
+      file.putShort(summary2 + DailySummary2Record.DAILY_SOLAR_ENERGY_OFFSET, solarEnergy);
+      file.putShort(summary2 + DailySummary2Record.MIN_SUNLIGHT_OFFSET, (short)sunlightMinutes);
+      putTime(file, time2, DailySummary2Record.TIME_OF_HIGH_SOLAR_RAD_INDEX, solar.highTime);
+    }
+    file.putShort(summary2 + DailySummary2Record.DAILY_ET_TOTAL_OFFSET, (short)etTotal);
+    putHighLow(file, summary2 + DailySummary2Record.HI_HEAT_OFFSET,
+               summary2 + DailySummary2Record.LOW_HEAT_OFFSET, summary2 + DailySummary2Record.AVG_HEAT_OFFSET,
+               time2, DailySummary2Record.TIME_OF_HIGH_OUT_HEAT_INDEX, DailySummary2Record.TIME_OF_LOW_OUT_HEAT_INDEX,
+               heat);
+    putHighLow(file, summary2 + DailySummary2Record.HI_THW_OFFSET,
+               summary2 + DailySummary2Record.LOW_THW_OFFSET, -1,
+               time2, DailySummary2Record.TIME_OF_HIGH_OUT_THW_INDEX, DailySummary2Record.TIME_OF_LOW_OUT_THW_INDEX,
+               thw);
+    // The wet bulb times follow the THW times.
+    putHighLow(file, summary2 + DailySummary2Record.HI_WET_BULB_OFFSET,
+               summary2 + DailySummary2Record.LOW_WET_BULB_OFFSET, summary2 + DailySummary2Record.AVG_WET_BULB_OFFSET,
+               time2, DailySummary2Record.TIME_OF_LOW_OUT_THW_INDEX + 1,
+               DailySummary2Record.TIME_OF_LOW_OUT_THW_INDEX + 2,
+               wetBulb);
+    if (outTemp.count > 0)
+    {
+      file.putShort(summary2 + DailySummary2Record.HEAT_DD_OFFSET, heatDD);
+      file.putShort(summary2 + DailySummary2Record.COOL_DD_OFFSET, coolDD);
+    }
+    for (int i = 0; i < dirMinutes.length; i++)
+      putTime(file, summary2 + DailySummary2Record.N_OFFSET_1, i, dirMinutes[i]);
+  }
+
+  /**
+   * Internal method to write the high, low and average of a value with the times of the high and low.  Nothing is
+   * written when the value had no valid samples.
+   *
+   * @param file The month file.
+   * @param highOffset The offset of the high.
+   * @param lowOffset The offset of the low.
+   * @param averageOffset The offset of the average, or -1 if the record has no average for the value.
+   * @param timeOffset The offset of the first time value of the record.
+   * @param highIndex The index of the time of the high.
+   * @param lowIndex The index of the time of the low.
+   * @param extreme The value.
+   */
+  private static void putHighLow(ByteBuffer file, int highOffset, int lowOffset, int averageOffset, int timeOffset,
+                                 int highIndex, int lowIndex, Extreme extreme)
+  {
+    if (extreme.count == 0)
+      return;
+
+    file.putShort(highOffset, (short)extreme.high);
+    file.putShort(lowOffset, (short)extreme.low);
+    if (averageOffset >= 0)
+      file.putShort(averageOffset, extreme.average());
+    putTime(file, timeOffset, highIndex, extreme.highTime);
+    putTime(file, timeOffset, lowIndex, extreme.lowTime);
+  }
+
+  /**
+   * Internal method to tell if a two byte value holds data.  Davis uses the two extremes for dashed values.
+   *
+   * @param value The value.
+   * @return Whether the value is valid.
+   */
+  private static boolean isValid(short value)
+  {
+    return value != DASHED_VALUE && value != DASHED_HIGH_VALUE;
+  }
+
+  /**
+   * Method to get one of the 12 bit time values of a summary record.
+   *
+   * @param file The month file.
+   * @param firstOffset The offset of the first time value.
+   * @param index The index of the time value.
+   * @return The value, normally minutes after midnight.
+   */
+  static int getTime(ByteBuffer file, int firstOffset, int index)
+  {
+    int pairOffset = firstOffset + (index / 2) * 3;
+    int highNibbles = file.get(pairOffset + 2) & 0xFF;
+    int high = index % 2 == 0 ? highNibbles & 0x0F : highNibbles >> 4;
+    return (high << 8) | (file.get(pairOffset + index % 2) & 0xFF);
+  }
+
+  /**
+   * Method to store one of the 12 bit time values of a summary record.  Each pair of values is packed into three
+   * bytes, the low bytes first and the two high nibbles in the third byte.
+   *
+   * @param file The month file.
+   * @param firstOffset The offset of the first time value.
+   * @param index The index of the time value.
+   * @param minutes The value, normally minutes after midnight.
+   */
+  static void putTime(ByteBuffer file, int firstOffset, int index, int minutes)
+  {
+    int pairOffset = firstOffset + (index / 2) * 3;
+    file.put(pairOffset + index % 2, (byte)minutes);
+    int highNibbles = file.get(pairOffset + 2) & 0xFF;
+    if (index % 2 == 0)
+      highNibbles = (highNibbles & 0xF0) | ((minutes >> 8) & 0x0F);
+    else
+      highNibbles = (highNibbles & 0x0F) | (((minutes >> 8) & 0x0F) << 4);
+    file.put(pairOffset + 2, (byte)highNibbles);
+  }
+
+  /**
+   * The high, low and average of one of the day's values along with the times of the high and low.
+   */
+  static class Extreme
+  {
+    int high = Integer.MIN_VALUE;
+    int low = Integer.MAX_VALUE;
+    int highTime;
+    int lowTime;
+    private long total;
+    private int count;
+
+    void add(int value, int time)
+    {
+      add(value, value, value, time);
+    }
+
+    void add(int value, int highValue, int lowValue, int time)
+    {
+      if (highValue > high)
+      {
+        high = highValue;
+        highTime = time;
+      }
+      if (lowValue < low)
+      {
+        low = lowValue;
+        lowTime = time;
+      }
+      total += value;
+      count++;
+    }
+
+    short average()
+    {
+      return (short)Math.round(total / (double)count);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the rain total of every month in the database.
+            A month's total is the sum of the daily rain totals held in the
+            daily summary #1 records, so only two bytes per day are read, the
+            day index coming from the archive catalog.  Totals are cached and a
+            month is only read again when its file has been modified.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Take the files and day index from the archive catalog.
+            10/19/26  Skip the days with an undefined rain total.
+*/
+package dbif;
+
+import data.dbrecord.DailySummary1Record;
+import util.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class MonthlyRainTotals
+{
+  private static final float THOUSANDTHS = 1000;
+
+  // A day with no rain total has both bytes undefined, read as -1.
+  private static final short UNDEFINED_RAIN_VALUE = DatabaseCommon.UNDEFINED_BYTE_VALUE;
+
+  private final Logger logger = Logger.getInstance();
+  private final TreeMap<YearMonth, MonthTotal> monthTotals = new TreeMap<>();
+
+  private static class MonthTotal
+  {
+    private final long lastModified;
+    private final float rainTotal;
+
+    MonthTotal(long lastModified, float rainTotal)
+    {
+      this.lastModified = lastModified;
+      this.rainTotal = rainTotal;
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final MonthlyRainTotals INSTANCE = new MonthlyRainTotals();
+  }
+
+  public static MonthlyRainTotals getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private MonthlyRainTotals() { }
+
+  /**
+   * Method to bring the cached totals up to date with the database files.  Only new or modified files are read.
+   *
+   * @return Whether or not any total changed.
+   */
+  public synchronized boolean refresh()
+  {
+    boolean changed = false;
+    Set<YearMonth> monthsFound = new HashSet<>();
+    for (ArchiveCatalog.Entry entry : ArchiveCatalog.getInstance().getEntries())
+    {
+      YearMonth yearMonth = entry.getYearMonth();
+      monthsFound.add(yearMonth);
+
+      MonthTotal monthTotal = monthTotals.get(yearMonth);
+      if (monthTotal != null && monthTotal.lastModified == entry.getLastModified())
+        continue;
+
+      try
+      {
+        monthTotals.put(yearMonth, new MonthTotal(entry.getLastModified(), readMonthTotal(entry)));
+        changed = true;
+      }
+      catch (IOException e)
+      {
+        logger.logData("MonthlyRainTotals: Unable to read " + entry.getFilename() + ": " + e.getLocalizedMessage());
+      }
+    }
+
+    changed |= monthTotals.keySet().retainAll(monthsFound);
+    return changed;
+  }
+
+  /**
+   * Method to get the rain total of a month.
+   *
+   * @param yearMonth The month.
+   * @return The rain total in inches or null if there is no database file for the month.
+   */
+  public synchronized Float getRainTotal(YearMonth yearMonth)
+  {
+    MonthTotal monthTotal = monthTotals.get(yearMonth);
+    return monthTotal == null ? null : monthTotal.rainTotal;
+  }
+
+  /**
+   * Method to get the first month with a database file.
+   *
+   * @return The first month or null if there are no database files.
+   */
+  public synchronized YearMonth getFirstMonth()
+  {
+    return monthTotals.isEmpty() ? null : monthTotals.firstKey();
+  }
+
+  /**
+   * Method to get the last month with a database file.
+   *
+   * @return The last month or null if there are no database files.
+   */
+  public synchronized YearMonth getLastMonth()
+  {
+    return monthTotals.isEmpty() ? null : monthTotals.lastKey();
+  }
+
+  /**
+   * Internal method to sum the daily rain totals of a database file.  The day index comes from the catalog entry.
+   *
+   * @param entry The catalog entry of the database file.
+   * @return The rain total in inches.
+   * @throws IOException The file could not be read.
+   */
+  private static float readMonthTotal(ArchiveCatalog.Entry entry) throws IOException
+  {
+    int rainTotal = 0;
+    try (RandomAccessFile monthFile = new RandomAccessFile(DatabaseCommon.getDirectory() + entry.getFilename(), "r"))
+    {
+      for (int day = 1; day <= 31; day++)
+      {
+        if (!entry.hasDay(day))
+          continue;
+
+        long rainOffset = DatabaseCommon.HEADER_BLOCK_SIZE +
+          (long)entry.getDayStartRecord(day) * DatabaseCommon.RECORD_SIZE + DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET;
+        if (rainOffset + 2 > monthFile.length())
+          continue;
+
+        monthFile.seek(rainOffset);
+        int byte1 = monthFile.read();
+        int byte2 = monthFile.read();
+        short dayRain = (short)(byte1 | byte2 << 8);
+        if (dayRain == UNDEFINED_RAIN_VALUE || dayRain == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+          continue;
+        rainTotal += dayRain;
+      }
+    }
+    return rainTotal / THOUSANDTHS;
+  }
+}
@@ -0,0 +1,1027 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the weather records of the station: for each
+            element the top five days, with the time of day, for each calendar
+            day, each month and all time.  The records come from the Daily
+            Summary 1 record of each day.  The index is built once from the whole
+            archive, one month per thread, and persisted next to the database
+            files.  After that each Daily Summary 1 record the DatabaseWriter
+            updates is offered to the index, a handful of comparisons against
+            three short lists, so a record is seen as soon as it is broken and a
+            report's record columns never scan the archive.  Only the values a
+            day can only make better as it goes on are kept, so offering the
+            running summary through the day always leaves the right records.
+            The database files remain the source of truth; when the index is
+            loaded, the days from the last one offered are always scanned again.
+            A load or rebuild fills new lists on the index's own thread and
+            then puts them in place, so the writer is never held up by a scan;
+            an edit makes only the lists of the edited calendar day, its month
+            and all time again.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Build the index off the lock and refresh only an edited day.
+*/
+package dbif;
+
+import data.dbrecord.DailySummary1Record;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import util.Logger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class RecordsIndex
+{
+  private static final String INDEX_FILENAME = "records.idx";
+  private static final String INDEX_ID = "WXREC";
+  private static final int INDEX_VERSION = 1;
+
+  // The number of days kept in each list.
+  public static final int TOP = 5;
+
+  private static final int CALENDAR_DAYS = 366;
+  private static final int MONTH_LISTS = CALENDAR_DAYS;
+  private static final int ALL_TIME_LIST = MONTH_LISTS + 12;
+  private static final int LISTS = ALL_TIME_LIST + 1;
+
+  private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final short DASHED_VALUE = (short)0x8000;
+  private static final short DASHED_HIGH_VALUE = (short)0x7FFF;
+  private static final int MINUTES_PER_DAY = 1440;
+
+  private final Logger logger = Logger.getInstance();
+  private final Counter recordsBroken = MetricsRegistry.getInstance().counter("records.broken");
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, "RecordsIndex");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  // The lists of each element, indexed by calendar day, then month, then all time.  A load or rebuild fills new
+  // lists and then puts them in place.
+  private volatile TopList[][] lists = newLists();
+  private volatile boolean loaded = false;
+  private volatile boolean loading = false;
+
+  // The summaries offered while the index is loading, offered once it is.
+  private final List<PendingSummary> pending = new ArrayList<>();
+
+  // The last day offered to the index.  It is scanned again on load as it may have been offered part way through.
+  private LocalDate lastDate = null;
+
+  /**
+   * The values records are kept for.  Each is a Daily Summary 1 value that the DatabaseWriter only ever moves
+   * toward a record during the day.
+   */
+  public enum Element
+  {
+    HIGH_TEMP("highTemp", DailySummary1Record.HI_OUT_TEMP_OFFSET, 10, true, false,
+              DailySummary1Record.TIME_HIGH_OUT_TEMP_OFFSET_1, DailySummary1Record.TIME_HIGH_OUT_TEMP_OFFSET_2),
+    LOW_TEMP("lowTemp", DailySummary1Record.LOW_OUT_TEMP_OFFSET, 10, false, false,
+             DailySummary1Record.TIME_LOW_OUT_TEMP_OFFSET_1, DailySummary1Record.TIME_LOW_OUT_TEMP_OFFSET_2),
+    HIGH_DEW_POINT("highDewPoint", DailySummary1Record.HI_DEW_OFFSET, 10, true, false,
+                   DailySummary1Record.TIME_HIGH_DEW_OFFSET_1, DailySummary1Record.TIME_HIGH_DEW_OFFSET_2),
+    LOW_WIND_CHILL("lowWindChill", DailySummary1Record.LOW_CHILL_OFFSET, 10, false, false,
+                   DailySummary1Record.TIME_LOW_CHILL_OFFSET_1, DailySummary1Record.TIME_LOW_CHILL_OFFSET_2),
+    LOW_HUMIDITY("lowHumidity", DailySummary1Record.LOW_OUT_HUMID_OFFSET, 10, false, false,
+                 DailySummary1Record.TIME_LOW_OUT_HUM_OFFSET_1, DailySummary1Record.TIME_LOW_OUT_HUM_OFFSET_2),
+    HIGH_PRESSURE("highPressure", DailySummary1Record.HI_BAR_OFFSET, 1000, true, false,
+                  DailySummary1Record.TIME_HIGH_BAR_OFFSET_1, DailySummary1Record.TIME_HIGH_BAR_OFFSET_2),
+    LOW_PRESSURE("lowPressure", DailySummary1Record.LOW_BAR_OFFSET, 1000, false, false,
+                 DailySummary1Record.TIME_LOW_BAR_OFFSET_1, DailySummary1Record.TIME_LOW_BAR_OFFSET_2),
+    HIGH_WIND("highWind", DailySummary1Record.HI_WIND_SPEED_OFFSET, 10, true, true,
+              DailySummary1Record.TIME_HIGH_WIND_OFFSET_1, DailySummary1Record.TIME_HIGH_WIND_OFFSET_2),
+    HIGH_RAIN_RATE("highRainRate", DailySummary1Record.HI_RAIN_RATE_OFFSET, 100, true, true,
+                   DailySummary1Record.TIME_HIGH_RAIN_OFFSET_1, DailySummary1Record.TIME_HIGH_RAIN_OFFSET_2),
+    RAIN("rain", DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET, 1000, true, true, -1, -1);
+
+    private final String name;
+    private final int offset;
+    private final int scale;
+    private final boolean highest;
+    private final boolean zeroIsNone;
+    private final int timeOffset1;
+    private final int timeOffset2;
+
+    /**
+     * Constructor.
+     *
+     * @param name The name used in the web API.
+     * @param offset The offset of the value in the Daily Summary 1 record.
+     * @param scale The value the stored number is divided by.
+     * @param highest Whether the highest value is the record, otherwise the lowest.
+     * @param zeroIsNone Whether a day with a value of zero has nothing to record.
+     * @param timeOffset1 The offset of the low order byte of the time of the value, -1 if there is no time.
+     * @param timeOffset2 The offset of the byte holding the high order bits of the time.
+     */
+    Element(String name, int offset, int scale, boolean highest, boolean zeroIsNone, int timeOffset1,
+            int timeOffset2)
+    {
+      this.name = name;
+      this.offset = offset;
+      this.scale = scale;
+      this.highest = highest;
+      this.zeroIsNone = zeroIsNone;
+      this.timeOffset1 = timeOffset1;
+      this.timeOffset2 = timeOffset2;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * Method to tell if the highest value is the record.
+     *
+     * @return Whether the highest value is the record, otherwise the lowest.
+     */
+    public boolean isHighest()
+    {
+      return highest;
+    }
+
+    /**
+     * Internal method to read the element from a Daily Summary 1 record.  The times share three bytes between two
+     * values: the even one has its high order bits in the low half of the third byte, the odd one in the high half.
+     *
+     * @param date The day of the record.
+     * @param record The record bytes.
+     * @return The entry or null if the day has no value.
+     */
+    private Entry read(LocalDate date, byte[] record)
+    {
+      short value = (short)((record[offset] & 0xFF) | (record[offset + 1] << 8));
+      if (value == DASHED_VALUE || value == DASHED_HIGH_VALUE || (value == 0 && zeroIsNone))
+        return null;
+
+      short time = -1;
+      if (timeOffset1 >= 0)
+      {
+        int highBits = record[timeOffset2] & 0xFF;
+        highBits = timeOffset2 - timeOffset1 == 2 ? (highBits & 0x0F) << 8 : (highBits & 0xF0) << 4;
+        time = (short)(highBits | (record[timeOffset1] & 0xFF));
+        if (time > MINUTES_PER_DAY)
+          time = -1;
+      }
+      return new Entry(date, value, time, scale);
+    }
+  }
+
+  /**
+   * One day in a list of records.
+   */
+  public static final class Entry
+  {
+    private final LocalDate date;
+    private final short nativeValue;
+    private final short time;
+    private final float value;
+
+    /**
+     * Constructor.
+     *
+     * @param date The day.
+     * @param nativeValue The value as stored in the database.
+     * @param time The minutes past midnight of the value or -1 if it has no time.
+     * @param scale The value the stored number is divided by.
+     */
+    private Entry(LocalDate date, short nativeValue, short time, int scale)
+    {
+      this.date = date;
+      this.nativeValue = nativeValue;
+      this.time = time;
+      this.value = (float)nativeValue / scale;
+    }
+
+    public LocalDate getDate()
+    {
+      return date;
+    }
+
+    public float getValue()
+    {
+      return value;
+    }
+
+    /**
+     * Method to get the time of the value.
+     *
+     * @return The time or null if the element has no time, only a day.
+     */
+    public LocalDateTime getTimestamp()
+    {
+      return time < 0 ? null : date.atStartOfDay().plusMinutes(time);
+    }
+
+    /**
+     * Internal method to tell if this entry ranks ahead of another.  An equal value ranks by the earlier day, which
+     * set the record first.
+     */
+    private boolean ranksBefore(Entry other, boolean highest)
+    {
+      if (nativeValue != other.nativeValue)
+        return highest == nativeValue > other.nativeValue;
+      return date.isBefore(other.date);
+    }
+  }
+
+  /**
+   * The best days of one element in one calendar day, month or all time, best first.  A day holds one place.
+   */
+  private static final class TopList
+  {
+    private final Entry[] entries = new Entry[TOP];
+    private int size = 0;
+
+    /**
+     * Method to offer the value of a day.  A better value of a day already in the list takes its place.
+     *
+     * @param entry The day's value.
+     * @param highest Whether the highest value is the record.
+     * @return The entry that was first, when a different day has just taken its place, otherwise null.
+     */
+    private Entry offer(Entry entry, boolean highest)
+    {
+      Entry first = entries[0];
+      int index = 0;
+      while (index < size && !entries[index].date.equals(entry.date))
+        index++;
+
+      if (index < size)
+      {
+        if (!entry.ranksBefore(entries[index], highest))
+          return null;
+        System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+        entries[--size] = null;
+      }
+      else if (size == TOP && !entry.ranksBefore(entries[TOP - 1], highest))
+        return null;
+
+      int place = Math.min(size, TOP - 1);
+      while (place > 0 && entry.ranksBefore(entries[place - 1], highest))
+      {
+        entries[place] = entries[place - 1];
+        place--;
+      }
+      entries[place] = entry;
+      if (size < TOP)
+        size++;
+
+      return place == 0 && first != null && !first.date.equals(entry.date) ? first : null;
+    }
+
+    /**
+     * Method to offer the days of another list.
+     *
+     * @param other The list.
+     * @param highest Whether the highest value is the record.
+     */
+    private void offerAll(TopList other, boolean highest)
+    {
+      for (int i = 0; i < other.size; i++)
+        offer(other.entries[i], highest);
+    }
+
+    private TopList copy()
+    {
+      TopList copy = new TopList();
+      System.arraycopy(entries, 0, copy.entries, 0, size);
+      copy.size = size;
+      return copy;
+    }
+
+    private List<Entry> toList()
+    {
+      return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(entries, size)));
+    }
+  }
+
+  /**
+   * A Daily Summary 1 record offered while the index is loading.
+   */
+  private static final class PendingSummary
+  {
+    private final LocalDate date;
+    private final byte[] record;
+
+    private PendingSummary(LocalDate date, byte[] record)
+    {
+      this.date = date;
+      this.record = record.clone();
+    }
+  }
+
+  /**
+   * The outcome of a scan of the archive.
+   */
+  private static final class ScanResult
+  {
+    private final int days;
+    private final LocalDate lastDate;
+
+    private ScanResult(int days, LocalDate lastDate)
+    {
+      this.days = days;
+      this.lastDate = lastDate;
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final RecordsIndex INSTANCE = new RecordsIndex();
+  }
+
+  public static RecordsIndex getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private RecordsIndex() { }
+
+  /**
+   * Method to load the index on the RecordsIndex thread.  The summaries offered until it is loaded are kept and
+   * offered once it is.
+   */
+  public void loadInBackground()
+  {
+    synchronized (this)
+    {
+      loading = !loaded;
+    }
+    executor.execute(this::loadIndex);
+  }
+
+  /**
+   * Method to read the index file and scan the days from the last one in it, or build the index from the whole
+   * archive if there is no file, and wait until it is loaded.  Does nothing once loaded.
+   */
+  public void load()
+  {
+    if (loaded)
+      return;
+
+    synchronized (this)
+    {
+      loading = !loaded;
+    }
+    waitFor(executor.submit(this::loadIndex));
+  }
+
+  /**
+   * Method to build the index again from the whole archive and wait until it is built.
+   */
+  public void rebuild()
+  {
+    waitFor(executor.submit(() -> buildIndex(false)));
+  }
+
+  /**
+   * Method called each time the DatabaseWriter has updated the Daily Summary 1 record of the current day.  The
+   * day's values are offered to its calendar day, its month and all time.  A record broken is logged.  The index
+   * is saved on the RecordsIndex thread when a new day starts.
+   *
+   * @param date The day.
+   * @param record The Daily Summary 1 record bytes.
+   */
+  public void addSummary(LocalDate date, byte[] record)
+  {
+    if (record[0] != ArchiveMonth.SUMMARY_1_RECORD_TYPE)
+      return;
+
+    synchronized (this)
+    {
+      // A day offered while the index is loading may be after the scan read it, so it is offered once loaded.
+      // Without a load under way the days not yet in the index are scanned when it is loaded.
+      if (!loaded)
+      {
+        if (loading)
+          pending.add(new PendingSummary(date, record));
+        return;
+      }
+
+      offerDay(lists, date, record, true);
+      if (lastDate != null && !date.isAfter(lastDate))
+        return;
+      lastDate = date;
+    }
+    executor.execute(this::saveIndex);
+  }
+
+  /**
+   * Method called when a day is edited.  The lists the day belongs to are made again on the RecordsIndex thread.
+   *
+   * @param date The day.
+   */
+  public void refreshDay(LocalDate date)
+  {
+    executor.execute(() -> refreshIndexDay(date));
+  }
+
+  /**
+   * Method to get the records of a calendar day over all the years.
+   *
+   * @param element The element.
+   * @param monthDay The calendar day.
+   * @return The days, best first, at most TOP.
+   */
+  public List<Entry> getDayRecords(Element element, MonthDay monthDay)
+  {
+    load();
+    synchronized (this)
+    {
+      return lists[element.ordinal()][getCalendarIndex(monthDay.getMonthValue(), monthDay.getDayOfMonth())].toList();
+    }
+  }
+
+  /**
+   * Method to get the records of a month over all the years.
+   *
+   * @param element The element.
+   * @param month The month, 1 to 12.
+   * @return The days, best first, at most TOP.
+   */
+  public List<Entry> getMonthRecords(Element element, int month)
+  {
+    load();
+    synchronized (this)
+    {
+      return lists[element.ordinal()][MONTH_LISTS + month - 1].toList();
+    }
+  }
+
+  /**
+   * Method to get the all-time records.
+   *
+   * @param element The element.
+   * @return The days, best first, at most TOP.
+   */
+  public List<Entry> getAllTimeRecords(Element element)
+  {
+    load();
+    synchronized (this)
+    {
+      return lists[element.ordinal()][ALL_TIME_LIST].toList();
+    }
+  }
+
+  /**
+   * Method to get the last day offered to the index.
+   *
+   * @return The day or null if the archive is empty.
+   */
+  public synchronized LocalDate getLastDate()
+  {
+    return lastDate;
+  }
+
+  /**
+   * Internal method to load the index, run on the RecordsIndex thread.
+   */
+  private void loadIndex()
+  {
+    if (!loaded)
+      buildIndex(true);
+  }
+
+  /**
+   * Internal method to build the index into new lists and then put them in place, run on the RecordsIndex thread.
+   * The lists are only locked to put them in place and offer the summaries that arrived meanwhile.
+   *
+   * @param readFile Whether to start from the index file, otherwise the whole archive is scanned.
+   */
+  private void buildIndex(boolean readFile)
+  {
+    // The summaries offered during a rebuild would be lost with the old lists, so they wait for the new ones.
+    synchronized (this)
+    {
+      loading = true;
+      loaded = false;
+    }
+    long startTime = System.currentTimeMillis();
+    TopList[][] built = newLists();
+    LocalDate last = readFile ? readIndexFile(built) : null;
+    ScanResult scanned = scan(built, last);
+    if (scanned.lastDate != null && (last == null || scanned.lastDate.isAfter(last)))
+      last = scanned.lastDate;
+
+    synchronized (this)
+    {
+      lists = built;
+      lastDate = last;
+      loaded = true;
+      loading = false;
+      for (PendingSummary summary : pending)
+      {
+        offerDay(lists, summary.date, summary.record, true);
+        if (lastDate == null || summary.date.isAfter(lastDate))
+          lastDate = summary.date;
+      }
+      pending.clear();
+    }
+    saveIndex();
+    logger.logData("RecordsIndex: loaded through " + last + ", " + scanned.days + " days scanned, in " +
+                   (System.currentTimeMillis() - startTime) + " ms.");
+  }
+
+  /**
+   * Internal method to make the lists of an edited day again, run on the RecordsIndex thread.  The day's calendar
+   * day list is made from that calendar day of every year, read from the database files.  The days of a month list
+   * are all in the lists of its calendar days, and the days of the all-time list are all in the month lists, so
+   * those are made from the lists below them without reading the archive.
+   *
+   * @param date The day.
+   */
+  private void refreshIndexDay(LocalDate date)
+  {
+    if (!loaded)
+      return;
+
+    // Read the calendar day of every year.
+    TreeMap<LocalDate, byte[]> calendarDays = new TreeMap<>();
+    for (ArchiveCatalog.Entry entry : ArchiveCatalog.getInstance().getEntries())
+    {
+      YearMonth yearMonth = entry.getYearMonth();
+      int day = date.getDayOfMonth();
+      if (yearMonth.getMonthValue() != date.getMonthValue() || day > yearMonth.lengthOfMonth() || !entry.hasDay(day))
+        continue;
+
+      try
+      {
+        byte[] record = readSummary(entry, day);
+        if (record != null)
+          calendarDays.put(yearMonth.atDay(day), record);
+      }
+      catch (IOException e)
+      {
+        logger.logData("RecordsIndex: refreshDay: Unable to read " + yearMonth.atDay(day) + ": " +
+                       e.getLocalizedMessage());
+        return;
+      }
+    }
+
+    int calendarIndex = getCalendarIndex(date.getMonthValue(), date.getDayOfMonth());
+    int monthIndex = MONTH_LISTS + date.getMonthValue() - 1;
+    int monthFirst = getCalendarIndex(date.getMonthValue(), 1);
+    int monthLength = date.getMonth().maxLength();
+    synchronized (this)
+    {
+      for (Element element : Element.values())
+      {
+        TopList[] elementLists = lists[element.ordinal()];
+        TopList day = new TopList();
+        for (Map.Entry<LocalDate, byte[]> calendarDay : calendarDays.entrySet())
+        {
+          Entry entry = element.read(calendarDay.getKey(), calendarDay.getValue());
+          if (entry != null)
+            day.offer(entry, element.highest);
+        }
+        elementLists[calendarIndex] = day;
+
+        TopList month = new TopList();
+        for (int i = monthFirst; i < monthFirst + monthLength; i++)
+          month.offerAll(elementLists[i], element.highest);
+        elementLists[monthIndex] = month;
+
+        TopList allTime = new TopList();
+        for (int i = MONTH_LISTS; i < ALL_TIME_LIST; i++)
+          allTime.offerAll(elementLists[i], element.highest);
+        elementLists[ALL_TIME_LIST] = allTime;
+      }
+    }
+    saveIndex();
+  }
+
+  /**
+   * Internal method to wait for work submitted to the RecordsIndex thread.
+   *
+   * @param future The work.
+   */
+  private void waitFor(Future<?> future)
+  {
+    try
+    {
+      future.get();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e)
+    {
+      logger.logData("RecordsIndex: Unable to load the index: " + e.getCause());
+    }
+  }
+
+  /**
+   * Internal method to make empty lists.
+   *
+   * @return The lists of each element, indexed by calendar day, then month, then all time.
+   */
+  private static TopList[][] newLists()
+  {
+    TopList[][] newLists = new TopList[Element.values().length][LISTS];
+    for (TopList[] elementLists : newLists)
+    {
+      for (int i = 0; i < LISTS; i++)
+        elementLists[i] = new TopList();
+    }
+    return newLists;
+  }
+
+  /**
+   * Internal method to offer a day's values to its lists.
+   *
+   * @param lists The lists of each element.
+   * @param date The day.
+   * @param record The Daily Summary 1 record bytes.
+   * @param alert Whether a record broken is logged.
+   */
+  private void offerDay(TopList[][] lists, LocalDate date, byte[] record, boolean alert)
+  {
+    int calendarIndex = getCalendarIndex(date.getMonthValue(), date.getDayOfMonth());
+    int monthIndex = MONTH_LISTS + date.getMonthValue() - 1;
+    for (Element element : Element.values())
+    {
+      Entry entry = element.read(date, record);
+      if (entry == null)
+        continue;
+
+      TopList[] elementLists = lists[element.ordinal()];
+      Entry allTime = elementLists[ALL_TIME_LIST].offer(entry, element.highest);
+      Entry month = elementLists[monthIndex].offer(entry, element.highest);
+      Entry day = elementLists[calendarIndex].offer(entry, element.highest);
+      if (!alert)
+        continue;
+
+      if (allTime != null)
+        alertRecord("all-time", element, entry, allTime);
+      else if (month != null)
+        alertRecord("month", element, entry, month);
+      else if (day != null)
+        alertRecord("calendar day", element, entry, day);
+    }
+  }
+
+  /**
+   * Internal method to log a record broken.
+   */
+  private void alertRecord(String scope, Element element, Entry entry, Entry previous)
+  {
+    recordsBroken.increment();
+    logger.logData("RecordsIndex: New " + scope + " record " + element.getName() + " " + entry.getValue() + " at " +
+                   (entry.getTimestamp() != null ? entry.getTimestamp() : entry.getDate()) + ", was " +
+                   previous.getValue() + " on " + previous.getDate());
+  }
+
+  /**
+   * Internal method to offer the Daily Summary 1 records of the days from a day on.  The months are read in
+   * parallel and the days then offered in one pass, which gives the same lists in any order.
+   *
+   * @param lists The lists of each element.
+   * @param from The first day or null for the whole archive.
+   * @return The number of days offered and the last of them.
+   */
+  private ScanResult scan(TopList[][] lists, LocalDate from)
+  {
+    ArchiveCatalog catalog = ArchiveCatalog.getInstance();
+    if (catalog.getFirstMonth() == null)
+      return new ScanResult(0, null);
+    YearMonth startMonth = from == null ? catalog.getFirstMonth() : YearMonth.from(from);
+
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS, runnable ->
+    {
+      Thread thread = new Thread(runnable, "RecordsIndex-Scan");
+      thread.setDaemon(true);
+      return thread;
+    });
+    int days = 0;
+    LocalDate last = null;
+    try
+    {
+      List<Future<TreeMap<LocalDate, byte[]>>> futures = new ArrayList<>();
+      for (ArchiveCatalog.Entry entry : catalog.getEntries(startMonth))
+      {
+        YearMonth yearMonth = entry.getYearMonth();
+        futures.add(pool.submit(() -> readSummaries(yearMonth, from)));
+      }
+
+      for (Future<TreeMap<LocalDate, byte[]>> future : futures)
+      {
+        for (Map.Entry<LocalDate, byte[]> day : future.get().entrySet())
+        {
+          offerDay(lists, day.getKey(), day.getValue(), false);
+          if (last == null || day.getKey().isAfter(last))
+            last = day.getKey();
+          days++;
+        }
+      }
+    }
+    catch (ExecutionException e)
+    {
+      logger.logData("RecordsIndex: scan: Unable to read the archive: " + e.getCause().getLocalizedMessage());
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+    return new ScanResult(days, last);
+  }
+
+  /**
+   * Internal method to read the Daily Summary 1 records of a month.
+   *
+   * @param yearMonth The month.
+   * @param from The first day to read or null for all.
+   * @return The records by day.
+   * @throws IOException The file could not be read.
+   */
+  private static TreeMap<LocalDate, byte[]> readSummaries(YearMonth yearMonth, LocalDate from) throws IOException
+  {
+    ArchiveMonth month = ArchiveMonth.load(yearMonth.getYear(), yearMonth.getMonthValue());
+    TreeMap<LocalDate, byte[]> summaries = new TreeMap<>();
+    for (int day = 1; day <= yearMonth.lengthOfMonth(); day++)
+    {
+      LocalDate date = yearMonth.atDay(day);
+      if (!month.hasDay(day) || (from != null && date.isBefore(from)))
+        continue;
+
+      int recordOffset = month.getRecordOffset(month.getDayStartRecord(day));
+      if (month.getDataType(recordOffset) == ArchiveMonth.SUMMARY_1_RECORD_TYPE)
+        summaries.put(date, month.getRecord(recordOffset));
+    }
+    return summaries;
+  }
+
+  /**
+   * Internal method to read the Daily Summary 1 record of one day without loading the month.
+   *
+   * @param entry The month's catalog entry.
+   * @param day The day of the month.
+   * @return The record bytes or null if the day has none.
+   * @throws IOException The file could not be read.
+   */
+  private static byte[] readSummary(ArchiveCatalog.Entry entry, int day) throws IOException
+  {
+    byte[] record = new byte[DatabaseCommon.RECORD_SIZE];
+    try (RandomAccessFile file = new RandomAccessFile(DatabaseCommon.getDirectory() + entry.getFilename(), "r"))
+    {
+      file.seek(DatabaseCommon.HEADER_BLOCK_SIZE + (long)entry.getDayStartRecord(day) * DatabaseCommon.RECORD_SIZE);
+      file.readFully(record);
+    }
+    return record[0] == ArchiveMonth.SUMMARY_1_RECORD_TYPE ? record : null;
+  }
+
+  /**
+   * Internal method to get the index of a calendar day, the day of the year in a leap year less one.
+   *
+   * @param month The month.
+   * @param day The day of the month.
+   * @return The index, 0 to 365.
+   */
+  private static int getCalendarIndex(int month, int day)
+  {
+    return MonthDay.of(month, day).atYear(2000).getDayOfYear() - 1;
+  }
+
+  /**
+   * Internal method to write the index file, run on the RecordsIndex thread.  The lists are copied under the lock
+   * and written without it.  The file is written to a temporary file first and then moved into place so that a
+   * power failure never leaves a partial index.
+   */
+  private void saveIndex()
+  {
+    TopList[][] saved = new TopList[Element.values().length][LISTS];
+    LocalDate savedDate;
+    synchronized (this)
+    {
+      for (int element = 0; element < saved.length; element++)
+      {
+        for (int list = 0; list < LISTS; list++)
+          saved[element][list] = lists[element][list].copy();
+      }
+      savedDate = lastDate;
+    }
+
+    String filename = DatabaseCommon.getDirectory() + INDEX_FILENAME;
+    File tempFile = new File(filename + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+    {
+      out.writeUTF(INDEX_ID);
+      out.writeInt(INDEX_VERSION);
+      out.writeInt(Element.values().length);
+      out.writeInt(TOP);
+      out.writeInt(savedDate == null ? Integer.MIN_VALUE : (int)savedDate.toEpochDay());
+      for (TopList[] elementLists : saved)
+      {
+        for (TopList list : elementLists)
+        {
+          out.writeByte(list.size);
+          for (int i = 0; i < list.size; i++)
+          {
+            out.writeInt((int)list.entries[i].date.toEpochDay());
+            out.writeShort(list.entries[i].nativeValue);
+            out.writeShort(list.entries[i].time);
+          }
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      logger.logData("RecordsIndex: save: Unable to write index: " + e.getLocalizedMessage());
+      return;
+    }
+
+    try
+    {
+      Files.move(tempFile.toPath(), Paths.get(filename), StandardCopyOption.REPLACE_EXISTING);
+    }
+    catch (IOException e)
+    {
+      logger.logData("RecordsIndex: save: Unable to replace index: " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Method to remove the index file of a database directory, so the index is built again from the archive the next
+   * time it is loaded.  This is for the programs that change the archive while the station program is stopped.
+   *
+   * @param directory The database directory, ending with a separator.
+   * @throws IOException The file could not be removed.
+   */
+  static void deleteIndexFile(String directory) throws IOException
+  {
+    Files.deleteIfExists(Paths.get(directory + INDEX_FILENAME));
+  }
+
+  /**
+   * Internal method to read the index file.  A missing, old or corrupt file simply leaves the index empty, which
+   * causes a full build.
+   *
+   * @param lists The lists of each element to fill.
+   * @return The last day offered to the index or null to scan the whole archive.
+   */
+  private LocalDate readIndexFile(TopList[][] lists)
+  {
+    File file = new File(DatabaseCommon.getDirectory() + INDEX_FILENAME);
+    if (!file.exists())
+      return null;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+    {
+      if (!INDEX_ID.equals(in.readUTF()) || in.readInt() != INDEX_VERSION ||
+          in.readInt() != Element.values().length || in.readInt() != TOP)
+      {
+        logger.logData("RecordsIndex: index file is out of date, rebuilding.");
+        return null;
+      }
+
+      int last = in.readInt();
+      for (Element element : Element.values())
+      {
+        for (TopList list : lists[element.ordinal()])
+        {
+          list.size = in.readUnsignedByte();
+          for (int i = 0; i < list.size; i++)
+          {
+            list.entries[i] = new Entry(LocalDate.ofEpochDay(in.readInt()), in.readShort(), in.readShort(),
+                                        element.scale);
+          }
+        }
+      }
+      return last == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(last);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      logger.logData("RecordsIndex: index file is corrupt, rebuilding: " + e.getLocalizedMessage());
+      for (TopList[] elementLists : lists)
+      {
+        for (int i = 0; i < LISTS; i++)
+          elementLists[i] = new TopList();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Internal method used by the test to count the lists that differ.
+   *
+   * @param expected The lists expected.
+   * @param actual The lists to check.
+   * @return The number of lists that differ.
+   */
+  private static int countDifferences(TopList[][] expected, TopList[][] actual)
+  {
+    int differences = 0;
+    for (int element = 0; element < expected.length; element++)
+    {
+      for (int list = 0; list < LISTS; list++)
+      {
+        List<Entry> expectedList = expected[element][list].toList();
+        List<Entry> actualList = actual[element][list].toList();
+        boolean same = expectedList.size() == actualList.size();
+        for (int i = 0; same && i < expectedList.size(); i++)
+        {
+          Entry expectedEntry = expectedList.get(i);
+          Entry actualEntry = actualList.get(i);
+          same = expectedEntry.date.equals(actualEntry.date) && expectedEntry.nativeValue == actualEntry.nativeValue &&
+            expectedEntry.time == actualEntry.time;
+        }
+        if (!same)
+          differences++;
+      }
+    }
+    return differences;
+  }
+
+  /**
+   * Method used to test the class.  The index is built from the whole archive and then built again by offering
+   * the days one at a time newest first, and the two are compared.  The lists of the last day are then made again
+   * as an edit does and compared too.  The all-time records and those of the last day's calendar day are shown.
+   *
+   * @param args Not used.
+   * @throws IOException An archive file could not be read.
+   */
+  public static void main(String[] args) throws IOException
+  {
+    RecordsIndex index = RecordsIndex.getInstance();
+    long start = System.nanoTime();
+    index.rebuild();
+    System.out.println("Built through " + index.getLastDate() + " in " + (System.nanoTime() - start) / 1000000 +
+                       " ms");
+    if (index.getLastDate() == null)
+      return;
+
+    TopList[][] built = new TopList[Element.values().length][LISTS];
+    for (int element = 0; element < built.length; element++)
+    {
+      for (int list = 0; list < LISTS; list++)
+        built[element][list] = index.lists[element][list].copy();
+    }
+
+    List<byte[]> records = new ArrayList<>();
+    List<LocalDate> dates = new ArrayList<>();
+    for (ArchiveCatalog.Entry entry : ArchiveCatalog.getInstance().getEntries())
+    {
+      for (Map.Entry<LocalDate, byte[]> day : readSummaries(entry.getYearMonth(), null).entrySet())
+      {
+        dates.add(0, day.getKey());
+        records.add(0, day.getValue());
+      }
+    }
+    TopList[][] offered = newLists();
+    start = System.nanoTime();
+    for (int i = 0; i < dates.size(); i++)
+      index.offerDay(offered, dates.get(i), records.get(i), false);
+    System.out.println("Offered " + dates.size() + " days in " + (System.nanoTime() - start) / 1000 + " us");
+    System.out.println(countDifferences(built, offered) + " lists differ");
+
+    // Make the lists of the last day again as an edit does.
+    index.refreshIndexDay(index.getLastDate());
+    System.out.println(countDifferences(built, index.lists) + " lists differ after refreshing " +
+                       index.getLastDate());
+
+    MonthDay lastDay = MonthDay.from(index.getLastDate());
+    for (Element element : Element.values())
+    {
+      StringBuilder line = new StringBuilder(element.getName() + " all-time:");
+      for (Entry entry : index.getAllTimeRecords(element))
+        line.append(String.format(" %.3f %s", entry.getValue(),
+                                  entry.getTimestamp() != null ? entry.getTimestamp() : entry.getDate()));
+      line.append(" | ").append(lastDay).append(":");
+      for (Entry entry : index.getDayRecords(element, lastDay))
+        line.append(String.format(" %.3f %s", entry.getValue(), entry.getDate().getYear()));
+      System.out.println(line);
+    }
+  }
+}
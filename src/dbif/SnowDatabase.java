@@ -13,16 +13,32 @@
             there are not many observations in a given year.  New records
             are only added to the end of the file.
 
+            The file is read once and the records are held in memory sorted
+            by date, so lookups are a binary search.  Edits and deletes are
+            appended to a journal file rather than rewriting the CSV file.
+            The journal is replayed and folded back into the CSV file the
+            next time the database is loaded.
+
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Added the in-memory store and the edit journal.
+            10/19/26 Remove a partial last line left by a crash before appending.
+            10/19/26 End a whole last line that lacks its line end instead of
+                     removing it.  Report a failed insert.
 */
 package dbif;
 
 import data.dbrecord.SnowRecord;
 import gui.snow.SnowDataListener;
 import util.ConfigProperties;
+import util.Logger;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class SnowDatabase
@@ -30,13 +46,25 @@ public class SnowDatabase
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private static final String FILENAME = "SnowData.csv";
   private static final String TEMP_FILENAME = "TempSnowData.csv";
+  private static final String JOURNAL_FILENAME = "SnowData.journal";
+  private static final String MODIFY_ENTRY = "M";
+  private static final String DELETE_ENTRY = "D";
   private final List<SnowDataListener> listeners = new ArrayList<>();
   private final String databaseLocation;
+  private final Logger logger = Logger.getInstance();
 
   private static final int YEAR_COLUMN = 0;
   private static final int MONTH_COLUMN = 1;
   private static final int DAY_COLUMN = 2;
   private static final int AMOUNT_COLUMN = 3;
+  private static final int NUMBER_OF_COLUMNS = 4;
+
+  private static final Comparator<SnowRecord> DATE_ORDER =
+    Comparator.comparingInt(SnowRecord::getYear).thenComparingInt(SnowRecord::getMonth).thenComparingInt(SnowRecord::getDay);
+
+  // Sorted by date.  Records with the same date are kept in the order they were added.
+  private final ArrayList<SnowRecord> snowRecords = new ArrayList<>();
+  private boolean loaded = false;
 
   private static class SingletonHelper
   {
@@ -57,44 +85,45 @@ public class SnowDatabase
   }
 
   /**
-   * Method to register interest when a record is added.
+   * Method to register interest when a record is added, modified or deleted.
+   */
+  public synchronized void addListener(SnowDataListener listener)
+  {
+    if (!listeners.contains(listener))
+      listeners.add(listener);
+  }
+
+  /**
+   * Method to remove interest in changes to the data.
    */
-  public void addListener(SnowDataListener listener)
+  public synchronized void removeListener(SnowDataListener listener)
   {
-    listeners.add(listener);
+    listeners.remove(listener);
   }
-  
+
   /**
-   * This method reads all the data for the snow data file.
+   * This method returns all the snow data, sorted by date.
    *
    * @return A list of all snow records.
    */
-  public List<SnowRecord> readData()
+  public synchronized List<SnowRecord> readData()
   {
-    BufferedReader breader;
-    try
-    {
-      breader = new BufferedReader(new FileReader(databaseLocation + FILENAME));
+    ensureLoaded();
+    return new ArrayList<>(snowRecords);
+  }
 
-      List<SnowRecord> snowRecords = new ArrayList<>();
-      String nextLine;
-      while ((nextLine = breader.readLine()) != null)
-      {
-        SnowRecord record = new SnowRecord();
-        String[] splitValues = nextLine.split(",");
-        record.setYear(Integer.parseInt(splitValues[YEAR_COLUMN]));
-        record.setMonth(Integer.parseInt(splitValues[MONTH_COLUMN]));
-        record.setDay(Integer.parseInt(splitValues[DAY_COLUMN]));
-        record.setAmount(Float.parseFloat(splitValues[AMOUNT_COLUMN]));
-        snowRecords.add(record);
-      }
-      return snowRecords;
-    }
-    catch (IOException ioe)
-    {
-      ioe.printStackTrace();
-      return null;
-    }
+  /**
+   * This method returns the snow data for a single month.
+   *
+   * @param yearMonth The month.
+   * @return The month's snow records, sorted by date.
+   */
+  public synchronized List<SnowRecord> readData(YearMonth yearMonth)
+  {
+    ensureLoaded();
+    int startIndex = lowerBound(yearMonth.getYear(), yearMonth.getMonthValue(), 1);
+    int endIndex = lowerBound(yearMonth.getYear(), yearMonth.getMonthValue(), 32);
+    return new ArrayList<>(snowRecords.subList(startIndex, endIndex));
   }
 
   /**
@@ -102,121 +131,389 @@ public class SnowDatabase
    * file.
    *
    * @param data  The data to write.
+   * @return Whether the record was written.  Nothing is added and no listener is told when it was not.
    */
-  public void insertSnowRecord(SnowRecord data)
+  public boolean insertSnowRecord(SnowRecord data)
   {
-    try
-    {
-      FileWriter pw = new FileWriter(databaseLocation + FILENAME,true);
-      pw.write(data.toString() + "\n");
-      pw.close();
-    }
-    catch (IOException e)
+    synchronized (this)
     {
-      e.printStackTrace();
+      ensureLoaded();
+      try (FileWriter pw = new FileWriter(databaseLocation + FILENAME, true))
+      {
+        pw.write(data.toString() + "\n");
+      }
+      catch (IOException e)
+      {
+        logger.logData("SnowDatabase: insertSnowRecord: Unable to write " + data + ": " + e.getLocalizedMessage());
+        return false;
+      }
+      snowRecords.add(lowerBound(data.getYear(), data.getMonth(), data.getDay() + 1), data);
     }
 
     // Notify everybody that may be interested.
-    for (SnowDataListener nextListener : listeners)
+    for (SnowDataListener nextListener : getListeners())
       nextListener.dataAdded(data);
+    return true;
   }
 
   /**
-   * Method to modify a record.  The record is searched for based on the year/month/day values.  Once found, the new
-   * amount is written out.
+   * Method to modify a record.  The record is searched for based on the year/month/day and amount values.  Once
+   * found, the change is written to the journal.
    *
    * @param oldRecord The old record to modify.
    * @param newRecord The new record to modify.
    */
   public void modifyRecord(SnowRecord oldRecord, SnowRecord newRecord)
   {
-    File tempFile = new File(databaseLocation + TEMP_FILENAME);
-    File snowDBFile = new File(databaseLocation + FILENAME);
+    synchronized (this)
+    {
+      ensureLoaded();
+      if (!applyModify(oldRecord, newRecord))
+      {
+        logger.logData("SnowDatabase: modifyRecord: record not found: " + oldRecord);
+        return;
+      }
+      writeJournalEntry(MODIFY_ENTRY + "," + oldRecord + "," + newRecord);
+    }
 
-    try
+    for (SnowDataListener nextListener : getListeners())
+      nextListener.dataModified(oldRecord, newRecord);
+  }
+
+  /**
+   * Delete a record in the snow database. The record must match exactly.
+   *
+   * @param record The record to delete.
+   */
+  public void deleteRecord(SnowRecord record)
+  {
+    synchronized (this)
     {
-      // Open snow database file.
-      BufferedReader reader = new BufferedReader(new FileReader(databaseLocation + FILENAME));
+      ensureLoaded();
+      if (!applyDelete(record))
+      {
+        logger.logData("SnowDatabase: deleteRecord: record not found: " + record);
+        return;
+      }
+      writeJournalEntry(DELETE_ENTRY + "," + record);
+    }
+
+    for (SnowDataListener nextListener : getListeners())
+      nextListener.dataDeleted(record);
+  }
 
-      // Create and open temp file.
-      tempFile.createNewFile();
-      FileWriter writer = new FileWriter(databaseLocation + TEMP_FILENAME,true);
+  /**
+   * Internal method to get a copy of the listeners so they are notified outside of the lock.
+   *
+   * @return The listeners.
+   */
+  private synchronized List<SnowDataListener> getListeners()
+  {
+    return new ArrayList<>(listeners);
+  }
 
+  /**
+   * Internal method to read the CSV file and replay the journal.  If the journal has entries, the CSV file is
+   * rewritten with them applied and the journal is removed.
+   */
+  private void ensureLoaded()
+  {
+    if (loaded)
+      return;
+    loaded = true;
+
+    // A line that can not be read is left out of memory, but the CSV file is then never rewritten so it is not lost.
+    boolean readError = false;
+    endLastLine(new File(databaseLocation + FILENAME), false);
+    try (BufferedReader reader = new BufferedReader(new FileReader(databaseLocation + FILENAME)))
+    {
       String nextLine;
       while ((nextLine = reader.readLine()) != null)
       {
-        String[] splitValues = nextLine.split(",");
-        if (oldRecord.getYear() == Integer.valueOf(splitValues[YEAR_COLUMN]) &&
-          oldRecord.getMonth() == Integer.valueOf(splitValues[MONTH_COLUMN]) &&
-          oldRecord.getDay() == Integer.valueOf(splitValues[DAY_COLUMN]) &&
-          oldRecord.getAmount() == Float.valueOf(splitValues[AMOUNT_COLUMN]))
+        try
         {
-          writer.write(newRecord.toString() + "\n");
+          snowRecords.add(parseRecord(nextLine.split(","), 0));
         }
-        else
+        catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
         {
-          writer.write(nextLine + "\n");
+          logger.logData("SnowDatabase: Invalid snow data line: " + nextLine);
+          readError = true;
         }
       }
-      writer.close();
-      reader.close();
+    }
+    catch (FileNotFoundException e)
+    {
+      // No snow data yet.
+    }
+    catch (IOException e)
+    {
+      logger.logData("SnowDatabase: Unable to read snow data: " + e.getLocalizedMessage());
+      readError = true;
+    }
+    // The list sort is stable, so records on the same date stay in file order.
+    snowRecords.sort(DATE_ORDER);
+
+    File journalFile = new File(databaseLocation + JOURNAL_FILENAME);
+    if (!journalFile.exists())
+      return;
+    endLastLine(journalFile, true);
+
+    try (BufferedReader reader = new BufferedReader(new FileReader(journalFile)))
+    {
+      String nextLine;
+      while ((nextLine = reader.readLine()) != null)
+      {
+        String[] splitValues = nextLine.split(",");
+        if (MODIFY_ENTRY.equals(splitValues[0]) && splitValues.length >= 1 + NUMBER_OF_COLUMNS * 2)
+          applyModify(parseRecord(splitValues, 1), parseRecord(splitValues, 1 + NUMBER_OF_COLUMNS));
+        else if (DELETE_ENTRY.equals(splitValues[0]) && splitValues.length >= 1 + NUMBER_OF_COLUMNS)
+          applyDelete(parseRecord(splitValues, 1));
+      }
+    }
+    catch (IOException | NumberFormatException e)
+    {
+      logger.logData("SnowDatabase: Unable to read snow journal: " + e.getLocalizedMessage());
+      return;
+    }
+
+    if (!readError)
+      compact();
+  }
 
-      // Delete the original snow database file.
-      snowDBFile.delete();
+  /**
+   * Internal method to make sure the next append starts on a line of its own.  A last line without its line end that
+   * reads as a whole entry, such as one left by a hand edit, is ended.  One that does not, the partial entry of a
+   * crash, is cut off and logged so that it is never read as a whole one.
+   *
+   * @param file The CSV or journal file.
+   * @param journal Whether the file is the journal.
+   */
+  private void endLastLine(File file, boolean journal)
+  {
+    if (!file.exists())
+      return;
+
+    try (RandomAccessFile lastLineFile = new RandomAccessFile(file, "rw"))
+    {
+      long length = lastLineFile.length();
+      long end = length;
+      while (end > 0)
+      {
+        lastLineFile.seek(end - 1);
+        if (lastLineFile.read() == '\n')
+          break;
+        end--;
+      }
+      if (end == length)
+        return;
 
-      // Rename the temp file to the original filename
-      tempFile.renameTo(snowDBFile);
+      byte[] lastLine = new byte[(int)(length - end)];
+      lastLineFile.seek(end);
+      lastLineFile.readFully(lastLine);
+      String line = new String(lastLine).trim();
+      if (line.isEmpty() || isWholeEntry(line.split(","), journal))
+      {
+        lastLineFile.seek(length);
+        lastLineFile.write('\n');
+      }
+      else
+      {
+        logger.logData("SnowDatabase: Removed a partial last line from " + file.getName() + ": " + line);
+        lastLineFile.setLength(end);
+      }
     }
     catch (IOException e)
     {
-      e.printStackTrace();
+      logger.logData("SnowDatabase: Unable to check " + file.getName() + ": " + e.getLocalizedMessage());
     }
   }
 
   /**
-   * Delete a record in the snow database. The record must match exactly.
+   * Internal method to tell if a line reads as a whole CSV record or journal entry.
    *
-   * @param record The record to delete.
+   * @param values The split values.
+   * @param journal Whether the line is from the journal.
+   * @return Whether the line is read the same way the file is loaded.
    */
-  public void deleteRecord(SnowRecord record)
+  private static boolean isWholeEntry(String[] values, boolean journal)
+  {
+    try
+    {
+      if (!journal)
+      {
+        parseRecord(values, 0);
+        return true;
+      }
+
+      if (MODIFY_ENTRY.equals(values[0]) && values.length >= 1 + NUMBER_OF_COLUMNS * 2)
+      {
+        parseRecord(values, 1);
+        parseRecord(values, 1 + NUMBER_OF_COLUMNS);
+        return true;
+      }
+      if (DELETE_ENTRY.equals(values[0]) && values.length >= 1 + NUMBER_OF_COLUMNS)
+      {
+        parseRecord(values, 1);
+        return true;
+      }
+      return false;
+    }
+    catch (NumberFormatException | ArrayIndexOutOfBoundsException e)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Internal method to rewrite the CSV file from memory and remove the journal.  The file is written to a temporary
+   * file first and then moved into place.
+   */
+  private void compact()
   {
     File tempFile = new File(databaseLocation + TEMP_FILENAME);
-    File snowDBFile = new File(databaseLocation + FILENAME);
+    try (FileWriter writer = new FileWriter(tempFile))
+    {
+      for (SnowRecord nextRecord : snowRecords)
+        writer.write(nextRecord.toString() + "\n");
+    }
+    catch (IOException e)
+    {
+      e.printStackTrace();
+      return;
+    }
 
     try
     {
-      // Open snow database file.
-      BufferedReader reader = new BufferedReader(new FileReader(databaseLocation + FILENAME));
+      Files.move(tempFile.toPath(), Paths.get(databaseLocation + FILENAME), StandardCopyOption.REPLACE_EXISTING);
+      Files.deleteIfExists(Paths.get(databaseLocation + JOURNAL_FILENAME));
+    }
+    catch (IOException e)
+    {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Internal method to append an entry to the journal.
+   *
+   * @param entry The journal line.
+   */
+  private void writeJournalEntry(String entry)
+  {
+    try (FileWriter writer = new FileWriter(databaseLocation + JOURNAL_FILENAME, true))
+    {
+      writer.write(entry + "\n");
+    }
+    catch (IOException e)
+    {
+      e.printStackTrace();
+    }
+  }
 
-      // Create and open temp file.
-      tempFile.createNewFile();
-      FileWriter writer = new FileWriter(databaseLocation + TEMP_FILENAME,true);
+  /**
+   * Internal method to replace a record in memory, keeping the list sorted.
+   *
+   * @param oldRecord The record to replace.
+   * @param newRecord The new record.
+   * @return Whether or not the old record was found.
+   */
+  private boolean applyModify(SnowRecord oldRecord, SnowRecord newRecord)
+  {
+    int index = indexOf(oldRecord);
+    if (index < 0)
+      return false;
 
-      // Read all lines and write to temp file unless this is the line to delete.
-      String nextLine;
-      while ((nextLine = reader.readLine()) != null)
-      {
-        String[] splitValues = nextLine.split(",");
-        if (record.getYear() != Integer.valueOf(splitValues[YEAR_COLUMN]) ||
-          record.getMonth() != Integer.valueOf(splitValues[MONTH_COLUMN]) ||
-          record.getDay() != Integer.valueOf(splitValues[DAY_COLUMN]) ||
-          record.getAmount() != Float.valueOf(splitValues[AMOUNT_COLUMN]))
-        {
-          writer.write(nextLine + "\n");
-        }
-      }
-      writer.close();
-      reader.close();
+    if (DATE_ORDER.compare(oldRecord, newRecord) == 0)
+    {
+      snowRecords.set(index, newRecord);
+    }
+    else
+    {
+      snowRecords.remove(index);
+      snowRecords.add(lowerBound(newRecord.getYear(), newRecord.getMonth(), newRecord.getDay() + 1), newRecord);
+    }
+    return true;
+  }
 
-      // Delete the original snow database file.
-      snowDBFile.delete();
+  /**
+   * Internal method to remove a record from memory.
+   *
+   * @param record The record to remove.
+   * @return Whether or not the record was found.
+   */
+  private boolean applyDelete(SnowRecord record)
+  {
+    int index = indexOf(record);
+    if (index < 0)
+      return false;
+
+    snowRecords.remove(index);
+    return true;
+  }
 
-      // Rename the temp file to the original filename
-      tempFile.renameTo(snowDBFile);
+  /**
+   * Internal method to find a record that matches in date and amount.
+   *
+   * @param record The record to find.
+   * @return The index or -1 if not found.
+   */
+  private int indexOf(SnowRecord record)
+  {
+    for (int i = lowerBound(record.getYear(), record.getMonth(), record.getDay()); i < snowRecords.size(); i++)
+    {
+      SnowRecord nextRecord = snowRecords.get(i);
+      if (DATE_ORDER.compare(nextRecord, record) != 0)
+        break;
+      if (nextRecord.getAmount() == record.getAmount())
+        return i;
     }
-    catch (IOException ioe)
+    return -1;
+  }
+
+  /**
+   * Internal method to binary search for the first record on or after a date.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @param day The day, which may be past the end of the month.
+   * @return The index of the first record on or after the date.
+   */
+  private int lowerBound(int year, int month, int day)
+  {
+    int low = 0;
+    int high = snowRecords.size();
+    while (low < high)
     {
-      ioe.printStackTrace();
+      int mid = (low + high) >>> 1;
+      SnowRecord midRecord = snowRecords.get(mid);
+      int compare = Integer.compare(midRecord.getYear(), year);
+      if (compare == 0)
+        compare = Integer.compare(midRecord.getMonth(), month);
+      if (compare == 0)
+        compare = Integer.compare(midRecord.getDay(), day);
+
+      if (compare < 0)
+        low = mid + 1;
+      else
+        high = mid;
     }
+    return low;
+  }
+
+  /**
+   * Internal method to create a record from CSV values.
+   *
+   * @param values The split values.
+   * @param start The index of the year value.
+   * @return The record.
+   */
+  private static SnowRecord parseRecord(String[] values, int start)
+  {
+    SnowRecord record = new SnowRecord();
+    record.setYear(Integer.parseInt(values[start + YEAR_COLUMN].trim()));
+    record.setMonth(Integer.parseInt(values[start + MONTH_COLUMN].trim()));
+    record.setDay(Integer.parseInt(values[start + DAY_COLUMN].trim()));
+    record.setAmount(Float.parseFloat(values[start + AMOUNT_COLUMN].trim()));
+    return record;
   }
 }
@@ -0,0 +1,809 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class rebuilds the daily summary records from the weather
+            records.  During ingest the summary records are only updated a
+            record at a time, so edits to the weather records and days that
+            were filled in later leave them stale.  The months of a date range
+            are spread over a fork/join pool.  Each month file is read with one
+            read, checked, the summary records of the days in range computed
+            again in memory and the changed summary records written back with
+            one pass over the file.
+
+            The check compares the header record count and the day index with
+            the records actually in the file.  When the index does not match
+            the records it can be rebuilt from them as well.  A dry run only
+            reports what is wrong and what would change.
+
+            The station program updates the summary records of the current day
+            as the records arrive, so only rebuild the current month while the
+            station program is stopped.  The DatabaseWriter updates the day of
+            an edited record itself while holding its write lock, writing only
+            the summary fields the edit changes, so a summary field edited by
+            hand is kept.  A rebuild that writes removes the records index and
+            the climate normals files, which are made from the summary records,
+            so the station program builds them again.
+
+            Options: first [last] [-dir directory] [-threads n] [-dry-run]
+                     [-repair-index], the dates as yyyy, yyyy-mm or yyyy-mm-dd.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Note the rebuild of an edited day.
+            10/19/26  Write only the fields an edit changes, remove the stale indexes.
+*/
+package dbif;
+
+import data.dbrecord.DailySummary1Record;
+import data.dbrecord.DailySummary2Record;
+import util.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class SummaryRebuilder
+{
+  private static final int RECORD_SIZE = DatabaseCommon.RECORD_SIZE;
+  private static final int SUMMARY_BLOCK_SIZE = 2 * RECORD_SIZE;
+  private static final int DAY_INDEX_SIZE = 6;
+  private static final int TIME_1 = DailySummary1Record.TIME_HIGH_OUT_TEMP_OFFSET_1;
+  private static final int TIME_2 = RECORD_SIZE + DailySummary2Record.TIME_HIGH_SOLAR_OFFSET_1;
+  private static final int WIND_BINS = RECORD_SIZE + DailySummary2Record.N_OFFSET_1;
+  private static final String[] TIME_1_NAMES =
+    {"Time Hi Out Temp", "Time Low Out Temp", "Time Hi In Temp", "Time Low In Temp", "Time Hi Chill",
+     "Time Low Chill", "Time Hi Dew", "Time Low Dew", "Time Hi Out Humid", "Time Low Out Humid",
+     "Time Hi In Humid", "Time Low In Humid", "Time Hi Bar", "Time Low Bar", "Time Hi Wind Speed",
+     "Time Hi Avg Wind Speed", "Time Hi Rain Rate", "Time Hi UV"};
+  private static final String[] TIME_2_NAMES =
+    {"Time Hi Solar", "Time Hi Heat", "Time Low Heat", "Time Hi THSW", "Time Low THSW", "Time Hi THW",
+     "Time Low THW", "Time Hi Wet Bulb", "Time Low Wet Bulb"};
+  private static final String[] WIND_BIN_NAMES =
+    {"N", "NNE", "NE", "ENE", "E", "ESE", "SE", "SSE", "S", "SSW", "SW", "WSW", "W", "WNW", "NW", "NNW"};
+
+  // The two byte fields of the summary block, the offsets of summary record 2 following those of record 1.
+  private static final Object[][] SHORT_FIELDS =
+    {{"Data Span", DailySummary1Record.DATA_SPAN_OFFSET},
+     {"Hi Out Temp", DailySummary1Record.HI_OUT_TEMP_OFFSET},
+     {"Low Out Temp", DailySummary1Record.LOW_OUT_TEMP_OFFSET},
+     {"Hi In Temp", DailySummary1Record.HI_IN_TEMP_OFFSET},
+     {"Low In Temp", DailySummary1Record.LOW_IN_TEMP_OFFSET},
+     {"Avg Out Temp", DailySummary1Record.AVG_OUT_TEMP_OFFSET},
+     {"Avg In Temp", DailySummary1Record.AVG_IN_TEMP_OFFSET},
+     {"Hi Chill", DailySummary1Record.HI_CHILL_OFFSET},
+     {"Low Chill", DailySummary1Record.LOW_CHILL_OFFSET},
+     {"Hi Dew", DailySummary1Record.HI_DEW_OFFSET},
+     {"Low Dew", DailySummary1Record.LOW_DEW_OFFSET},
+     {"Avg Chill", DailySummary1Record.AVG_CHILL_OFFSET},
+     {"Avg Dew", DailySummary1Record.AVG_DEW_OFFSET},
+     {"Hi Out Humid", DailySummary1Record.HI_OUT_HUMID_OFFSET},
+     {"Low Out Humid", DailySummary1Record.LOW_OUT_HUMID_OFFSET},
+     {"Hi In Humid", DailySummary1Record.HI_IN_HUMID_OFFSET},
+     {"Low In Humid", DailySummary1Record.LOW_IN_HUMID_OFFSET},
+     {"Avg Out Humid", DailySummary1Record.AVG_OUT_HUMID_OFFSET},
+     {"Hi Bar", DailySummary1Record.HI_BAR_OFFSET},
+     {"Low Bar", DailySummary1Record.LOW_BAR_OFFSET},
+     {"Avg Bar", DailySummary1Record.AVG_BAR_OFFSET},
+     {"Hi Wind Speed", DailySummary1Record.HI_WIND_SPEED_OFFSET},
+     {"Avg Wind Speed", DailySummary1Record.AVG_WIND_SPEED_OFFSET},
+     {"Wind Run", DailySummary1Record.DAILY_WIND_RUN_TOTAL_OFFSET},
+     {"Rain Total", DailySummary1Record.DAILY_RAIN_TOTAL_OFFSET},
+     {"Hi Rain Rate", DailySummary1Record.HI_RAIN_RATE_OFFSET},
+     {"Wind Packets", RECORD_SIZE + DailySummary2Record.NUM_OF_WIND_PACKETS_OFFSET},
+     {"Hi Solar", RECORD_SIZE + DailySummary2Record.HI_SOLAR_OFFSET},
+     {"Solar Energy", RECORD_SIZE + DailySummary2Record.DAILY_SOLAR_ENERGY_OFFSET},
+     {"Min Sunlight", RECORD_SIZE + DailySummary2Record.MIN_SUNLIGHT_OFFSET},
+     {"ET Total", RECORD_SIZE + DailySummary2Record.DAILY_ET_TOTAL_OFFSET},
+     {"Hi Heat", RECORD_SIZE + DailySummary2Record.HI_HEAT_OFFSET},
+     {"Low Heat", RECORD_SIZE + DailySummary2Record.LOW_HEAT_OFFSET},
+     {"Avg Heat", RECORD_SIZE + DailySummary2Record.AVG_HEAT_OFFSET},
+     {"Hi THW", RECORD_SIZE + DailySummary2Record.HI_THW_OFFSET},
+     {"Low THW", RECORD_SIZE + DailySummary2Record.LOW_THW_OFFSET},
+     {"Heat DD", RECORD_SIZE + DailySummary2Record.HEAT_DD_OFFSET},
+     {"Hi Wet Bulb", RECORD_SIZE + DailySummary2Record.HI_WET_BULB_OFFSET},
+     {"Low Wet Bulb", RECORD_SIZE + DailySummary2Record.LOW_WET_BULB_OFFSET},
+     {"Avg Wet Bulb", RECORD_SIZE + DailySummary2Record.AVG_WET_BULB_OFFSET},
+     {"Cool DD", RECORD_SIZE + DailySummary2Record.COOL_DD_OFFSET}};
+
+  private final Logger logger = Logger.getInstance();
+  private final String directory;
+  private final boolean dryRun;
+  private final boolean repairIndex;
+
+  /**
+   * Constructor.
+   *
+   * @param directory The directory holding the database files, ending with a separator.
+   * @param dryRun Whether to only report the changes without writing them.
+   * @param repairIndex Whether to rebuild the header record count and day index when they do not match the records.
+   */
+  public SummaryRebuilder(String directory, boolean dryRun, boolean repairIndex)
+  {
+    this.directory = directory;
+    this.dryRun = dryRun;
+    this.repairIndex = repairIndex;
+  }
+
+  /**
+   * Method to rebuild the summary records of a date range.  Months without a database file are skipped.
+   *
+   * @param firstDay The first day to rebuild.
+   * @param lastDay The last day to rebuild.
+   * @param threads The number of threads.
+   * @return The report of each month, in date order.
+   */
+  public List<MonthReport> rebuild(LocalDate firstDay, LocalDate lastDay, int threads)
+  {
+    List<YearMonth> months = new ArrayList<>();
+    YearMonth lastMonth = YearMonth.from(lastDay);
+    for (YearMonth month = YearMonth.from(firstDay); !month.isAfter(lastMonth); month = month.plusMonths(1))
+    {
+      if (new File(directory + DatabaseCommon.getFilename(month.getYear(), month.getMonthValue())).exists())
+        months.add(month);
+    }
+    if (months.isEmpty())
+      return new ArrayList<>();
+
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+    try
+    {
+      return pool.invoke(new MonthTask(months, 0, months.size(), firstDay, lastDay));
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Method to update the summary records of one day after one of its weather records has been edited.  Only the
+   * summary fields the edit changes are written: the day is computed once with the record as it was and once as it
+   * is now, and the fields that differ between the two are copied in.  Every other field keeps what the summary
+   * records hold, so a summary field edited by hand is only replaced when the edit changes what it is made from.
+   *
+   * @param date The day.
+   * @param recordOffset The file offset of the edited weather record.
+   * @param originalRecord The weather record as it was before the edit.
+   */
+  public void rebuildEditedRecord(LocalDate date, int recordOffset, byte[] originalRecord)
+  {
+    YearMonth month = YearMonth.from(date);
+    Path path = Paths.get(directory + DatabaseCommon.getFilename(month.getYear(), month.getMonthValue()));
+    try
+    {
+      byte[] data = Files.readAllBytes(path);
+      MonthReport report = new MonthReport(month);
+      int[] dayStart = new int[32];
+      if (data.length >= DatabaseCommon.HEADER_BLOCK_SIZE)
+        checkIndex(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN), month, dayStart, report);
+      for (String problem : report.getProblems())
+        logger.logData("SummaryRebuilder: " + month + ": " + problem);
+
+      int day = date.getDayOfMonth();
+      if (data.length < DatabaseCommon.HEADER_BLOCK_SIZE || dayStart[day] < 0)
+        return;
+
+      int summary1 = getRecordOffset(dayStart[day]);
+      ByteBuffer edited = buildDay(data, summary1);
+      byte[] editedRecord = Arrays.copyOfRange(data, recordOffset, recordOffset + RECORD_SIZE);
+      System.arraycopy(originalRecord, 0, data, recordOffset, RECORD_SIZE);
+      ByteBuffer original = buildDay(data, summary1);
+      System.arraycopy(editedRecord, 0, data, recordOffset, RECORD_SIZE);
+      if (original == null || edited == null)
+        return;
+
+      ByteBuffer file = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+      if (!copyChangedFields(original, edited, file, summary1))
+        return;
+
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+      {
+        writeFully(channel, ByteBuffer.wrap(data, summary1, SUMMARY_BLOCK_SIZE), summary1);
+        channel.force(false);
+      }
+    }
+    catch (IOException e)
+    {
+      logger.logData("SummaryRebuilder: rebuildEditedRecord: Unable to update " + date + ": " +
+                     e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Method to check and rebuild the summary records of the days of one month that fall in a date range.
+   *
+   * @param month The month.
+   * @param firstDay The first day to rebuild.
+   * @param lastDay The last day to rebuild.
+   * @return The report of the month.
+   * @throws IOException The file could not be read or written.
+   */
+  public MonthReport rebuildMonth(YearMonth month, LocalDate firstDay, LocalDate lastDay) throws IOException
+  {
+    Path path = Paths.get(directory + DatabaseCommon.getFilename(month.getYear(), month.getMonthValue()));
+    byte[] data = Files.readAllBytes(path);
+    MonthReport report = new MonthReport(month);
+    if (data.length < DatabaseCommon.HEADER_BLOCK_SIZE)
+    {
+      report.problems.add("The file is shorter than the header.");
+      return report;
+    }
+
+    ByteBuffer file = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    int[] dayStart = new int[32];
+    boolean indexRepaired = checkIndex(file, month, dayStart, report);
+
+    // Compute each day in range over its own summary records, keeping the originals to compare.
+    List<Integer> changedBlocks = new ArrayList<>();
+    byte[] original = new byte[SUMMARY_BLOCK_SIZE];
+    for (int day = 1; day <= month.lengthOfMonth(); day++)
+    {
+      LocalDate date = month.atDay(day);
+      if (dayStart[day] < 0 || date.isBefore(firstDay) || date.isAfter(lastDay))
+        continue;
+
+      int summary1 = getRecordOffset(dayStart[day]);
+      DaySummaryBuilder builder = new DaySummaryBuilder();
+      for (int offset = summary1 + SUMMARY_BLOCK_SIZE;
+           offset + RECORD_SIZE <= data.length && data[offset] == ArchiveMonth.WEATHER_RECORD_TYPE;
+           offset += RECORD_SIZE)
+        builder.add(file, offset);
+      if (builder.isEmpty())
+        continue;
+
+      report.daysChecked++;
+      System.arraycopy(data, summary1, original, 0, SUMMARY_BLOCK_SIZE);
+      builder.write(file, summary1, summary1 + RECORD_SIZE);
+      if (!ByteBuffer.wrap(original).equals(ByteBuffer.wrap(data, summary1, SUMMARY_BLOCK_SIZE)))
+      {
+        changedBlocks.add(summary1);
+        compare(ByteBuffer.wrap(original).order(ByteOrder.LITTLE_ENDIAN), file, summary1, day, report);
+      }
+    }
+    report.daysChanged = changedBlocks.size();
+
+    if (dryRun || (changedBlocks.isEmpty() && !indexRepaired))
+      return report;
+
+    // The blocks are in file order, so the file is written front to back.
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+    {
+      if (indexRepaired)
+        writeFully(channel, ByteBuffer.wrap(data, 0, DatabaseCommon.HEADER_BLOCK_SIZE), 0);
+      for (int offset : changedBlocks)
+        writeFully(channel, ByteBuffer.wrap(data, offset, SUMMARY_BLOCK_SIZE), offset);
+      channel.force(false);
+    }
+    report.written = true;
+    return report;
+  }
+
+  /**
+   * Internal method to compute the summary records of a day from its weather records, starting from the summary
+   * records the file holds.
+   *
+   * @param data The month file bytes.
+   * @param summary1 The offset of the day's summary record 1.
+   * @return The two computed summary records, or null if the day has no weather records.
+   */
+  private static ByteBuffer buildDay(byte[] data, int summary1)
+  {
+    ByteBuffer file = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    DaySummaryBuilder builder = new DaySummaryBuilder();
+    for (int offset = summary1 + SUMMARY_BLOCK_SIZE;
+         offset + RECORD_SIZE <= data.length && data[offset] == ArchiveMonth.WEATHER_RECORD_TYPE;
+         offset += RECORD_SIZE)
+      builder.add(file, offset);
+    if (builder.isEmpty())
+      return null;
+
+    ByteBuffer block = ByteBuffer.wrap(Arrays.copyOfRange(data, summary1, summary1 + SUMMARY_BLOCK_SIZE))
+      .order(ByteOrder.LITTLE_ENDIAN);
+    builder.write(block, 0, RECORD_SIZE);
+    return block;
+  }
+
+  /**
+   * Internal method to copy the summary fields that differ between two computed summary blocks into the file.
+   *
+   * @param original The summary records computed before the edit.
+   * @param edited The summary records computed after the edit.
+   * @param file The month file.
+   * @param summary1 The offset of summary record 1 in the file.
+   * @return Whether any field was copied.
+   */
+  private static boolean copyChangedFields(ByteBuffer original, ByteBuffer edited, ByteBuffer file, int summary1)
+  {
+    boolean changed = false;
+    for (Object[] field : SHORT_FIELDS)
+    {
+      int offset = (Integer)field[1];
+      if (original.getShort(offset) != edited.getShort(offset))
+      {
+        file.putShort(summary1 + offset, edited.getShort(offset));
+        changed = true;
+      }
+    }
+    for (int offset : new int[] {DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET, DailySummary1Record.HI_UV_OFFSET})
+    {
+      if (original.get(offset) != edited.get(offset))
+      {
+        file.put(summary1 + offset, edited.get(offset));
+        changed = true;
+      }
+    }
+    changed |= copyChangedTimes(original, edited, file, summary1, TIME_1, TIME_1_NAMES.length);
+    changed |= copyChangedTimes(original, edited, file, summary1, TIME_2, TIME_2_NAMES.length);
+    changed |= copyChangedTimes(original, edited, file, summary1, WIND_BINS, WIND_BIN_NAMES.length);
+    return changed;
+  }
+
+  /**
+   * Internal method to copy the packed time values that differ between two computed summary blocks into the file.
+   *
+   * @param original The summary records computed before the edit.
+   * @param edited The summary records computed after the edit.
+   * @param file The month file.
+   * @param summary1 The offset of summary record 1 in the file.
+   * @param firstOffset The offset of the first time value within the summary block.
+   * @param count The number of time values.
+   * @return Whether any value was copied.
+   */
+  private static boolean copyChangedTimes(ByteBuffer original, ByteBuffer edited, ByteBuffer file, int summary1,
+                                          int firstOffset, int count)
+  {
+    boolean changed = false;
+    for (int i = 0; i < count; i++)
+    {
+      int time = DaySummaryBuilder.getTime(edited, firstOffset, i);
+      if (DaySummaryBuilder.getTime(original, firstOffset, i) != time)
+      {
+        DaySummaryBuilder.putTime(file, summary1 + firstOffset, i, time);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Internal method to check the header record count and the day index against the records.  The records are
+   * walked in order, each summary record 1 starting a day.  The days of the index are matched with the walked days
+   * in order when there are as many of each, otherwise by the start record.
+   *
+   * @param file The month file.
+   * @param month The month.
+   * @param dayStart Set to the start record of each day that can be rebuilt, or -1.
+   * @param report The report to add the problems to.
+   * @return Whether the index was repaired in the file bytes.
+   */
+  private boolean checkIndex(ByteBuffer file, YearMonth month, int[] dayStart, MonthReport report)
+  {
+    int length = file.capacity();
+    int recordsPresent = (length - DatabaseCommon.HEADER_BLOCK_SIZE) / RECORD_SIZE;
+    if ((length - DatabaseCommon.HEADER_BLOCK_SIZE) % RECORD_SIZE != 0)
+      report.problems.add("The file ends with a partial record.");
+
+    int totalRecords = file.getInt(DatabaseCommon.TOTAL_RECORDS_OFFSET);
+    if (totalRecords != recordsPresent)
+      report.problems.add("The header holds " + totalRecords + " records, the file holds " + recordsPresent + ".");
+
+    // Walk the records.
+    List<int[]> blocks = new ArrayList<>();
+    int[] block = null;
+    for (int record = 0; record < recordsPresent; record++)
+    {
+      int type = file.get(getRecordOffset(record));
+      if (type == ArchiveMonth.SUMMARY_1_RECORD_TYPE)
+      {
+        block = new int[] {record, 1};
+        blocks.add(block);
+        if (record + 1 >= recordsPresent || file.get(getRecordOffset(record + 1)) != ArchiveMonth.SUMMARY_2_RECORD_TYPE)
+          report.problems.add("Summary record 1 at record " + record + " is not followed by summary record 2.");
+      }
+      else if (block == null)
+      {
+        report.problems.add("Record " + record + " is before the first summary record 1.");
+      }
+      else
+      {
+        if (type != ArchiveMonth.WEATHER_RECORD_TYPE && type != ArchiveMonth.SUMMARY_2_RECORD_TYPE)
+          report.problems.add("Record " + record + " has an unknown type " + type + ".");
+        block[1]++;
+      }
+    }
+
+    // Read the index.
+    List<Integer> indexDays = new ArrayList<>();
+    int[] indexCount = new int[32];
+    int[] indexStart = new int[32];
+    for (int day = 1; day < 32; day++)
+    {
+      int offset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + day * DAY_INDEX_SIZE;
+      indexCount[day] = file.getShort(offset) & 0xFFFF;
+      indexStart[day] = file.getInt(offset + 2);
+      if (indexCount[day] != 0)
+      {
+        if (day > month.lengthOfMonth())
+          report.problems.add("The index has records for day " + day + ".");
+        else
+          indexDays.add(day);
+      }
+    }
+
+    Arrays.fill(dayStart, -1);
+    boolean matched = indexDays.size() == blocks.size();
+    if (!matched)
+      report.problems.add("The index has " + indexDays.size() + " days, the file has " + blocks.size() + ".");
+
+    boolean indexGood = matched && totalRecords == recordsPresent;
+    for (int i = 0; i < indexDays.size(); i++)
+    {
+      int day = indexDays.get(i);
+      int[] dayBlock = matched ? blocks.get(i) : findBlock(blocks, indexStart[day]);
+      if (dayBlock == null)
+      {
+        report.problems.add("Day " + day + " starts at record " + indexStart[day] +
+                            ", which is not a summary record 1.");
+        continue;
+      }
+
+      dayStart[day] = dayBlock[0];
+      if (indexStart[day] != dayBlock[0])
+        report.problems.add("Day " + day + " starts at record " + indexStart[day] + ", the records start at " +
+                            dayBlock[0] + ".");
+      if (indexCount[day] != dayBlock[1])
+        report.problems.add("Day " + day + " has " + indexCount[day] + " records, the file has " + dayBlock[1] + ".");
+      indexGood &= indexStart[day] == dayBlock[0] && indexCount[day] == dayBlock[1];
+    }
+
+    if (indexGood || !repairIndex)
+      return false;
+    if (!matched)
+    {
+      report.problems.add("The index cannot be repaired, the days of the records are not known.");
+      return false;
+    }
+
+    file.putInt(DatabaseCommon.TOTAL_RECORDS_OFFSET, recordsPresent);
+    for (int i = 0; i < indexDays.size(); i++)
+    {
+      int offset = DatabaseCommon.DAY_INDEX_RECORD_OFFSET + indexDays.get(i) * DAY_INDEX_SIZE;
+      file.putShort(offset, (short)blocks.get(i)[1]);
+      file.putInt(offset + 2, blocks.get(i)[0]);
+    }
+    report.indexRepaired = true;
+    return true;
+  }
+
+  /**
+   * Internal method to find the walked day that starts at a record.
+   *
+   * @param blocks The start record and record count of each walked day.
+   * @param start The start record.
+   * @return The day, or null if no day starts there.
+   */
+  private static int[] findBlock(List<int[]> blocks, int start)
+  {
+    for (int[] block : blocks)
+    {
+      if (block[0] == start)
+        return block;
+    }
+    return null;
+  }
+
+  /**
+   * Internal method to add the fields of a day's summary records that changed to the report.
+   *
+   * @param original The original summary records.
+   * @param file The month file holding the rebuilt summary records.
+   * @param summary1 The offset of summary record 1 in the file.
+   * @param day The day of month.
+   * @param report The report.
+   */
+  private static void compare(ByteBuffer original, ByteBuffer file, int summary1, int day, MonthReport report)
+  {
+    for (Object[] field : SHORT_FIELDS)
+    {
+      int offset = (Integer)field[1];
+      addDifference(report, day, (String)field[0], original.getShort(offset), file.getShort(summary1 + offset));
+    }
+    addDifference(report, day, "Dir Hi Wind Speed", original.get(DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET) & 0xFF,
+                  file.get(summary1 + DailySummary1Record.DIR_HI_WIND_SPEED_OFFSET) & 0xFF);
+    addDifference(report, day, "Hi UV", original.get(DailySummary1Record.HI_UV_OFFSET) & 0xFF,
+                  file.get(summary1 + DailySummary1Record.HI_UV_OFFSET) & 0xFF);
+    for (int i = 0; i < TIME_1_NAMES.length; i++)
+      addDifference(report, day, TIME_1_NAMES[i], DaySummaryBuilder.getTime(original, TIME_1, i),
+                    DaySummaryBuilder.getTime(file, summary1 + TIME_1, i));
+    for (int i = 0; i < TIME_2_NAMES.length; i++)
+      addDifference(report, day, TIME_2_NAMES[i], DaySummaryBuilder.getTime(original, TIME_2, i),
+                    DaySummaryBuilder.getTime(file, summary1 + TIME_2, i));
+    for (int i = 0; i < WIND_BIN_NAMES.length; i++)
+      addDifference(report, day, "Minutes " + WIND_BIN_NAMES[i], DaySummaryBuilder.getTime(original, WIND_BINS, i),
+                    DaySummaryBuilder.getTime(file, summary1 + WIND_BINS, i));
+  }
+
+  /**
+   * Internal method to add a field to the report if it changed.
+   *
+   * @param report The report.
+   * @param day The day of month.
+   * @param name The field name.
+   * @param before The original value.
+   * @param after The rebuilt value.
+   */
+  private static void addDifference(MonthReport report, int day, String name, int before, int after)
+  {
+    if (before != after)
+      report.differences.add("Day " + day + " " + name + ": " + before + " -> " + after);
+  }
+
+  /**
+   * Internal method to get the file offset of a record.
+   *
+   * @param record The record number.
+   * @return The offset.
+   */
+  private static int getRecordOffset(int record)
+  {
+    return DatabaseCommon.HEADER_BLOCK_SIZE + record * RECORD_SIZE;
+  }
+
+  /**
+   * Internal method to write a buffer at a position of a file.
+   *
+   * @param channel The file.
+   * @param buffer The bytes to write.
+   * @param position The file position.
+   * @throws IOException The write failed.
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+  {
+    while (buffer.hasRemaining())
+      position += channel.write(buffer, position);
+  }
+
+  /**
+   * What was found and changed in one month.
+   */
+  public static class MonthReport
+  {
+    private final YearMonth month;
+    private final List<String> problems = new ArrayList<>();
+    private final List<String> differences = new ArrayList<>();
+    private int daysChecked;
+    private int daysChanged;
+    private boolean indexRepaired;
+    private boolean written;
+
+    private MonthReport(YearMonth month)
+    {
+      this.month = month;
+    }
+
+    public YearMonth getMonth()
+    {
+      return month;
+    }
+
+    public List<String> getProblems()
+    {
+      return problems;
+    }
+
+    public List<String> getDifferences()
+    {
+      return differences;
+    }
+
+    public int getDaysChecked()
+    {
+      return daysChecked;
+    }
+
+    public int getDaysChanged()
+    {
+      return daysChanged;
+    }
+
+    public boolean isIndexRepaired()
+    {
+      return indexRepaired;
+    }
+
+    public boolean isWritten()
+    {
+      return written;
+    }
+  }
+
+  /**
+   * The task that splits the months in half until there is one month left to rebuild.
+   */
+  @SuppressWarnings("serial")
+  private class MonthTask extends RecursiveTask<List<MonthReport>>
+  {
+    private final List<YearMonth> months;
+    private final int first;
+    private final int last;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+
+    private MonthTask(List<YearMonth> months, int first, int last, LocalDate firstDay, LocalDate lastDay)
+    {
+      this.months = months;
+      this.first = first;
+      this.last = last;
+      this.firstDay = firstDay;
+      this.lastDay = lastDay;
+    }
+
+    @Override
+    protected List<MonthReport> compute()
+    {
+      if (last - first > 1)
+      {
+        int middle = (first + last) / 2;
+        MonthTask firstHalf = new MonthTask(months, first, middle, firstDay, lastDay);
+        firstHalf.fork();
+        List<MonthReport> secondHalf = new MonthTask(months, middle, last, firstDay, lastDay).compute();
+        List<MonthReport> reports = firstHalf.join();
+        reports.addAll(secondHalf);
+        return reports;
+      }
+
+      List<MonthReport> reports = new ArrayList<>();
+      YearMonth month = months.get(first);
+      try
+      {
+        reports.add(rebuildMonth(month, firstDay, lastDay));
+      }
+      catch (IOException e)
+      {
+        MonthReport report = new MonthReport(month);
+        report.problems.add("Unable to rebuild: " + e.getLocalizedMessage());
+        reports.add(report);
+      }
+      return reports;
+    }
+  }
+
+  /**
+   * Internal method to parse a date given as yyyy, yyyy-mm or yyyy-mm-dd.
+   *
+   * @param text The date.
+   * @param end Whether to return the last day of a year or month instead of the first.
+   * @return The date.
+   */
+  private static LocalDate parseDate(String text, boolean end)
+  {
+    if (text.length() == 4)
+    {
+      LocalDate first = LocalDate.of(Integer.parseInt(text), 1, 1);
+      return end ? first.withDayOfYear(first.lengthOfYear()) : first;
+    }
+    if (text.length() == 7)
+    {
+      YearMonth month = YearMonth.parse(text);
+      return end ? month.atEndOfMonth() : month.atDay(1);
+    }
+    return LocalDate.parse(text);
+  }
+
+  /**
+   * Check and rebuild the summary records of a date range.
+   *
+   * @param args The first date, the optional last date and the options.
+   */
+  public static void main(String[] args)
+  {
+    String usage = "Usage: SummaryRebuilder first [last] [-dir directory] [-threads n] [-dry-run] [-repair-index]" +
+      "\n  The dates are yyyy, yyyy-mm or yyyy-mm-dd.";
+    String directory = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean dryRun = false;
+    boolean repairIndex = false;
+    List<String> dates = new ArrayList<>();
+    LocalDate firstDay;
+    LocalDate lastDay;
+    try
+    {
+      for (int i = 0; i < args.length; i++)
+      {
+        switch (args[i])
+        {
+          case "-dir":
+            directory = args[++i];
+            break;
+          case "-threads":
+            threads = Integer.parseInt(args[++i]);
+            break;
+          case "-dry-run":
+            dryRun = true;
+            break;
+          case "-repair-index":
+            repairIndex = true;
+            break;
+          default:
+            if (args[i].startsWith("-"))
+              throw new IllegalArgumentException(args[i]);
+            dates.add(args[i]);
+        }
+      }
+      if (dates.isEmpty() || dates.size() > 2)
+        throw new IllegalArgumentException("dates");
+      firstDay = parseDate(dates.get(0), false);
+      lastDay = parseDate(dates.get(dates.size() - 1), true);
+    }
+    catch (RuntimeException e)
+    {
+      System.out.println(usage);
+      return;
+    }
+
+    if (directory == null)
+      directory = DatabaseCommon.getDirectory();
+    else if (!directory.endsWith(File.separator))
+      directory += File.separator;
+
+    long start = System.nanoTime();
+    SummaryRebuilder rebuilder = new SummaryRebuilder(directory, dryRun, repairIndex);
+    List<MonthReport> reports = rebuilder.rebuild(firstDay, lastDay, threads);
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    int daysChanged = 0;
+    boolean written = false;
+    for (MonthReport report : reports)
+    {
+      written |= report.isWritten();
+      System.out.println(report.getMonth() + ": " + report.getDaysChecked() + " days checked, " +
+                         report.getDaysChanged() + " days " + (report.isWritten() ? "rebuilt" : "differ") +
+                         (report.isIndexRepaired() ? ", index " + (report.isWritten() ? "repaired" : "differs") : "") +
+                         ".");
+      for (String problem : report.getProblems())
+        System.out.println("  " + problem);
+      if (dryRun)
+      {
+        for (String difference : report.getDifferences())
+          System.out.println("  " + difference);
+      }
+      daysChanged += report.getDaysChanged();
+    }
+    System.out.println(reports.size() + " months, " + daysChanged + " days " + (dryRun ? "differ" : "rebuilt") +
+                       " in " + millis + " ms using " + threads + " threads.");
+
+    // The records index and the climate normals are made from the summary records.  They are removed so the
+    // station program builds them again from the repaired archive when it next loads them.
+    if (written)
+    {
+      try
+      {
+        RecordsIndex.deleteIndexFile(directory);
+        ClimateNormals.deleteTableFile(directory);
+        System.out.println("The records index and the climate normals will be built again.");
+      }
+      catch (IOException e)
+      {
+        System.out.println("Unable to remove the records index or the climate normals: " + e.getLocalizedMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is the solar radiation rollup index.  For each day it
+            holds the minutes of solar radiation in 10 W/m2 buckets, so the
+            hours of sunshine above any threshold for any date range are
+            answered without reading the 5 minute records.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Pass the record time so a record is not counted twice while loading.
+*/
+package dbif;
+
+import data.consolerecord.DmpData;
+import data.dbrecord.WeatherRecord;
+import util.ConfigProperties;
+
+import java.time.LocalDate;
+
+public class SunshineIndex extends DailyHistogramIndex
+{
+  public static final int BUCKET_WIDTH = 10; // W/m2
+  private static final int NUMBER_OF_BUCKETS = 180; // The last bucket holds everything at or above 1790 W/m2.
+  private static final int NO_SENSOR_VALUE = 0x7FFF;
+  private static final String INDEX_FILENAME = "solar.idx";
+  private static final ConfigProperties PROPS = ConfigProperties.instance();
+
+  private static class SingletonHelper
+  {
+    private static final SunshineIndex INSTANCE = new SunshineIndex();
+  }
+
+  public static SunshineIndex getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private SunshineIndex() { }
+
+  @Override
+  protected String getIndexFilename()
+  {
+    return INDEX_FILENAME;
+  }
+
+  @Override
+  protected int getNumberOfBins()
+  {
+    return NUMBER_OF_BUCKETS;
+  }
+
+  @Override
+  protected int getBin(ArchiveMonth archiveMonth, int recordOffset)
+  {
+    return getBucket(archiveMonth.getShort(recordOffset, WeatherRecord.SOLAR_RAD_OFFSET));
+  }
+
+  /**
+   * Internal method to get the bucket for a solar radiation value.
+   *
+   * @param solarRadiation The solar radiation in W/m2.
+   * @return The bucket or -1 if there is no sensor value.
+   */
+  private static int getBucket(int solarRadiation)
+  {
+    if (solarRadiation < 0 || solarRadiation == NO_SENSOR_VALUE)
+      return -1;
+    return Math.min(solarRadiation / BUCKET_WIDTH, NUMBER_OF_BUCKETS - 1);
+  }
+
+  /**
+   * Method called by the database writer as each new archive record is written.
+   *
+   * @param data The DMP data just written.
+   */
+  public void addRecord(DmpData data)
+  {
+    addMinutes(data.getDateStamp(), data.getTimeStamp(), getBucket(data.getSolarRadiation()),
+               PROPS.getArchiveInterval());
+  }
+
+  /**
+   * Method to get the hours of sunshine for a day at several thresholds in one pass.  A threshold is resolved to
+   * the bucket that contains it, so thresholds are exact when they are a multiple of the bucket width.
+   *
+   * @param date The date.
+   * @param thresholds The thresholds in W/m2, at or above which is considered sunny.
+   * @return The hours of sunshine for each threshold or null if there is no data for the day.
+   */
+  public float[] getHoursOfSunshine(LocalDate date, int[] thresholds)
+  {
+    short[] histogram = getDayHistogram(date);
+    if (histogram == null)
+      return null;
+
+    // Running total of minutes at or above each bucket, from the top down.
+    int[] minutesAbove = new int[histogram.length + 1];
+    for (int bucket = histogram.length - 1; bucket >= 0; bucket--)
+      minutesAbove[bucket] = minutesAbove[bucket + 1] + histogram[bucket];
+
+    float[] hours = new float[thresholds.length];
+    for (int i = 0; i < thresholds.length; i++)
+    {
+      int bucket = Math.min(Math.max(0, thresholds[i]) / BUCKET_WIDTH, NUMBER_OF_BUCKETS - 1);
+      if (bucket < minutesAbove.length)
+        hours[i] = minutesAbove[bucket] / 60.0f;
+    }
+    return hours;
+  }
+}
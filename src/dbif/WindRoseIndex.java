@@ -0,0 +1,120 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is the wind rollup index.  For each day it holds the
+            minutes the wind blew from each of the 16 directions at each of
+            the wind rose speed levels, plus the calm minutes.  A wind rose of
+            any length is then a sum of daily histograms.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Pass the record time so a record is not counted twice while loading.
+*/
+package dbif;
+
+import data.consolerecord.DmpData;
+import data.dbrecord.WeatherRecord;
+import gui.windrose.WindSpeedLevel;
+import util.ConfigProperties;
+
+import java.time.LocalDate;
+
+public class WindRoseIndex extends DailyHistogramIndex
+{
+  public static final int NUMBER_OF_DIRECTIONS = 16;
+  public static final int CALM_BIN = 0;
+  private static final int NUMBER_OF_BINS = NUMBER_OF_DIRECTIONS * WindSpeedLevel.numOfLevels + 1;
+  private static final String INDEX_FILENAME = "wind.idx";
+  private static final ConfigProperties PROPS = ConfigProperties.instance();
+
+  private static class SingletonHelper
+  {
+    private static final WindRoseIndex INSTANCE = new WindRoseIndex();
+  }
+
+  public static WindRoseIndex getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private WindRoseIndex() { }
+
+  @Override
+  protected String getIndexFilename()
+  {
+    return INDEX_FILENAME;
+  }
+
+  @Override
+  protected int getNumberOfBins()
+  {
+    return NUMBER_OF_BINS;
+  }
+
+  @Override
+  protected int getBin(ArchiveMonth archiveMonth, int recordOffset)
+  {
+    return getWindBin(archiveMonth.getShort(recordOffset, WeatherRecord.WIND_SPEED_OFFSET) / 10.0f,
+                      archiveMonth.getByte(recordOffset, WeatherRecord.WIND_DIR_OFFSET));
+  }
+
+  /**
+   * Method to get the bin of a direction and speed level.
+   *
+   * @param direction The wind direction, 0 - 15.
+   * @param level The wind speed level.
+   * @return The bin number.
+   */
+  public static int getBin(int direction, int level)
+  {
+    return 1 + direction * WindSpeedLevel.numOfLevels + level;
+  }
+
+  /**
+   * Internal method to get the bin for a wind speed and direction.  Calm wind has no direction.
+   *
+   * @param windSpeed The average wind speed in MPH.
+   * @param windDirection The prevailing wind direction.
+   * @return The bin or -1 if there is no valid reading.
+   */
+  private static int getWindBin(float windSpeed, byte windDirection)
+  {
+    if (windSpeed < 0.0)
+      return -1;
+    if (windSpeed == 0.0)
+      return CALM_BIN;
+    if (windDirection < 0 || windDirection >= NUMBER_OF_DIRECTIONS)
+      return -1;
+    return getBin(windDirection, WindSpeedLevel.getWindSpeedLevel(windSpeed).value());
+  }
+
+  /**
+   * Method called by the database writer as each new archive record is written.
+   *
+   * @param data The DMP data just written.
+   */
+  public void addRecord(DmpData data)
+  {
+    addMinutes(data.getDateStamp(), data.getTimeStamp(),
+               getWindBin(data.getAverageWindSpeed(), data.getPrevailingWindDir()), PROPS.getArchiveInterval());
+  }
+
+  /**
+   * Method to get the minutes in each bin summed over a range of dates.
+   *
+   * @param startDate The first date, inclusive.
+   * @param endDate The last date, inclusive.
+   * @return The minutes in each bin, indexed by bin number.
+   */
+  public long[] getMinutes(LocalDate startDate, LocalDate endDate)
+  {
+    long[] totals = new long[NUMBER_OF_BINS];
+    sumRange(startDate, endDate, totals);
+    return totals;
+  }
+}
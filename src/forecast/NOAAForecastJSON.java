@@ -12,10 +12,14 @@
 
   Mods:		  09/01/21  Initial Release.
             10/11/21  Changed hourly data to tabular format.
+            10/19/26  Record the fetch times and failures.
 */
 package forecast;
 
 import data.dbrecord.WindDirection;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -30,6 +34,8 @@ import java.util.Scanner;
 public class NOAAForecastJSON
 {
   private final Logger logger = Logger.getInstance();
+  private final LatencyHistogram fetchLatency = MetricsRegistry.getInstance().histogram("forecast.fetch");
+  private final Counter fetchFailures = MetricsRegistry.getInstance().counter("forecast.failures");
   private DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
 
   // The severity of NOAA alerts.
@@ -53,6 +59,7 @@ public class NOAAForecastJSON
     StringBuilder jsonString = new StringBuilder();
     for (int trys = 0; trys < 3; trys++)
     {
+      long start = System.nanoTime();
       try
       {
         URL url = new URL(urlString);
@@ -62,10 +69,12 @@ public class NOAAForecastJSON
         while (scan.hasNext())
           jsonString.append(scan.nextLine());
         scan.close();
+        fetchLatency.recordSince(start);
         return jsonString.toString();
       }
       catch (IOException ioe)
       {
+        fetchFailures.increment();
         logger.logData("Unable to get NOAA Forecast, try # " + trys + ioe.getMessage());
       }
     }
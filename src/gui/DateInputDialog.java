@@ -12,6 +12,7 @@
 
   Mods:		  09/01/21  Initial Release.
             10/18/21  Added Summary 1 & 2 data tables.
+            10/19/26  Added the number of months.
 */
 package gui;
 
@@ -29,6 +30,7 @@ class DateInputDialog extends JDialog implements ActionListener
 
   private final JTextField monthField = new JTextField();
   private final JTextField yearField = new JTextField();
+  private final JTextField monthsField = new JTextField();
 
   private final MainWindow parent;
   private String dataType;
@@ -44,16 +46,20 @@ class DateInputDialog extends JDialog implements ActionListener
 
     JLabel monthLabel = new JLabel("Month:  ", JLabel.CENTER);
     JLabel yearLabel  = new JLabel("Year:  ", JLabel.CENTER);
+    JLabel monthsLabel = new JLabel("Months:  ", JLabel.CENTER);
 
     monthField.setText(Integer.toString(LocalDate.now().getMonthValue()));
     yearField.setText(Year.now().toString());
+    monthsField.setText("1");
 
     JPanel inputPanel = new JPanel();
-    inputPanel.setLayout(new GridLayout(2, 2));
+    inputPanel.setLayout(new GridLayout(3, 2));
     inputPanel.add(monthLabel);
     inputPanel.add(monthField);
     inputPanel.add(yearLabel);
     inputPanel.add(yearField);
+    inputPanel.add(monthsLabel);
+    inputPanel.add(monthsField);
     this.getContentPane().add(inputPanel);
 
     JPanel buttonPanel = new JPanel();
@@ -72,7 +78,7 @@ class DateInputDialog extends JDialog implements ActionListener
     Font myFont = new Font("MyFont", Font.PLAIN, 12);
     this.setFont(myFont);
 
-    setSize(300, 160);
+    setSize(300, 190);
     setVisible(true);
   }
 
@@ -116,6 +122,23 @@ class DateInputDialog extends JDialog implements ActionListener
       return Integer.valueOf(yearField.getText());
   }
 
+  /**
+   * Method to get the number of months to display, starting at the month and year entered.
+   *
+   * @return The number of months, at least one.
+   */
+  public int getNumberOfMonths()
+  {
+    try
+    {
+      return Math.max(1, Integer.parseInt(monthsField.getText().trim()));
+    }
+    catch (NumberFormatException e)
+    {
+      return 1;
+    }
+  }
+
   public String getDataType()
   {
     return dataType;
@@ -18,10 +18,29 @@
             10/11/21  Changed hourly forecast data to table.
             10/13/21  Added Wind Rose plot.
             10/18/21  Added Summary 1 & 2 data tables.
+            10/19/26  Added month spans to the data tables.
+            10/19/26  Show the window first and start the subsystems in stages.
+            10/19/26  Start the web API.
+            10/19/26  Register the current readings and stream data as console data
+                      listeners.
+            10/19/26  Bring the cold storage up to date.
+            10/19/26  Bring the climate normals up to date.
+            10/19/26  Load the records index.
+            10/19/26  Load the rollup indexes in the background.
+            10/19/26  Use a database reader of its own.
+            10/19/26  Build the hours of sunshine report on a worker.
 */
 package gui;
 
+import data.dbrecord.WindBins;
+import dbif.ClimateNormals;
+import dbif.ColdStorage;
+import dbif.DatabaseCommon;
 import dbif.DatabaseReader;
+import dbif.RecordsIndex;
+import dbif.SunshineIndex;
+import dbif.WindRoseIndex;
+import forecast.NOAAForecastJSON;
 import gui.currentreadings.CurrentReadings;
 import gui.graph.*;
 import gui.rain.RainDataThread;
@@ -38,6 +57,8 @@ import gui.windrose.WindRosePlot;
 import serialdriver.*;
 import util.ConfigProperties;
 import util.Logger;
+import util.StartupStages;
+import webapi.WebApiServer;
 
 import javax.swing.*;
 import java.awt.*;
@@ -160,12 +181,12 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
   private MinMaxInterval minMaxInterval = MinMaxInterval.hourly;
   private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
   private final CurrentReadings currentReadings;
-  private final CommandControl commandControl;
+  private volatile CommandControl commandControl = null;
   private GraphWindow graphWindow = null;
   private StreamWindow streamWindow = null;
   private SnowGraphWindow snowGraphWindow = null;
   private RainGraphWindow rainGraphWindow = null;
-  private final DatabaseReader databaseReader = DatabaseReader.getInstance();
+  private final DatabaseReader databaseReader = new DatabaseReader();
   private final RainDataThread rainDataThread = RainDataThread.getInstance();
   private final CurrentDataTimer currentDataTimer = CurrentDataTimer.getInstance();
   private final HistoricDataTimer historicDataTimer = HistoricDataTimer.getInstance();
@@ -176,15 +197,17 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
 
   /**
    * This constructor sets up and displays the main window.  The first display within
-   * the main window is the current settings.
+   * the main window is the current settings.  The window is shown first and the subsystems
+   * behind it are started afterwards.
+   *
+   * @param startTime The time the program started, from System.nanoTime().
    */
-  public MainWindow()
+  public MainWindow(long startTime)
   {
     logger.logData("System Started...");
 
     // Create the objects.
     currentReadings = new CurrentReadings(minMaxInterval, this);
-    commandControl = new CommandControl(this, currentReadings);
 
     this.setTitle("Bill's Weather Station");
 
@@ -443,21 +466,77 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
     // Draw the current readings window.
     this.getContentPane().add(currentReadings);
 
-    // Get current readings.
-    consoleCmdQueue.getCurrentData();
-
-    // Get the HiLow readings.
-    consoleCmdQueue.getHiLowData();
-
-    // Start the background thread to loop, getting current data.
-    currentDataTimer.startTimer();
-    historicDataTimer.startTimer();
-    hiLowDataTimer.startTimer();
-
     // Realize the window.
     this.addWindowListener(this);
     this.setSize(new Dimension(PROPS.getWindowWidth(), PROPS.getWindowHeight()));
     this.setVisible(true);
+    logger.logData("Startup: Window shown after " + (System.nanoTime() - startTime) / 1000000 + " ms.");
+
+    startSubsystems(startTime);
+  }
+
+  /**
+   * Internal method to start the subsystems behind the window.  The database, stream data and forecast are started
+   * at the same time.  The console communications wait for the database and stream data, which they use.  The
+   * graph, report and table windows are not created until they are selected.
+   *
+   * @param startTime The time the program started, from System.nanoTime().
+   */
+  private void startSubsystems(long startTime)
+  {
+    StartupStages startup = new StartupStages(startTime, 3);
+
+    startup.addStage("Storage", () ->
+    {
+      DatabaseCommon.getInstance();
+      currentReadings.setWindBins(WindBins.getInstance());
+    });
+
+    startup.addStage("Forecast", () ->
+    {
+      NOAAForecastJSON.Severity severity = new NOAAForecastJSON().getSeverity();
+      SwingUtilities.invokeLater(() -> currentReadings.setAlertButtonSeverity(severity));
+    });
+
+    startup.addStage("Stream", StreamDataThread::getInstance, "Storage");
+
+    startup.addStage("Web", () -> WebApiServer.getInstance().start(), "Storage");
+
+    startup.addStage("Rollups", () ->
+    {
+      SunshineIndex.getInstance().loadInBackground();
+      WindRoseIndex.getInstance().loadInBackground();
+    }, "Storage");
+
+    startup.addStage("Cold", () -> ColdStorage.getInstance().refreshInBackground(), "Storage");
+
+    startup.addStage("Normals", () -> ClimateNormals.getInstance().updateInBackground(), "Storage");
+
+    startup.addStage("Records", () -> RecordsIndex.getInstance().loadInBackground(), "Storage");
+
+    startup.addStage("Serial", () ->
+    {
+      CommandControl control = new CommandControl(this);
+      control.addListener(currentReadings);
+      control.addListener(StreamDataThread.getInstance());
+      commandControl = control;
+    }, "Storage", "Stream");
+
+    startup.addGuiStage("Timers", () ->
+    {
+      // Get current readings.
+      consoleCmdQueue.getCurrentData();
+
+      // Get the HiLow readings.
+      consoleCmdQueue.getHiLowData();
+
+      // Start the background thread to loop, getting current data.
+      currentDataTimer.startTimer();
+      historicDataTimer.startTimer();
+      hiLowDataTimer.startTimer();
+    }, "Serial");
+
+    startup.finish();
   }
 
   /*
@@ -470,19 +549,22 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
       if (dateInputDialog.getDataType().equalsIgnoreCase(MOD_WEATHER_STRING))
       {
         WeatherDataTable weatherDataTable = new WeatherDataTable();
-        weatherDataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth());
+        weatherDataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth(),
+                                     dateInputDialog.getNumberOfMonths());
         WeatherDataTable.createAndShowGUI(weatherDataTable);
       }
       else if (dateInputDialog.getDataType().equalsIgnoreCase(MOD_SUMMARY1_STRING))
       {
         Summary1DataTable summary1DataTable = new Summary1DataTable();
-        summary1DataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth());
+        summary1DataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth(),
+                                      dateInputDialog.getNumberOfMonths());
         Summary1DataTable.createAndShowGUI(summary1DataTable);
       }
       else if (dateInputDialog.getDataType().equalsIgnoreCase(MOD_SUMMARY2_STRING))
       {
         Summary2DataTable summary2DataTable = new Summary2DataTable();
-        summary2DataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth());
+        summary2DataTable.createTable(dateInputDialog.getYear(), dateInputDialog.getMonth(),
+                                      dateInputDialog.getNumberOfMonths());
         Summary2DataTable.createAndShowGUI(summary2DataTable);
       }
     }
@@ -543,12 +625,11 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
    *
    * @param startDate The start date (day/month/year) for the report data.
    * @param endDate   The end date for the report data.
-   * @param threshold The threshold value, below which data should not be included.
+   * @param thresholds The threshold values, below which data should not be included.
    */
-  public void displayHrsOfSunshineWindow(LocalDate startDate, LocalDate endDate, int threshold)
+  public void displayHrsOfSunshineWindow(LocalDate startDate, LocalDate endDate, int[] thresholds)
   {
-    HrsOfSunshineTable hrsOfSunshineTable = new HrsOfSunshineTable(startDate, endDate, threshold);
-    HrsOfSunshineTable.createAndShowGUI(hrsOfSunshineTable);
+    HrsOfSunshineTable.createAndShowGUI(startDate, endDate, thresholds);
   }
 
   /**
@@ -589,7 +670,8 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
     if (action.equalsIgnoreCase(EXIT_STRING))
     {
       // Graceful exit.
-      commandControl.terminateCommunications();
+      if (commandControl != null)
+        commandControl.terminateCommunications();
       System.exit(0);
     }
 
@@ -600,7 +682,8 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
 
     else if (action.equalsIgnoreCase(RESET_STRING))
     {
-      commandControl.resetCommunications();
+      if (commandControl != null)
+        commandControl.resetCommunications();
     }
 
     else if (action.equalsIgnoreCase(LAMP_STRING))
@@ -1284,7 +1367,8 @@ public class MainWindow extends JFrame implements ActionListener, WindowListener
   public void windowClosing(WindowEvent event)
   {
     // Perform a graceful shutdown.
-    commandControl.terminateCommunications();
+    if (commandControl != null)
+      commandControl.terminateCommunications();
     System.exit(0);
   }
 
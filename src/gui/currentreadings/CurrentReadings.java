@@ -11,11 +11,16 @@
             window.  It also handles min/max interval changes.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  The alert severity and wind bins are set once loaded at startup.
+            10/19/26  Listen for the console data from the CommandControl.
+            10/19/26 Use a database reader of its own.
 */
 package gui.currentreadings;
 
+import data.consolerecord.DmpDataExtended;
 import data.consolerecord.HiLoData;
 import data.consolerecord.LoopData;
+import data.dbrecord.WindBins;
 import data.dbrecord.WindDirection;
 import dbif.DatabaseReader;
 import forecast.AlertTimer;
@@ -27,6 +32,7 @@ import serialdriver.Command;
 import serialdriver.CommandListener;
 import serialdriver.ConsoleCmdQueue;
 import serialdriver.ConsoleCommand;
+import serialdriver.ConsoleDataListener;
 import util.ConfigProperties;
 import util.Logger;
 
@@ -36,7 +42,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.LocalDate;
 
-public class CurrentReadings extends JPanel implements ActionListener, CommandListener
+public class CurrentReadings extends JPanel implements ActionListener, CommandListener, ConsoleDataListener
 {
   // Definitions of subordinate objects.
   private MinMaxInterval minMaxInterval;
@@ -59,7 +65,7 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
   private final CelestialGauge celestialGauge = new CelestialGauge();
   private final ForecastDisplay forecastDisplay = new ForecastDisplay();
   private final NOAAForecastJSON noaaForecast = new NOAAForecastJSON();
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private final Logger logger = Logger.getInstance();
 
@@ -112,9 +118,6 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
                          2,
                          SpringLayout.NORTH, this);
 
-    // Set initial color for alert button
-    setAlertButtonSeverity();
-
     this.add(alertButton);
     this.add(alarmButton);
     this.add(commButton);
@@ -142,37 +145,7 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
   {
     try
     {
-      NOAAForecastJSON.Severity severity = noaaForecast.getSeverity();
-      if (severity != null)
-      {
-        switch (severity)
-        {
-          case Extreme:
-            alertButton.setBackground(Color.RED);
-            alertButton.setOpaque(true);
-            break;
-          case Severe:
-            alertButton.setBackground(Color.PINK);
-            alertButton.setOpaque(true);
-            break;
-          case Moderate:
-            alertButton.setBackground(Color.ORANGE);
-            alertButton.setOpaque(true);
-            break;
-          case Minor:
-            alertButton.setBackground(Color.YELLOW);
-            alertButton.setOpaque(true);
-            break;
-          case Unknown: // clear alarm
-            alertButton.setBackground(PROPS.getBackgroundColor());
-            alertButton.setOpaque(false);
-            break;
-          default:
-            alertButton.setBackground(PROPS.getBackgroundColor());
-            alertButton.setOpaque(false);
-            break;
-        }
-      }
+      setAlertButtonSeverity(noaaForecast.getSeverity());
     }
     catch (Exception e)
     {
@@ -180,6 +153,45 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
     }
   }
 
+  /**
+   * Method to change the alert button severity (i.e. color) to a severity already retrieved from the NOAA forecast.
+   *
+   * @param severity The severity or null if there is none.
+   */
+  public void setAlertButtonSeverity(NOAAForecastJSON.Severity severity)
+  {
+    if (severity != null)
+    {
+      switch (severity)
+      {
+        case Extreme:
+          alertButton.setBackground(Color.RED);
+          alertButton.setOpaque(true);
+          break;
+        case Severe:
+          alertButton.setBackground(Color.PINK);
+          alertButton.setOpaque(true);
+          break;
+        case Moderate:
+          alertButton.setBackground(Color.ORANGE);
+          alertButton.setOpaque(true);
+          break;
+        case Minor:
+          alertButton.setBackground(Color.YELLOW);
+          alertButton.setOpaque(true);
+          break;
+        case Unknown: // clear alarm
+          alertButton.setBackground(PROPS.getBackgroundColor());
+          alertButton.setOpaque(false);
+          break;
+        default:
+          alertButton.setBackground(PROPS.getBackgroundColor());
+          alertButton.setOpaque(false);
+          break;
+      }
+    }
+  }
+
   /**
    * Method called whenever it is time to paint the panel.
    */
@@ -267,6 +279,34 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
     this.repaint();
   }
 
+  @Override
+  public void loopDataReceived(LoopData loopData)
+  {
+    updateReadings(loopData);
+  }
+
+  @Override
+  public void hiLowDataReceived(HiLoData hiLoData)
+  {
+    updateMinMax(hiLoData);
+  }
+
+  /**
+   * Method called with each new archive record to update the prevailing wind direction and the forecast rule.
+   *
+   * @param dmpData The archive record.
+   */
+  @Override
+  public void archiveDataReceived(DmpDataExtended dmpData)
+  {
+    WindDirection windDirection = WindDirection.valueOf(dmpData.getPrevailingWindDir());
+    if (windDirection != null)
+    {
+      addPrevailingDirection(windDirection);
+    }
+    updateForecastRule(dmpData.getForecastRule());
+  }
+
   /**
    * Method that simply redirects the new wind direction to the wind gauge.
    *
@@ -277,6 +317,17 @@ public class CurrentReadings extends JPanel implements ActionListener, CommandLi
     windDirGauge.addPrevailingDirection(direction);
   }
 
+  /**
+   * Method to hand the wind bins to the wind gauge once they have been read at startup.
+   *
+   * @param windBins The wind bins.
+   */
+  public void setWindBins(WindBins windBins)
+  {
+    windDirGauge.setWindBins(windBins);
+    this.repaint();
+  }
+
   /**
    * When an new DMP data record comes in, update the forecast rule on the current readings display.
    *
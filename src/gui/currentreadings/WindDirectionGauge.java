@@ -10,6 +10,7 @@
   Purpose:	Class responsible for drawing the wind direction gauge.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  The wind bins are set once read at startup.
 */
 package gui.currentreadings;
 
@@ -25,7 +26,7 @@ class WindDirectionGauge
 {
   private float currentDir = 0f;
   private float gaugeDir = 0f;
-  private final WindBins windBins = WindBins.getInstance();
+  private volatile WindBins windBins = null;
   private final static int OUTER_RADIUS = 60;
   private final static int INNER_RADIUS = 55;
   private final static float HALF_SEGMENT = 11.25f;
@@ -171,7 +172,10 @@ class WindDirectionGauge
     g2.draw(new Line2D.Float(xGauge, yGauge, dirX, dirY));
     g2.setStroke(GaugeCommon.STROKE);
 
-    // Add prevailing wind direction indicators.
+    // Add prevailing wind direction indicators, once the wind bins have been read.
+    if (windBins == null)
+      return;
+
     switch (interval)
     {
       case hourly:
@@ -254,6 +258,16 @@ class WindDirectionGauge
   }
 
 
+  /**
+   * Method to set the wind bins.  Until this is called no prevailing directions are drawn.
+   *
+   * @param windBins The wind bins.
+   */
+  void setWindBins(WindBins windBins)
+  {
+    this.windBins = windBins;
+  }
+
   /**
    * Method used to add a new prevailing wind direction reading from the DMP data.
    *
@@ -263,6 +277,9 @@ class WindDirectionGauge
    */
   public void addPrevailingDirection(WindDirection newDirection)
   {
+    if (windBins == null)
+      return;
+
     windBins.addObservation(newDirection);
 
     switch (interval)
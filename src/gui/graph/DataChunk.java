@@ -0,0 +1,89 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the points decoded from one month of data by a
+            background loader.  The points are collected off the event dispatch
+            thread and then added to the chart series in one step on the event
+            dispatch thread, so each series is redrawn once per month loaded.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package gui.graph;
+
+import gui.graph.data.AbstractDataPlotter;
+import org.jfree.data.time.Millisecond;
+import org.jfree.data.time.RegularTimePeriod;
+import org.jfree.data.time.TimeSeriesDataItem;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class DataChunk
+{
+  // Points added directly to the graph series.
+  private final Map<AbstractDataPlotter, List<TimeSeriesDataItem>> seriesPoints = new LinkedHashMap<>();
+
+  // Points added to the dataset, which also keeps the original points.
+  private final Map<AbstractDataPlotter, List<TimeSeriesDataItem>> datasetPoints = new LinkedHashMap<>();
+
+  /**
+   * Method to add a point destined for a graph series.
+   *
+   * @param data The data object.
+   * @param period The time period of the point.
+   * @param datum The data at this time.
+   */
+  void addSeriesPoint(AbstractDataPlotter data, RegularTimePeriod period, float datum)
+  {
+    seriesPoints.computeIfAbsent(data, k -> new ArrayList<>()).add(new TimeSeriesDataItem(period, datum));
+  }
+
+  /**
+   * Method to add a point destined for a dataset.
+   *
+   * @param data The data object.
+   * @param date The date of the point.
+   * @param datum The data at this time.
+   */
+  void addDatasetPoint(AbstractDataPlotter data, Date date, float datum)
+  {
+    datasetPoints.computeIfAbsent(data, k -> new ArrayList<>())
+      .add(new TimeSeriesDataItem(new Millisecond(date), datum));
+  }
+
+  /**
+   * Method to add the points to the graph chart.  This must be called on the event dispatch thread.
+   */
+  void applyToGraph()
+  {
+    for (Map.Entry<AbstractDataPlotter, List<TimeSeriesDataItem>> entry : seriesPoints.entrySet())
+      entry.getKey().addToGraphSeries(entry.getValue());
+
+    for (Map.Entry<AbstractDataPlotter, List<TimeSeriesDataItem>> entry : datasetPoints.entrySet())
+    {
+      boolean addToTrace = !entry.getKey().getChart().equalsIgnoreCase(GraphDefs.NONE);
+      entry.getKey().addToGraphDataset(addToTrace, entry.getValue());
+    }
+  }
+
+  /**
+   * Method to add the points to the stream charts.  This must be called on the event dispatch thread.
+   */
+  void applyToStream()
+  {
+    for (Map.Entry<AbstractDataPlotter, List<TimeSeriesDataItem>> entry : datasetPoints.entrySet())
+    {
+      boolean addToTrace = !entry.getKey().getChart().equalsIgnoreCase(GraphDefs.NONE);
+      entry.getKey().addToStreamDataset(addToTrace, entry.getValue());
+    }
+  }
+}
@@ -12,13 +12,12 @@
 
   Mods:		  10/05/21  Initial Release.
             10/07/21  Added progress bar.
+            10/19/26  Use the cached monthly rain totals and departure series.
+            10/19/26  Use the monthly rain normals where the archive has them.
 */
 package gui.graph;
 
-import data.dbrecord.DataFileRecord;
-import data.dbrecord.WeatherRecord;
-import data.dbrecord.WeatherRecordExtended;
-import dbif.DatabaseReader;
+import dbif.ClimateNormals;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -34,14 +33,12 @@ import util.Logger;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.IOException;
-import java.time.LocalDate;
+import java.time.YearMonth;
 
 public class DroughtDataThread extends SwingWorker<Void, Void>
 {
   private JFreeChart barChart = null;
   private static final ConfigProperties PROPS = ConfigProperties.instance();
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
   private DefaultCategoryDataset dataset = new DefaultCategoryDataset();
   private final Logger logger = Logger.getInstance();
   private ProgressMonitor progressMonitor;
@@ -49,8 +46,7 @@ public class DroughtDataThread extends SwingWorker<Void, Void>
   private int startYear;
   private int startMonth;
   private int duration;
-  private double progress;
-  private float droughtTotal = 0;
+  // The averages of the months the archive does not yet have a complete year of.
   private final float[] myAverageRainValues= new float[]
     { 0.00f, 0.06f, 0.12f, 0.55f, 1.10f, 1.70f, 1.36f, 2.76f, 2.03f, 0.86f, 0.31f, 0.14f, 0.10f};
 
@@ -119,120 +115,45 @@ public class DroughtDataThread extends SwingWorker<Void, Void>
   }
 
   /**
-   * Method called to start the background task.  This task reads the data from the database files and
-   * places the pertinent data into the dataset for the bar chart to display.
+   * Method called to start the background task.  The monthly rain totals and the cumulative departure series are
+   * cached, so only database files that changed since the last analysis are read.  The drought total of each month
+   * in the window is then a difference of two cumulative values.
    *
    * @return null
    */
   @Override
   public Void doInBackground()
   {
-    droughtTotal = 0;
     dataset.clear();
+    setProgress(0);
 
-    // Determine the end year/month/day by incrementing start date by duration.
-    LocalDate startDate = LocalDate.of(startYear, startMonth, 1);
-    LocalDate endDate = startDate.plusMonths(duration);
-    int endYear = endDate.getYear();
-    int endMonth = endDate.getMonthValue();
-
-    // Read first year/month file records.
-    try
-    {
-      dbReader.readData(startYear, startMonth, null);
-      dbReader.reset();
-      dbReader.readSummaryData(startYear, startMonth);
-      dbReader.resetSummary();
-    }
-    catch (IOException e)
+    float[] averageRainValues = ClimateNormals.getInstance().getMonthlyMeans(ClimateNormals.Element.RAIN);
+    for (int month = 0; month < averageRainValues.length; month++)
     {
-      logger.logData("Graph Data: populateDataset: Unable to get data: " + e.getLocalizedMessage());
-      return null;
+      if (Float.isNaN(averageRainValues[month]))
+        averageRainValues[month] = myAverageRainValues[month];
     }
 
-    if (startYear == endYear && startMonth == endMonth)
-    {
-      processMonthsRain(startYear, startMonth);
-    }
-    else
-    {
-      processMonthsRain(startYear, startMonth);
+    DroughtSeries droughtSeries = DroughtSeries.getInstance();
+    droughtSeries.update(averageRainValues);
+    setProgress(50);
 
-      startMonth++;
-      if (startMonth == 13)
+    // The end is the start incremented by the duration.
+    YearMonth windowStart = YearMonth.of(startYear, startMonth);
+    YearMonth windowEnd = windowStart.plusMonths(duration);
+    for (YearMonth month = windowStart; !month.isAfter(windowEnd) && !isCancelled(); month = month.plusMonths(1))
+    {
+      if (!droughtSeries.hasData(month))
       {
-        startYear++;
-        startMonth = 1;
+        logger.logData("Drought Data: doInBackground: No data for " + month);
+        continue;
       }
 
-      boolean endReached = false;
-      while (!endReached)
-      {
-        try
-        {
-          dbReader.readData(startYear, startMonth, null);
-          dbReader.reset();
-          dbReader.readSummaryData(startYear, startMonth);
-          dbReader.resetSummary();
-        }
-        catch (IOException e)
-        {
-          logger.logData("Graph Data: populateDataset: Unable to get data: " + e.getLocalizedMessage());
-          return null;
-        }
-
-        if (startYear == endYear && startMonth == endMonth)
-        {
-          processMonthsRain(startYear, startMonth);
-          endReached = true;
-        }
-        else
-        {
-          processMonthsRain(startYear, startMonth);
-
-          startMonth++;
-          if (startMonth == 13)
-          {
-            startYear++;
-            startMonth = 1;
-          }
-        }
-        progress = progress + 100/duration;
-        setProgress((int)progress);
-      }
-      setProgress(100);
+      String category = String.valueOf(month.getYear()) + "-" + String.valueOf(month.getMonthValue());
+      dataset.addValue(droughtSeries.getRainTotal(month), "Rain Amount", category);
+      dataset.addValue(droughtSeries.getDroughtTotal(windowStart, month), "Drought Total", category);
     }
+    setProgress(100);
     return null;
   }
-
-  /**
-   * Internal method to extract the data, calculate the drought total and place the data into the dataset.
-   * This method processes the monthly data in the file defined by the month and year values.
-   *
-   * @param year  The year of the data.
-   * @param month The month of the data.
-   */
-  private void processMonthsRain(int year, int month)
-  {
-    float monthValue = 0;
-
-    DataFileRecord nextRecord = dbReader.getNextRecord();
-    while (nextRecord != null)
-    {
-      if (nextRecord instanceof WeatherRecord)
-      {
-        WeatherRecordExtended data = (WeatherRecordExtended) nextRecord;
-
-        if (data.getRainfall() > 0)
-        {
-          monthValue = monthValue + data.getRainfall();
-        }
-      }
-      nextRecord = dbReader.getNextRecord();
-    }
-    droughtTotal = droughtTotal + monthValue - myAverageRainValues[month];
-
-    dataset.addValue(monthValue, "Rain Amount", String.valueOf(year) + "-" + String.valueOf(month));
-    dataset.addValue(droughtTotal, "Drought Total", String.valueOf(year) + "-" + String.valueOf(month));
-  }
 }
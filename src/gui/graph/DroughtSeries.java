@@ -0,0 +1,153 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the cumulative departure of monthly rainfall from
+            the monthly averages, from the first month of data to the last.
+            The drought total for any window is then the difference of two
+            cumulative values.  The series is only rebuilt when a database file
+            changes or different averages are given, either of which is a
+            single pass over the months.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package gui.graph;
+
+import dbif.MonthlyRainTotals;
+
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+public class DroughtSeries
+{
+  private final MonthlyRainTotals monthlyRainTotals = MonthlyRainTotals.getInstance();
+
+  private YearMonth firstMonth = null;
+  private float[] rainTotals = new float[0]; // NaN where there is no data for the month.
+  private double[] cumulativeDeparture = new double[0];
+  private float[] averageRainValues = null;
+
+  private static class SingletonHelper
+  {
+    private static final DroughtSeries INSTANCE = new DroughtSeries();
+  }
+
+  public static DroughtSeries getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private DroughtSeries() { }
+
+  /**
+   * Method to bring the series up to date.  The series is rebuilt only if a database file has changed or the
+   * averages differ from the last call.
+   *
+   * @param averageRainValues The average rain for each month, indexed by month with index 0 unused.
+   */
+  public synchronized void update(float[] averageRainValues)
+  {
+    boolean dataChanged = monthlyRainTotals.refresh();
+    if (!dataChanged && Arrays.equals(averageRainValues, this.averageRainValues))
+      return;
+
+    this.averageRainValues = averageRainValues.clone();
+    firstMonth = monthlyRainTotals.getFirstMonth();
+    if (firstMonth == null)
+    {
+      rainTotals = new float[0];
+      cumulativeDeparture = new double[0];
+      return;
+    }
+
+    int numOfMonths = (int)firstMonth.until(monthlyRainTotals.getLastMonth(), ChronoUnit.MONTHS) + 1;
+    rainTotals = new float[numOfMonths];
+    cumulativeDeparture = new double[numOfMonths];
+
+    double departure = 0;
+    YearMonth month = firstMonth;
+    for (int i = 0; i < numOfMonths; i++)
+    {
+      Float rainTotal = monthlyRainTotals.getRainTotal(month);
+      if (rainTotal == null)
+      {
+        rainTotals[i] = Float.NaN;
+      }
+      else
+      {
+        rainTotals[i] = rainTotal;
+        departure = departure + rainTotal - this.averageRainValues[month.getMonthValue()];
+      }
+      cumulativeDeparture[i] = departure;
+      month = month.plusMonths(1);
+    }
+  }
+
+  /**
+   * Method to determine if there is data for a month.
+   *
+   * @param month The month.
+   * @return Whether or not there is data.
+   */
+  public synchronized boolean hasData(YearMonth month)
+  {
+    int index = indexOf(month);
+    return index >= 0 && index < rainTotals.length && !Float.isNaN(rainTotals[index]);
+  }
+
+  /**
+   * Method to get the rain total of a month.
+   *
+   * @param month The month.
+   * @return The rain total or zero if there is no data.
+   */
+  public synchronized float getRainTotal(YearMonth month)
+  {
+    return hasData(month) ? rainTotals[indexOf(month)] : 0.0f;
+  }
+
+  /**
+   * Method to get the accumulated departure from the averages from the start of a window up to and including a month.
+   *
+   * @param windowStart The first month of the window.
+   * @param month The month to accumulate through.
+   * @return The drought total.
+   */
+  public synchronized float getDroughtTotal(YearMonth windowStart, YearMonth month)
+  {
+    return (float)(getCumulativeDeparture(month) - getCumulativeDeparture(windowStart.minusMonths(1)));
+  }
+
+  /**
+   * Internal method to get the cumulative departure through a month.  Months outside the data are clamped.
+   *
+   * @param month The month.
+   * @return The cumulative departure.
+   */
+  private double getCumulativeDeparture(YearMonth month)
+  {
+    int index = indexOf(month);
+    if (index < 0 || cumulativeDeparture.length == 0)
+      return 0.0;
+    return cumulativeDeparture[Math.min(index, cumulativeDeparture.length - 1)];
+  }
+
+  /**
+   * Internal method to get the index of a month within the series.
+   *
+   * @param month The month.
+   * @return The index, which may be outside the series.
+   */
+  private int indexOf(YearMonth month)
+  {
+    if (firstMonth == null)
+      return -1;
+    return (int)firstMonth.until(month, ChronoUnit.MONTHS);
+  }
+}
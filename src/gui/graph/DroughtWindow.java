@@ -12,6 +12,7 @@
 
   Mods:		  10/05/21  Initial Release.
             10/07/21  Added progress bar.
+            10/19/26  Display the graph when the task is done rather than on a progress change.
 */
 package gui.graph;
 
@@ -80,19 +81,19 @@ public class DroughtWindow extends JPanel implements PropertyChangeListener
       String message =
         String.format("Completed %d%%.\n", progress);
       progressMonitor.setNote(message);
-      if (progressMonitor.isCanceled() || droughtDataThread.isDone())
+      if (progressMonitor.isCanceled())
       {
         Toolkit.getDefaultToolkit().beep();
-        if (progressMonitor.isCanceled())
-        {
-          droughtDataThread.cancel(true);
-        }
-        else
-        {
-          // Display graph.
-          createWindow();
-        }
+        droughtDataThread.cancel(true);
       }
     }
+    else if (evt.getPropertyName().equalsIgnoreCase("state") && evt.getNewValue() == SwingWorker.StateValue.DONE &&
+             !droughtDataThread.isCancelled())
+    {
+      // Display graph.  The analysis is quick now that the totals are cached, so the last progress change may arrive
+      // before the task is done.
+      Toolkit.getDefaultToolkit().beep();
+      createWindow();
+    }
   }
 }
@@ -13,6 +13,8 @@
 
   Mods:		  09/01/21  Initial Release.
             10/15/21  Fixed ET calculation.
+            10/19/26  Load the data in the background a month at a time.
+            10/19/26  Use a database reader of its own.
 */
 package gui.graph;
 
@@ -31,19 +33,22 @@ import org.jfree.data.time.*;
 import util.ConfigProperties;
 import util.Logger;
 
+import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
 public class GraphDataThread
 {
   private JFreeChart lineChart = null;
   private final AbstractDataPlotter[] chartData = new AbstractDataPlotter[24];
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private final Logger logger = Logger.getInstance();
 
@@ -73,6 +78,7 @@ public class GraphDataThread
   private final WindRunData windRunData = new WindRunData(GraphDefs.WEEK_DATA_SIZE);
 
   private final HashMap<String, AbstractDataPlotter> dataMap = new HashMap<>();
+  private GraphDataLoader dataLoader = null;
 
   private static class SingletonHelper
   {
@@ -353,7 +359,8 @@ public class GraphDataThread
 
   /**
    * Method to populate the dataset.  This called during initialization and whenever the user selects
-   * another date period to display.
+   * another date period to display.  The data is loaded a month at a time in the background and each month is
+   * added to the chart as it is loaded.  Any load still in progress is cancelled.
    *
    * @param endYear  The year to retrieve.
    * @param endMonth The month of the year to retrieve.
@@ -397,82 +404,29 @@ public class GraphDataThread
     {
       startDate = endDate;
     }
-    int startYear = startDate.getYear();
-    int startMonth = startDate.getMonthValue();
-    int startDay = startDate.getDayOfMonth();
 
-    // First read and calculate the evapotranspiration data as it uses the dbReader and would
-    // interfere with the code below.
-    EvapotransRecord evapotransData = dbReader.getEvapotransData(LocalDateTime.now());
-
-    // Read first year/month file records.
-    try
-    {
-      dbReader.readData(startYear, startMonth, null);
-      dbReader.reset();
-      dbReader.readSummaryData(startYear, startMonth);
-      dbReader.resetSummary();
-    }
-    catch (IOException e)
-    {
-      logger.logData("Graph Data: populateDataset: Unable to get data: " + e.getLocalizedMessage());
-      return;
-    }
+    cancelLoading();
+    dataLoader = new GraphDataLoader(startDate, endDate);
+    dataLoader.execute();
+  }
 
-    if (startYear == endYear && startMonth == endMonth)
+  /**
+   * Method to cancel the data load in progress, if any.  Months already added to the chart are left in place.
+   */
+  public void cancelLoading()
+  {
+    if (dataLoader != null)
     {
-      addData(startDay, endDay, evapotransData);
-      addSummaryData(startDay, endDay, startMonth, startYear);
-    }
-    else
-    {
-      addData(startDay, 0, evapotransData);
-      addSummaryData(startDay, 0, startMonth, startYear);
-
-      startMonth++;
-      if (startMonth == 13)
-      {
-        startYear++;
-        startMonth = 1;
-      }
-
-      boolean endReached = false;
-      while (!endReached)
-      {
-        try
-        {
-          dbReader.readData(startYear, startMonth, null);
-          dbReader.reset();
-          dbReader.readSummaryData(startYear, startMonth);
-          dbReader.resetSummary();
-        }
-        catch (IOException e)
-        {
-          logger.logData("Graph Data: populateDataset: Unable to get data: " + e.getLocalizedMessage());
-          return;
-        }
-
-        if (startYear == endYear && startMonth == endMonth)
-        {
-          addData(0, endDay, evapotransData);
-          addSummaryData(0, endDay, startMonth, startYear);
-          endReached = true;
-        }
-        else
-        {
-          addData(0, 0, evapotransData);
-          addSummaryData(0, 0, startMonth, startYear);
-
-          startMonth++;
-          if (startMonth == 13)
-          {
-            startYear++;
-            startMonth = 1;
-          }
-        }
-      }
+      dataLoader.cancel(false);
+      dataLoader = null;
     }
+  }
 
+  /**
+   * Internal method to adjust the y-axis of all the data.
+   */
+  private void adjustAllRangeAxisBounds()
+  {
     adjustRangeAxisBounds(inHumidData);
     adjustRangeAxisBounds(inTempData);
     adjustRangeAxisBounds(greenhouseTempData);
@@ -498,7 +452,79 @@ public class GraphDataThread
     adjustRangeAxisBounds(windRunData);
   }
 
-  private void addSummaryData(int startDay, int endDay, int month, int year)
+  /**
+   * Background worker that reads the months of a date range, publishing the points of each month as it is read.
+   * The chart is only touched on the event dispatch thread.
+   */
+  private class GraphDataLoader extends SwingWorker<Void, DataChunk>
+  {
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    GraphDataLoader(LocalDate startDate, LocalDate endDate)
+    {
+      this.startDate = startDate;
+      this.endDate = endDate;
+    }
+
+    @Override
+    protected Void doInBackground()
+    {
+      YearMonth startMonth = YearMonth.from(startDate);
+      YearMonth endMonth = YearMonth.from(endDate);
+
+      // First read and calculate the evapotranspiration data as it uses the dbReader and would
+      // interfere with the code below.
+      EvapotransRecord evapotransData;
+      synchronized (dbReader)
+      {
+        evapotransData = dbReader.getEvapotransData(LocalDateTime.now());
+      }
+
+      for (YearMonth month = startMonth; !month.isAfter(endMonth) && !isCancelled(); month = month.plusMonths(1))
+      {
+        // Zero means the range does not start or end within this month.
+        int startDay = month.equals(startMonth) ? startDate.getDayOfMonth() : 0;
+        int endDay = month.equals(endMonth) ? endDate.getDayOfMonth() : 0;
+
+        DataChunk chunk = new DataChunk();
+        synchronized (dbReader)
+        {
+          try
+          {
+            dbReader.readData(month.getYear(), month.getMonthValue(), null);
+            dbReader.reset();
+            dbReader.readSummaryData(month.getYear(), month.getMonthValue());
+            dbReader.resetSummary();
+          }
+          catch (IOException e)
+          {
+            logger.logData("Graph Data: populateDataset: Unable to get data: " + e.getLocalizedMessage());
+            return null;
+          }
+
+          addData(chunk, startDay, endDay, evapotransData);
+          addSummaryData(chunk, startDay, endDay, month.getMonthValue(), month.getYear());
+        }
+        publish(chunk);
+      }
+      return null;
+    }
+
+    @Override
+    protected void process(List<DataChunk> chunks)
+    {
+      // A load that has been replaced must not add to the new data.
+      if (isCancelled())
+        return;
+
+      for (DataChunk chunk : chunks)
+        chunk.applyToGraph();
+      adjustAllRangeAxisBounds();
+    }
+  }
+
+  private void addSummaryData(DataChunk chunk, int startDay, int endDay, int month, int year)
   {
     DataFileRecord nextRecord = dbReader.getNextSummaryRecord();
     while (nextRecord != null)
@@ -518,9 +544,9 @@ public class GraphDataThread
           return;
         }
 
-        highOutTempData.getGraphSeries().add(minute, data.getHiOutTemp());
-        lowOutTempData.getGraphSeries().add(minute, data.getLowOutTemp());
-        avgOutTempData.getGraphSeries().add(minute, data.getAvgOutTemp());
+        chunk.addSeriesPoint(highOutTempData, minute, data.getHiOutTemp());
+        chunk.addSeriesPoint(lowOutTempData, minute, data.getLowOutTemp());
+        chunk.addSeriesPoint(avgOutTempData, minute, data.getAvgOutTemp());
       }
       nextRecord = dbReader.getNextSummaryRecord();
     }
@@ -531,10 +557,11 @@ public class GraphDataThread
    * start and end day values.  If either startDay or endDay are zero, then these values are not set, i.e. the endDay
    * is not within this dataset.
    *
+   * @param chunk    The chunk the points are added to.
    * @param startDay The start day value, if not zero then exclude days before this value.
    * @param endDay   The end day value, if not zero then exclude days after this value.
    */
-  private void addData(int startDay, int endDay, EvapotransRecord evapotransData)
+  private void addData(DataChunk chunk, int startDay, int endDay, EvapotransRecord evapotransData)
   {
     DataFileRecord nextRecord = dbReader.getNextRecord();
     while (nextRecord != null)
@@ -557,57 +584,45 @@ public class GraphDataThread
           return;
         }
 
-        try
-        {
-          inTempData.getGraphSeries().add(minute, data.getInsideTemp());
-        }
-        catch (Exception e)
-        {
-          System.out.println("----------");
-        }
+        chunk.addSeriesPoint(inTempData, minute, data.getInsideTemp());
         // TODO: this may also need a check against DatabaseCommon.UNDEFINED_SHORT_VALUE
-        outTempData.getGraphSeries().add(minute, data.getOutsideTemp());
-        greenhouseTempData.getGraphSeries().add(minute, data.getSoilTemp1());
-        inHumidData.getGraphSeries().add(minute, data.getInsideHumidity());
-        outHumidData.getGraphSeries().add(minute, data.getOutsideHumidity());
-        issReceptionData.getGraphSeries().add(minute, data.getNumOfWindSamples());
-        solarData.getGraphSeries().add(minute, data.getHighSolarRadiation());
-        pressureData.getGraphSeries().add(minute, data.getPressure());
-        rainData.getGraphSeries().add(minute, data.getRainfall());
-        windSpeedData.getGraphSeries().add(minute, data.getAverageWindSpeed());
-        etData.getGraphSeries().add(minute, data.getEt());
+        chunk.addSeriesPoint(outTempData, minute, data.getOutsideTemp());
+        chunk.addSeriesPoint(greenhouseTempData, minute, data.getSoilTemp1());
+        chunk.addSeriesPoint(inHumidData, minute, data.getInsideHumidity());
+        chunk.addSeriesPoint(outHumidData, minute, data.getOutsideHumidity());
+        chunk.addSeriesPoint(issReceptionData, minute, data.getNumOfWindSamples());
+        chunk.addSeriesPoint(solarData, minute, data.getHighSolarRadiation());
+        chunk.addSeriesPoint(pressureData, minute, data.getPressure());
+        chunk.addSeriesPoint(rainData, minute, data.getRainfall());
+        chunk.addSeriesPoint(windSpeedData, minute, data.getAverageWindSpeed());
+        chunk.addSeriesPoint(etData, minute, data.getEt());
 
         float windChill = Calculations.calculateWindChill(data.getOutsideTemp(), data.getAverageWindSpeed());
-        windChillData.getGraphSeries().add(minute, windChill);
+        chunk.addSeriesPoint(windChillData, minute, windChill);
 
         float dewPoint = Calculations.calculateDewPoint(data.getOutsideTemp(), data.getOutsideHumidity());
-        dewPointData.getGraphSeries().add(minute, dewPoint);
+        chunk.addSeriesPoint(dewPointData, minute, dewPoint);
 
         float heatIndex = Calculations.calculateHeatIndex(data.getOutsideTemp(), data.getOutsideHumidity());
-        heatIndexData.getGraphSeries().add(minute, heatIndex);
+        chunk.addSeriesPoint(heatIndexData, minute, heatIndex);
 
         float thwValue = Calculations.calculateTHW(data.getOutsideTemp(), data.getAverageWindSpeed(),
                                                    data.getOutsideHumidity());
-        thwData.getGraphSeries().add(minute, thwValue);
+        chunk.addSeriesPoint(thwData, minute, thwValue);
 
         float thswValue = Calculations.calculateTHSW(data.getOutsideTemp(), data.getAverageWindSpeed(),
                                                      data.getOutsideHumidity(), data.getSolarRadiation());
-        thswData.getGraphSeries().add(minute, thswValue);
-
-        boolean addToHeatDDTrace = !heatDDData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-        heatDDData.addToGraphDataset(addToHeatDDTrace, date, data.getHeatDD());
-
-        boolean addToCoolDDTrace = !coolDDData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-        coolDDData.addToGraphDataset(addToCoolDDTrace, date, data.getCoolDD());
+        chunk.addSeriesPoint(thswData, minute, thswValue);
 
-        boolean addToWindRunTrace = !windRunData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-        windRunData.addToGraphDataset(addToWindRunTrace, date, data.getWindRunTotal());
+        chunk.addDatasetPoint(heatDDData, date, data.getHeatDD());
+        chunk.addDatasetPoint(coolDDData, date, data.getCoolDD());
+        chunk.addDatasetPoint(windRunData, date, data.getWindRunTotal());
 
         // Wind direction can be 0xFF which means no valid data.
         byte windDirectionByte = data.getWindDirectionNative();
         if (windDirectionByte != -1)
         {
-          windDirectionData.getGraphSeries().add(minute, windDirectionByte);
+          chunk.addSeriesPoint(windDirectionData, minute, windDirectionByte);
         }
       }
       nextRecord = dbReader.getNextRecord();
@@ -10,6 +10,7 @@
   Purpose:	Static constants used by the graph.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Added the season and all time periods.
 */
 package gui.graph;
 
@@ -57,7 +58,9 @@ public class GraphDefs
   public static final String WEEK_STRING = "Week";
   public static final String HALF_MONTH_STRING = "Half Month";
   public static final String MONTH_STRING = "Month";
+  public static final String SEASON_STRING = "Season";
   public static final String YEAR_STRING = "Year";
+  public static final String ALL_TIME_STRING = "All Time";
 
   public static final int DAY_DATA_SIZE = 288;
   public static final int HALF_DAY_DATA_SIZE = DAY_DATA_SIZE / 2;
@@ -11,6 +11,7 @@
             data with the current values being added on to the end.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Cancel any data load in progress when the date or duration changes.
 */
 package gui.graph;
 
@@ -310,6 +311,8 @@ public class GraphWindow extends JFrame implements ActionListener
    */
   public void changeDatasetSize(Date endDate, String duration)
   {
+    graphDataThread.cancelLoading();
+
     graphDataThread.setDatasetSize(GraphDefs.INTEMP_STRING, duration);
     graphDataThread.setDatasetSize(GraphDefs.INHUMID_STRING, duration);
     graphDataThread.setDatasetSize(GraphDefs.GREENHOUSE_TEMP_STRING, duration);
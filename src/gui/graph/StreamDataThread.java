@@ -13,37 +13,47 @@
 
   Mods:		  09/01/21  Initial Release.
             10/15/21  Fixed ET calculation.
+            10/19/26  Load the initial data in the background a month at a time.
+            10/19/26  Stream points are kept in fixed size ring buffers.
+            10/19/26  Listen for the archive records from the CommandControl.
+            10/19/26  Record the time to add a record to the stream charts.
+            10/19/26  Use a database reader of its own.
 */
 package gui.graph;
 
 import algorithms.Calculations;
 import data.consolerecord.DmpDataExtended;
 import data.dbrecord.DataFileRecord;
-import data.dbrecord.EvapotransRecord;
 import data.dbrecord.WeatherRecord;
 import data.dbrecord.WeatherRecordExtended;
 import dbif.DatabaseCommon;
 import dbif.DatabaseReader;
 import gui.graph.data.*;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.AxisLocation;
 import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.plot.XYPlot;
+import serialdriver.ConsoleDataListener;
 import util.ConfigProperties;
 import util.Logger;
 import util.TimeUtil;
 
+import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
-public class StreamDataThread
+public class StreamDataThread implements ConsoleDataListener
 {
   // The JChart2D chart objects.
   private JFreeChart A_CHART = null;
@@ -54,10 +64,11 @@ public class StreamDataThread
   private final AbstractDataPlotter[] chartDataB = new AbstractDataPlotter[6];
   private final AbstractDataPlotter[] chartDataC = new AbstractDataPlotter[8];
 
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
   private final DatabaseCommon dbCommon = DatabaseCommon.getInstance();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private final Logger logger = Logger.getInstance();
+  private final LatencyHistogram updateLatency = MetricsRegistry.getInstance().histogram("ui.streamUpdate");
 
   // The data objects that hold the data.
   private final InsideHumidData inHumidData = new InsideHumidData(GraphDefs.WEEK_DATA_SIZE);
@@ -82,6 +93,7 @@ public class StreamDataThread
   private final WindRunData windRunData = new WindRunData(GraphDefs.WEEK_DATA_SIZE);
 
   private final HashMap<String, AbstractDataPlotter> dataMap = new HashMap<>();
+  private StreamDataLoader dataLoader = null;
 
   private static class SingletonHelper
   {
@@ -366,12 +378,12 @@ public class StreamDataThread
     abstractDataPlotter.changeStreamDataSetSize(size);
 
     abstractDataPlotter.eraseStreamSeriesData();
-    abstractDataPlotter.eraseStreamListData();
   }
 
   /**
    * Method that runs when this thread is started.  It starts by adding the last 7 days worth of data.
-   * It then waits for additional data.
+   * It then waits for additional data.  The data is read in the background and each month is added to the charts
+   * as it is read.  Any load still in progress is cancelled.
    */
   public void initData(int dataPoints)
   {
@@ -383,19 +395,68 @@ public class StreamDataThread
 
     int days = dataPoints / 288 + 1;
     LocalDate startTime = localEndTime.minusDays(days);
-    long startTimeMillis = startTime.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
-    int startYear = startTime.getYear();
-    int startMonth = startTime.getMonthValue();
 
-    // If previous 7 days spans month or year boundaries, then go read the previous month's data file.
-    if (startYear != endYear || startMonth != endMonth)
+    cancelLoading();
+    dataLoader = new StreamDataLoader(startTime, localEndTime);
+    dataLoader.execute();
+  }
+
+  /**
+   * Method to cancel the data load in progress, if any.
+   */
+  public void cancelLoading()
+  {
+    if (dataLoader != null)
     {
-      // Read the previous  months worth of data.
-      addData(startTimeMillis, startYear, startMonth);
+      dataLoader.cancel(false);
+      dataLoader = null;
     }
+  }
 
-    // Read the most recent months worth of data.
-    addData(startTimeMillis, endYear, endMonth);
+  /**
+   * Background worker that reads the months from the start time to the end time, publishing the points of each
+   * month as it is read.  The charts are only touched on the event dispatch thread.
+   */
+  private class StreamDataLoader extends SwingWorker<Void, DataChunk>
+  {
+    private final LocalDate startTime;
+    private final LocalDate endTime;
+
+    StreamDataLoader(LocalDate startTime, LocalDate endTime)
+    {
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
+    @Override
+    protected Void doInBackground()
+    {
+      long startTimeMillis = startTime.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+      // If previous 7 days spans month or year boundaries, then the previous month's data file is read first.
+      for (YearMonth month = YearMonth.from(startTime);
+           !month.isAfter(YearMonth.from(endTime)) && !isCancelled();
+           month = month.plusMonths(1))
+      {
+        DataChunk chunk = new DataChunk();
+        addData(chunk, startTimeMillis, month.getYear(), month.getMonthValue());
+        publish(chunk);
+      }
+      return null;
+    }
+
+    @Override
+    protected void process(List<DataChunk> chunks)
+    {
+      // A load that has been replaced must not add to the new data.
+      if (isCancelled())
+        return;
+
+      for (DataChunk chunk : chunks)
+        chunk.applyToStream();
+      for (AbstractDataPlotter data : dataMap.values())
+        adjustRangeAxisBounds(data);
+    }
   }
 
   /**
@@ -445,17 +506,17 @@ public class StreamDataThread
     if (chart.equalsIgnoreCase(GraphDefs.A_CHART_NAME))
     {
       chartDataA[abstractDataPlotter.getStreamIndex()] = abstractDataPlotter;
-      abstractDataPlotter.getStreamDataset().addSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(true);
     }
     else if (chart.equalsIgnoreCase(GraphDefs.B_CHART_NAME))
     {
       chartDataB[abstractDataPlotter.getStreamIndex()] = abstractDataPlotter;
-      abstractDataPlotter.getStreamDataset().addSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(true);
     }
     else if (chart.equalsIgnoreCase(GraphDefs.C_CHART_NAME))
     {
       chartDataC[abstractDataPlotter.getStreamIndex()] = abstractDataPlotter;
-      abstractDataPlotter.getStreamDataset().addSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(true);
     }
   }
 
@@ -472,20 +533,28 @@ public class StreamDataThread
     if (chart.equalsIgnoreCase(GraphDefs.A_CHART_NAME))
     {
       chartDataA[abstractDataPlotter.getStreamIndex()] = null;
-      abstractDataPlotter.getStreamDataset().removeSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(false);
     }
     else if (chart.equalsIgnoreCase(GraphDefs.B_CHART_NAME))
     {
       chartDataB[abstractDataPlotter.getStreamIndex()] = null;
-      abstractDataPlotter.getStreamDataset().removeSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(false);
     }
     else if (chart.equalsIgnoreCase(GraphDefs.C_CHART_NAME))
     {
       chartDataC[abstractDataPlotter.getStreamIndex()] = null;
-      abstractDataPlotter.getStreamDataset().removeSeries(abstractDataPlotter.getStreamSeries());
+      abstractDataPlotter.getStreamDataset().setSeriesVisible(false);
     }
   }
 
+  @Override
+  public void archiveDataReceived(DmpDataExtended dmpData)
+  {
+    long start = System.nanoTime();
+    addNewData(dmpData);
+    updateLatency.recordSince(start);
+  }
+
   /**
    * Method to add a new data record to the graph's data set.
    *
@@ -620,28 +689,39 @@ public class StreamDataThread
   /**
    * Method to add the last 7 days worth of data to the trace.  The data is read from the database reader.
    *
+   * @param chunk The chunk the points are added to.
    * @param startTimeMillis The start time in milliseconds since epoch.
    * @param year The year data to read.
    * @param month The month data to read.
    */
-  private void addData(long startTimeMillis, int year, int month)
+  private void addData(DataChunk chunk, long startTimeMillis, int year, int month)
   {
-    // First read and calculate the evapotranspiration data as it uses the dbReader and would
-    // interfere with the code below.
-    EvapotransRecord evapotransData = dbReader.getEvapotransData(LocalDateTime.now());
-
-    // Read a months worth of data.
-    try
+    synchronized (dbReader)
     {
-      dbReader.readData(year, month, null);
-      dbReader.reset();
-    }
-    catch (IOException e)
-    {
-      logger.logData("Stream Data: addData: Unable to read data: " + e.getLocalizedMessage());
-      return;
+      // Read a months worth of data.
+      try
+      {
+        dbReader.readData(year, month, null);
+        dbReader.reset();
+      }
+      catch (IOException e)
+      {
+        logger.logData("Stream Data: addData: Unable to read data: " + e.getLocalizedMessage());
+        return;
+      }
+
+      addRecords(chunk, startTimeMillis);
     }
+  }
 
+  /**
+   * Internal method to add the points of the weather records just read to the chunk.
+   *
+   * @param chunk The chunk the points are added to.
+   * @param startTimeMillis The start time in milliseconds since epoch.
+   */
+  private void addRecords(DataChunk chunk, long startTimeMillis)
+  {
     // Loop through each data record.
     DataFileRecord nextRecord = dbReader.getNextRecord();
     while (nextRecord != null)
@@ -660,93 +740,67 @@ public class StreamDataThread
         {
           if (data.getInsideTempNative() != DatabaseCommon.UNDEFINED_SHORT_VALUE)
           {
-            boolean addToTrace = !inTempData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            inTempData.addToStreamDataset(addToTrace, date, data.getInsideTemp());
+            chunk.addDatasetPoint(inTempData, date, data.getInsideTemp());
           }
 
           if (data.getOutsideTempNative() != DatabaseCommon.UNDEFINED_SHORT_VALUE)
           {
-            boolean addToTrace = !outTempData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            outTempData.addToStreamDataset(addToTrace, date, data.getOutsideTemp());
+            chunk.addDatasetPoint(outTempData, date, data.getOutsideTemp());
           }
 
           if (data.getSoilTemp1Native() != DatabaseCommon.UNDEFINED_BYTE_VALUE)
           {
-            boolean addToTrace = !greenhouseTempData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            greenhouseTempData.addToStreamDataset(addToTrace, date, data.getSoilTemp1());
+            chunk.addDatasetPoint(greenhouseTempData, date, data.getSoilTemp1());
           }
 
           if (data.getInsideHumidityNative() != DatabaseCommon.UNDEFINED_SHORT_VALUE)
           {
-            boolean addToTrace = !inHumidData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            inHumidData.addToStreamDataset(addToTrace, date, data.getInsideHumidity());
+            chunk.addDatasetPoint(inHumidData, date, data.getInsideHumidity());
           }
 
           if (data.getOutsideHumidityNative() != DatabaseCommon.UNDEFINED_SHORT_VALUE)
           {
-            boolean addToTrace = !outHumidData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            outHumidData.addToStreamDataset(addToTrace, date, data.getOutsideHumidity());
+            chunk.addDatasetPoint(outHumidData, date, data.getOutsideHumidity());
           }
 
-          boolean addToRainTrace = !rainData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          rainData.addToStreamDataset(addToRainTrace, date, data.getRainfall());
-
-          boolean addToIssTrace = !issReceptionData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          issReceptionData.addToStreamDataset(addToIssTrace, date, data.getNumOfWindSamples());
-
-          boolean addToWindSpeedTrace = !windSpeedData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          windSpeedData.addToStreamDataset(addToWindSpeedTrace, date, data.getAverageWindSpeed());
-
-          boolean addToSolarTrace = !solarData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          solarData.addToStreamDataset(addToSolarTrace, date, data.getSolarRadiation());
-
-          boolean addToEtTrace = !etData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          etData.addToStreamDataset(addToEtTrace, date, data.getEt());
+          chunk.addDatasetPoint(rainData, date, data.getRainfall());
+          chunk.addDatasetPoint(issReceptionData, date, data.getNumOfWindSamples());
+          chunk.addDatasetPoint(windSpeedData, date, data.getAverageWindSpeed());
+          chunk.addDatasetPoint(solarData, date, data.getSolarRadiation());
+          chunk.addDatasetPoint(etData, date, data.getEt());
 
           if (data.getPressureNative() != DatabaseCommon.UNDEFINED_SHORT_VALUE)
           {
-            boolean addToTrace = !pressureData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            pressureData.addToStreamDataset(addToTrace, date, data.getPressure());
+            chunk.addDatasetPoint(pressureData, date, data.getPressure());
           }
 
           // Wind direction can be 0xFF which means no valid data.
           byte windDirectionByte = data.getWindDirectionNative();
           if (windDirectionByte != -1)
           {
-            boolean addToTrace = !windDirectionData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-            windDirectionData.addToStreamDataset(addToTrace, date, windDirectionByte);
+            chunk.addDatasetPoint(windDirectionData, date, windDirectionByte);
           }
 
           float windChill = Calculations.calculateWindChill(data.getOutsideTemp(), data.getAverageWindSpeed());
-          boolean addToWindChillTrace = !windChillData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          windChillData.addToStreamDataset(addToWindChillTrace, date, windChill);
+          chunk.addDatasetPoint(windChillData, date, windChill);
 
           float dewPoint = Calculations.calculateDewPoint(data.getOutsideTemp(), data.getOutsideHumidity());
-          boolean addToDewPointTrace = !dewPointData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          dewPointData.addToStreamDataset(addToDewPointTrace, date, dewPoint);
+          chunk.addDatasetPoint(dewPointData, date, dewPoint);
 
           float heatIndex = Calculations.calculateHeatIndex(data.getOutsideTemp(), data.getOutsideHumidity());
-          boolean addToHeatIndexTrace = !heatIndexData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          heatIndexData.addToStreamDataset(addToHeatIndexTrace, date, heatIndex);
+          chunk.addDatasetPoint(heatIndexData, date, heatIndex);
 
           float thwValue = Calculations.calculateTHW(data.getOutsideTemp(), data.getAverageWindSpeed(),
                                                      data.getOutsideHumidity());
-          boolean addToThwTrace = !thwData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          thwData.addToStreamDataset(addToThwTrace, date, thwValue);
+          chunk.addDatasetPoint(thwData, date, thwValue);
 
           float thswValue = Calculations.calculateTHSW(data.getOutsideTemp(), data.getAverageWindSpeed(),
                                                      data.getOutsideHumidity(), data.getSolarRadiation());
-          boolean addToThswTrace = !thswData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          thswData.addToStreamDataset(addToThswTrace, date, thswValue);
-
-          boolean addToHeatDDTrace = !heatDDData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          heatDDData.addToStreamDataset(addToHeatDDTrace, date, data.getHeatDD());
-
-          boolean addToCoolDDTrace = !coolDDData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          coolDDData.addToStreamDataset(addToCoolDDTrace, date, data.getCoolDD());
+          chunk.addDatasetPoint(thswData, date, thswValue);
 
-          boolean addToWindRunTrace = !windRunData.getChart().equalsIgnoreCase(GraphDefs.NONE);
-          windRunData.addToStreamDataset(addToWindRunTrace, date, data.getWindRunTotal());
+          chunk.addDatasetPoint(heatDDData, date, data.getHeatDD());
+          chunk.addDatasetPoint(coolDDData, date, data.getCoolDD());
+          chunk.addDatasetPoint(windRunData, date, data.getWindRunTotal());
         }
       }
       nextRecord = dbReader.getNextRecord();
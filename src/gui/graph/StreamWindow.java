@@ -11,6 +11,7 @@
             data with the current values being added on to the end.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Cancel any data load in progress when the duration changes.
 */
 package gui.graph;
 
@@ -717,6 +718,8 @@ public class StreamWindow extends JFrame implements ActionListener
    */
   private void changeDatasetSize(int size)
   {
+    dataThread.cancelLoading();
+
     dataThread.setDatasetSize(GraphDefs.INTEMP_STRING, size);
     dataThread.setDatasetSize(GraphDefs.INHUMID_STRING, size);
     dataThread.setDatasetSize(GraphDefs.GREENHOUSE_TEMP_STRING, size);
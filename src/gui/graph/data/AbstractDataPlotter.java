@@ -12,11 +12,14 @@
             color and stroke of the line on the graph for this data set.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added methods to add a block of points with one change event.
+            10/19/26  Keep the stream points in a fixed size StreamDataset.
 */
 package gui.graph.data;
 
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.general.SeriesException;
 import org.jfree.data.time.Millisecond;
 import org.jfree.data.time.TimeSeries;
 import org.jfree.data.time.TimeSeriesCollection;
@@ -26,6 +29,7 @@ import util.ConfigProperties;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class AbstractDataPlotter
 {
@@ -44,9 +48,8 @@ public class AbstractDataPlotter
   public float lineWidth = 0.5f;
 
   // Items used for the stream chart
-  private TimeSeriesCollection streamDataset;
+  private StreamDataset streamDataset;
   private final XYLineAndShapeRenderer streamRenderer = new XYLineAndShapeRenderer();
-  private TimeSeries streamSeries;
 
   // Items used for the graph chart
   private TimeSeriesCollection graphDataset;
@@ -54,7 +57,6 @@ public class AbstractDataPlotter
   private TimeSeries graphSeries;
 
   // Save the original points.  This is due to the scaling that goes on in the series data.
-  private final ArrayList<TimeSeriesDataItem> streamList = new ArrayList<>();
   private final ArrayList<TimeSeriesDataItem> graphList = new ArrayList<>();
 
   static final ConfigProperties PROPS = ConfigProperties.instance();
@@ -92,9 +94,7 @@ public class AbstractDataPlotter
     this.maxFixed = maxFixed;
     this.maxDelta = maxDelta;
 
-    streamSeries = new TimeSeries(name);
-    streamSeries.setMaximumItemCount(dataSize);
-    streamDataset = new TimeSeriesCollection(streamSeries);
+    streamDataset = new StreamDataset(name, dataSize);
 
     configureStreamRenderer(lineWidth, color);
 
@@ -166,12 +166,7 @@ public class AbstractDataPlotter
     this.graphDisplayed = graphDisplayed;
   }
 
-  public TimeSeries getStreamSeries()
-  {
-    return streamSeries;
-  }
-
-  public TimeSeriesCollection getStreamDataset()
+  public StreamDataset getStreamDataset()
   {
     return streamDataset;
   }
@@ -207,18 +202,17 @@ public class AbstractDataPlotter
   }
 
   /**
-   * Method to change the streamDataset being streamDisplayed.
+   * Method to change the streamDataset being streamDisplayed.  The points held are removed.
    *
    * @param datasize The side of the data to display.
    */
   public void changeStreamDataSetSize(int datasize)
   {
-    streamSeries.setMaximumItemCount(datasize);
+    streamDataset.setCapacity(datasize);
   }
 
   /**
-   * Method to add a point to the streamDataset.  The data is kept in a JChart2D series object and a linked streamList.
-   * The linked streamList contains the original data.  The series data is scaled for display.
+   * Method to add a point to the streamDataset.  Once the dataset is full each new point replaces the oldest one.
    *
    * @param addToTrace Whether or not to add to the series.
    * @param date The date in milliseconds since epoch.
@@ -226,12 +220,26 @@ public class AbstractDataPlotter
    */
   public void addToStreamDataset(boolean addToTrace, Date date, float datum)
   {
-    Millisecond time = new Millisecond(date);
-    TimeSeriesDataItem newPoint = new TimeSeriesDataItem(time, datum);
-    streamList.add(newPoint);
     if (addToTrace)
     {
-      streamSeries.addOrUpdate(newPoint);
+      streamDataset.add(date.getTime(), datum);
+    }
+  }
+
+  /**
+   * Method to add a block of points to the streamDataset.  The dataset is only notified once, after all the points
+   * are added, so the chart is redrawn once per block rather than once per point.
+   *
+   * @param addToTrace Whether or not to add to the series.
+   * @param points The points to add.
+   */
+  public void addToStreamDataset(boolean addToTrace, List<TimeSeriesDataItem> points)
+  {
+    if (addToTrace)
+    {
+      for (TimeSeriesDataItem nextPoint : points)
+        streamDataset.add(nextPoint.getPeriod().getFirstMillisecond(), nextPoint.getValue().floatValue(), false);
+      streamDataset.notifyChanged();
     }
   }
 
@@ -244,9 +252,9 @@ public class AbstractDataPlotter
   {
     if (minFixed != null)
     {
-      if (streamSeries.getMinY() < minFixed)
+      if (streamDataset.getMinY() < minFixed)
       {
-        return streamSeries.getMinY();
+        return streamDataset.getMinY();
       }
       else
       {
@@ -254,9 +262,9 @@ public class AbstractDataPlotter
       }
     }
     else if (minDelta != null)
-      return streamSeries.getMinY() - minDelta;
+      return streamDataset.getMinY() - minDelta;
     else
-      return streamSeries.getMinY();
+      return streamDataset.getMinY();
   }
 
   /**
@@ -268,9 +276,9 @@ public class AbstractDataPlotter
   {
     if (maxFixed != null)
     {
-      if (streamSeries.getMaxY() > maxFixed)
+      if (streamDataset.getMaxY() > maxFixed)
       {
-        return streamSeries.getMaxY();
+        return streamDataset.getMaxY();
       }
       else
       {
@@ -278,19 +286,14 @@ public class AbstractDataPlotter
       }
     }
     else if (maxDelta != null)
-      return streamSeries.getMaxY() + maxDelta;
+      return streamDataset.getMaxY() + maxDelta;
     else
-      return streamSeries.getMaxY();
+      return streamDataset.getMaxY();
   }
 
   public void eraseStreamSeriesData()
   {
-    streamSeries.clear();
-  }
-
-  public void eraseStreamListData()
-  {
-    streamList.clear();
+    streamDataset.clear();
   }
 
   /**
@@ -322,6 +325,48 @@ public class AbstractDataPlotter
     }
   }
 
+  /**
+   * Method to add a block of points to the graphDataset.  The series is only notified once, after all the points
+   * are added.
+   *
+   * @param addToTrace Whether or not to add to the series.
+   * @param points The points to add.
+   */
+  public void addToGraphDataset(boolean addToTrace, List<TimeSeriesDataItem> points)
+  {
+    graphList.addAll(points);
+    if (addToTrace)
+    {
+      graphSeries.setNotify(false);
+      for (TimeSeriesDataItem nextPoint : points)
+        graphSeries.addOrUpdate(nextPoint);
+      graphSeries.setNotify(true);
+    }
+  }
+
+  /**
+   * Method to add a block of points directly to the graph series, without keeping the original points.  A point
+   * for a time already in the series is skipped.  The series is only notified once, after all the points are added.
+   *
+   * @param points The points to add.
+   */
+  public void addToGraphSeries(List<TimeSeriesDataItem> points)
+  {
+    graphSeries.setNotify(false);
+    for (TimeSeriesDataItem nextPoint : points)
+    {
+      try
+      {
+        graphSeries.add(nextPoint, false);
+      }
+      catch (SeriesException e)
+      {
+        // Duplicate time, keep the first value.
+      }
+    }
+    graphSeries.setNotify(true);
+  }
+
   /**
    * Method to get the minimum Y value of the current data set.
    *
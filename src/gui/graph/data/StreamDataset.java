@@ -0,0 +1,355 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is the dataset of one stream chart trace.  The points
+            are kept in fixed size ring buffers of times and values, so adding
+            a point and dropping the oldest point take constant time and no
+            object is created per point.  The memory of the stream window stays
+            the same however long the station runs.  The points are kept in
+            time order, the x value being the time in milliseconds since epoch.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package gui.graph.data;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.xy.AbstractXYDataset;
+
+public class StreamDataset extends AbstractXYDataset implements DomainInfo
+{
+  private final Comparable<?> seriesKey;
+  private long[] times;
+  private float[] values;
+  private int first = 0;
+  private int count = 0;
+  private boolean visible = true;
+
+  // The range of the values, recomputed when needed after the points change.
+  private boolean rangeValid = false;
+  private double minY = Double.NaN;
+  private double maxY = Double.NaN;
+
+  /**
+   * Constructor.
+   *
+   * @param seriesKey The key of the one series.
+   * @param capacity The most points kept.
+   */
+  public StreamDataset(Comparable<?> seriesKey, int capacity)
+  {
+    this.seriesKey = seriesKey;
+    allocate(capacity);
+  }
+
+  /**
+   * Internal method to allocate the buffers.
+   *
+   * @param capacity The most points kept.
+   */
+  private void allocate(int capacity)
+  {
+    times = new long[Math.max(1, capacity)];
+    values = new float[times.length];
+    first = 0;
+    count = 0;
+    rangeValid = false;
+  }
+
+  /**
+   * Method to change the most points kept.  The points are removed.
+   *
+   * @param capacity The most points kept.
+   */
+  public void setCapacity(int capacity)
+  {
+    allocate(capacity);
+    fireDatasetChanged();
+  }
+
+  /**
+   * Method to get the most points kept.
+   *
+   * @return The capacity.
+   */
+  public int getCapacity()
+  {
+    return times.length;
+  }
+
+  /**
+   * Method to remove all the points.
+   */
+  public void clear()
+  {
+    first = 0;
+    count = 0;
+    rangeValid = false;
+    fireDatasetChanged();
+  }
+
+  /**
+   * Method to add a point and notify the chart.
+   *
+   * @param time The time in milliseconds since epoch.
+   * @param value The value.
+   */
+  public void add(long time, float value)
+  {
+    add(time, value, true);
+  }
+
+  /**
+   * Method to add a point.  When the buffer is full the oldest point is dropped.  A point for a time already held
+   * replaces the value, the same as TimeSeries.addOrUpdate.  Points normally arrive in time order, a point older
+   * than the newest one is moved into place, and one older than all the points of a full buffer is dropped.
+   *
+   * @param time The time in milliseconds since epoch.
+   * @param value The value.
+   * @param notify Whether to notify the chart.
+   */
+  public void add(long time, float value, boolean notify)
+  {
+    if (count == 0 || time > times[index(count - 1)])
+    {
+      if (count == times.length)
+      {
+        first = index(1);
+        count--;
+      }
+      times[index(count)] = time;
+      values[index(count)] = value;
+      count++;
+    }
+    else
+    {
+      insert(time, value);
+    }
+
+    rangeValid = false;
+    if (notify)
+      fireDatasetChanged();
+  }
+
+  /**
+   * Internal method to add a point that is not newer than all the points.
+   *
+   * @param time The time in milliseconds since epoch.
+   * @param value The value.
+   */
+  private void insert(long time, float value)
+  {
+    // Find the first point at or after the time.
+    int low = 0;
+    int high = count;
+    while (low < high)
+    {
+      int middle = (low + high) >>> 1;
+      if (times[index(middle)] < time)
+        low = middle + 1;
+      else
+        high = middle;
+    }
+
+    if (low < count && times[index(low)] == time)
+    {
+      values[index(low)] = value;
+      return;
+    }
+
+    if (count == times.length)
+    {
+      if (low == 0)
+        return;
+
+      // Drop the oldest point to make room.
+      first = index(1);
+      count--;
+      low--;
+    }
+
+    for (int i = count; i > low; i--)
+    {
+      times[index(i)] = times[index(i - 1)];
+      values[index(i)] = values[index(i - 1)];
+    }
+    times[index(low)] = time;
+    values[index(low)] = value;
+    count++;
+  }
+
+  /**
+   * Internal method to convert a point number to a buffer index.
+   *
+   * @param item The point number, zero being the oldest.
+   * @return The buffer index.
+   */
+  private int index(int item)
+  {
+    int index = first + item;
+    return index < times.length ? index : index - times.length;
+  }
+
+  /**
+   * Method to show or hide the series.  A hidden series keeps its points.
+   *
+   * @param visible Whether the series is shown.
+   */
+  public void setSeriesVisible(boolean visible)
+  {
+    if (this.visible != visible)
+    {
+      this.visible = visible;
+      fireDatasetChanged();
+    }
+  }
+
+  /**
+   * Method to notify the chart after points were added without notifying.
+   */
+  public void notifyChanged()
+  {
+    fireDatasetChanged();
+  }
+
+  /**
+   * Method to get the lowest value held.
+   *
+   * @return The lowest value or NaN when there are no points.
+   */
+  public double getMinY()
+  {
+    updateRange();
+    return minY;
+  }
+
+  /**
+   * Method to get the highest value held.
+   *
+   * @return The highest value or NaN when there are no points.
+   */
+  public double getMaxY()
+  {
+    updateRange();
+    return maxY;
+  }
+
+  /**
+   * Internal method to find the range of the values if the points have changed.
+   */
+  private void updateRange()
+  {
+    if (rangeValid)
+      return;
+
+    float min = Float.NaN;
+    float max = Float.NaN;
+    for (int i = 0; i < count; i++)
+    {
+      float value = values[index(i)];
+      if (Float.isNaN(value))
+        continue;
+      if (!(value >= min))
+        min = value;
+      if (!(value <= max))
+        max = value;
+    }
+    minY = min;
+    maxY = max;
+    rangeValid = true;
+  }
+
+  @Override
+  public int getSeriesCount()
+  {
+    return visible ? 1 : 0;
+  }
+
+  @Override
+  public Comparable getSeriesKey(int series)
+  {
+    return seriesKey;
+  }
+
+  @Override
+  public DomainOrder getDomainOrder()
+  {
+    return DomainOrder.ASCENDING;
+  }
+
+  @Override
+  public int getItemCount(int series)
+  {
+    return count;
+  }
+
+  @Override
+  public Number getX(int series, int item)
+  {
+    return getXValue(series, item);
+  }
+
+  @Override
+  public double getXValue(int series, int item)
+  {
+    return times[index(item)];
+  }
+
+  @Override
+  public Number getY(int series, int item)
+  {
+    return getYValue(series, item);
+  }
+
+  @Override
+  public double getYValue(int series, int item)
+  {
+    return values[index(item)];
+  }
+
+  @Override
+  public double getDomainLowerBound(boolean includeInterval)
+  {
+    return visible && count > 0 ? times[index(0)] : Double.NaN;
+  }
+
+  @Override
+  public double getDomainUpperBound(boolean includeInterval)
+  {
+    return visible && count > 0 ? times[index(count - 1)] : Double.NaN;
+  }
+
+  @Override
+  public Range getDomainBounds(boolean includeInterval)
+  {
+    return visible && count > 0 ? new Range(times[index(0)], times[index(count - 1)]) : null;
+  }
+
+  /**
+   * Method used to test the class.
+   *
+   * @param args Not used.
+   */
+  public static void main(String[] args)
+  {
+    StreamDataset dataset = new StreamDataset("test", 4);
+    for (int i = 1; i <= 10; i++)
+      dataset.add(i * 10, i);
+    dataset.add(80, 8.5f);   // replace
+    dataset.add(75, 7.5f);   // insert, dropping 70
+    dataset.add(20, 2);      // older than everything in a full buffer
+    StringBuilder points = new StringBuilder();
+    for (int i = 0; i < dataset.getItemCount(0); i++)
+      points.append(' ').append((long)dataset.getXValue(0, i)).append('=').append(dataset.getYValue(0, i));
+    System.out.println("Points:" + points);
+    System.out.println("Expected: 75=7.5 80=8.5 90=9.0 100=10.0");
+    System.out.println("Range: " + dataset.getMinY() + " to " + dataset.getMaxY());
+  }
+}
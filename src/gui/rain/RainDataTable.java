@@ -10,6 +10,7 @@
   Purpose:	This class builds and displays the rain data table.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Use a database reader of its own.
 */
 package gui.rain;
 
@@ -65,8 +66,9 @@ public class RainDataTable extends JPanel
     super(new GridLayout(1, 0));
 
     // Populate the datasets.
-    DatabaseReader.getInstance().readRainData();
-    HashMap<Long, Float> monthlyBins = DatabaseReader.getInstance().getMonthlyRainData();
+    DatabaseReader databaseReader = new DatabaseReader();
+    databaseReader.readRainData();
+    HashMap<Long, Float> monthlyBins = databaseReader.getMonthlyRainData();
 
     // Sort the keys
     Map<Long, Float> sortedBins =
@@ -10,6 +10,7 @@
   Purpose:	This class charts the rain data.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Use a database reader of its own, locked while the rain bins are read.
 */
 package gui.rain;
 
@@ -39,7 +40,7 @@ public class RainDataThread
 {
   private ChartPanel chartPanel;
 
-  private final DatabaseReader databaseReader = DatabaseReader.getInstance();
+  private final DatabaseReader databaseReader = new DatabaseReader();
   private DefaultCategoryDataset stackedDataset = new DefaultCategoryDataset();
   private DefaultCategoryDataset barDataset = new DefaultCategoryDataset();
 
@@ -116,9 +117,14 @@ public class RainDataThread
    */
   private void loadData()
   {
-    databaseReader.readRainData();
-    HashMap<Long, Float> yearlyRainData = databaseReader.getYearlyRainData();
-    HashMap<Long, Float> monthlyRainData = databaseReader.getMonthlyRainData();
+    HashMap<Long, Float> yearlyRainData;
+    HashMap<Long, Float> monthlyRainData;
+    synchronized (databaseReader)
+    {
+      databaseReader.readRainData();
+      yearlyRainData = new HashMap<>(databaseReader.getYearlyRainData());
+      monthlyRainData = new HashMap<>(databaseReader.getMonthlyRainData());
+    }
 
     // Convert the time values to string values for plots.
     for (Map.Entry<Long, Float> entry : yearlyRainData.entrySet())
@@ -232,8 +238,12 @@ public class RainDataThread
       sb.append("Amount");
       sb.append('\n');
 
-      databaseReader.readRainData();
-      HashMap<Long, Float> monthlyRainData = databaseReader.getMonthlyRainData();
+      HashMap<Long, Float> monthlyRainData;
+      synchronized (databaseReader)
+      {
+        databaseReader.readRainData();
+        monthlyRainData = new HashMap<>(databaseReader.getMonthlyRainData());
+      }
 
       for (Map.Entry<Long, Float> entry : monthlyRainData.entrySet())
       {
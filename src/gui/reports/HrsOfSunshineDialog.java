@@ -11,6 +11,7 @@
             input the start and end date along with the threshold value.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Allowed several thresholds to be compared.
 */
 package gui.reports;
 
@@ -51,7 +52,7 @@ public class HrsOfSunshineDialog extends JDialog implements ActionListener
 
     JLabel startLabel = new JLabel("Start Date:  ", JLabel.RIGHT);
     JLabel endLabel = new JLabel("End Date:  ", JLabel.RIGHT);
-    JLabel solarRadLabel = new JLabel("Solar Rad Threshold: ", JLabel.RIGHT);
+    JLabel solarRadLabel = new JLabel("Solar Rad Threshold(s): ", JLabel.RIGHT);
 
     JTextField startField = new JTextField();
     JTextField endField = new JTextField();
@@ -130,8 +131,15 @@ public class HrsOfSunshineDialog extends JDialog implements ActionListener
     {
       LocalDate startDate = startDateModel.getValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
       LocalDate endDate = endDateModel.getValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-      parent.displayHrsOfSunshineWindow(startDate, endDate, Integer.valueOf(solarRadField.getText()));
-      setVisible(false);
+      try
+      {
+        parent.displayHrsOfSunshineWindow(startDate, endDate, getSolarRadThresholds());
+        setVisible(false);
+      }
+      catch (NumberFormatException nfe)
+      {
+        JOptionPane.showMessageDialog(this, "Thresholds must be whole numbers separated by commas.");
+      }
     }
     else if (e.getActionCommand().equalsIgnoreCase(CANCEL_STRING))
     {
@@ -149,8 +157,21 @@ public class HrsOfSunshineDialog extends JDialog implements ActionListener
     return endDateModel.getValue();
   }
 
-  public int getSolarRadThreshold()
+  /**
+   * Method to get the solar radiation thresholds.  Several thresholds can be entered separated by commas to compare
+   * them side by side, i.e. "100, 200, 300".
+   *
+   * @return The thresholds.
+   * @throws NumberFormatException A threshold is not a number or none were entered.
+   */
+  public int[] getSolarRadThresholds()
   {
-    return Integer.valueOf(solarRadField.getText());
+    String[] fields = solarRadField.getText().split(",");
+    int[] thresholds = new int[fields.length];
+    for (int i = 0; i < fields.length; i++)
+    {
+      thresholds[i] = Integer.parseInt(fields[i].trim());
+    }
+    return thresholds;
   }
 }
@@ -10,13 +10,13 @@
   Purpose:	This class displays the hours of sunshine table.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Read from the solar rollup index, added multiple thresholds.
+            10/19/26 Build the report on a worker thread.
 */
 package gui.reports;
 
-import data.dbrecord.DailySummary1Record;
-import data.dbrecord.DataFileRecord;
-import data.dbrecord.WeatherRecord;
-import dbif.DatabaseReader;
+import dbif.DatabaseCommon;
+import dbif.SunshineIndex;
 import util.ConfigProperties;
 import util.Logger;
 
@@ -29,23 +29,18 @@ import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ExecutionException;
 
 public class HrsOfSunshineTable extends JPanel
 {
   private static final JFrame FRAME = new JFrame("Hours of Sunshine Data Table");
   private static final ConfigProperties PROPS = ConfigProperties.instance();
-  private final Logger logger = Logger.getInstance();
-
-  private static final String[] columnNames =
-    {"Date",
-     "Hrs Sunlight"
-    };
 
   private static final String FILENAME = "HrsOfSunshineReport.txt";
   private static final String HEADER1_FILE  = "\n    Hours Of Bright Sunshine Report";
   private static final String HEADER2_FILE  = "    -------------------------------\n";
 
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private static final SunshineIndex sunshineIndex = SunshineIndex.getInstance();
 
   /**
    * Calculate the data and generate the reports, both the data for a JPanel and a txt file.
@@ -55,11 +50,120 @@ public class HrsOfSunshineTable extends JPanel
    * @param threshold The threshold of solar radiation, below which is not considered sunny.
    */
   public HrsOfSunshineTable(LocalDate startDate, LocalDate endDate, int threshold)
+  {
+    this(startDate, endDate, new int[] {threshold});
+  }
+
+  /**
+   * Calculate the data and generate the reports, both the data for a JPanel and a txt file.  Each threshold is
+   * reported in its own column.  The values come from the solar rollup index, so no 5 minute records are read.
+   *
+   * @param startDate  The date to start the reporting.
+   * @param endDate    The date to end the reporting.
+   * @param thresholds The thresholds of solar radiation, below which is not considered sunny.
+   */
+  public HrsOfSunshineTable(LocalDate startDate, LocalDate endDate, int[] thresholds)
+  {
+    this(getColumnNames(thresholds), generateReport(startDate, endDate, thresholds));
+  }
+
+  /**
+   * Create the JPanel from report data that was already generated.
+   *
+   * @param columnNames The names of the table columns.
+   * @param tableData   The table rows.
+   */
+  private HrsOfSunshineTable(String[] columnNames, Object[][] tableData)
   {
     super(new GridLayout(1, 0));
 
+    int numOfColumns = columnNames.length;
+    DefaultTableModel tableModel = new DefaultTableModel(tableData, columnNames);
+    JTable table = new JTable(tableModel);
+    table.setPreferredScrollableViewportSize(new Dimension(500, 70));
+    table.setGridColor(Color.LIGHT_GRAY);
+    table.setShowHorizontalLines(true);
+    table.setShowVerticalLines(true);
+    ((DefaultTableCellRenderer)table.getTableHeader().getDefaultRenderer()).setHorizontalAlignment(JLabel.CENTER);
+    table.getColumnModel().getColumn(0).setPreferredWidth(44);
+
+    // Center justify the columns.
+    DefaultTableCellRenderer cellRenderer = new DefaultTableCellRenderer();
+    cellRenderer.setHorizontalAlignment(JLabel.CENTER);
+    for (int i = 0; i < numOfColumns; i++)
+    {
+      table.getColumnModel().getColumn(i).setCellRenderer(cellRenderer);
+    }
+
+    //Create the scroll pane and add the table to it.
+    JScrollPane scrollPane = new JScrollPane(table);
+
+    //Add the scroll pane to this panel.
+    add(scrollPane);
+  }
+
+  /**
+   * Method to generate the report on a worker thread and show it once it is done.  The first query may have to wait
+   * for the solar rollup index to load, which must not hold up the event dispatch thread.
+   *
+   * @param startDate  The date to start the reporting.
+   * @param endDate    The date to end the reporting.
+   * @param thresholds The thresholds of solar radiation, below which is not considered sunny.
+   */
+  public static void createAndShowGUI(LocalDate startDate, LocalDate endDate, int[] thresholds)
+  {
+    new SwingWorker<Object[][], Void>()
+    {
+      @Override
+      protected Object[][] doInBackground()
+      {
+        return generateReport(startDate, endDate, thresholds);
+      }
+
+      @Override
+      protected void done()
+      {
+        try
+        {
+          createAndShowGUI(new HrsOfSunshineTable(getColumnNames(thresholds), get()));
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+          Logger.getInstance().logData("HrsOfSunshineTable: unable to generate the report: " + e.getMessage());
+        }
+      }
+    }.execute();
+  }
+
+  /**
+   * Method to get the table column names, a date column and one column per threshold.
+   *
+   * @param thresholds The thresholds of solar radiation.
+   * @return The column names.
+   */
+  private static String[] getColumnNames(int[] thresholds)
+  {
+    String[] columnNames = new String[thresholds.length + 1];
+    columnNames[0] = "Date";
+    for (int i = 0; i < thresholds.length; i++)
+    {
+      columnNames[i + 1] = thresholds.length == 1 ? "Hrs Sunlight" : "Hrs >= " + thresholds[i];
+    }
+    return columnNames;
+  }
+
+  /**
+   * Method to calculate the data, writing the txt file report and returning the rows for the table.
+   *
+   * @param startDate  The date to start the reporting.
+   * @param endDate    The date to end the reporting.
+   * @param thresholds The thresholds of solar radiation, below which is not considered sunny.
+   * @return The table rows.
+   */
+  private static Object[][] generateReport(LocalDate startDate, LocalDate endDate, int[] thresholds)
+  {
     int daysBetween = (int) ChronoUnit.DAYS.between(startDate, endDate);
-    Object[][] tableData = new Object[daysBetween + 3][2];
+    Object[][] tableData = new Object[Math.max(daysBetween, 0) + 3][thresholds.length + 1];
 
     File file = new File("reports" + "/" + FILENAME);
     try (PrintWriter writer = new PrintWriter(file.getAbsoluteFile(), "UTF-8"))
@@ -72,178 +176,58 @@ public class HrsOfSunshineTable extends JPanel
       String inputDates = "From " + startDate.format(formatter) + " to " + endDate.format(formatter);
       writer.println(inputDates);
 
-      String inputThreshold = "Threshold: " + threshold + "\n";
-      writer.println(inputThreshold);
-
-      // Read the first month's worth of data.
-      int year = startDate.getYear();
-      int month = startDate.getMonthValue();
-      int nextDay = startDate.getDayOfMonth();
-
-      try
-      {
-        dbReader.readData(year, month, dbReader.getFilename(year, month));
-        dbReader.reset();
-      }
-      catch (IOException e)
+      StringBuilder inputThreshold = new StringBuilder("Threshold:");
+      for (int threshold : thresholds)
       {
-        logger.logData("HrsOfSunshineTable: constructor: Unable to read data: " + e.getLocalizedMessage());
-        return;
+        inputThreshold.append(" ").append(threshold);
       }
+      writer.println(inputThreshold + "\n");
 
-      // Loop through the months extracting data.
-      float totalHourSunshine = 0;
+      // Loop through the days, extracting the hours at every threshold from the day's solar histogram.
+      float[] totalHoursSunshine = new float[thresholds.length];
+      int daysWithData = 0;
       int totalDays = 0;
-      boolean dayFound = false;
-      DataFileRecord nextRecord = dbReader.getNextRecord();
-      while (nextRecord != null)
+      for (LocalDate nextDate = startDate; !nextDate.isAfter(endDate); nextDate = nextDate.plusDays(1))
       {
-        if (nextDay == 1)
-        {
-          // Skip to the first weather record.
-          dbReader.getNextRecord();
-          nextRecord = dbReader.getNextRecord();
-        }
-        else
-        {
-          // Skip records looking for the first day.
-          int day = 0;
-          while (!dayFound && nextRecord != null)
-          {
-            if (nextRecord instanceof DailySummary1Record)
-            {
-              day++;
-              if (day == nextDay)
-              {
-                dayFound = true;
-                // Skip to the first weather record.
-                dbReader.getNextRecord();
-                nextRecord = dbReader.getNextRecord();
-                break;
-              }
-            }
-            nextRecord = dbReader.getNextRecord();
-          }
-        }
+        String dayString = nextDate.format(formatter);
+        StringBuilder nextLine = new StringBuilder("      " + dayString + "    ");
+        tableData[totalDays][0] = dayString;
 
-        float hoursOfSunshine = 0;
-        while (nextRecord != null && nextRecord instanceof WeatherRecord)
+        float[] hoursOfSunshine = sunshineIndex.getHoursOfSunshine(nextDate, thresholds);
+        for (int i = 0; i < thresholds.length; i++)
         {
-          WeatherRecord record = (WeatherRecord) nextRecord;
-          short solarRadiation = record.getSolarRadiation();
-          if (solarRadiation >= threshold)
-          {
-            // This solar rad measure represents 5 minutes, convert to hours.
-            hoursOfSunshine += 5.0 / 60.0;
-          }
-          nextRecord = dbReader.getNextRecord();
-        }
+          String value = hoursOfSunshine == null ?
+            DatabaseCommon.UNDEFINED_STRING_VALUE : String.format("%.2f", hoursOfSunshine[i]);
+          nextLine.append(String.format("%10s", value));
+          tableData[totalDays][i + 1] = value;
 
-        String dayString = padInteger(month) + "/" + padInteger(nextDay) + "/" + year;
-        String nextLine = "      " + dayString + "      " + String.format("%.2f", hoursOfSunshine);
+          if (hoursOfSunshine != null)
+            totalHoursSunshine[i] += hoursOfSunshine[i];
+        }
         writer.println(nextLine);
 
-        tableData[totalDays][0] = dayString;
-        tableData[totalDays][1] = String.format("%.2f", hoursOfSunshine);
-
-        totalHourSunshine += hoursOfSunshine;
-
-        // Skip to the first weather record.
-        dbReader.getNextRecord();
-        nextRecord = dbReader.getNextRecord();
-        nextDay++;
+        if (hoursOfSunshine != null)
+          daysWithData++;
         totalDays++;
-
-        // If end date is reached then stop processing.
-        if (year == endDate.getYear() && month == endDate.getMonthValue() && nextDay == (endDate.getDayOfMonth() + 1))
-        {
-          break;
-        }
-
-        // If not at the end date then read the next months worth of data and keep going.
-        if (nextRecord == null)
-        {
-          if (month == 12)
-          {
-            month = 1;
-            year++;
-          }
-          else
-          {
-            month++;
-          }
-          nextDay = 1;
-
-          if (year <= endDate.getYear() && month <= endDate.getMonthValue())
-          {
-            try
-            {
-              dbReader.readData(year, month, dbReader.getFilename(year, month));
-              dbReader.reset();
-            }
-            catch (IOException e)
-            {
-              logger.logData("HrsOfSunshineTable: constructor: Unable to read data: " + e.getLocalizedMessage());
-              return;
-            }
-
-            // Skip to the first weather record.
-            dbReader.getNextRecord();
-            dbReader.getNextRecord();
-            nextRecord = dbReader.getNextRecord();
-          }
-        }
       }
 
-      float avgHoursSunshine = totalHourSunshine / totalDays;
-      String avgHoursString = "\nAverage Hours per Day = " + String.format("%.2f", avgHoursSunshine);
+      StringBuilder avgHoursString = new StringBuilder("\nAverage Hours per Day =");
+      tableData[totalDays + 1][0] = "Avg:";
+      for (int i = 0; i < thresholds.length; i++)
+      {
+        String value = daysWithData == 0 ?
+          DatabaseCommon.UNDEFINED_STRING_VALUE : String.format("%.2f", totalHoursSunshine[i] / daysWithData);
+        avgHoursString.append(" ").append(value);
+        tableData[totalDays + 1][i + 1] = value;
+      }
       writer.println(avgHoursString);
       writer.flush();
-
-      tableData[totalDays + 1][0] = "Avg:";
-      tableData[totalDays + 1][1] = String.format("%.2f", avgHoursSunshine);
     }
     catch (FileNotFoundException | UnsupportedEncodingException e)
     {
       e.printStackTrace();
     }
-
-    DefaultTableModel tableModel = new DefaultTableModel(tableData, columnNames);
-    JTable table = new JTable(tableModel);
-    table.setPreferredScrollableViewportSize(new Dimension(500, 70));
-    table.setGridColor(Color.LIGHT_GRAY);
-    table.setShowHorizontalLines(true);
-    table.setShowVerticalLines(true);
-    ((DefaultTableCellRenderer)table.getTableHeader().getDefaultRenderer()).setHorizontalAlignment(JLabel.CENTER);
-    table.getColumnModel().getColumn(0).setPreferredWidth(44);
-
-    // Center justify the columns.
-    DefaultTableCellRenderer cellRenderer = new DefaultTableCellRenderer();
-    cellRenderer.setHorizontalAlignment(JLabel.CENTER);
-    for (int i = 0; i < 2; i++)
-    {
-      table.getColumnModel().getColumn(i).setCellRenderer(cellRenderer);
-    }
-
-    //Create the scroll pane and add the table to it.
-    JScrollPane scrollPane = new JScrollPane(table);
-
-    //Add the scroll pane to this panel.
-    add(scrollPane);
-  }
-
-  private String padInteger(int value)
-  {
-    String valueString = "";
-    if ((value > 0) && (value < 10))
-    {
-      valueString = "0" + value;
-    }
-    else
-    {
-      valueString = valueString + value;
-    }
-    return valueString;
+    return tableData;
   }
 
   /**
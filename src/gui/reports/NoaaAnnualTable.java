@@ -10,6 +10,7 @@
   Purpose:	This class displays the NOAA Annual table.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Use a database reader of its own.
 */
 package gui.reports;
 
@@ -32,7 +33,7 @@ public class NoaaAnnualTable extends JPanel
 {
   private static final JFrame FRAME = new JFrame();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
   private final DecimalFormat decimalFormat = new DecimalFormat();
   private final DecimalFormat twoDigitFormatter = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
 
@@ -10,6 +10,7 @@
   Purpose:	This class displays the NOAA Monthly table.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Use a database reader of its own.
 */
 package gui.reports;
 
@@ -62,7 +63,7 @@ public class NoaaMonthlyTable extends JPanel
   private static final String TABLE_HEADER4_FILE =
     "------------------------------------------------------------------------------------------------------------";
 
-  private static final DatabaseReader dbReader = DatabaseReader.getInstance();
+  private final DatabaseReader dbReader = new DatabaseReader();
 
   /**
    * Calculate the data and generate the reports, both the data for a JPanel and a txt file.
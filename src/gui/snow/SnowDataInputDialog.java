@@ -10,6 +10,7 @@
   Purpose:	This class displays the snow input dialog box.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Keep the dialog open when the record could not be saved.
 */
 package gui.snow;
 
@@ -108,8 +109,10 @@ class SnowDataInputDialog extends JDialog implements ActionListener
         snowRecord.setDay(Integer.parseInt(dayField.getText()));
         snowRecord.setAmount(Float.parseFloat(valueField.getText()));
 
-        snowDatabase.insertSnowRecord(snowRecord);
-        setVisible(false);
+        if (snowDatabase.insertSnowRecord(snowRecord))
+          setVisible(false);
+        else
+          JOptionPane.showMessageDialog(this, "Unable to save the snow record.");
       }
       catch (NumberFormatException nfe)
       {
@@ -11,6 +11,7 @@
             in modifications to the snow database register interest in this data.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Added modify and delete notifications.
 */
 package gui.snow;
 
@@ -19,4 +20,8 @@ import data.dbrecord.SnowRecord;
 public interface SnowDataListener
 {
   void dataAdded(SnowRecord data);
+
+  default void dataModified(SnowRecord oldData, SnowRecord newData) { }
+
+  default void dataDeleted(SnowRecord data) { }
 }
@@ -13,6 +13,7 @@
             starts in July.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Read the snow data once.
 */
 package gui.snow;
 
@@ -63,11 +64,11 @@ public class SnowDataTable extends JPanel
     super(new GridLayout(1, 0));
 
     // Populate the datasets.
-    HashMap<Long, Float> monthlyBins = getMonthlyData();
+    List<SnowRecord> snowRecords = snowDatabase.readData();
+    HashMap<Long, Float> monthlyBins = getMonthlyData(snowRecords);
 
     int firstYear = 9999;
     int lastYear = 0;
-    List<SnowRecord> snowRecords = snowDatabase.readData();
     for (SnowRecord nextRecord : snowRecords)
     {
       if (nextRecord.getYear() < firstYear)
@@ -308,12 +309,12 @@ public class SnowDataTable extends JPanel
   /**
    * Internal method to get the monthly data amounts.
    *
+   * @param snowRecords The snow records.
    * @return The monthly values; date, amount.
    */
-  private HashMap<Long, Float> getMonthlyData()
+  private HashMap<Long, Float> getMonthlyData(List<SnowRecord> snowRecords)
   {
     HashMap<Long, Float> returnBins = new HashMap<>();
-    List<SnowRecord> snowRecords = snowDatabase.readData();
 
     for (SnowRecord nextRecord: snowRecords)
     {
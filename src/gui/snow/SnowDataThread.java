@@ -10,6 +10,7 @@
   Purpose:	This class charts the snow data.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Maintain the monthly and seasonal bins as the snow data changes.
 */
 package gui.snow;
 
@@ -29,19 +30,24 @@ import org.jfree.chart.renderer.category.StandardBarPainter;
 import org.jfree.data.category.DefaultCategoryDataset;
 
 import java.awt.*;
-import java.util.*;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
-public class SnowDataThread
+public class SnowDataThread implements SnowDataListener
 {
   private ChartPanel chartPanel = null;
   private final SnowDatabase snowDatabase = SnowDatabase.getInstance();
   private DefaultCategoryDataset stackedDataset = new DefaultCategoryDataset();
   private DefaultCategoryDataset barDataset = new DefaultCategoryDataset();
 
-  // Data bins: monthly and yearly.
-  private final HashMap<String, Float> monthlyBins = new HashMap<>(); // time index is by month with a value of the 1st.
-  private final HashMap<String, Float> yearlyBins = new HashMap<>();  // time index is by season with a value of January 1st.
+  private static final int FIRST_PARTIAL_YEAR = 2004;
+
+  // Data bins: monthly and seasonal.  The seasonal bins are keyed by the year the season starts.
+  private final TreeMap<YearMonth, Float> monthlyBins = new TreeMap<>();
+  private final TreeMap<Integer, Float> seasonBins = new TreeMap<>();
+  private boolean binsLoaded = false;
 
   private static class SingletonHelper
   {
@@ -53,7 +59,10 @@ public class SnowDataThread
     return SnowDataThread.SingletonHelper.INSTANCE;
   }
 
-  private SnowDataThread() { }
+  private SnowDataThread()
+  {
+    snowDatabase.addListener(this);
+  }
 
   public ChartPanel getChart()
   {
@@ -109,174 +118,173 @@ public class SnowDataThread
   }
 
   /**
-   * Method to populate the datasets.  This called during initialization and whenever the user selects
-   * another date period to display.
+   * Method to load the monthly and seasonal bins.  This is done once, after which the bins are kept current as the
+   * snow data changes.
    */
   private void loadData()
   {
-    int firstYear = 9999;
-    int lastYear = 0;
+    if (binsLoaded)
+      return;
+    binsLoaded = true;
 
-    // Add the snow data to the monthly bins.
-    List<SnowRecord> records = snowDatabase.readData();
-    for (SnowRecord nextRecord : records)
+    for (SnowRecord nextRecord : snowDatabase.readData())
     {
       int year = nextRecord.getYear();
       int month = nextRecord.getMonth();
 
-      if (year < firstYear)
-        firstYear = year;
+      // Do not graph the first partial year, 2004
+      if (!isGraphed(year, month))
+        continue;
 
-      if (year > lastYear)
-        lastYear = year;
+      monthlyBins.merge(YearMonth.of(year, month), nextRecord.getAmount(), Float::sum);
+      seasonBins.merge(getSeasonStartYear(year, month), nextRecord.getAmount(), Float::sum);
+    }
+  }
 
-      // Data is collected by season and not year.  Year value is January 1st.  If month is after July then add to next year.
-      String yearString;
-      if (month > 7)
-      {
-        yearString = Integer.toString(year) + "-" + Integer.toString(year + 1);
-      }
-      else
-      {
-        yearString = Integer.toString(year - 1) + "-" + Integer.toString(year);
-      }
+  /**
+   * Internal method to recalculate a month's bin and its season's bin from the snow database.
+   *
+   * @param year The year.
+   * @param month The month.
+   */
+  private void updateBins(int year, int month)
+  {
+    YearMonth yearMonth = YearMonth.of(year, month);
+    List<SnowRecord> records = snowDatabase.readData(yearMonth);
+    if (records.isEmpty() || !isGraphed(year, month))
+    {
+      monthlyBins.remove(yearMonth);
+    }
+    else
+    {
+      float monthValue = 0.0f;
+      for (SnowRecord nextRecord : records)
+        monthValue += nextRecord.getAmount();
+      monthlyBins.put(yearMonth, monthValue);
+    }
 
-      // Add year value to yearly bin.
-      Float yearValue = yearlyBins.get(yearString);
-      if (yearValue == null)
-        yearValue = 0.0f;
+    int seasonStartYear = getSeasonStartYear(year, month);
+    Float seasonValue = null;
+    for (YearMonth seasonMonth : getSeasonMonths(seasonStartYear))
+    {
+      Float monthValue = monthlyBins.get(seasonMonth);
+      if (monthValue != null)
+        seasonValue = seasonValue == null ? monthValue : seasonValue + monthValue;
+    }
 
-      yearValue += nextRecord.getAmount();
-      // Do not graph the first partial year, 2004
-      if (year != 2004 || month > 7)
-      {
-        if (yearlyBins.containsKey(yearString))
-        {
-          yearlyBins.replace(yearString, yearValue);
-        }
-        else
-        {
-          yearlyBins.put(yearString, yearValue);
-        }
-      }
+    if (seasonValue == null)
+      seasonBins.remove(seasonStartYear);
+    else
+      seasonBins.put(seasonStartYear, seasonValue);
+  }
 
-      // Add month value to monthly bin.
-      String monthString = Integer.toString(year) + "-" + Integer.toString(month);
+  /**
+   * Internal method to determine if a month is graphed.  The first partial year, 2004, is not graphed.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @return Whether or not the month is graphed.
+   */
+  private static boolean isGraphed(int year, int month)
+  {
+    return year != FIRST_PARTIAL_YEAR || month > 7;
+  }
 
-      Float monthValue = monthlyBins.get(monthString);
-      if (monthValue == null)
-        monthValue = 0.0f;
+  /**
+   * Internal method to get the season of a month.  Data is collected by season and not year.  If the month is after
+   * July then the season started this year.
+   *
+   * @param year The year.
+   * @param month The month.
+   * @return The year the season started.
+   */
+  private static int getSeasonStartYear(int year, int month)
+  {
+    return month > 7 ? year : year - 1;
+  }
 
-      monthValue += nextRecord.getAmount();
-      // Do not graph the first partial year, 2004
-      if (year != 2004 || month > 7)
-      {
-        if (monthlyBins.containsKey(monthString))
-        {
-          monthlyBins.replace(monthString, monthValue);
-        }
-        else
-        {
-          monthlyBins.put(monthString, monthValue);
-        }
-      }
-    }
+  /**
+   * Internal method to get the months of a season in the order they are stacked, July first.
+   *
+   * @param seasonStartYear The year the season started.
+   * @return The months.
+   */
+  private static YearMonth[] getSeasonMonths(int seasonStartYear)
+  {
+    YearMonth[] months = new YearMonth[12];
+    months[0] = YearMonth.of(seasonStartYear + 1, 7);
+    for (int i = 1; i < 12; i++)
+      months[i] = YearMonth.of(seasonStartYear, 7).plusMonths(i);
+    return months;
   }
 
   /**
-   * Method called to erase the trace and re-load with data depending on the data type.
+   * Method called to erase the trace and re-load with data depending on the data type.  The datasets are built
+   * from the bins, which are already sorted.
    */
-  public void populateDatasets()
+  public synchronized void populateDatasets()
   {
     stackedDataset.clear();
     barDataset.clear();
-
-    monthlyBins.clear();
-    yearlyBins.clear();
     loadData();
 
-    // Sort the data set before processing
-    List<String> monthKeys = new ArrayList<>(monthlyBins.keySet());
-    monthKeys.sort(new KeyComparator());
-
-    HashMap<String, Float> tempBins = new HashMap<>();
-    int i = 0;
-    while (i < monthKeys.size())
+    for (Map.Entry<Integer, Float> entry : seasonBins.entrySet())
     {
-      String key = monthKeys.get(i);
-      String[] strings = key.split("-");
+      int seasonStartYear = entry.getKey();
+      String yearString = Integer.toString(seasonStartYear) + "-" + Integer.toString(seasonStartYear + 1);
 
-      String yearString;
-      int year = Integer.parseInt(strings[0]);
-      if (Integer.parseInt(strings[1]) > 7)
-      {
-        yearString = Integer.toString(year) + "-" + Integer.toString(year + 1);
-      }
-      else
+      // Every month is added, including the ones with no snow, so that the months are always stacked in order.
+      for (YearMonth seasonMonth : getSeasonMonths(seasonStartYear))
       {
-        yearString = Integer.toString(year - 1) + "-" + Integer.toString(year);
+        Float value = monthlyBins.get(seasonMonth);
+        stackedDataset.addValue(value == null ? 0.0 : value, getMonthString(seasonMonth.getMonthValue()), yearString);
       }
-
-      tempBins.put(yearString + ":" + strings[1], monthlyBins.get(key));
-      i++;
+      barDataset.addValue(entry.getValue(), "", yearString);
     }
+  }
 
-    // Reorder stacked dataset so the months are in order.
-    // Start by sorting the data set before processing.
-    List<String> tempKeys = new ArrayList<>(tempBins.keySet());
-    tempKeys.sort(new ComplexComparator());
-
-    // Add the tempBin values to the Stacked Dataset.  Start with the first season month - 1.
-    int previousMonth = 6;
-    String previousYearRange = "";
-    for (String nextKey : tempKeys)
-    {
-      String[] strings = nextKey.split(":");
-      int currentMonth = Integer.valueOf(strings[1]);
-
-      // Fill in missing months with a zero value.
-      if (previousYearRange.equalsIgnoreCase(strings[0]))
-      {
-        if ((previousMonth == 12 && currentMonth != 1) || (previousMonth != 12 && previousMonth + 1 != currentMonth))
-        {
-          int month;
-          if (previousMonth == 12)
-            previousMonth = 0;
-          for (month = previousMonth + 1; month < currentMonth; month++)
-          {
-            stackedDataset.addValue(0.0, getMonthString(month), strings[0]);
-          }
-        }
-      }
-      else // Season changeover, so fill in gap of months with zero values.
-      {
-        int month;
-        for (month = previousMonth + 1; month < currentMonth; month++)
-        {
-          stackedDataset.addValue(0.0, getMonthString(month), strings[0]);
-        }
-      }
-
-      String month = getMonthString(currentMonth);
-      Float value = tempBins.get(nextKey);
-
-      previousMonth = Integer.valueOf(strings[1]);
-      previousYearRange = strings[0];
-
-      stackedDataset.addValue(value, month, strings[0]);
-    }
+  /**
+   * Method to handle when snow data is added.
+   *
+   * @param data The new snow data record.
+   */
+  @Override
+  public synchronized void dataAdded(SnowRecord data)
+  {
+    if (!binsLoaded)
+      return;
+    updateBins(data.getYear(), data.getMonth());
+    populateDatasets();
+  }
 
-    // Sort the data set before processing
-    List<String> yearKeys = new ArrayList<>(yearlyBins.keySet());
-    yearKeys.sort(new KeyComparator());
+  /**
+   * Method to handle when snow data is modified.
+   *
+   * @param oldData The record before the change.
+   * @param newData The record after the change.
+   */
+  @Override
+  public synchronized void dataModified(SnowRecord oldData, SnowRecord newData)
+  {
+    if (!binsLoaded)
+      return;
+    updateBins(oldData.getYear(), oldData.getMonth());
+    updateBins(newData.getYear(), newData.getMonth());
+    populateDatasets();
+  }
 
-    int j = 0;
-    while (j < yearKeys.size())
-    {
-      String key = yearKeys.get(j);
-      barDataset.addValue(yearlyBins.get(key),"" , key);
-      j++;
-    }
+  /**
+   * Method to handle when snow data is deleted.
+   *
+   * @param data The deleted snow data record.
+   */
+  @Override
+  public synchronized void dataDeleted(SnowRecord data)
+  {
+    if (!binsLoaded)
+      return;
+    updateBins(data.getYear(), data.getMonth());
+    populateDatasets();
   }
 
   /**
@@ -314,89 +322,4 @@ public class SnowDataThread
     else
       return "";
   }
-
-  /**
-   * Internal class to provide a comparator function. This compares values of "year-month", ex: "2005-6".
-   */
-  class KeyComparator implements Comparator<String>
-  {
-    /**
-     * Comparator for year-month string values.
-     * Return 1 if rhs should be before lhs
-     * Return -1 if lhs should be before rhs
-     * Return 0 otherwise
-     *
-     * @param a Right hand side value.
-     * @param b Left hand side value;
-     * @return Results, see above.
-     */
-    @Override
-    public int compare(String a, String b)
-    {
-      String[] aStrings = a.split("-");
-      String[] bStrings = b.split("-");
-      int aYear = Integer.valueOf(aStrings[0]);
-      int bYear = Integer.valueOf(bStrings[0]);
-
-      if (aYear == bYear)
-      {
-        return Integer.valueOf(aStrings[1]).compareTo(Integer.valueOf(bStrings[1]));
-      }
-      else if (aYear < bYear)
-      {
-        return -1;
-      }
-      else // aYear > bYear
-      {
-        return 1;
-      }
-    }
-  }
-
-  /**
-   * Internal class to provide a comparator function.  This compares two values of "year-year:month", ex: "2005-2006:5".
-   */
-  class ComplexComparator implements Comparator<String>
-  {
-    /**
-     * Comparator for year-year:month string values.
-     * Return 1 if rhs should be before lhs
-     * Return -1 if lhs should be before rhs
-     * Return 0 otherwise
-     *
-     * @param a Right hand side value.
-     * @param b Left hand side value;
-     * @return Results, see above.
-     */
-    @Override
-    public int compare(String a, String b)
-    {
-      String[] aStrings = a.split(":");
-      String[] bStrings = b.split(":");
-      Integer aMonth = Integer.valueOf(aStrings[1]);
-      Integer bMonth = Integer.valueOf(bStrings[1]);
-      String[] aYearStrings = aStrings[0].split("-");
-      String[] bYearStrings = bStrings[0].split("-");
-      int aYear = Integer.valueOf(aYearStrings[0]);
-      int bYear = Integer.valueOf(bYearStrings[0]);
-
-      if (aYear == bYear)
-      {
-        if (aMonth < 7 && bMonth >= 7)
-          return 1;
-        else if (aMonth >= 7 && bMonth < 7)
-          return -1;
-        else
-          return aMonth.compareTo(bMonth);
-      }
-      else if (aYear < bYear)
-      {
-        return -1;
-      }
-      else // aYear > bYear
-      {
-        return 1;
-      }
-    }
-  }
-}
\ No newline at end of file
+}
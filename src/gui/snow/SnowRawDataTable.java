@@ -12,6 +12,7 @@
             JPanel.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26 Keep the rows in step with the snow database.
 */
 package gui.snow;
 
@@ -186,6 +187,7 @@ public class SnowRawDataTable extends JPanel implements TableModelListener, Acti
     }
 
     snowDatabase.modifyRecord(oldSnowRecord, newSnowRecord);
+    snowRecords.set(row, newSnowRecord);
   }
 
   /**
@@ -231,6 +233,7 @@ public class SnowRawDataTable extends JPanel implements TableModelListener, Acti
         snowRecord.setAmount((float)tableModel.getValueAt(table.getSelectedRow(), AMOUNT_COLUMN));
 
         snowDatabase.deleteRecord(snowRecord);
+        snowRecords.remove(table.getSelectedRow());
         tableModel.removeRow(table.getSelectedRow());
       }
     }
@@ -244,6 +247,7 @@ public class SnowRawDataTable extends JPanel implements TableModelListener, Acti
   @Override
   public void dataAdded(SnowRecord data)
   {
+    snowRecords.add(data);
     tableModel.addRow(new Object[] { data.getYear(), data.getMonth(), data.getDay(), data.getAmount() });
   }
 }
@@ -0,0 +1,329 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is the table model behind the raw data tables.  The
+            number of rows is taken from the database file headers, so the
+            table appears without reading any records.  A month's records are
+            decoded the first time one of its rows is displayed and only a few
+            months are kept.  Cells are formatted a row at a time as the rows
+            are painted.  Edited cells are held by the model so the table
+            keeps showing the new value.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Use a database reader of its own.
+*/
+package gui.table;
+
+import data.dbrecord.DataFileRecord;
+import dbif.ArchiveMonth;
+import dbif.DatabaseCommon;
+import dbif.DatabaseReader;
+import util.Logger;
+
+import javax.swing.table.AbstractTableModel;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LazyRecordTableModel<T extends DataFileRecord> extends AbstractTableModel
+{
+  private static final int MONTH_CACHE_SIZE = 3;
+  private static final int ROW_CACHE_SIZE = 128;
+
+  private final DatabaseReader dbReader = new DatabaseReader();
+  private final Logger logger = Logger.getInstance();
+
+  private final String[] columnNames;
+  private final Class<T> recordClass;
+  private final boolean dailyRows;
+  private final RowFormatter<T> rowFormatter;
+
+  private final YearMonth[] months;
+  private final int[][] rowDays;    // The day of month of each row, per month.
+  private final int[] monthStartRow; // The first row of each month, plus the total row count at the end.
+
+  private final Map<YearMonth, List<T>> monthCache = new LinkedHashMap<YearMonth, List<T>>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<YearMonth, List<T>> eldest)
+    {
+      return size() > MONTH_CACHE_SIZE;
+    }
+  };
+
+  private final Map<Integer, Object[]> rowCache = new LinkedHashMap<Integer, Object[]>(256, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest)
+    {
+      return size() > ROW_CACHE_SIZE;
+    }
+  };
+
+  private final Map<Long, Object> editedCells = new HashMap<>();
+
+  /**
+   * Interface implemented by each table to create the displayed values of one record.
+   */
+  public interface RowFormatter<T>
+  {
+    /**
+     * Method to format a record.
+     *
+     * @param record The record.
+     * @param month The month of the record.
+     * @param day The day of month of the record.
+     * @return The cell values, one per column.
+     */
+    Object[] formatRow(T record, YearMonth month, int day);
+  }
+
+  /**
+   * Constructor that sizes the table from the database file headers.  Months without a database file have no rows.
+   *
+   * @param columnNames The column names.
+   * @param recordClass The type of record displayed, one per row.
+   * @param dailyRows True if there is one row per day, as for the summary records, false if there is one row per
+   *                  weather record.
+   * @param startMonth The first month to display.
+   * @param numberOfMonths The number of months to display.
+   * @param rowFormatter The formatter of the rows.
+   */
+  public LazyRecordTableModel(String[] columnNames, Class<T> recordClass, boolean dailyRows, YearMonth startMonth,
+                              int numberOfMonths, RowFormatter<T> rowFormatter)
+  {
+    this.columnNames = columnNames;
+    this.recordClass = recordClass;
+    this.dailyRows = dailyRows;
+    this.rowFormatter = rowFormatter;
+
+    List<YearMonth> monthList = new ArrayList<>();
+    List<int[]> dayList = new ArrayList<>();
+    for (int i = 0; i < numberOfMonths; i++)
+    {
+      YearMonth month = startMonth.plusMonths(i);
+      try
+      {
+        int[] recordsInDay = ArchiveMonth.readRecordsInDay(month.getYear(), month.getMonthValue());
+        monthList.add(month);
+        dayList.add(getRowDays(recordsInDay));
+      }
+      catch (IOException e)
+      {
+        logger.logData("LazyRecordTableModel: No data for " + month + ": " + e.getLocalizedMessage());
+      }
+    }
+
+    months = monthList.toArray(new YearMonth[0]);
+    rowDays = dayList.toArray(new int[0][]);
+    monthStartRow = new int[months.length + 1];
+    for (int i = 0; i < months.length; i++)
+      monthStartRow[i + 1] = monthStartRow[i] + rowDays[i].length;
+  }
+
+  /**
+   * Internal method to get the day of month of each row from the header counts.
+   *
+   * @param recordsInDay The number of records in each day, including the summary records.
+   * @return The day of each row.
+   */
+  private int[] getRowDays(int[] recordsInDay)
+  {
+    int rows = 0;
+    for (int day = 1; day <= 31; day++)
+    {
+      if (recordsInDay[day] > 0)
+        rows += dailyRows ? 1 : Math.max(0, recordsInDay[day] - 2);
+    }
+
+    int[] days = new int[rows];
+    int row = 0;
+    for (int day = 1; day <= 31; day++)
+    {
+      if (recordsInDay[day] <= 0)
+        continue;
+      int dayRows = dailyRows ? 1 : Math.max(0, recordsInDay[day] - 2);
+      for (int i = 0; i < dayRows; i++)
+        days[row++] = day;
+    }
+    return days;
+  }
+
+  @Override
+  public int getRowCount()
+  {
+    return monthStartRow[months.length];
+  }
+
+  @Override
+  public int getColumnCount()
+  {
+    return columnNames.length;
+  }
+
+  @Override
+  public String getColumnName(int column)
+  {
+    return columnNames[column];
+  }
+
+  @Override
+  public boolean isCellEditable(int row, int column)
+  {
+    return true;
+  }
+
+  @Override
+  public Object getValueAt(int row, int column)
+  {
+    Object editedValue = editedCells.get(getCellKey(row, column));
+    if (editedValue != null)
+      return editedValue;
+
+    Object[] rowValues = getRow(row);
+    if (rowValues == null || column >= rowValues.length || rowValues[column] == null)
+      return DatabaseCommon.UNDEFINED_STRING_VALUE;
+    return rowValues[column];
+  }
+
+  @Override
+  public void setValueAt(Object value, int row, int column)
+  {
+    editedCells.put(getCellKey(row, column), value);
+    fireTableCellUpdated(row, column);
+  }
+
+  /**
+   * Method to get the month a row belongs to.
+   *
+   * @param row The row.
+   * @return The month.
+   */
+  public YearMonth getRowMonth(int row)
+  {
+    return months[getMonthIndex(row)];
+  }
+
+  /**
+   * Method to get the day of month a row belongs to.
+   *
+   * @param row The row.
+   * @return The day of month.
+   */
+  public int getRowDay(int row)
+  {
+    int monthIndex = getMonthIndex(row);
+    return rowDays[monthIndex][row - monthStartRow[monthIndex]];
+  }
+
+  /**
+   * Internal method to get the formatted values of a row, formatting them if they are not cached.
+   *
+   * @param row The row.
+   * @return The values or null if the record could not be read.
+   */
+  private Object[] getRow(int row)
+  {
+    Object[] rowValues = rowCache.get(row);
+    if (rowValues != null)
+      return rowValues;
+
+    int monthIndex = getMonthIndex(row);
+    int index = row - monthStartRow[monthIndex];
+    List<T> records = getRecords(months[monthIndex]);
+    if (index >= records.size())
+      return null;
+
+    try
+    {
+      rowValues = rowFormatter.formatRow(records.get(index), months[monthIndex], rowDays[monthIndex][index]);
+    }
+    catch (Exception exc)
+    {
+      System.out.println("LazyRecordTableModel: error in dataset." + exc);
+      return null;
+    }
+    rowCache.put(row, rowValues);
+    return rowValues;
+  }
+
+  /**
+   * Internal method to get the decoded records of a month, reading the month if it is not cached.
+   *
+   * @param month The month.
+   * @return The records of the displayed type.
+   */
+  private List<T> getRecords(YearMonth month)
+  {
+    List<T> records = monthCache.get(month);
+    if (records != null)
+      return records;
+
+    records = new ArrayList<>();
+    synchronized (dbReader)
+    {
+      try
+      {
+        dbReader.readData(month.getYear(), month.getMonthValue(), null);
+        dbReader.reset();
+
+        DataFileRecord nextRecord = dbReader.getNextRecord();
+        while (nextRecord != null)
+        {
+          if (recordClass.isInstance(nextRecord))
+            records.add(recordClass.cast(nextRecord));
+          nextRecord = dbReader.getNextRecord();
+        }
+      }
+      catch (IOException e)
+      {
+        logger.logData("LazyRecordTableModel: getRecords: Unable to read data: " + e.getLocalizedMessage());
+      }
+    }
+    monthCache.put(month, records);
+    return records;
+  }
+
+  /**
+   * Internal method to binary search for the month a row belongs to.
+   *
+   * @param row The row.
+   * @return The index of the month.
+   */
+  private int getMonthIndex(int row)
+  {
+    int low = 0;
+    int high = months.length - 1;
+    while (low < high)
+    {
+      int mid = (low + high + 1) >>> 1;
+      if (monthStartRow[mid] <= row)
+        low = mid;
+      else
+        high = mid - 1;
+    }
+    return low;
+  }
+
+  /**
+   * Internal method to get the key of an edited cell.
+   *
+   * @param row The row.
+   * @param column The column.
+   * @return The key.
+   */
+  private long getCellKey(int row, int column)
+  {
+    return (long)row * columnNames.length + column;
+  }
+}
@@ -13,33 +13,28 @@
             stored is 0x8000.
 
   Mods:		  10/18/21  Initial Release.
+            10/19/26  Use the lazy table model, added month spans.
 */
 package gui.table;
 
 import data.dbrecord.DailySummary1Record;
-import data.dbrecord.DataFileRecord;
 import data.dbrecord.WindDirection;
 import dbif.DatabaseCommon;
-import dbif.DatabaseReader;
 import dbif.DatabaseWriter;
 import util.ConfigProperties;
-import util.Logger;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import java.awt.*;
-import java.io.IOException;
+import java.time.YearMonth;
 
 public class Summary1DataTable extends JPanel implements TableModelListener
 {
   private final DatabaseWriter databaseWriter = new DatabaseWriter();
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
-  private final Logger logger = Logger.getInstance();
-  private int year;
-  private int month;
+  private LazyRecordTableModel<DailySummary1Record> model;
 
   private static final String HI_OUT_TEMP_STRING = "Hi Out Temp";
   private static final String LOW_OUT_TEMP_STRING = "Low Out Temp";
@@ -118,328 +113,22 @@ public class Summary1DataTable extends JPanel implements TableModelListener
    */
   public void createTable(int year, int month)
   {
-    this.year = year;
-    this.month = month;
-
-    // Populate the datasets.
-    try
-    {
-      dbReader.readData(year, month, null);
-      dbReader.reset();
-    }
-    catch (IOException e)
-    {
-      logger.logData("Summary1DataTable: createTable: Unable to read data: " + e.getLocalizedMessage());
-      return;
-    }
-
-    int totalRows = dbReader.getRowCount();
-    Object[][] tableData = new Object[totalRows][29];
-    int rowCount = 0;
-    int dayCount = 1;
-
-    DataFileRecord nextRecord = dbReader.getNextRecord();
-    while (nextRecord != null)
-    {
-      if (nextRecord instanceof DailySummary1Record)
-      {
-        DailySummary1Record data = (DailySummary1Record) nextRecord;
-        try
-        {
-          tableData[rowCount][0] = year + "/" + month + "/" + dayCount;
-
-          short hiOutTempNative = data.getHiOutTempNative();
-          if (hiOutTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][1] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][1] = Float.toString(data.getHiOutTemp());
-          }
-
-          int lowOutTempNative = data.getLowOutTempNative();
-          if (lowOutTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][2] = Float.toString(data.getLowOutTemp());
-          }
-
-          short hiInTempNative = data.getHiInTempNative();
-          if (hiInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][3] = Float.toString(data.getHiInTemp());
-          }
-
-          short lowInTempNative = data.getLowInTempNative();
-          if (lowInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][4] = Float.toString(data.getLowInTemp());
-          }
-
-          short avgOutTempNative = data.getAvgOutTempNative();
-          if (avgOutTempNative == DatabaseCommon.UNDEFINED_BYTE_VALUE)
-          {
-            tableData[rowCount][5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][5] = Float.toString(data.getAvgOutTemp());
-          }
-
-          short avgInTempNative = data.getAvgInTempNative();
-          if (avgInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][6] = Float.toString(data.getAvgInTemp());
-          }
-
-          short hiChillNative = data.getHiChillNative();
-          if (hiChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][7] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][7] = Float.toString(data.getHiChill());
-          }
-
-          short lowChillNative = data.getLowChillNative();
-          if (lowChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][8] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][8] = Float.toString(data.getLowChill());
-          }
-
-          float hiDewNative = data.getHiDewNative();
-          if (hiDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][9] = Float.toString(data.getHiDew());
-          }
-
-          float lowDewNative = data.getLowDewNative();
-          if (lowDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][10] = Float.toString(data.getLowDew());
-          }
-
-          short avgChillNative = data.getAvgChillNative();
-          if (avgChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][11] = Float.toString(data.getAvgChill());
-          }
-
-          short avgDewNative = data.getAvgDewNative();
-          if (avgDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][12] = Float.toString(data.getAvgDew());
-          }
-
-          short hiOutHumidNative = data.getHiOutHumidNative();
-          if (hiOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][13] = Float.toString(data.getHiOutHumid());
-          }
-
-          short lowOutHumidNative = data.getLowOutHumidNative();
-          if (lowOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][14] = Float.toString(data.getLowOutHumid());
-          }
-
-          short hiInHumidNative = data.getHiInHumidNative();
-          if (hiInHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][15] = Float.toString(data.getHiInHumid());
-          }
-
-          short lowInHumidNative = data.getLowInHumidNative();
-          if (lowInHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][16] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][16] = Float.toString(data.getLowInHumid());
-          }
-
-          short avgOutHumidNative = data.getAvgOutHumidNative();
-          if (avgOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][17] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][17] = Float.toString(data.getAvgOutHumid());
-          }
-
-          short hiBarNative = data.getHiBarNative();
-          if (hiBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][18] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][18] = Float.toString(data.getHiBar());
-          }
-
-          short lowBarNative = data.getLowBarNative();
-          if (lowBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][19] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][19] = Float.toString(data.getLowBar());
-          }
-
-          short avgBarNative = data.getAvgBarNative();
-          if (avgBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][20] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][20] = Float.toString(data.getAvgBar());
-          }
-
-          short hiSpeedNative = data.getHiSpeedNative();
-          if (hiSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][21] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][21] = Float.toString(data.getHiSpeed());
-          }
-
-          short avgSpeedNative = data.getAvgSpeedNative();
-          if (avgSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][22] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][22] = Float.toString(data.getAvgSpeed());
-          }
-
-          short dailyWindRunTotalNative = data.getDailyWindRunTotalNative();
-          if (dailyWindRunTotalNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][23] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][23] = Float.toString(data.getDailyWindRunTotal());
-          }
-
-          short hiTenMinSpeedNative = data.getHiTenMinSpeedNative();
-          if (hiTenMinSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][24] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][24] = Float.toString(data.getHiTenMinSpeed());
-          }
-
-          WindDirection dirHiSpeedNative = data.getDirHiSpeed();
-          if (dirHiSpeedNative == null)
-          {
-            tableData[rowCount][25] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][25] = data.getDirHiSpeed().toString();
-          }
-
-          WindDirection dirHiTenMinNative = data.getDirHiTenMin();
-          if (dirHiTenMinNative == null)
-          {
-            tableData[rowCount][26] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][26] = data.getDirHiTenMin().toString();
-          }
-
-          short dailyRainTotalNative = data.getDailyRainTotalNative();
-          if (dailyRainTotalNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][27] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][27] = Float.toString(data.getDailyRainTotal());
-          }
-
-          short hiRainRateNative = data.getHiRainRateNative();
-          if (hiRainRateNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][28] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][28] = Float.toString(data.getHiRainRate());
-          }
-
-          rowCount++;
-        }
-        catch (Exception exc)
-        {
-          System.out.println("Summary2DataTable: error in dataset." + exc);
-        }
-      }
-      dayCount++;
-      nextRecord = dbReader.getNextRecord();
-    }
-
-    JTable table = new JTable(tableData, columnNames);
+    createTable(year, month, 1);
+  }
+
+  /**
+   * Method to create the table over a span of months.  Only the database file headers are read here, the records
+   * are read and formatted as their rows are displayed.
+   *
+   * @param year The year of the first month.
+   * @param month The first month.
+   * @param numberOfMonths The number of months to display.
+   */
+  public void createTable(int year, int month, int numberOfMonths)
+  {
+    model = new LazyRecordTableModel<>(columnNames, DailySummary1Record.class, true, YearMonth.of(year, month),
+                                       numberOfMonths, this::formatRow);
+    JTable table = new JTable(model);
     table.setPreferredScrollableViewportSize(new Dimension(500, 70));
     table.getModel().addTableModelListener(this);
     table.getColumnModel().getColumn(0).setPreferredWidth(220);
@@ -451,6 +140,304 @@ public class Summary1DataTable extends JPanel implements TableModelListener
     add(scrollPane);
   }
 
+  /**
+   * Internal method to create the displayed values of a record.  This is called by the table model as the row is
+   * displayed.
+   *
+   * @param data The record.
+   * @param yearMonth The month of the record.
+   * @param day The day of month of the record.
+   * @return The cell values.
+   */
+  private Object[] formatRow(DailySummary1Record data, YearMonth yearMonth, int day)
+  {
+    Object[] row = new Object[columnNames.length];
+
+    row[0] = yearMonth.getYear() + "/" + yearMonth.getMonthValue() + "/" + day;
+
+    short hiOutTempNative = data.getHiOutTempNative();
+    if (hiOutTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[1] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[1] = Float.toString(data.getHiOutTemp());
+    }
+
+    int lowOutTempNative = data.getLowOutTempNative();
+    if (lowOutTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[2] = Float.toString(data.getLowOutTemp());
+    }
+
+    short hiInTempNative = data.getHiInTempNative();
+    if (hiInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[3] = Float.toString(data.getHiInTemp());
+    }
+
+    short lowInTempNative = data.getLowInTempNative();
+    if (lowInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[4] = Float.toString(data.getLowInTemp());
+    }
+
+    short avgOutTempNative = data.getAvgOutTempNative();
+    if (avgOutTempNative == DatabaseCommon.UNDEFINED_BYTE_VALUE)
+    {
+      row[5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[5] = Float.toString(data.getAvgOutTemp());
+    }
+
+    short avgInTempNative = data.getAvgInTempNative();
+    if (avgInTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[6] = Float.toString(data.getAvgInTemp());
+    }
+
+    short hiChillNative = data.getHiChillNative();
+    if (hiChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[7] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[7] = Float.toString(data.getHiChill());
+    }
+
+    short lowChillNative = data.getLowChillNative();
+    if (lowChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[8] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[8] = Float.toString(data.getLowChill());
+    }
+
+    float hiDewNative = data.getHiDewNative();
+    if (hiDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[9] = Float.toString(data.getHiDew());
+    }
+
+    float lowDewNative = data.getLowDewNative();
+    if (lowDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[10] = Float.toString(data.getLowDew());
+    }
+
+    short avgChillNative = data.getAvgChillNative();
+    if (avgChillNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[11] = Float.toString(data.getAvgChill());
+    }
+
+    short avgDewNative = data.getAvgDewNative();
+    if (avgDewNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[12] = Float.toString(data.getAvgDew());
+    }
+
+    short hiOutHumidNative = data.getHiOutHumidNative();
+    if (hiOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[13] = Float.toString(data.getHiOutHumid());
+    }
+
+    short lowOutHumidNative = data.getLowOutHumidNative();
+    if (lowOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[14] = Float.toString(data.getLowOutHumid());
+    }
+
+    short hiInHumidNative = data.getHiInHumidNative();
+    if (hiInHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[15] = Float.toString(data.getHiInHumid());
+    }
+
+    short lowInHumidNative = data.getLowInHumidNative();
+    if (lowInHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[16] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[16] = Float.toString(data.getLowInHumid());
+    }
+
+    short avgOutHumidNative = data.getAvgOutHumidNative();
+    if (avgOutHumidNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[17] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[17] = Float.toString(data.getAvgOutHumid());
+    }
+
+    short hiBarNative = data.getHiBarNative();
+    if (hiBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[18] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[18] = Float.toString(data.getHiBar());
+    }
+
+    short lowBarNative = data.getLowBarNative();
+    if (lowBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[19] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[19] = Float.toString(data.getLowBar());
+    }
+
+    short avgBarNative = data.getAvgBarNative();
+    if (avgBarNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[20] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[20] = Float.toString(data.getAvgBar());
+    }
+
+    short hiSpeedNative = data.getHiSpeedNative();
+    if (hiSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[21] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[21] = Float.toString(data.getHiSpeed());
+    }
+
+    short avgSpeedNative = data.getAvgSpeedNative();
+    if (avgSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[22] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[22] = Float.toString(data.getAvgSpeed());
+    }
+
+    short dailyWindRunTotalNative = data.getDailyWindRunTotalNative();
+    if (dailyWindRunTotalNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[23] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[23] = Float.toString(data.getDailyWindRunTotal());
+    }
+
+    short hiTenMinSpeedNative = data.getHiTenMinSpeedNative();
+    if (hiTenMinSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[24] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[24] = Float.toString(data.getHiTenMinSpeed());
+    }
+
+    WindDirection dirHiSpeedNative = data.getDirHiSpeed();
+    if (dirHiSpeedNative == null)
+    {
+      row[25] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[25] = data.getDirHiSpeed().toString();
+    }
+
+    WindDirection dirHiTenMinNative = data.getDirHiTenMin();
+    if (dirHiTenMinNative == null)
+    {
+      row[26] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[26] = data.getDirHiTenMin().toString();
+    }
+
+    short dailyRainTotalNative = data.getDailyRainTotalNative();
+    if (dailyRainTotalNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[27] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[27] = Float.toString(data.getDailyRainTotal());
+    }
+
+    short hiRainRateNative = data.getHiRainRateNative();
+    if (hiRainRateNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[28] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[28] = Float.toString(data.getHiRainRate());
+    }
+
+    return row;
+  }
+
   /**
    * Method called when the user changes something in the table.
    *
@@ -975,8 +962,10 @@ public class Summary1DataTable extends JPanel implements TableModelListener
       updatedRecord.setHiRainRate((Short)hiRainRateObject);
     }
 
-    // Update the record.  This assumes there is one record for each day, i.e. no missing days worth of data.
-    databaseWriter.updateSummary1Record(updatedRecord, year, month, row);
+    // Update the record of the day the row belongs to.
+    YearMonth rowMonth = this.model.getRowMonth(row);
+    databaseWriter.updateSummary1Record(updatedRecord, rowMonth.getYear(), rowMonth.getMonthValue(),
+                                          this.model.getRowDay(row));
   }
 
   /**
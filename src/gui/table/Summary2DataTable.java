@@ -13,32 +13,27 @@
             stored is 0x8000.
 
   Mods:		  10/18/21  Initial Release.
+            10/19/26  Use the lazy table model, added month spans.
 */
 package gui.table;
 
 import data.dbrecord.DailySummary2Record;
-import data.dbrecord.DataFileRecord;
 import dbif.DatabaseCommon;
-import dbif.DatabaseReader;
 import dbif.DatabaseWriter;
 import util.ConfigProperties;
-import util.Logger;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import java.awt.*;
-import java.io.IOException;
+import java.time.YearMonth;
 
 public class Summary2DataTable extends JPanel implements TableModelListener
 {
   private final DatabaseWriter databaseWriter = new DatabaseWriter();
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
-  private final Logger logger = Logger.getInstance();
-  private int year;
-  private int month;
+  private LazyRecordTableModel<DailySummary2Record> model;
 
   private static final String NUM_WIND_PACKETS_STRING = "# Wind Packets";
   private static final String HI_SOLAR_STRING = "Hi Solar";
@@ -95,210 +90,22 @@ public class Summary2DataTable extends JPanel implements TableModelListener
    */
   public void createTable(int year, int month)
   {
-    this.year = year;
-    this.month = month;
-
-    // Populate the datasets.
-    try
-    {
-      dbReader.readData(year, month, null);
-      dbReader.reset();
-    }
-    catch (IOException e)
-    {
-      logger.logData("Summary2DataTable: createTable: Unable to read data: " + e.getLocalizedMessage());
-      return;
-    }
-
-    int totalRows = dbReader.getRowCount();
-    Object[][] tableData = new Object[totalRows][19];
-    int rowCount = 0;
-    int dayCount = 1;
-
-    DataFileRecord nextRecord = dbReader.getNextRecord();
-    while (nextRecord != null)
-    {
-      if (nextRecord instanceof DailySummary2Record)
-      {
-        DailySummary2Record data = (DailySummary2Record) nextRecord;
-        try
-        {
-          tableData[rowCount][0] = year + "/" + month + "/" + dayCount;
-
-          tableData[rowCount][1] = Integer.toString(data.getNumOfWindPackets());
-
-          int hiSolar = data.getHiSolar();
-          if (hiSolar == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][2] = Float.toString(data.getHiSolar());
-          }
-
-          short dailySolarEnergyNative = data.getDailySolarEnergyNative();
-          if (dailySolarEnergyNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][3] = Float.toString(data.getDailySolarEnergy());
-          }
-
-          short minSunlight = data.getMinSunlight();
-          if (minSunlight == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][4] = Float.toString(data.getMinSunlight());
-          }
-
-          short dailyEtTotalNative = data.getDailyETTotalNative();
-          if (dailyEtTotalNative == DatabaseCommon.UNDEFINED_BYTE_VALUE)
-          {
-            tableData[rowCount][5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][5] = Float.toString(data.getDailyETTotal());
-          }
-
-          short hiHeatNative = data.getHiHeatNative();
-          if (hiHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][6] = Float.toString(data.getHiHeat());
-          }
-
-          short lowHeatNative = data.getLowHeatNative();
-          if (lowHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][7] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][7] = Float.toString(data.getLowHeat());
-          }
-
-          short avgHeatNative = data.getAvgHeatNative();
-          if (avgHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][8] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][8] = Float.toString(data.getAvgHeat());
-          }
-
-          float hiTHSWNative = data.getHiTHSWNative();
-          if (hiTHSWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][9] = Float.toString(data.getHiTHSW());
-          }
-
-          float lowTHSWNative = data.getLowTHSWNative();
-          if (lowTHSWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][10] = Float.toString(data.getLowTHSW());
-          }
-
-          short hiTHWNative = data.getHiTHWNative();
-          if (hiTHWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][11] = Float.toString(data.getHiTHW());
-          }
-
-          short lowTHWNative = data.getLowTHWNative();
-          if (lowTHWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][12] = Float.toString(data.getLowTHW());
-          }
-
-          short integHeatDD65Native = data.getIntegratedHeatDD65Native();
-          if (integHeatDD65Native == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][13] = Float.toString(data.getIntegratedHeatDD65());
-          }
-
-          short hiWetBuldTempNative = data.getHiWetBuldTempNative();
-          if (hiWetBuldTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][14] = Float.toString(data.getHiWetBuldTemp());
-          }
-
-          short lowWetBulbTempNataive = data.getLowWetBulbTempNative();
-          if (lowWetBulbTempNataive == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][15] = Float.toString(data.getLowWetBulbTemp());
-          }
-
-          short avgWetBulbTempNataive = data.getAvgWetBulbTempNative();
-          if (avgWetBulbTempNataive == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][16] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][16] = Float.toString(data.getAvgWetBulbTemp());
-          }
-
-          short integCoolDD65Native = data.getIntegratedCoolDD65Native();
-          if (integCoolDD65Native == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][17] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][17] = Float.toString(data.getIntegratedCoolDD65());
-          }
-
-          rowCount++;
-        }
-        catch (Exception exc)
-        {
-          System.out.println("Summary2DataTable: error in dataset." + exc);
-        }
-      }
-      dayCount++;
-      nextRecord = dbReader.getNextRecord();
-    }
-
-    JTable table = new JTable(tableData, columnNames);
+    createTable(year, month, 1);
+  }
+
+  /**
+   * Method to create the table over a span of months.  Only the database file headers are read here, the records
+   * are read and formatted as their rows are displayed.
+   *
+   * @param year The year of the first month.
+   * @param month The first month.
+   * @param numberOfMonths The number of months to display.
+   */
+  public void createTable(int year, int month, int numberOfMonths)
+  {
+    model = new LazyRecordTableModel<>(columnNames, DailySummary2Record.class, true, YearMonth.of(year, month),
+                                       numberOfMonths, this::formatRow);
+    JTable table = new JTable(model);
     table.setPreferredScrollableViewportSize(new Dimension(500, 70));
     table.getModel().addTableModelListener(this);
     table.getColumnModel().getColumn(0).setPreferredWidth(220);
@@ -310,6 +117,186 @@ public class Summary2DataTable extends JPanel implements TableModelListener
     add(scrollPane);
   }
 
+  /**
+   * Internal method to create the displayed values of a record.  This is called by the table model as the row is
+   * displayed.
+   *
+   * @param data The record.
+   * @param yearMonth The month of the record.
+   * @param day The day of month of the record.
+   * @return The cell values.
+   */
+  private Object[] formatRow(DailySummary2Record data, YearMonth yearMonth, int day)
+  {
+    Object[] row = new Object[columnNames.length];
+
+    row[0] = yearMonth.getYear() + "/" + yearMonth.getMonthValue() + "/" + day;
+
+    row[1] = Integer.toString(data.getNumOfWindPackets());
+
+    int hiSolar = data.getHiSolar();
+    if (hiSolar == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[2] = Float.toString(data.getHiSolar());
+    }
+
+    short dailySolarEnergyNative = data.getDailySolarEnergyNative();
+    if (dailySolarEnergyNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[3] = Float.toString(data.getDailySolarEnergy());
+    }
+
+    short minSunlight = data.getMinSunlight();
+    if (minSunlight == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[4] = Float.toString(data.getMinSunlight());
+    }
+
+    short dailyEtTotalNative = data.getDailyETTotalNative();
+    if (dailyEtTotalNative == DatabaseCommon.UNDEFINED_BYTE_VALUE)
+    {
+      row[5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[5] = Float.toString(data.getDailyETTotal());
+    }
+
+    short hiHeatNative = data.getHiHeatNative();
+    if (hiHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[6] = Float.toString(data.getHiHeat());
+    }
+
+    short lowHeatNative = data.getLowHeatNative();
+    if (lowHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[7] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[7] = Float.toString(data.getLowHeat());
+    }
+
+    short avgHeatNative = data.getAvgHeatNative();
+    if (avgHeatNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[8] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[8] = Float.toString(data.getAvgHeat());
+    }
+
+    float hiTHSWNative = data.getHiTHSWNative();
+    if (hiTHSWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[9] = Float.toString(data.getHiTHSW());
+    }
+
+    float lowTHSWNative = data.getLowTHSWNative();
+    if (lowTHSWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[10] = Float.toString(data.getLowTHSW());
+    }
+
+    short hiTHWNative = data.getHiTHWNative();
+    if (hiTHWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[11] = Float.toString(data.getHiTHW());
+    }
+
+    short lowTHWNative = data.getLowTHWNative();
+    if (lowTHWNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[12] = Float.toString(data.getLowTHW());
+    }
+
+    short integHeatDD65Native = data.getIntegratedHeatDD65Native();
+    if (integHeatDD65Native == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[13] = Float.toString(data.getIntegratedHeatDD65());
+    }
+
+    short hiWetBuldTempNative = data.getHiWetBuldTempNative();
+    if (hiWetBuldTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[14] = Float.toString(data.getHiWetBuldTemp());
+    }
+
+    short lowWetBulbTempNataive = data.getLowWetBulbTempNative();
+    if (lowWetBulbTempNataive == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[15] = Float.toString(data.getLowWetBulbTemp());
+    }
+
+    short avgWetBulbTempNataive = data.getAvgWetBulbTempNative();
+    if (avgWetBulbTempNataive == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[16] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[16] = Float.toString(data.getAvgWetBulbTemp());
+    }
+
+    short integCoolDD65Native = data.getIntegratedCoolDD65Native();
+    if (integCoolDD65Native == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[17] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[17] = Float.toString(data.getIntegratedCoolDD65());
+    }
+
+    return row;
+  }
+
   /**
    * Method called when the user changes something in the table.
    *
@@ -650,8 +637,10 @@ public class Summary2DataTable extends JPanel implements TableModelListener
       updatedRecord.setIntegratedCoolDD65((Short)integCoolDD65Object);
     }
 
-    // Update the record.  This assumes there is one record for each day, i.e. no missing days worth of data.
-    databaseWriter.updateSummary2Record(updatedRecord, year, month, row);
+    // Update the record of the day the row belongs to.
+    YearMonth rowMonth = this.model.getRowMonth(row);
+    databaseWriter.updateSummary2Record(updatedRecord, rowMonth.getYear(), rowMonth.getMonthValue(),
+                                          this.model.getRowDay(row));
   }
 
   /**
@@ -15,34 +15,30 @@
   Mods:		  09/01/21  Initial Release.
             10/15/21  Fixed ET calculation.
             10/18/21  Added Summary 1 & 2 data tables.
+            10/19/26  Use the lazy table model, added month spans.
 */
 package gui.table;
 
-import data.dbrecord.DataFileRecord;
 import data.dbrecord.WeatherRecord;
 import data.dbrecord.WindDirection;
 import dbif.DatabaseCommon;
-import dbif.DatabaseReader;
 import dbif.DatabaseWriter;
 import util.ConfigProperties;
-import util.Logger;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import java.awt.*;
-import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 
 public class WeatherDataTable extends JPanel implements TableModelListener
 {
   private final DatabaseWriter databaseWriter = new DatabaseWriter();
-  private final DatabaseReader dbReader = DatabaseReader.getInstance();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-  private final Logger logger = Logger.getInstance();
 
   private static final String IN_TEMP_STRING = "In Temp";
   private static final String IN_HUMID_STRING = "In Humid";
@@ -86,6 +82,7 @@ public class WeatherDataTable extends JPanel implements TableModelListener
     };
 
   private JTable table = null;
+  private LazyRecordTableModel<WeatherRecord> model;
 
   /**
    * The class constructor.
@@ -103,190 +100,187 @@ public class WeatherDataTable extends JPanel implements TableModelListener
    */
   public void createTable(int year, int month)
   {
-    // Populate the datasets.
-    try
+    createTable(year, month, 1);
+  }
+
+  /**
+   * Method to create the table over a span of months.  Only the database file headers are read here, the records
+   * are read and formatted as their rows are displayed.
+   *
+   * @param year The year of the first month.
+   * @param month The first month.
+   * @param numberOfMonths The number of months to display.
+   */
+  public void createTable(int year, int month, int numberOfMonths)
+  {
+    model = new LazyRecordTableModel<>(columnNames, WeatherRecord.class, false, YearMonth.of(year, month),
+                                       numberOfMonths, this::formatRow);
+    table = new JTable(model);
+    table.setPreferredScrollableViewportSize(new Dimension(500, 70));
+    table.getModel().addTableModelListener(this);
+    table.getColumnModel().getColumn(0).setPreferredWidth(220);
+
+    //Create the scroll pane and add the table to it.
+    JScrollPane scrollPane = new JScrollPane(table);
+
+    //Add the scroll pane to this panel.
+    add(scrollPane);
+  }
+
+  /**
+   * Internal method to create the displayed values of a record.  This is called by the table model as the row is
+   * displayed.
+   *
+   * @param data The record.
+   * @param yearMonth The month of the record.
+   * @param day The day of month of the record.
+   * @return The cell values.
+   */
+  private Object[] formatRow(WeatherRecord data, YearMonth yearMonth, int day)
+  {
+    Object[] row = new Object[columnNames.length];
+
+    String formattedDateTime = data.getTimestamp().format(FORMATTER); // "1986-04-08 12:30"
+    row[0] = formattedDateTime;
+
+    short insideTempNative = data.getInsideTempNative();
+    if (insideTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
     {
-      dbReader.readData(year, month, null);
-      dbReader.reset();
+      row[1] = DatabaseCommon.UNDEFINED_STRING_VALUE;
     }
-    catch (IOException e)
+    else
     {
-      logger.logData("WeatherDataTable: createTable: Unable to read data: " + e.getLocalizedMessage());
-      return;
+      row[1] = Float.toString(data.getInsideTemp());
     }
 
-    int totalRows = dbReader.getRowCount();
-    Object[][] tableData = new Object[totalRows][19];
-    int rowCount = 0;
+    short insideHumidityNative = data.getInsideHumidityNative();
+    if (insideHumidityNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[2] = Float.toString(data.getInsideHumidity());
+    }
 
-    DataFileRecord nextRecord = dbReader.getNextRecord();
-    while (nextRecord != null)
+    short outsideTempNative = data.getOutsideTempNative();
+    if (outsideTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
     {
-      if (nextRecord instanceof WeatherRecord)
-      {
-        WeatherRecord data = (WeatherRecord) nextRecord;
-        try
-        {
-          String formattedDateTime = data.getTimestamp().format(FORMATTER); // "1986-04-08 12:30"
-          tableData[rowCount][0] = formattedDateTime;
-
-          short insideTempNative = data.getInsideTempNative();
-          if (insideTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][1] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][1] = Float.toString(data.getInsideTemp());
-          }
-
-          short insideHumidityNative = data.getInsideHumidityNative();
-          if (insideHumidityNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][2] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][2] = Float.toString(data.getInsideHumidity());
-          }
-
-          short outsideTempNative = data.getOutsideTempNative();
-          if (outsideTempNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][3] = Float.toString(data.getOutsideTemp());
-          }
-
-          short outsideHumidityNative = data.getOutsideHumidityNative();
-          if (outsideHumidityNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][4] = Float.toString(data.getOutsideHumidity());
-          }
-
-          short soilTemp1Native = data.getSoilTemp1Native();
-          if (soilTemp1Native == DatabaseCommon.UNDEFINED_BYTE_VALUE)
-          {
-            tableData[rowCount][5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][5] = Byte.toString(data.getSoilTemp1());
-          }
-
-          short pressureNative = data.getPressureNative();
-          if (pressureNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][6] = Float.toString(data.getPressure());
-          }
-
-          tableData[rowCount][7] = data.getRainfall();
-          tableData[rowCount][8] = data.getHighRainRate();
-
-          float avgWindSpeedNative = data.getAverageWindSpeedNative();
-          if (avgWindSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][9] = Float.toString(data.getAverageWindSpeed());
-          }
-
-          float highWindSpeedNative = data.getHighWindSpeedNative();
-          if (highWindSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][10] = Float.toString(data.getHighWindSpeed());
-          }
-
-          short numOfWindSamples = data.getNumOfWindSamples();
-          if (numOfWindSamples == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][11] = Short.toString(data.getNumOfWindSamples());
-          }
-
-          WindDirection hiWindDirNative = data.getHighWindDirection();
-          if (hiWindDirNative == null)
-          {
-            tableData[rowCount][12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][12] = data.getHighWindDirection().toString();
-          }
-
-          WindDirection windDirNative = data.getWindDirection();
-          if (windDirNative == null)
-          {
-            tableData[rowCount][13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][13] = data.getWindDirection().toString();
-          }
-
-          short solarRadiation = data.getSolarRadiation();
-          if (solarRadiation == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][14] = Short.toString(data.getSolarRadiation());
-          }
-
-          short highSolarRadiation = data.getHighSolarRadiation();
-          if (highSolarRadiation == DatabaseCommon.UNDEFINED_SHORT_VALUE)
-          {
-            tableData[rowCount][15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
-          }
-          else
-          {
-            tableData[rowCount][15] = Short.toString(data.getHighSolarRadiation());
-          }
-
-          tableData[rowCount][16] = Short.toString(data.getEt());
-          tableData[rowCount][17] = Byte.toString(data.getForecast());
-          tableData[rowCount][18] = Byte.toString(data.getArchiveInterval());
-
-          rowCount++;
-        }
-        catch (Exception exc)
-        {
-          System.out.println("WeatherDataTable: error in dataset." + exc);
-        }
-      }
-      nextRecord = dbReader.getNextRecord();
+      row[3] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[3] = Float.toString(data.getOutsideTemp());
     }
 
-    table = new JTable(tableData, columnNames);
-    table.setPreferredScrollableViewportSize(new Dimension(500, 70));
-    table.getModel().addTableModelListener(this);
-    table.getColumnModel().getColumn(0).setPreferredWidth(220);
+    short outsideHumidityNative = data.getOutsideHumidityNative();
+    if (outsideHumidityNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[4] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[4] = Float.toString(data.getOutsideHumidity());
+    }
 
-    //Create the scroll pane and add the table to it.
-    JScrollPane scrollPane = new JScrollPane(table);
+    short soilTemp1Native = data.getSoilTemp1Native();
+    if (soilTemp1Native == DatabaseCommon.UNDEFINED_BYTE_VALUE)
+    {
+      row[5] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[5] = Byte.toString(data.getSoilTemp1());
+    }
 
-    //Add the scroll pane to this panel.
-    add(scrollPane);
+    short pressureNative = data.getPressureNative();
+    if (pressureNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[6] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[6] = Float.toString(data.getPressure());
+    }
+
+    row[7] = data.getRainfall();
+    row[8] = data.getHighRainRate();
+
+    float avgWindSpeedNative = data.getAverageWindSpeedNative();
+    if (avgWindSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[9] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[9] = Float.toString(data.getAverageWindSpeed());
+    }
+
+    float highWindSpeedNative = data.getHighWindSpeedNative();
+    if (highWindSpeedNative == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[10] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[10] = Float.toString(data.getHighWindSpeed());
+    }
+
+    short numOfWindSamples = data.getNumOfWindSamples();
+    if (numOfWindSamples == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[11] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[11] = Short.toString(data.getNumOfWindSamples());
+    }
+
+    WindDirection hiWindDirNative = data.getHighWindDirection();
+    if (hiWindDirNative == null)
+    {
+      row[12] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[12] = data.getHighWindDirection().toString();
+    }
+
+    WindDirection windDirNative = data.getWindDirection();
+    if (windDirNative == null)
+    {
+      row[13] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[13] = data.getWindDirection().toString();
+    }
+
+    short solarRadiation = data.getSolarRadiation();
+    if (solarRadiation == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[14] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[14] = Short.toString(data.getSolarRadiation());
+    }
+
+    short highSolarRadiation = data.getHighSolarRadiation();
+    if (highSolarRadiation == DatabaseCommon.UNDEFINED_SHORT_VALUE)
+    {
+      row[15] = DatabaseCommon.UNDEFINED_STRING_VALUE;
+    }
+    else
+    {
+      row[15] = Short.toString(data.getHighSolarRadiation());
+    }
+
+    row[16] = Short.toString(data.getEt());
+    row[17] = Byte.toString(data.getForecast());
+    row[18] = Byte.toString(data.getArchiveInterval());
+
+    return row;
   }
 
 
@@ -17,6 +17,8 @@
             the percentage of time the wind was calm.
 
   Mods:		  10/13/21  Initial Release.
+            10/19/26  Added month, season, year and all time intervals.
+            10/19/26  Generate the interval data on a worker thread.
 */
 package gui.windrose;
 
@@ -42,10 +44,12 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 public class WindRosePlot extends JFrame implements ActionListener
 {
   private WindRoseData data = new WindRoseData();
+  private SwingWorker<WindRoseData, Void> dataWorker = null;
   private XYSeriesCollection dataset = new XYSeriesCollection();
   private DefaultPolarItemRenderer renderer;
   private final Color binColor[] = {Color.blue, Color.cyan, Color.green, Color.yellow, Color.red, Color.black};
@@ -90,6 +94,30 @@ public class WindRosePlot extends JFrame implements ActionListener
     intervalGroup.add(weekItem);
     intervalMenu.add(weekItem);
 
+    JRadioButtonMenuItem monthItem = new JRadioButtonMenuItem(GraphDefs.MONTH_STRING);
+    monthItem.setActionCommand(GraphDefs.MONTH_STRING);
+    monthItem.addActionListener(this);
+    intervalGroup.add(monthItem);
+    intervalMenu.add(monthItem);
+
+    JRadioButtonMenuItem seasonItem = new JRadioButtonMenuItem(GraphDefs.SEASON_STRING);
+    seasonItem.setActionCommand(GraphDefs.SEASON_STRING);
+    seasonItem.addActionListener(this);
+    intervalGroup.add(seasonItem);
+    intervalMenu.add(seasonItem);
+
+    JRadioButtonMenuItem yearItem = new JRadioButtonMenuItem(GraphDefs.YEAR_STRING);
+    yearItem.setActionCommand(GraphDefs.YEAR_STRING);
+    yearItem.addActionListener(this);
+    intervalGroup.add(yearItem);
+    intervalMenu.add(yearItem);
+
+    JRadioButtonMenuItem allTimeItem = new JRadioButtonMenuItem(GraphDefs.ALL_TIME_STRING);
+    allTimeItem.setActionCommand(GraphDefs.ALL_TIME_STRING);
+    allTimeItem.addActionListener(this);
+    intervalGroup.add(allTimeItem);
+    intervalMenu.add(allTimeItem);
+
     JMenuBar myMenuBar = new JMenuBar();
     myMenuBar.add(intervalMenu);
     this.setJMenuBar(myMenuBar);
@@ -180,15 +208,45 @@ public class WindRosePlot extends JFrame implements ActionListener
   }
 
   /**
-   * Method to update the data using a newly selected interval.
+   * Method to update the data using a newly selected interval.  The data is generated on a worker thread, since the
+   * longer intervals may have to wait for the wind rollup index to load.  Only the last selected interval is shown.
    *
    * @param interval The new interval.
    */
   private void updateData(String interval)
   {
-    data.generateData(interval);
-    populateDataset();
-    this.setTitle("Wind Rose Plot - " + interval);
+    if (dataWorker != null)
+      dataWorker.cancel(false);
+
+    dataWorker = new SwingWorker<WindRoseData, Void>()
+    {
+      @Override
+      protected WindRoseData doInBackground()
+      {
+        WindRoseData newData = new WindRoseData();
+        newData.generateData(interval);
+        return newData;
+      }
+
+      @Override
+      protected void done()
+      {
+        if (isCancelled())
+          return;
+
+        try
+        {
+          data = get();
+          populateDataset();
+          setTitle("Wind Rose Plot - " + interval);
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+          logger.logData("WindRosePlot: unable to generate the wind rose data: " + e.getMessage());
+        }
+      }
+    };
+    dataWorker.execute();
   }
 
   /**
@@ -309,5 +367,21 @@ public class WindRosePlot extends JFrame implements ActionListener
     {
       updateData(GraphDefs.WEEK_STRING);
     }
+    else if (action.equalsIgnoreCase(GraphDefs.MONTH_STRING))
+    {
+      updateData(GraphDefs.MONTH_STRING);
+    }
+    else if (action.equalsIgnoreCase(GraphDefs.SEASON_STRING))
+    {
+      updateData(GraphDefs.SEASON_STRING);
+    }
+    else if (action.equalsIgnoreCase(GraphDefs.YEAR_STRING))
+    {
+      updateData(GraphDefs.YEAR_STRING);
+    }
+    else if (action.equalsIgnoreCase(GraphDefs.ALL_TIME_STRING))
+    {
+      updateData(GraphDefs.ALL_TIME_STRING);
+    }
   }
 }
\ No newline at end of file
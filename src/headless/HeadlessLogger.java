@@ -0,0 +1,104 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class runs the weather station as a data logger with no
+            window.  The console is polled on the ConsoleTimer scheduler, each
+            archive record is stored, added to the summary records and uploaded
+            by the CommandControl, and the web API serves the data.  None of
+            the Swing or chart classes are loaded, so it runs with a fraction
+            of the memory on a small board with no display.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Bring the cold storage up to date.
+            10/19/26  Bring the climate normals up to date.
+            10/19/26  Load the records index.
+            10/19/26  Load the rollup indexes in the background.
+*/
+package headless;
+
+import dbif.ClimateNormals;
+import dbif.ColdStorage;
+import dbif.DatabaseCommon;
+import dbif.RecordsIndex;
+import dbif.SunshineIndex;
+import dbif.WindRoseIndex;
+import serialdriver.*;
+import util.Logger;
+import util.StartupStages;
+import webapi.WebApiServer;
+
+public class HeadlessLogger
+{
+  private final long startTime;
+  private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
+  private final Logger logger = Logger.getInstance();
+  private volatile CommandControl commandControl = null;
+
+  /**
+   * Constructor.
+   *
+   * @param startTime The time the program started, from System.nanoTime().
+   */
+  public HeadlessLogger(long startTime)
+  {
+    this.startTime = startTime;
+  }
+
+  /**
+   * Method to start the logger.  The console threads keep the program running after this returns.
+   */
+  public void start()
+  {
+    logger.logData("Startup: Running without a window.");
+    Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "Shutdown"));
+
+    StartupStages startup = new StartupStages(startTime, 2);
+
+    startup.addStage("Storage", DatabaseCommon::getInstance);
+
+    startup.addStage("Web", () -> WebApiServer.getInstance().start(), "Storage");
+
+    startup.addStage("Rollups", () ->
+    {
+      SunshineIndex.getInstance().loadInBackground();
+      WindRoseIndex.getInstance().loadInBackground();
+    }, "Storage");
+
+    startup.addStage("Cold", () -> ColdStorage.getInstance().refreshInBackground(), "Storage");
+
+    startup.addStage("Normals", () -> ClimateNormals.getInstance().updateInBackground(), "Storage");
+
+    startup.addStage("Records", () -> RecordsIndex.getInstance().loadInBackground(), "Storage");
+
+    startup.addStage("Serial", () -> commandControl = new CommandControl(null), "Storage");
+
+    startup.addStage("Timers", () ->
+    {
+      consoleCmdQueue.getCurrentData();
+      consoleCmdQueue.getHiLowData();
+
+      CurrentDataTimer.getInstance().startTimer();
+      HistoricDataTimer.getInstance().startTimer();
+      HiLowDataTimer.getInstance().startTimer();
+    }, "Serial");
+
+    startup.finish();
+  }
+
+  /**
+   * Internal method to close the console port and the web API when the program is stopped.
+   */
+  private void shutdown()
+  {
+    logger.logData("Shutdown: Stopping the logger.");
+    if (commandControl != null)
+      commandControl.terminateCommunications();
+    WebApiServer.getInstance().stop();
+  }
+}
@@ -0,0 +1,41 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class counts events such as retries, timeouts or pages read.
+            Many threads can add to it at the same time without waiting on
+            each other.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements CounterMBean
+{
+  private final LongAdder count = new LongAdder();
+
+  Counter() { }
+
+  public void increment()
+  {
+    count.increment();
+  }
+
+  public void add(long amount)
+  {
+    count.add(amount);
+  }
+
+  @Override
+  public long getCount()
+  {
+    return count.sum();
+  }
+}
@@ -0,0 +1,34 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class reports a value that is read when it is wanted, such as
+            the number of commands waiting on the console queue.  Nothing is
+            recorded, so a gauge costs nothing until it is looked at.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package metrics;
+
+import java.util.function.LongSupplier;
+
+public class Gauge implements GaugeMBean
+{
+  private final LongSupplier supplier;
+
+  Gauge(LongSupplier supplier)
+  {
+    this.supplier = supplier;
+  }
+
+  @Override
+  public long getValue()
+  {
+    return supplier.getAsLong();
+  }
+}
@@ -0,0 +1,19 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This is the JMX interface of a Gauge.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package metrics;
+
+public interface GaugeMBean
+{
+  long getValue();
+}
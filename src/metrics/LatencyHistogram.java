@@ -0,0 +1,136 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class records how long something takes.  Each time falls in a
+            bucket by its power of two in nanoseconds, so recording is a shift
+            and a few atomic adds with no locking and no memory allocated, and
+            the whole history is kept in 64 counts.  The percentiles are the
+            top of the bucket they fall in, so they are within a factor of two,
+            which is enough to see where the time goes and when it changes.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram implements LatencyHistogramMBean
+{
+  private static final int BUCKETS = 64;
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  // Bucket n holds the times from 2^(n-1) up to 2^n - 1 nanoseconds, bucket 0 holds zero.
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  LatencyHistogram() { }
+
+  /**
+   * Method to record a time.
+   *
+   * @param nanos The time in nanoseconds.  A negative time is counted as zero.
+   */
+  public void record(long nanos)
+  {
+    if (nanos < 0)
+      nanos = 0;
+
+    buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+    count.increment();
+    totalNanos.add(nanos);
+
+    long max = maxNanos.get();
+    while (nanos > max && !maxNanos.compareAndSet(max, nanos))
+      max = maxNanos.get();
+  }
+
+  /**
+   * Method to record the time since a start.
+   *
+   * @param startNanos The start, from System.nanoTime().
+   */
+  public void recordSince(long startNanos)
+  {
+    record(System.nanoTime() - startNanos);
+  }
+
+  @Override
+  public long getCount()
+  {
+    return count.sum();
+  }
+
+  @Override
+  public double getMeanMillis()
+  {
+    long samples = count.sum();
+    return samples == 0 ? 0 : totalNanos.sum() / NANOS_PER_MILLI / samples;
+  }
+
+  @Override
+  public double getMaxMillis()
+  {
+    return maxNanos.get() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP50Millis()
+  {
+    return getPercentileMillis(50);
+  }
+
+  @Override
+  public double getP90Millis()
+  {
+    return getPercentileMillis(90);
+  }
+
+  @Override
+  public double getP99Millis()
+  {
+    return getPercentileMillis(99);
+  }
+
+  /**
+   * Method to get a percentile of the recorded times.
+   *
+   * @param percent The percentile, 0 to 100.
+   * @return The top of the bucket holding the percentile, no more than the largest time, in milliseconds.
+   */
+  public double getPercentileMillis(double percent)
+  {
+    long[] counts = new long[BUCKETS];
+    long samples = 0;
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      counts[i] = buckets.get(i);
+      samples += counts[i];
+    }
+    if (samples == 0)
+      return 0;
+
+    long rank = (long)Math.ceil(samples * percent / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++)
+    {
+      seen += counts[i];
+      if (seen >= Math.max(1, rank))
+      {
+        long top = (1L << i) - 1;
+        return Math.min(top, maxNanos.get()) / NANOS_PER_MILLI;
+      }
+    }
+    return getMaxMillis();
+  }
+}
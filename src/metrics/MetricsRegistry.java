@@ -0,0 +1,252 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the operational metrics: the counters, gauges and
+            latency histograms of the console link, the database, the uploads
+            and the displays.  A metric is made the first time its name is
+            asked for, and the classes keep the one they are given, so the
+            cost of recording is only that of the metric itself.  Each metric
+            is registered as a JMX MBean so it can be watched with jconsole
+            while the program runs, and all of them are written to the log
+            every few minutes so a slowdown shows up in the log of a station
+            that nobody is watching.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package metrics;
+
+import util.ConfigProperties;
+import util.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+public class MetricsRegistry
+{
+  private static final String DOMAIN = "WeatherStation";
+
+  // Sorted by name so the dump groups the metrics of each area together.
+  private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+  private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+  private final Logger logger = Logger.getInstance();
+
+  // The counts at the last dump, to show the rate since.
+  private final Map<String, Long> lastCounts = new HashMap<>();
+  private long lastDumpTime = System.nanoTime();
+
+  private static class SingletonHelper
+  {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+  }
+
+  public static MetricsRegistry getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private MetricsRegistry()
+  {
+    int minutes = ConfigProperties.instance().getMetricsDumpMinutes();
+    if (minutes > 0)
+    {
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+      {
+        Thread thread = new Thread(runnable, "Metrics");
+        thread.setDaemon(true);
+        return thread;
+      });
+      scheduler.scheduleWithFixedDelay(this::logMetrics, minutes, minutes, TimeUnit.MINUTES);
+    }
+  }
+
+  /**
+   * Method to get a counter.
+   *
+   * @param name The name of the counter, the area first, such as console.wakeupRetries.
+   * @return The counter, made if this is the first time the name is used.
+   */
+  public Counter counter(String name)
+  {
+    return get(name, Counter.class, Counter::new);
+  }
+
+  /**
+   * Method to add a gauge.  A gauge already added under the name is kept.
+   *
+   * @param name The name of the gauge.
+   * @param supplier The source of the value, called from any thread.
+   * @return The gauge.
+   */
+  public Gauge gauge(String name, LongSupplier supplier)
+  {
+    return get(name, Gauge.class, () -> new Gauge(supplier));
+  }
+
+  /**
+   * Method to get a latency histogram.
+   *
+   * @param name The name of the histogram.
+   * @return The histogram, made if this is the first time the name is used.
+   */
+  public LatencyHistogram histogram(String name)
+  {
+    return get(name, LatencyHistogram.class, LatencyHistogram::new);
+  }
+
+  /**
+   * Internal method to get a metric, making and registering it the first time.
+   *
+   * @param name The name of the metric.
+   * @param type The kind of metric.
+   * @param factory Makes the metric.
+   * @return The metric.
+   */
+  private <T> T get(String name, Class<T> type, Supplier<T> factory)
+  {
+    Object metric = metrics.get(name);
+    if (metric == null)
+    {
+      synchronized (metrics)
+      {
+        metric = metrics.get(name);
+        if (metric == null)
+        {
+          metric = factory.get();
+          metrics.put(name, metric);
+          register(name, type.getSimpleName(), metric);
+        }
+      }
+    }
+
+    if (!type.isInstance(metric))
+      throw new IllegalArgumentException("Metric " + name + " is a " + metric.getClass().getSimpleName());
+    return type.cast(metric);
+  }
+
+  /**
+   * Internal method to register a metric with JMX.  A metric that cannot be registered still records, it is only
+   * missing from JMX.
+   */
+  private void register(String name, String type, Object metric)
+  {
+    try
+    {
+      mBeanServer.registerMBean(metric, new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name)));
+    }
+    catch (JMException e)
+    {
+      logger.logData("Metrics: Unable to register " + name + " with JMX: " + e.getLocalizedMessage());
+    }
+  }
+
+  /**
+   * Method to get all the metrics as text, one per line.  Counters show the change and rate since the last dump.
+   *
+   * @return The text.
+   */
+  public synchronized String dump()
+  {
+    long now = System.nanoTime();
+    double seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(now - lastDumpTime));
+    lastDumpTime = now;
+
+    StringBuilder text = new StringBuilder();
+    for (Map.Entry<String, Object> entry : metrics.entrySet())
+    {
+      String name = entry.getKey();
+      Object metric = entry.getValue();
+      text.append(name).append(' ');
+
+      if (metric instanceof Counter)
+      {
+        long count = ((Counter)metric).getCount();
+        Long last = lastCounts.put(name, count);
+        long change = count - (last == null ? 0 : last);
+        text.append(String.format("count=%d (+%d, %.2f/s)", count, change, change / seconds));
+      }
+      else if (metric instanceof Gauge)
+      {
+        text.append("value=").append(((Gauge)metric).getValue());
+      }
+      else
+      {
+        LatencyHistogram histogram = (LatencyHistogram)metric;
+        text.append(String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                                  histogram.getCount(), histogram.getMeanMillis(), histogram.getP50Millis(),
+                                  histogram.getP90Millis(), histogram.getP99Millis(), histogram.getMaxMillis()));
+      }
+      text.append('\n');
+    }
+    return text.toString();
+  }
+
+  /**
+   * Internal method to write the metrics to the log.
+   */
+  private void logMetrics()
+  {
+    for (String line : dump().split("\n"))
+    {
+      if (!line.isEmpty())
+        logger.logData("Metrics: " + line);
+    }
+  }
+
+  /**
+   * Method used to test the class.
+   *
+   * @param args Not used.
+   * @throws Exception The test failed.
+   */
+  public static void main(String[] args) throws Exception
+  {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    Counter counter = registry.counter("test.events");
+    LatencyHistogram histogram = registry.histogram("test.latency");
+    int[] depth = {0};
+    registry.gauge("test.depth", () -> depth[0]);
+
+    int threads = 4;
+    int perThread = 1000000;
+    Thread[] workers = new Thread[threads];
+    long start = System.nanoTime();
+    for (int t = 0; t < threads; t++)
+    {
+      workers[t] = new Thread(() ->
+      {
+        for (int i = 0; i < perThread; i++)
+        {
+          counter.increment();
+          histogram.record(i % 1000 * 1000L);
+        }
+      });
+      workers[t].start();
+    }
+    for (Thread worker : workers)
+      worker.join();
+    long elapsed = System.nanoTime() - start;
+    depth[0] = 7;
+
+    System.out.println("Recorded " + threads * perThread + " in " + elapsed / 1000000 + " ms, " +
+                       elapsed / (threads * perThread) + " ns each");
+    System.out.print(registry.dump());
+    System.out.println("JMX p99: " + registry.mBeanServer.getAttribute(
+      new ObjectName(DOMAIN + ":type=LatencyHistogram,name=" + ObjectName.quote("test.latency")), "P99Millis"));
+  }
+}
@@ -11,6 +11,7 @@
             write and the EEPROM table offset.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added the time the command was made.
 */
 package serialdriver;
 
@@ -19,6 +20,7 @@ public class Command
   private ConsoleCommand command;
   private byte offset;
   private byte[] data;
+  private final long createTime = System.nanoTime();
 
   /**
    * Constructor for most commands.
@@ -58,4 +60,14 @@ public class Command
   {
     return data;
   }
+
+  /**
+   * Method to get when the command was made, which for a queued command is when it was queued.
+   *
+   * @return The time from System.nanoTime().
+   */
+  public long getCreateTime()
+  {
+    return createTime;
+  }
 }
@@ -17,11 +17,23 @@
             Depending the on the command, the resulting data is either sent to
             the windowing classes for display or sent to the DatabaseWriter to
             save.  The save data is the HiLow and DMP/DMPAFT data.  The Loop data
-            is sent the windowing classes for display.
+            is sent the windowing classes for display.  The windowing classes
+            register as ConsoleDataListeners, so the data is stored the same
+            when there is no window.
 
   Mods:		  09/01/21  Initial Release.
             10/09/21  Enabled sending of DMP & Loop data to WeatherServerIF
             01/10/22  Minor fix.
+            10/19/26  Pass the LOOP next record pointer to the historic data timer.
+            10/19/26  Track the hi/low values from the LOOP data.
+            10/19/26  Decode the responses in place from the frame buffer.  Check the
+                      CRC of the DMPAFT pages.
+            10/19/26  Write the web API snapshots of the LOOP and hi/low data.
+            10/19/26  Publish each stored archive record to the live events.
+            10/19/26  Pass the data to the ConsoleDataListeners rather than to the
+                      window classes.
+            10/19/26  Record the LOOP, DMPAFT page and archive record metrics.
+            10/19/26  Use a database reader of its own.
 */
 package serialdriver;
 
@@ -29,37 +41,48 @@ import data.consolerecord.AlarmData;
 import data.consolerecord.DmpDataExtended;
 import data.consolerecord.HiLoData;
 import data.consolerecord.LoopData;
-import data.dbrecord.WindDirection;
 import dbif.DatabaseCommon;
 import dbif.DatabaseReader;
 import dbif.DatabaseWriter;
 import gui.*;
-import gui.currentreadings.CurrentReadings;
-import gui.graph.StreamDataThread;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.CCITT;
 import util.Logger;
 import util.ConfigProperties;
+import webapi.LiveSnapshots;
 import wxserverif.WeatherServerIF;
 
 import javax.swing.*;
-import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class CommandControl
 {
   private final JFrame parent;
-  private final CurrentReadings currentReadings;
+  private final List<ConsoleDataListener> listeners = new CopyOnWriteArrayList<>();
   private static final DatabaseWriter DB_WRITER = new DatabaseWriter();
-  private static final DatabaseReader DB_READER = DatabaseReader.getInstance();
+  private static final DatabaseReader DB_READER = new DatabaseReader();
   private static final DatabaseCommon DB_COMMON = DatabaseCommon.getInstance();
   private final CCITT ccitt = new CCITT();
   private final SerialDriver serialDriver = SerialDriver.getInstance();
   private final TestDriver testDriver = TestDriver.getInstance();
   private final WeatherServerIF wxInterface = WeatherServerIF.getInstance();
-  private final StreamDataThread streamDataThread = StreamDataThread.getInstance();
+  private final HistoricDataTimer historicDataTimer = HistoricDataTimer.getInstance();
+  private final HiLowTracker hiLowTracker = HiLowTracker.getInstance();
+  private final LiveSnapshots liveSnapshots = LiveSnapshots.getInstance();
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private final Logger logger = Logger.getInstance();
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+  private final Counter loopPackets = metrics.counter("console.loopPackets");
+  private final Counter dmpAftPages = metrics.counter("console.dmpaftPages");
+  private final Counter crcFailures = metrics.counter("console.crcFailures");
+  private final Counter recordsStored = metrics.counter("archive.recordsStored");
+  private final LatencyHistogram recordLatency = metrics.histogram("archive.record");
+  private final LatencyHistogram loopUpdateLatency = metrics.histogram("ui.loopUpdate");
 
   private LoopData lastLoopData = null;
   private TestDialog testDialog;
@@ -72,13 +95,11 @@ public class CommandControl
   /**
    * The constructor that initializes the communications with the console.
    *
-   * @param parent The parent JFrame object.
-   * @param currentReadings A pointer to the CurrentReadings class.
+   * @param parent The parent JFrame object, or null when running without a window.
    */
-  public CommandControl(JFrame parent, CurrentReadings currentReadings)
+  public CommandControl(JFrame parent)
   {
     this.parent = parent;
-    this.currentReadings = currentReadings;
 
     if (PROPS.getTestMode())
     {
@@ -93,6 +114,21 @@ public class CommandControl
     initializeCommunications();
   }
 
+  /**
+   * Method to add a class that displays the console data.
+   *
+   * @param listener The listener.
+   */
+  public void addListener(ConsoleDataListener listener)
+  {
+    listeners.add(listener);
+  }
+
+  public void removeListener(ConsoleDataListener listener)
+  {
+    listeners.remove(listener);
+  }
+
   /**
    * Method to initialize the communications mechanism.
    */
@@ -139,32 +175,19 @@ public class CommandControl
   }
 
   /**
-   * This method verifies the bytes returned from an OK command sent to the console.
-   *
-   * @param bytes The bytes to verify.
-   * @return Whether or not the bytes are correct.
-   */
-  private boolean verifyOk(byte[] bytes)
-  {
-    return (bytes[0] == 10) && (bytes[1] == 13) && (bytes[2] == 79) && (bytes[3] == 75) && (bytes[4] == 10) && (bytes[5] == 13);
-  }
-
-  /**
-   * Method to parse data returned from the console.
+   * Method to parse data returned from the console.  The data is decoded where it lies in the frame buffer.
    *
    * @param originalCmd The command sent to the console.
-   * @param buffer The bytes returned from the console.
-   * @param bufferSize The number of bytes returned from the console.
+   * @param frame The bytes returned from the console.
    * @param dmpAftPageOffset The page offset into the group of 5 DMPAFT pages.
+   * @return Whether the response was accepted.  A DMPAFT page with a bad CRC is not, the console sends it again.
    */
-  public void parseReturnValues(Command originalCmd, byte[] buffer, int bufferSize, int dmpAftPageOffset)
+  boolean parseReturnValues(Command originalCmd, FrameBuffer frame, int dmpAftPageOffset)
   {
     if (originalCmd.getCommand().ok())
     {
-      if (verifyOk(buffer))
+      if (frame.isOkResponse())
       {
-        byte[] newBuffer = Arrays.copyOfRange(buffer, 6, bufferSize);
-
         if (originalCmd.getCommand() == ConsoleCommand.RXCHECK)
         {
           String packetsReceived;
@@ -173,7 +196,7 @@ public class CommandControl
           String maxContiguousPackets;
           String crcErrors;
 
-          String results = new String(newBuffer, 0, bufferSize - 6);
+          String results = frame.getString(6, frame.size() - 6);
           try
           {
             StringTokenizer tokens = new StringTokenizer(results);
@@ -186,7 +209,7 @@ public class CommandControl
           catch (NoSuchElementException nsee)
           {
             logger.logData("Rx: RXCHECK results did not parse.");
-            return;
+            return true;
           }
 
           int packets = Integer.parseInt(packetsReceived);
@@ -218,8 +241,7 @@ public class CommandControl
         }
         else if (originalCmd.getCommand() == ConsoleCommand.VERSION)
         {
-          String results = new String(newBuffer);
-          results = results.substring(0, 11);
+          String results = frame.getString(6, 11);
           if (this.versionDialog == null)
           {
             versionDialog = new VersionDialog(this.parent, results);
@@ -232,7 +254,7 @@ public class CommandControl
         }
         else if (originalCmd.getCommand() == ConsoleCommand.RECEIVERS)
         {
-          byte bitmap = newBuffer[0];
+          byte bitmap = frame.get(6);
           if (this.transceiversDialog == null)
           {
             transceiversDialog = new TransceiversDialog(this.parent, bitmap);
@@ -269,7 +291,7 @@ public class CommandControl
     {
       if (originalCmd.getCommand() == ConsoleCommand.TEST)
       {
-        String results = new String(buffer, 0, bufferSize);
+        String results = frame.getString(0, frame.size());
         if (testDialog == null)
         {
           testDialog = new TestDialog(this.parent, results);
@@ -291,24 +313,23 @@ public class CommandControl
              originalCmd.getCommand().equals(ConsoleCommand.DMP) ||
              originalCmd.getCommand().equals(ConsoleCommand.EEBRD_ALARMS))
     {
-      byte[] newBuffer = Arrays.copyOfRange(buffer, 1, bufferSize);
-      byte[] crc = ccitt.calculateCRC(newBuffer, bufferSize - 1);
-      if (crc[0] != 0 || crc[1] != 0)
+      // The first byte is the ACK.
+      if (!frame.isCrcValid(1, frame.size() - 1))
       {
         logger.captureData("  Rx: CRC Failure: " + originalCmd, Logger.Level.COARSE);
         logger.logData("Rx: CRC Failure: " + originalCmd);
-        return;
+        return true;
       }
 
       switch (originalCmd.getCommand())
       {
         case GETTIME:
-          int seconds = newBuffer[0];
-          int minutes = newBuffer[1];
-          int hour = newBuffer[2];
-          int day = newBuffer[3];
-          int month = newBuffer[4];
-          int year = newBuffer[5] + 1900;
+          int seconds = frame.get(1);
+          int minutes = frame.get(2);
+          int hour = frame.get(3);
+          int day = frame.get(4);
+          int month = frame.get(5);
+          int year = frame.get(6) + 1900;
 
           String monthString = "";
           String adder = " am";
@@ -379,23 +400,43 @@ public class CommandControl
 
         case LOOP:
           LoopData loopData = new LoopData();
-          loopData.setData(newBuffer);
+          loopData.setData(frame.array(), 1);
           lastLoopData = loopData;
 
-          currentReadings.updateReadings(loopData);
+          HiLoData trackedData = hiLowTracker.update(loopData);
+          if (trackedData != null)
+          {
+            liveSnapshots.setHiLowData(trackedData);
+            for (ConsoleDataListener listener : listeners)
+              listener.hiLowDataReceived(trackedData);
+          }
+
           wxInterface.setCurrentData(loopData);
+          liveSnapshots.setLoopData(loopData);
+          loopPackets.increment();
+
+          long updateStart = System.nanoTime();
+          for (ConsoleDataListener listener : listeners)
+            listener.loopDataReceived(loopData);
+          loopUpdateLatency.recordSince(updateStart);
+
+          // A change in the next record pointer means a new archive record is ready to download.
+          historicDataTimer.nextRecordReceived(loopData.getNextRecord());
           break;
 
         case HILOWS:
           HiLoData hiloData = new HiLoData();
-          hiloData.setData(newBuffer);
+          hiloData.setData(frame.array(), 1);
 
-          currentReadings.updateMinMax(hiloData);
+          HiLoData snapshotData = hiLowTracker.setSnapshot(hiloData);
+          liveSnapshots.setHiLowData(snapshotData);
+          for (ConsoleDataListener listener : listeners)
+            listener.hiLowDataReceived(snapshotData);
           break;
 
         case EEBRD_ALARMS:
           AlarmData alarmData = new AlarmData();
-          alarmData.setData(newBuffer);
+          alarmData.setData(frame.array(), 1);
 
           if (alarmConfigDialog == null)
           {
@@ -409,7 +450,7 @@ public class CommandControl
           break;
 
         case DMP:  // TODO: this does not work.  this is probably not needed.
-          extractDmpData(buffer, 0);
+          extractDmpData(frame, 0);
           break;
       }
     }
@@ -432,10 +473,21 @@ public class CommandControl
     }
     else if (originalCmd.getCommand() == ConsoleCommand.DMPAFTDATA)
     {
-      extractDmpData(buffer, dmpAftPageOffset);
+      boolean pageValid = frame.isCrcValid(0, ConsoleCommand.DMPAFTDATA.size());
+      if (pageValid)
+      {
+        dmpAftPages.increment();
+        extractDmpData(frame, dmpAftPageOffset);
+      }
+      else
+      {
+        crcFailures.increment();
+        logger.captureData("  Rx: CRC Failure: DMPAFT page # " + frame.get(0), Logger.Level.COARSE);
+        logger.logData("Rx: CRC Failure: DMPAFT page # " + frame.get(0));
+      }
 
-      // Send ACK
-      byte[] byteArray = new byte[] {(byte)0x06};
+      // Send ACK for the next page or NAK to have the page sent again.
+      byte[] byteArray = new byte[] {pageValid ? (byte)0x06 : (byte)0x21};
       if (PROPS.getTestMode())
       {
         testDriver.sendCommand(byteArray);
@@ -444,22 +496,23 @@ public class CommandControl
       {
         serialDriver.sendCommand(byteArray);
       }
+      return pageValid;
     }
+    return true;
   }
 
   /**
    * Method that extracts the DMP data from a 5 record packet and sends the data to be written to the database.
    *
-   * @param buffer The bytes of DMP data.
+   * @param frame The bytes of DMP data.
    * @param firstRecord The index of the first record within the block of 5 records.  The records before this are ignored.
    */
-  private void extractDmpData(byte[] buffer, int firstRecord)
+  private void extractDmpData(FrameBuffer frame, int firstRecord)
   {
-    int seqNumber = buffer[0];
+    int seqNumber = frame.get(0);
     logger.captureData("  Rx: Extracting data from page # " + seqNumber, Logger.Level.MEDIUM);
 
     int lastPackedDate = 0;
-    byte[] nextRecord = new byte[52];
     for (int recordIndex = 0; recordIndex < 5; recordIndex++)
     {
       if (recordIndex < firstRecord)
@@ -469,15 +522,8 @@ public class CommandControl
       }
 
       // Note: The first byte is a sequence number.
-      int offset = 1 + recordIndex * 52;
-      for (int j = 0; j < 52; j++)
-      {
-        nextRecord[j] = buffer[offset];
-        offset++;
-      }
-
       DmpDataExtended dmpData = new DmpDataExtended();
-      dmpData.setData(nextRecord);
+      dmpData.setData(frame.array(), 1 + recordIndex * 52);
       int dateStamp = dmpData.getDateStamp();
       int timeStamp = dmpData.getTimeStamp();
 
@@ -491,22 +537,21 @@ public class CommandControl
 
         if (lastPackedDate == dateStamp || dateStamp > lastPackedDate)
         {
+          long recordStart = System.nanoTime();
           DB_WRITER.insertWeatherRecord(dmpData);
           dmpData.calculateData(DB_READER.getHeatDDTotal(), DB_READER.getCoolDDTotal());
           DB_WRITER.updateSummaryRecords(dmpData);
+          liveSnapshots.setArchiveData(dmpData);
           wxInterface.setDmpData(dmpData);
           boolean response = wxInterface.sendData();
           if (!response)
             logger.logData("WARNING: Data send to PWS Weather failed.");
 
-          streamDataThread.addNewData(dmpData);
+          for (ConsoleDataListener listener : listeners)
+            listener.archiveDataReceived(dmpData);
 
-          WindDirection windDirection = WindDirection.valueOf(dmpData.getPrevailingWindDir());
-          if (windDirection != null)
-          {
-            currentReadings.addPrevailingDirection(windDirection);
-          }
-          currentReadings.updateForecastRule(dmpData.getForecastRule());
+          recordsStored.increment();
+          recordLatency.recordSince(recordStart);
         }
         else
         {
@@ -16,9 +16,15 @@
             an EEBWR command is pulled off the queue.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added check for an already queued command.
+            10/19/26  Record the queue depth and the time commands wait.
 */
 package serialdriver;
 
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,6 +35,9 @@ public class ConsoleCmdQueue
   private static ConsoleCmdQueue instance = null;
   private Command nextCommand = null;
   private final List<CommandListener> listeners = new ArrayList<>();
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+  private final Counter commandsQueued = metrics.counter("console.commandsQueued");
+  private final LatencyHistogram queueWait = metrics.histogram("console.queueWait");
 
   public static ConsoleCmdQueue getInstance()
   {
@@ -39,6 +48,11 @@ public class ConsoleCmdQueue
     return instance;
   }
 
+  private ConsoleCmdQueue()
+  {
+    metrics.gauge("console.queueDepth", this::getQueueDepth);
+  }
+
   public void performTest()
   {
     addCommand(new Command(ConsoleCommand.TEST));
@@ -130,6 +144,7 @@ public class ConsoleCmdQueue
     }
 
     nextCommand = theQueue.removeFirst();
+    queueWait.recordSince(nextCommand.getCreateTime());
 
       // Notify everybody that may be interested.
       for (CommandListener nextListener : listeners)
@@ -150,6 +165,33 @@ public class ConsoleCmdQueue
       nextListener.commandChanged(nextCommand);
   }
 
+  /**
+   * Method to determine if a command is waiting on the queue.  Used to avoid queueing a second copy of a long
+   * running command such as DMPAFT.
+   *
+   * @param command The command to look for.
+   * @return Whether or not the command is queued.
+   */
+  public synchronized boolean isQueued(ConsoleCommand command)
+  {
+    for (Command nextQueued : theQueue)
+    {
+      if (nextQueued.getCommand() == command)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Method to get the number of commands waiting.
+   *
+   * @return The number of commands on the queue.
+   */
+  public synchronized int getQueueDepth()
+  {
+    return theQueue.size();
+  }
+
   /**
    * Add a command onto the queue.  If the queue is empty then notify the driver that a command is available.
    *
@@ -158,6 +200,7 @@ public class ConsoleCmdQueue
   private synchronized void addCommand(Command command)
   {
     theQueue.addLast(command);
+    commandsQueued.increment();
     if (theQueue.size() == 1)
     {
       notifyAll();
@@ -0,0 +1,46 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This is an interface for the classes that display the data read
+            from the console.  The CommandControl stores, uploads and publishes
+            the data itself and then passes it to any listeners, so the data
+            is logged the same with or without a window.  The methods are
+            called on the thread reading the console.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package serialdriver;
+
+import data.consolerecord.DmpDataExtended;
+import data.consolerecord.HiLoData;
+import data.consolerecord.LoopData;
+
+public interface ConsoleDataListener
+{
+  /**
+   * Method called with each LOOP packet.
+   *
+   * @param loopData The LOOP data.
+   */
+  default void loopDataReceived(LoopData loopData) { }
+
+  /**
+   * Method called when the hi/low values change, from a HILOWS snapshot or from the LOOP tracking.
+   *
+   * @param hiLoData The hi/low data.
+   */
+  default void hiLowDataReceived(HiLoData hiLoData) { }
+
+  /**
+   * Method called with each archive record once it is stored and its derived values calculated.
+   *
+   * @param dmpData The archive record.
+   */
+  default void archiveDataReceived(DmpDataExtended dmpData) { }
+}
@@ -0,0 +1,104 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is a repeating timer for the console polling and the
+            command timeouts.  All the timers share one scheduler thread, so
+            their actions run one at a time as they did on the event dispatch
+            thread, but nothing here needs AWT and the program can run with
+            no display at all.  Starting a timer that is already running does
+            nothing, the same as the Swing timer it replaces.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package serialdriver;
+
+import util.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+class ConsoleTimer
+{
+  private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, "ConsoleTimer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final long delay;
+  private final Runnable action;
+  private final Logger logger = Logger.getInstance();
+  private ScheduledFuture<?> future = null;
+
+  /**
+   * Constructor.
+   *
+   * @param delay The time in milliseconds between the start and the first action and between actions.
+   * @param action The action, run on the scheduler thread.
+   */
+  ConsoleTimer(long delay, Runnable action)
+  {
+    this.delay = delay;
+    this.action = action;
+  }
+
+  /**
+   * Method to start the timer if it is not already running.
+   */
+  synchronized void start()
+  {
+    if (future == null)
+      future = SCHEDULER.scheduleWithFixedDelay(this::fire, delay, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Method to stop the timer.  An action already running is allowed to finish.
+   */
+  synchronized void stop()
+  {
+    if (future != null)
+    {
+      future.cancel(false);
+      future = null;
+    }
+  }
+
+  /**
+   * Method to start the timer over, so the next action is a full delay from now.
+   */
+  synchronized void restart()
+  {
+    stop();
+    start();
+  }
+
+  synchronized boolean isRunning()
+  {
+    return future != null;
+  }
+
+  /**
+   * Internal method to run the action.  An exception is logged rather than thrown, as a periodic task that throws
+   * is never run again.
+   */
+  private void fire()
+  {
+    try
+    {
+      action.run();
+    }
+    catch (RuntimeException e)
+    {
+      logger.logData("Console timer action failed: " + e.getLocalizedMessage());
+    }
+  }
+}
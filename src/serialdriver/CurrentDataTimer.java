@@ -12,16 +12,13 @@
             operator.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Run on the ConsoleTimer scheduler rather than a Swing timer.
 */
 package serialdriver;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-public class CurrentDataTimer extends Thread implements ActionListener
+public class CurrentDataTimer extends Thread
 {
-  private final Timer loopTimer = new Timer(7000, this);
+  private final ConsoleTimer loopTimer = new ConsoleTimer(7000, this::timerExpired);
   private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
   private boolean currentState = true;
 
@@ -40,7 +37,7 @@ public class CurrentDataTimer extends Thread implements ActionListener
     loopTimer.start();
   }
 
-  public void actionPerformed (ActionEvent event)
+  private void timerExpired()
   {
     loopTimer.stop();
     consoleCmdQueue.getCurrentData();
@@ -0,0 +1,167 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class collects the bytes received from the console until a
+            whole response frame has arrived.  One buffer is reused for every
+            frame.  The console only answers one command at a time, so the
+            buffer is rewound at the end of each frame instead of wrapping,
+            which keeps every frame in one piece.  The frame is checked and
+            decoded where it lies, nothing is copied out of it.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package serialdriver;
+
+import util.CCITT;
+
+class FrameBuffer
+{
+  // Larger than the biggest response, the 439 byte HILOWS.
+  private static final int CAPACITY = 1024;
+  private static final byte ACK = 0x06;
+
+  private final byte[] buffer = new byte[CAPACITY];
+  private final CCITT ccitt = new CCITT();
+  private int length = 0;
+
+  /**
+   * Method to add the bytes of a serial event to the frame.
+   *
+   * @param bytes The bytes received.
+   * @param count The number of bytes received.
+   * @return Whether the bytes fit.  Nothing is added when they do not.
+   */
+  boolean append(byte[] bytes, int count)
+  {
+    if (count > CAPACITY - length)
+      return false;
+
+    System.arraycopy(bytes, 0, buffer, length, count);
+    length += count;
+    return true;
+  }
+
+  /**
+   * Method to rewind the buffer for the next frame.
+   */
+  void clear()
+  {
+    length = 0;
+  }
+
+  /**
+   * Method to get the number of bytes received so far.
+   *
+   * @return The number of bytes.
+   */
+  int size()
+  {
+    return length;
+  }
+
+  /**
+   * Method to tell if the whole response to a command has been received.
+   *
+   * @param command The command.
+   * @return Whether the frame is complete.
+   */
+  boolean isComplete(ConsoleCommand command)
+  {
+    return length >= command.size();
+  }
+
+  /**
+   * Method to tell if the frame ends with the line feed, carriage return the console sends when it wakes up.  The
+   * end is checked, as the bytes of a response that arrive after its command timed out may come first.
+   *
+   * @return Whether this is a wakeup response.
+   */
+  boolean isWakeupResponse()
+  {
+    return length >= 2 && buffer[length - 2] == 10 && buffer[length - 1] == 13;
+  }
+
+  /**
+   * Method to tell if the frame starts with the "\n\rOK\n\r" of an OK command.
+   *
+   * @return Whether the OK was received.
+   */
+  boolean isOkResponse()
+  {
+    return length >= 6 && buffer[0] == 10 && buffer[1] == 13 && buffer[2] == 79 && buffer[3] == 75 &&
+           buffer[4] == 10 && buffer[5] == 13;
+  }
+
+  /**
+   * Method to tell if the frame starts with an ACK.
+   *
+   * @return Whether the first byte is an ACK.
+   */
+  boolean isAck()
+  {
+    return length > 0 && buffer[0] == ACK;
+  }
+
+  /**
+   * Method to check the CRC of part of the frame.  The CRC is the last two bytes of the part.
+   *
+   * @param offset The index of the first byte covered by the CRC.
+   * @param count The number of bytes including the CRC.
+   * @return Whether the CRC is good.
+   */
+  boolean isCrcValid(int offset, int count)
+  {
+    return offset + count <= length && ccitt.calculateCRCValue(buffer, offset, count) == 0;
+  }
+
+  /**
+   * Method to get one byte of the frame.
+   *
+   * @param index The index within the frame.
+   * @return The byte.
+   */
+  byte get(int index)
+  {
+    return buffer[index];
+  }
+
+  /**
+   * Method to get a two byte value of the frame.  The console sends the low byte first.
+   *
+   * @param index The index of the low byte within the frame.
+   * @return The value.
+   */
+  short getShort(int index)
+  {
+    return (short)((buffer[index] & 0xFF) | (buffer[index + 1] << 8));
+  }
+
+  /**
+   * Method to get part of the frame as text.
+   *
+   * @param offset The index of the first character.
+   * @param count The number of characters.
+   * @return The text.
+   */
+  String getString(int offset, int count)
+  {
+    return new String(buffer, offset, Math.max(0, Math.min(count, length - offset)));
+  }
+
+  /**
+   * Method to get the bytes of the frame for the data classes to decode in place.  The frame starts at index zero.
+   * The array belongs to this buffer and is only good until the next frame, it must not be changed or kept.
+   *
+   * @return The array holding the frame.
+   */
+  byte[] array()
+  {
+    return buffer;
+  }
+}
@@ -9,18 +9,18 @@
 
   Purpose:	This class is a thread that times out once every hour and queues
             a HILOW command to read the hi/low data to be displayed to the operator.
+            Between commands the HiLowTracker keeps the values current from the
+            LOOP data, so this is only a safety net.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Lengthened the interval to an hour now the values are tracked.
+            10/19/26  Run on the ConsoleTimer scheduler rather than a Swing timer.
 */
 package serialdriver;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-public class HiLowDataTimer extends Thread implements ActionListener
+public class HiLowDataTimer extends Thread
 {
-  private final Timer hiLowTimer = new Timer(250000, this);
+  private final ConsoleTimer hiLowTimer = new ConsoleTimer(3600000, this::timerExpired);
   private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
   private boolean currentState = true;
 
@@ -39,7 +39,7 @@ public class HiLowDataTimer extends Thread implements ActionListener
     hiLowTimer.start();
   }
 
-  public void actionPerformed (ActionEvent event)
+  private void timerExpired()
   {
     hiLowTimer.stop();
     consoleCmdQueue.getHiLowData();
@@ -0,0 +1,128 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class keeps the daily, monthly and yearly hi/low values
+            current from the LOOP data, so the min/max markers no longer wait
+            for the next HILOWS command.  A HILOWS snapshot from the console is
+            the starting point and is requested again only at day rollover or
+            when LOOP data has stopped long enough that extremes may have been
+            missed.  The HiLowDataTimer remains as an hourly safety net.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package serialdriver;
+
+import data.consolerecord.HiLoData;
+import data.consolerecord.LoopData;
+import util.Logger;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class HiLowTracker
+{
+  // LOOP data arrives every few seconds.  A longer gap, for example when communications were lost, means the
+  // extremes may no longer match the console.
+  private static final long LOOP_GAP_MILLIS = 120000;
+
+  private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
+  private final Logger logger = Logger.getInstance();
+
+  private HiLoData hiloData = null;
+  private LocalDate trackedDate = null;
+  private long lastLoopTime = 0;
+
+  private static class SingletonHelper
+  {
+    private static final HiLowTracker INSTANCE = new HiLowTracker();
+  }
+
+  public static HiLowTracker getInstance()
+  {
+    return HiLowTracker.SingletonHelper.INSTANCE;
+  }
+
+  private HiLowTracker() { }
+
+  /**
+   * Method called when a HILOWS snapshot is received from the console.  The snapshot replaces the tracked values.
+   *
+   * @param snapshot The hi/low data from the console.
+   * @return The hi/low data to display.
+   */
+  public synchronized HiLoData setSnapshot(HiLoData snapshot)
+  {
+    if (hiloData != null && hasDrifted(snapshot))
+      logger.captureData("  HiLowTracker: Tracked values differed from the console, reconciled.", Logger.Level.FINE);
+
+    hiloData = snapshot;
+    trackedDate = LocalDate.now();
+    return hiloData;
+  }
+
+  /**
+   * Method called with each LOOP packet to update the tracked values.  Nothing is tracked until the first snapshot
+   * has been received.
+   *
+   * @param loopData The LOOP data.
+   * @return The updated hi/low data to display or null if there is no snapshot yet.
+   */
+  public synchronized HiLoData update(LoopData loopData)
+  {
+    if (hiloData == null)
+      return null;
+
+    LocalDateTime now = LocalDateTime.now();
+    LocalDate today = now.toLocalDate();
+    long currentTime = System.currentTimeMillis();
+    boolean loopGap = lastLoopTime != 0 && currentTime - lastLoopTime > LOOP_GAP_MILLIS;
+    lastLoopTime = currentTime;
+
+    boolean newDay = !today.equals(trackedDate);
+    boolean newMonth = newDay && (today.getMonthValue() != trackedDate.getMonthValue() ||
+                                  today.getYear() != trackedDate.getYear());
+    boolean newYear = newDay && today.getYear() != trackedDate.getYear();
+    trackedDate = today;
+
+    hiloData.update(loopData, (short)(now.getHour() * 100 + now.getMinute()), newDay, newMonth, newYear);
+
+    // The console resets its values on its own clock, so confirm against the console after a rollover.
+    if (newDay || loopGap)
+      requestSnapshot();
+
+    return hiloData;
+  }
+
+  /**
+   * Internal method to queue a HILOWS command unless one is already waiting.
+   */
+  private void requestSnapshot()
+  {
+    if (!consoleCmdQueue.isQueued(ConsoleCommand.HILOWS))
+      consoleCmdQueue.getHiLowData();
+  }
+
+  /**
+   * Internal method to determine if the tracked daily values differ from a console snapshot.
+   *
+   * @param snapshot The hi/low data from the console.
+   * @return Whether or not any of the tracked daily values differ.
+   */
+  private boolean hasDrifted(HiLoData snapshot)
+  {
+    return hiloData.getDailyLowPressureNative() != snapshot.getDailyLowPressureNative() ||
+      hiloData.getDailyHighPressureNative() != snapshot.getDailyHighPressureNative() ||
+      hiloData.getDailyHighWindSpeed() != snapshot.getDailyHighWindSpeed() ||
+      hiloData.getDailyLowOutsideTempNative() != snapshot.getDailyLowOutsideTempNative() ||
+      hiloData.getDailyHighOutsideTempNative() != snapshot.getDailyHighOutsideTempNative() ||
+      hiloData.getDailyLowOutsideHumidity() != snapshot.getDailyLowOutsideHumidity() ||
+      hiloData.getDailyHighOutsideHumidity() != snapshot.getDailyHighOutsideHumidity() ||
+      hiloData.getDailyHighSolarRadiation() != snapshot.getDailyHighSolarRadiation();
+  }
+}
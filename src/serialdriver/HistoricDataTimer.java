@@ -7,23 +7,30 @@
   or any later version. This software is distributed without any warranty
   expressed or implied. See the GNU General Public License for more details.
 
-  Purpose:	This class is a thread that times out once every 5 minutes and
-            queues commands to read the DMPAFT data.  This data is archived
-            to the flat file database.
+  Purpose:	This class queues commands to read the DMPAFT data.  This data is
+            archived to the flat file database.  The download is driven by the
+            next record pointer in the LOOP data, which the console advances
+            each time it archives a record.  The timer is only a fallback for
+            when no LOOP data is arriving and times out once every 15 minutes.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Trigger the download from the LOOP next record pointer.
+            10/19/26  Run on the ConsoleTimer scheduler rather than a Swing timer.
 */
 package serialdriver;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import util.Logger;
 
-public class HistoricDataTimer extends Thread implements ActionListener
+public class HistoricDataTimer extends Thread
 {
-  private final Timer historicTimer = new Timer(300000, this);
+  private static final int FALLBACK_INTERVAL = 900000;
+  private static final int NO_RECORD = -1;
+
+  private final ConsoleTimer historicTimer = new ConsoleTimer(FALLBACK_INTERVAL, this::timerExpired);
   private final ConsoleCmdQueue consoleCmdQueue = ConsoleCmdQueue.getInstance();
+  private final Logger logger = Logger.getInstance();
   private boolean currentState = true;
+  private int lastNextRecord = NO_RECORD;
 
   private static class SingletonHelper
   {
@@ -40,14 +47,43 @@ public class HistoricDataTimer extends Thread implements ActionListener
     historicTimer.start();
   }
 
-  @Override
-  public void actionPerformed(ActionEvent e)
+  private void timerExpired()
   {
     historicTimer.stop();
-    consoleCmdQueue.getHistoricData();
+    queueDownload();
     historicTimer.start();
   }
 
+  /**
+   * Method called with the next record pointer of each LOOP packet.  The first pointer seen queues a download to
+   * catch up on anything archived while the program was not running.  After that, a change in the pointer means
+   * the console has archived a new record.  Either way the fallback timer starts over.
+   *
+   * @param nextRecord The next archive record pointer from the LOOP data.
+   */
+  public synchronized void nextRecordReceived(int nextRecord)
+  {
+    if (nextRecord == lastNextRecord)
+      return;
+
+    lastNextRecord = nextRecord;
+    if (!currentState)
+      return;
+
+    logger.captureData("  Next archive record changed to " + nextRecord + ", queueing DMPAFT.", Logger.Level.FINE);
+    historicTimer.restart();
+    queueDownload();
+  }
+
+  /**
+   * Internal method to queue the DMPAFT command unless one is already waiting.
+   */
+  private void queueDownload()
+  {
+    if (!consoleCmdQueue.isQueued(ConsoleCommand.DMPAFT))
+      consoleCmdQueue.getHistoricData();
+  }
+
   public void resetTimer()
   {
     if (currentState)
@@ -61,13 +97,15 @@ public class HistoricDataTimer extends Thread implements ActionListener
     historicTimer.stop();
   }
 
-  public void startTimer()
+  public synchronized void startTimer()
   {
+    currentState = true;
     historicTimer.start();
   }
 
-  public void stopTimer()
+  public synchronized void stopTimer()
   {
+    currentState = false;
     historicTimer.stop();
   }
 }
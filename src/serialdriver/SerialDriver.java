@@ -25,19 +25,23 @@
                    0x06 (ACK) to receive the next page.  A 0x1B (ESC) can be sent anytime to cancel the downloads.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Collect the responses in a reusable frame buffer that guards
+                      against overflow.  A DMPAFT page with a bad CRC is not counted.
+            10/19/26  Time out the wakeup and commands on the ConsoleTimer scheduler.
+            10/19/26  Record the wakeup, command, timeout and CRC metrics.
 */
 package serialdriver;
 
 import com.pi4j.io.serial.*;
 import dbif.DatabaseCommon;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.*;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.IOException;
 
-public class SerialDriver extends Thread implements SerialDataEventListener, ActionListener
+public class SerialDriver extends Thread implements SerialDataEventListener
 {
   private static SerialDriver instance = null;
   private Serial serial;
@@ -51,19 +55,25 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
   private final HistoricDataTimer historicDataTimer = HistoricDataTimer.getInstance();
   private final HiLowDataTimer hiLowDataTimer = HiLowDataTimer.getInstance();
   private final Logger logger = Logger.getInstance();
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+  private final Counter wakeupRetries = metrics.counter("console.wakeupRetries");
+  private final Counter wakeupFailures = metrics.counter("console.wakeupFailures");
+  private final Counter commandTimeouts = metrics.counter("console.commandTimeouts");
+  private final Counter crcFailures = metrics.counter("console.crcFailures");
+  private final Counter bufferOverflows = metrics.counter("console.bufferOverflows");
+  private final LatencyHistogram wakeupLatency = metrics.histogram("console.wakeup");
 
   private final WakeupNotifier wakeupNotifier = new WakeupNotifier();
   private final CommandNotifier commandNotifier = new CommandNotifier();
   private int wakeupTries = 0;
-  private final Timer wakeupTimer = new Timer(3000, this);
-  private final Timer delayTimer = new Timer(180000, this);
+  private final ConsoleTimer wakeupTimer = new ConsoleTimer(3000, this::timerExpired);
+  private final ConsoleTimer delayTimer = new ConsoleTimer(180000, this::timerExpired);
   private boolean wakeupTimerIsSet = false;
   private boolean delayTimerIsSet = false;
 
   private int dmpAftPageOffset = 0;
   private short numOfPages = 0;
-  private int nextByte = 0;
-  private final byte[] inputBuffer = new byte['ǂ'];
+  private final FrameBuffer frameBuffer = new FrameBuffer();
 
   public static SerialDriver getInstance()
   {
@@ -197,6 +207,8 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
    */
   private void wakeupConsole(int tries)
   {
+    // Drop what is left of a response that never completed so the wakeup response starts a new frame.
+    frameBuffer.clear();
     sendCommand(new Command(ConsoleCommand.WAKEUP));
 
     wakeupTries = tries;
@@ -218,17 +230,21 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
       // Get the next command or waits until a command is available.
       logger.captureData("  Run Loop: waiting for next command.", Logger.Level.FINE);
       nextCommand = commandQueue.getConsoleCmd();
+      LatencyHistogram commandLatency = metrics.histogram("console.command." + nextCommand.getCommand());
 
       // If not in the middle of a current command then wakeup the console and wait for it to complete.
       if ((nextCommand.getCommand() != ConsoleCommand.ACK) && (nextCommand.getCommand() != ConsoleCommand.NAK))
       {
         logger.captureData("  Run Loop: Waking up console.", Logger.Level.FINE);
+        long wakeupStart = System.nanoTime();
         wakeupConsole(1);
 
         wakeupNotifier.waitForNotification();
+        wakeupLatency.recordSince(wakeupStart);
       }
 
       // If a command is available then send the command.
+      long commandStart = System.nanoTime();
       if (nextCommand != null)
       {
         // Turn off other command generation when the DMPAFT is going.
@@ -250,6 +266,7 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
         // Wait for the command to complete.
         logger.captureData("  Run Loop: waiting for command to complete.", Logger.Level.FINE);
         commandNotifier.waitForNotification();
+        commandLatency.recordSince(commandStart);
       }
 
       // Tell Queue the last command has completed.
@@ -258,15 +275,12 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
   }
 
   /**
-   * The action performed method required as this class is an ActionListener.  This method is called when one of
-   * two timers timeout.  There is the wakeup timer and the delay timer.  The wakeup timer is waiting for the console
+   * Internal method called when one of two timers timeout.  There is the wakeup timer and the delay timer.  The wakeup timer is waiting for the console
    * to wakeup and return an ack.  If an ack is not returned after 3 tries, then the port is reset.  The delay
    * timer is used to timeout a command sent to the console.  If there is no valid response sent then the run
    * method is woken up to send the next command.
-   *
-   * @param event The required action event.  This is not used.
    */
-  public void actionPerformed(ActionEvent event)
+  private void timerExpired()
   {
     if (wakeupTimerIsSet)
     {
@@ -275,10 +289,12 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
       wakeupTries += 1;
       if (wakeupTries < 4)
       {
+        wakeupRetries.increment();
         wakeupConsole(wakeupTries);
       }
       else
       {
+        wakeupFailures.increment();
         logger.captureData("  Timeout: COULD NOT WAKE UP CONSOLE!", Logger.Level.COARSE);
         logger.logData("   Timeout: COULD NOT WAKE UP CONSOLE!");
 
@@ -291,6 +307,8 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
       logger.captureData("  Timeout: No response to last command.", Logger.Level.COARSE);
       logger.logData("  Timeout: No response to last command.");
 
+      commandTimeouts.increment();
+      frameBuffer.clear();
       delayTimerIsSet = false;
       commandNotifier.notifyWaiter();
     }
@@ -309,13 +327,20 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
       byte[] bytes = event.getBytes();
       logger.captureData("  Rx: Received: " + ByteUtil.bytesToHex(bytes), Logger.Level.MEDIUM);
 
-      System.arraycopy(bytes, 0, inputBuffer, nextByte, bytes.length);
-      nextByte += bytes.length;
+      if (!frameBuffer.append(bytes, bytes.length))
+      {
+        logger.captureData("  Rx: Receive buffer overflow, discarding " + (frameBuffer.size() + bytes.length) +
+                             " bytes.", Logger.Level.COARSE);
+        logger.logData("  Rx: Receive buffer overflow, discarding " + (frameBuffer.size() + bytes.length) + " bytes.");
+        bufferOverflows.increment();
+        frameBuffer.clear();
+        return;
+      }
 
-      if ((wakeupTimerIsSet) && (bytes[0] == 10) && (bytes[1] == 13))
+      if ((wakeupTimerIsSet) && frameBuffer.isWakeupResponse())
       {
         logger.captureData("  Rx: Valid wakeup response.", Logger.Level.FINE);
-        nextByte = 0;
+        frameBuffer.clear();
         wakeupTimerIsSet = false;
         wakeupNotifier.notifyWaiter();
         return;
@@ -338,20 +363,18 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
 
         sendCommand(dateTimeStamp);
         nextCommand = new Command(ConsoleCommand.DMPAFTTIME);
-        nextByte = 0;
+        frameBuffer.clear();
       }
       else if (nextCommand.getCommand().equals(ConsoleCommand.DMPAFTTIME))
       {
         // Second go around, parse the number of pages, set notify dialog and send either send an ACK or a NAK
-        byte[] timestampBytes = event.getBytes();
-
-        if (timestampBytes.length == 1)
+        if (!frameBuffer.isAck())
         {
           // If response = 0x18 then CRC is not correct.
           // If response = 0x21 then 6 bytes not sent.
-          logger.captureData("  Rx: DMPAFT:  Aborting:  Received: " + ByteUtil.bytesToHex(timestampBytes),
+          logger.captureData("  Rx: DMPAFT:  Aborting:  Received: " + ByteUtil.bytesToHex(bytes),
                              Logger.Level.COARSE);
-          logger.logData("  Rx: DMPAFT:  Aborting:  Received: " + ByteUtil.bytesToHex(timestampBytes));
+          logger.logData("  Rx: DMPAFT:  Aborting:  Received: " + ByteUtil.bytesToHex(bytes));
 
           // Reload DMPAFT command to send again.
           commandQueue.dumpArchivedDataAfterDate();
@@ -360,26 +383,18 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
           return;
         }
 
-        if (timestampBytes.length < 6)
+        // Wait for the ACK, page count, offset and CRC to all arrive.
+        if (!frameBuffer.isComplete(ConsoleCommand.DMPAFTTIME))
         {
-          logger.captureData("  Rx: DMPAFT: Aborting: Less than 6 bytes received: Received: " +
-            ByteUtil.bytesToHex(timestampBytes), Logger.Level.COARSE);
-          logger.logData("  Rx: DMPAFT: Aborting: Less than 6 bytes received: Received: " +
-                               ByteUtil.bytesToHex(timestampBytes));
-
-          endCommand();
           return;
         }
 
         // Verify CRC
-        byte[] bytesMinusAck = new byte[6];
-        System.arraycopy(timestampBytes, 1, bytesMinusAck, 0, 6);
-
-        byte[] crc = ccitt.calculateCRC(bytesMinusAck, bytesMinusAck.length);
-        if (crc[0] != 0 || crc[1] != 0)
+        if (!frameBuffer.isCrcValid(1, 6))
         {
           logger.captureData("  Rx: CRC for DMPAFT length response failed", Logger.Level.COARSE);
           logger.logData("  Rx: CRC for DMPAFT length response failed");
+          crcFailures.increment();
 
           byte[] byteArray = new byte[1];
           byteArray[0] = 0x1B;
@@ -387,14 +402,8 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
           return;
         }
 
-        byte[] tempBuffer = new byte[2];
-        tempBuffer[0] = bytesMinusAck[1];
-        tempBuffer[1] = bytesMinusAck[0];
-        numOfPages = ByteUtil.byteArrayToShort(tempBuffer);
-
-        tempBuffer[0] = bytesMinusAck[3];
-        tempBuffer[1] = bytesMinusAck[2];
-        dmpAftPageOffset = ByteUtil.byteArrayToShort(tempBuffer);
+        numOfPages = frameBuffer.getShort(1);
+        dmpAftPageOffset = frameBuffer.getShort(3);
         logger.captureData("  Rx: Number of Pages = " + numOfPages + ", Page offset = " + dmpAftPageOffset,
                            Logger.Level.MEDIUM);
 
@@ -425,7 +434,7 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
         else
         {
           nextCommand = new Command(ConsoleCommand.DMPAFTDATA);
-          nextByte = 0;
+          frameBuffer.clear();
         }
 //        }
 //        else
@@ -441,16 +450,22 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
 //        }
       }
       // Else if the next command response has been received then process the command.
-      else if (nextByte >= nextCommand.getCommand().size())
+      else if (frameBuffer.isComplete(nextCommand.getCommand()))
       {
         stopDelayTimer();
 
-        // Parese the received bytes and process.
-        commandControl.parseReturnValues(nextCommand, inputBuffer, nextByte, dmpAftPageOffset);
+        // Parse the received bytes and process.
+        boolean accepted = commandControl.parseReturnValues(nextCommand, frameBuffer, dmpAftPageOffset);
 
         if (nextCommand.getCommand().equals(ConsoleCommand.DMPAFTDATA))
         {
-          numOfPages--;
+          // A rejected page is sent again, so it still counts.
+          if (accepted)
+          {
+            numOfPages--;
+            if (dmpAftPageOffset > 0)
+              dmpAftPageOffset = 0;
+          }
           if (numOfPages == 0)
           {
             endCommand();
@@ -461,9 +476,7 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
           endCommand();
         }
 
-        if (dmpAftPageOffset > 0)
-          dmpAftPageOffset = 0;
-        nextByte = 0;
+        frameBuffer.clear();
       }
     }
     catch (IOException e)
@@ -475,7 +488,7 @@ public class SerialDriver extends Thread implements SerialDataEventListener, Act
   private void endCommand()
   {
     nextCommand = null;
-    nextByte = 0;
+    frameBuffer.clear();
 
     // Turn other command generation back on after DMPAFT has completed.
     currentDataTimer.resetTimer();
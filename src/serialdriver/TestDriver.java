@@ -12,25 +12,31 @@
             The simulator can send captured DMP data.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Collect the responses in a reusable frame buffer the same as the
+                      SerialDriver.
+            10/19/26  Run the timers on the ConsoleTimer scheduler.  Download without
+                      asking when there is no window.
+            10/19/26  Record the same console metrics as the SerialDriver.
 */
 package serialdriver;
 
 import dbif.DatabaseCommon;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.ByteUtil;
 import util.CCITT;
 import util.Logger;
 import util.TimeUtil;
 
 import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.text.DecimalFormat;
 
-public class TestDriver implements ActionListener
+public class TestDriver
 {
   private Socket socket;
   private OutputStream out;
@@ -45,22 +51,29 @@ public class TestDriver implements ActionListener
   private final CCITT ccitt = new CCITT();
   private final DatabaseCommon dbCommon = DatabaseCommon.getInstance();
   private final Logger logger = Logger.getInstance();
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+  private final Counter wakeupRetries = metrics.counter("console.wakeupRetries");
+  private final Counter wakeupFailures = metrics.counter("console.wakeupFailures");
+  private final Counter commandTimeouts = metrics.counter("console.commandTimeouts");
+  private final Counter crcFailures = metrics.counter("console.crcFailures");
+  private final Counter bufferOverflows = metrics.counter("console.bufferOverflows");
+  private final LatencyHistogram wakeupLatency = metrics.histogram("console.wakeup");
 
   private final WakeupNotifier wakeupNotifier = new WakeupNotifier();
   private final CommandNotifier commandNotifier = new CommandNotifier();
   private int wakeupTries = 0;
-  private final Timer wakeupTimer = new Timer(5000, this);
+  private final ConsoleTimer wakeupTimer = new ConsoleTimer(5000, this::timerExpired);
   private final CurrentDataTimer currentDataTimer = CurrentDataTimer.getInstance();
   private final HistoricDataTimer historicDataTimer = HistoricDataTimer.getInstance();
   private final HiLowDataTimer hiLowDataTimer = HiLowDataTimer.getInstance();
-  private final Timer delayTimer = new Timer(2000, this);
+  private final ConsoleTimer delayTimer = new ConsoleTimer(2000, this::timerExpired);
   private boolean wakeupTimerIsSet = false;
   private boolean delayTimerIsSet = false;
 
   private int dmpAftPageOffset = 0;
   private short numOfPages = 0;
-  private int nextByte = 0;
-  private final byte[] inputBuffer = new byte['ǂ'];
+  private final byte[] readBuffer = new byte[500];
+  private final FrameBuffer frameBuffer = new FrameBuffer();
 
   private static class SingletonHelper
   {
@@ -127,6 +140,8 @@ public class TestDriver implements ActionListener
 
   private void commandSender()
   {
+    LatencyHistogram commandLatency = null;
+    long commandStart = 0;
     while (true)
     {
       if (nextCommand != null)
@@ -134,15 +149,22 @@ public class TestDriver implements ActionListener
         //        System.out.println("  TestDriver: waiting for previous command to complete.");
         commandNotifier.waitForNotification();
       }
+      if (commandLatency != null)
+        commandLatency.recordSince(commandStart);
+
       commandQueue.resetCommand();
       nextCommand = commandQueue.getConsoleCmd();
+      commandLatency = metrics.histogram("console.command." + nextCommand.getCommand());
       if ((nextCommand.getCommand() != ConsoleCommand.ACK) && (nextCommand.getCommand() != ConsoleCommand.NAK))
       {
+        long wakeupStart = System.nanoTime();
         wakeupConsole(1);
 
 //        System.out.println("  TestDriver: waking up console, waiting for console to wake up.");
         wakeupNotifier.waitForNotification();
+        wakeupLatency.recordSince(wakeupStart);
       }
+      commandStart = System.nanoTime();
       System.out.println("  TestDriver: sending command: " + nextCommand.getCommand().command());
       logger.captureData("TestDriver: sending command: " + nextCommand.getCommand().command(), Logger.Level.MEDIUM);
 
@@ -163,27 +185,33 @@ public class TestDriver implements ActionListener
     {
       while (true)
       {
-        byte[] bytes = new byte[500];
+        byte[] bytes = readBuffer;
         int count = in.read(bytes);
         if (count > 0)
         {
           System.out.println("Received: " + ByteUtil.bytesToHex(bytes));
           logger.captureData("Received: " + ByteUtil.bytesToHex(bytes), Logger.Level.MEDIUM);
-          System.arraycopy(bytes, 0, inputBuffer, nextByte, count);
-//          System.out.println("Bytes Received = " + count + " bytes: " + ByteUtil.bytesToHex(inputBuffer));
-          nextByte += count;
-//          System.out.println("NextByte: " + nextByte);
-          if ((wakeupTimerIsSet) && (bytes[0] == 10) && (bytes[1] == 13))
+          if (!frameBuffer.append(bytes, count))
+          {
+            System.out.println("Receive buffer overflow, discarding " + (frameBuffer.size() + count) + " bytes.");
+            logger.captureData("Receive buffer overflow, discarding " + (frameBuffer.size() + count) + " bytes.",
+                               Logger.Level.COARSE);
+            bufferOverflows.increment();
+            frameBuffer.clear();
+            continue;
+          }
+
+          if ((wakeupTimerIsSet) && frameBuffer.isWakeupResponse())
           {
-            nextByte = 0;
+            frameBuffer.clear();
             wakeupTimerIsSet = false;
             wakeupNotifier.notifyWaiter();
           }
 
           if (nextCommand == null)
           {
-            System.out.println("Bytes Received = " + count + " bytes: " + ByteUtil.bytesToHex(inputBuffer));
-            logger.captureData("Bytes Received = " + count + " bytes: " + ByteUtil.bytesToHex(inputBuffer),
+            System.out.println("Bytes Received = " + count + " bytes: " + ByteUtil.bytesToHex(bytes));
+            logger.captureData("Bytes Received = " + count + " bytes: " + ByteUtil.bytesToHex(bytes),
                                Logger.Level.FINE);
             continue;
           }
@@ -202,53 +230,52 @@ public class TestDriver implements ActionListener
             logger.captureData("Sent: " + ByteUtil.bytesToHex(dateTimeStamp), Logger.Level.MEDIUM);
             sendCommand(dateTimeStamp);
             nextCommand = new Command(ConsoleCommand.DMPAFTTIME);
-            nextByte = 0;
+            frameBuffer.clear();
           }
           else if (nextCommand.getCommand().equals(ConsoleCommand.DMPAFTTIME))
           {
             // Second go around, parse the number of pages, set notify dialog and send either send an ACK or a NAK.
-            // Verify CRC
-            byte[] bytesMinusAck = new byte[6];
-            System.arraycopy(bytes, 1, bytesMinusAck, 0, 6);
+            // Wait for the ACK, page count, offset and CRC to all arrive.
+            if (!frameBuffer.isComplete(ConsoleCommand.DMPAFTTIME))
+              continue;
 
-            System.out.println("Bytes received: " + ByteUtil.bytesToHex(bytesMinusAck));
-
-            byte[] crc = ccitt.calculateCRC(bytesMinusAck, bytesMinusAck.length);
-            if (crc[0] != 0 || crc[1] != 0)
+            // Verify CRC
+            if (!frameBuffer.isCrcValid(1, 6))
             {
               System.out.println("CRC for DMPAFT length response failed");
               logger.captureData("CRC for DMPAFT length response failed", Logger.Level.COARSE);
+              crcFailures.increment();
               byte[] byteArray = new byte[1];
               byteArray[0] = 0x1B;
               sendCommand(byteArray);
               return;
             }
 
-            byte[] tempBuffer = new byte[2];
-            tempBuffer[0] = bytesMinusAck[1];
-            tempBuffer[1] = bytesMinusAck[0];
-            numOfPages = ByteUtil.byteArrayToShort(tempBuffer);
+            numOfPages = frameBuffer.getShort(1);
             System.out.println("Number of Pages = " + numOfPages);
             logger.captureData("Number of Pages = " + numOfPages, Logger.Level.MEDIUM);
 
-            tempBuffer[0] = bytesMinusAck[3];
-            tempBuffer[1] = bytesMinusAck[2];
-            dmpAftPageOffset = ByteUtil.byteArrayToShort(tempBuffer);
+            dmpAftPageOffset = frameBuffer.getShort(3);
             System.out.println("Page offset = " + dmpAftPageOffset);
             logger.captureData("Page offset = " + dmpAftPageOffset, Logger.Level.MEDIUM);
 
             float percent = (numOfPages / 512.0f) * 100.0f;
             DecimalFormat df = new DecimalFormat("#.##");
 
-            Object[] options = {"Download", "Cancel"};
-            int n = JOptionPane.showOptionDialog(parent,
-                                                 "Download " + numOfPages + " pages (" + df.format(percent) +"%)?",
-                                                 "DMP AFT Download",
-                                                 JOptionPane.OK_CANCEL_OPTION,
-                                                 JOptionPane.QUESTION_MESSAGE,
-                                                 null,
-                                                 options,
-                                                 options[0]);
+            // With no window there is no one to ask, so the pages are downloaded the same as the SerialDriver does.
+            int n = 0;
+            if (parent != null)
+            {
+              Object[] options = {"Download", "Cancel"};
+              n = JOptionPane.showOptionDialog(parent,
+                                               "Download " + numOfPages + " pages (" + df.format(percent) +"%)?",
+                                               "DMP AFT Download",
+                                               JOptionPane.OK_CANCEL_OPTION,
+                                               JOptionPane.QUESTION_MESSAGE,
+                                               null,
+                                               options,
+                                               options[0]);
+            }
 
             if (n == 0)
             {
@@ -259,7 +286,7 @@ public class TestDriver implements ActionListener
               logger.captureData("Sent ACK...", Logger.Level.FINE);
 
               nextCommand = new Command(ConsoleCommand.DMPAFTDATA);
-              nextByte = 0;
+              frameBuffer.clear();
             }
             else
             {
@@ -272,15 +299,13 @@ public class TestDriver implements ActionListener
               logger.captureData("Sent ESC...", Logger.Level.FINE);
 
               nextCommand = null;
-              nextByte = 0;
+              frameBuffer.clear();
             }
           }
-          else if (nextByte >= nextCommand.getCommand().size())
+          else if (frameBuffer.isComplete(nextCommand.getCommand()))
           {
-            processReceiveData(inputBuffer, nextByte, dmpAftPageOffset);
-            if (dmpAftPageOffset > 0)
-              dmpAftPageOffset = 0;
-            nextByte = 0;
+            processReceiveData();
+            frameBuffer.clear();
           }
         }
       }
@@ -293,14 +318,10 @@ public class TestDriver implements ActionListener
 
   /**
    * Method called to process the received data bytes depending on what type of timer is set.  If there are
-   * return bytes to parse, the data is sent to the CommandControl class to perform the heavy lifting.  After the
+   * return bytes to parse, the frame is sent to the CommandControl class to perform the heavy lifting.  After the
    * bytes are processed, a wakeup notification is sent to notify the run method to send the next command.
-   *
-   * @param inputBuffer An array of bytes that were read.
-   * @param bytesRead   The number of bytes that were read.
-   * @param dmpAftPageOffset The page offset into the group of 5 DMPAFT pages.
    */
-  private void processReceiveData(byte[] inputBuffer, int bytesRead, int dmpAftPageOffset)
+  private void processReceiveData()
   {
     if (wakeupTimerIsSet)
     {
@@ -318,11 +339,17 @@ public class TestDriver implements ActionListener
         delayTimerIsSet = false;
       }
 
-      commandControl.parseReturnValues(nextCommand, inputBuffer, bytesRead, dmpAftPageOffset);
+      boolean accepted = commandControl.parseReturnValues(nextCommand, frameBuffer, dmpAftPageOffset);
 
       if (nextCommand.getCommand().equals(ConsoleCommand.DMPAFTDATA))
       {
-        numOfPages--;
+        // A rejected page is sent again, so it still counts.
+        if (accepted)
+        {
+          numOfPages--;
+          if (dmpAftPageOffset > 0)
+            dmpAftPageOffset = 0;
+        }
         if (numOfPages == 0)
         {
           nextCommand = null;
@@ -386,6 +413,8 @@ public class TestDriver implements ActionListener
 
   private void wakeupConsole(int tries)
   {
+    // Drop what is left of a response that never completed so the wakeup response starts a new frame.
+    frameBuffer.clear();
     sendCommand(new Command(ConsoleCommand.WAKEUP));
 
     wakeupTries = tries;
@@ -393,8 +422,7 @@ public class TestDriver implements ActionListener
     wakeupTimer.start();
   }
 
-  @Override
-  public void actionPerformed(ActionEvent e)
+  private void timerExpired()
   {
     if (wakeupTimerIsSet)
     {
@@ -402,10 +430,12 @@ public class TestDriver implements ActionListener
       wakeupTries += 1;
       if (wakeupTries < 4)
       {
+        wakeupRetries.increment();
         wakeupConsole(wakeupTries);
       }
       else
       {
+        wakeupFailures.increment();
         System.out.println("COULD NOT WAKE UP CONSOLE!");
         logger.captureData("COULD NOT WAKE UP CONSOLE!", Logger.Level.COARSE);
         wakeupTimerIsSet = false;
@@ -416,6 +446,8 @@ public class TestDriver implements ActionListener
     {
       System.out.println("No response to last command.");
       logger.captureData("No response to last command.", Logger.Level.COARSE);
+      commandTimeouts.increment();
+      frameBuffer.clear();
       delayTimerIsSet = false;
       commandNotifier.notifyWaiter();
     }
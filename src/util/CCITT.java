@@ -8,15 +8,28 @@
   expressed or implied. See the GNU General Public License for more details.
 
   Purpose:	This class performs a CCITT Cyclical Redundancy Check (CRC) on
-            the data that is transferred to/from the console.
+            the data that is transferred to/from the console.  The CRC is
+            table driven eight bytes at a time (slice-by-8).  The static
+            update methods take the CRC so far, so a CRC can be carried
+            across the chunks of a serial read without copying them.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added a CRC of part of a buffer.
+            10/19/26  Slice-by-8 tables, streaming and ByteBuffer updates.
 */
 package util;
 
+import java.nio.ByteBuffer;
+import java.util.Random;
+
 public class CCITT
 {
-  private final short[] crc_table =
+  // The starting value of a CRC.
+  public static final int INITIAL = 0;
+
+  private static final int SLICES = 8;
+
+  private static final short[] crc_table =
     { (short)0x0000, (short)0x1021, (short)0x2042, (short)0x3063,
       (short)0x4084, (short)0x50a5, (short)0x60c6, (short)0x70e7,  // 0x00
       (short)0x8108, (short)0x9129, (short)0xa14a, (short)0xb16b,
@@ -83,6 +96,104 @@ public class CCITT
       (short)0x2e93, (short)0x3eb2, (short)0x0ed1, (short)0x1ef0,  // 0xF8
     };
 
+  // slices[k][n] is the CRC of the byte n followed by k zero bytes.
+  private static final int[][] slices = new int[SLICES][256];
+
+  static
+  {
+    for (int n = 0; n < 256; n++)
+      slices[0][n] = crc_table[n] & 0xFFFF;
+
+    for (int k = 1; k < SLICES; k++)
+    {
+      for (int n = 0; n < 256; n++)
+      {
+        int previous = slices[k - 1][n];
+        slices[k][n] = ((previous << 8) ^ slices[0][previous >>> 8]) & 0xFFFF;
+      }
+    }
+  }
+
+  /**
+   * Method to add bytes to a CRC.  Eight bytes are done at a time while there are enough of them.
+   *
+   * @param crc The CRC so far, INITIAL to start a new one.
+   * @param buffer The bytes.
+   * @param offset The index of the first byte.
+   * @param length The number of bytes.
+   * @return The CRC including the bytes.
+   */
+  public static int update(int crc, byte[] buffer, int offset, int length)
+  {
+    final int[] t0 = slices[0], t1 = slices[1], t2 = slices[2], t3 = slices[3];
+    final int[] t4 = slices[4], t5 = slices[5], t6 = slices[6], t7 = slices[7];
+
+    int i = offset;
+    int end = offset + length;
+    while (end - i >= SLICES)
+    {
+      crc = t7[((crc >>> 8) ^ buffer[i]) & 0xFF] ^
+            t6[(crc ^ buffer[i + 1]) & 0xFF] ^
+            t5[buffer[i + 2] & 0xFF] ^
+            t4[buffer[i + 3] & 0xFF] ^
+            t3[buffer[i + 4] & 0xFF] ^
+            t2[buffer[i + 5] & 0xFF] ^
+            t1[buffer[i + 6] & 0xFF] ^
+            t0[buffer[i + 7] & 0xFF];
+      i += SLICES;
+    }
+
+    for (; i < end; i++)
+      crc = ((crc << 8) ^ t0[((crc >>> 8) ^ buffer[i]) & 0xFF]) & 0xFFFF;
+
+    return crc;
+  }
+
+  /**
+   * Method to add the remaining bytes of a buffer to a CRC.  The buffer position is moved to its limit.
+   *
+   * @param crc The CRC so far, INITIAL to start a new one.
+   * @param buffer The bytes.
+   * @return The CRC including the bytes.
+   */
+  public static int update(int crc, ByteBuffer buffer)
+  {
+    int position = buffer.position();
+    int limit = buffer.limit();
+    if (buffer.hasArray())
+    {
+      crc = update(crc, buffer.array(), buffer.arrayOffset() + position, limit - position);
+    }
+    else
+    {
+      for (int i = position; i < limit; i++)
+        crc = ((crc << 8) ^ slices[0][((crc >>> 8) ^ buffer.get(i)) & 0xFF]) & 0xFFFF;
+    }
+    buffer.position(limit);
+    return crc;
+  }
+
+  /**
+   * Method to add bytes to a CRC one at a time, the way the CRC was first done.  It is kept to check the
+   * table driven form against.
+   *
+   * @param crc The CRC so far, INITIAL to start a new one.
+   * @param buffer The bytes.
+   * @param offset The index of the first byte.
+   * @param length The number of bytes.
+   * @return The CRC including the bytes.
+   */
+  public static int updateBytewise(int crc, byte[] buffer, int offset, int length)
+  {
+    int end = offset + length;
+    for (int i = offset; i < end; i++)
+    {
+      // Mask off the sign bits of the index.
+      int index = ((crc >> 8) ^ buffer[i]) & 0x00FF;
+      crc = (crc_table[index] ^ (crc << 8)) & 0xFFFF;
+    }
+    return crc;
+  }
 
   /**
    * Method used to verify the CRC.  It is important to note that the
@@ -92,18 +203,21 @@ public class CCITT
    */
   public byte[] calculateCRC(byte[] buffer, int length)
   {
-    short crc = 0; // The accumulated value.
+    return ByteUtil.shortToByteArray(calculateCRCValue(buffer, 0, length));
+  }
 
-    // Loop once for each byte in the buffer.
-    short i;
-    for (i = 0; i < length; i++)
-    {
-      // Mask off the sign bits of the index.
-      int index = ((crc >> 8) ^ buffer[i]) & 0x00FF;
-      short lookupValue = crc_table[index];
-      crc = (short)(lookupValue ^ (crc << 8));
-    }
-    return ByteUtil.shortToByteArray(crc & 0xFFFF);
+  /**
+   * Method used to calculate the CRC of part of a buffer without copying it.  Verification works the same as
+   * calculateCRC, a good buffer with its CRC on the end returns zero.
+   *
+   * @param buffer The bytes.
+   * @param offset The index of the first byte.
+   * @param length The number of bytes.
+   * @return The CRC as an unsigned value.
+   */
+  public int calculateCRCValue(byte[] buffer, int offset, int length)
+  {
+    return update(INITIAL, buffer, offset, length);
   }
 
   /**
@@ -159,5 +273,37 @@ public class CCITT
       System.out.println("Buffer verified.");
     else
       System.out.println("Buffer did not verify.");
+
+    // Check the table driven form against the byte at a time form for every length, offset and split.
+    Random random = new Random(1);
+    byte[] data = new byte[600];
+    int failures = 0;
+    for (int trial = 0; trial < 20; trial++)
+    {
+      random.nextBytes(data);
+      for (int length = 0; length <= 300; length++)
+      {
+        int offset = random.nextInt(data.length - length + 1);
+        int expected = updateBytewise(INITIAL, data, offset, length);
+        if (update(INITIAL, data, offset, length) != expected)
+          failures++;
+
+        int split = random.nextInt(length + 1);
+        if (update(update(INITIAL, data, offset, split), data, offset + split, length - split) != expected)
+          failures++;
+
+        if (update(INITIAL, ByteBuffer.wrap(data, offset, length)) != expected)
+          failures++;
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(length);
+        direct.put(data, offset, length).flip();
+        if (update(INITIAL, direct) != expected || direct.hasRemaining())
+          failures++;
+      }
+    }
+    if (failures == 0)
+      System.out.println("Table driven CRC matches.");
+    else
+      System.out.println("Table driven CRC failed " + failures + " checks.");
   }
 }
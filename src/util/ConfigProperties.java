@@ -48,6 +48,9 @@
             Hi WndSpd 23
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Added the web API port.
+            10/19/26  Added the metrics dump interval.
+            10/19/26  Added the web API address and allowed origin.
 */
 package util;
 
@@ -69,6 +72,10 @@ public class ConfigProperties
   private static final String WX_UPDATE_INTERVAL = "wx.update.interval";
   private static final String WX_URL = "wx.url";
   private static final String CAPTURE_DATA = "capture.data";
+  private static final String HTTP_PORT = "http.port";
+  private static final String HTTP_BIND = "http.bind";
+  private static final String HTTP_CORS_ORIGIN = "http.cors.origin";
+  private static final String METRICS_DUMP_MINUTES = "metrics.dump.minutes";
 
   private static final String BACKGROUND_COLOR = "background.color";
   private static final String INSIDE_TEMP_COLOR = "inside.temp.color";
@@ -183,6 +190,10 @@ public class ConfigProperties
   private int timeZone;
   private boolean captureData = false;
   private boolean testMode = true;
+  private int httpPort = 0; // zero when the web API is off.
+  private String httpBind = "127.0.0.1"; // only this machine unless configured otherwise.
+  private String httpCorsOrigin = ""; // empty when no other web site may read the web API.
+  private int metricsDumpMinutes = 15; // zero when the metrics are not logged.
   private Color snowLineColor;
 
   private String insideTempChart;
@@ -404,6 +415,26 @@ public class ConfigProperties
       {
         wxPassword = "";
       }
+      String httpPortValue = configProp.getProperty(HTTP_PORT);
+      if (httpPortValue != null)
+      {
+        httpPort = Integer.parseInt(httpPortValue.trim());
+      }
+      String httpBindValue = configProp.getProperty(HTTP_BIND);
+      if (httpBindValue != null && !httpBindValue.trim().isEmpty())
+      {
+        httpBind = httpBindValue.trim();
+      }
+      String httpCorsOriginValue = configProp.getProperty(HTTP_CORS_ORIGIN);
+      if (httpCorsOriginValue != null)
+      {
+        httpCorsOrigin = httpCorsOriginValue.trim();
+      }
+      String metricsDumpValue = configProp.getProperty(METRICS_DUMP_MINUTES);
+      if (metricsDumpValue != null)
+      {
+        metricsDumpMinutes = Integer.parseInt(metricsDumpValue.trim());
+      }
 
       insideTempChart = configProp.getProperty(INSIDE_TEMP_CHART);
       insideTempStreamDisplayed = Boolean.parseBoolean(configProp.getProperty(INSIDE_TEMP_STREAM_DISPLAYED));
@@ -725,6 +756,26 @@ public class ConfigProperties
     return wxPassword;
   }
 
+  public int getHttpPort()
+  {
+    return httpPort;
+  }
+
+  public String getHttpBind()
+  {
+    return httpBind;
+  }
+
+  public String getHttpCorsOrigin()
+  {
+    return httpCorsOrigin;
+  }
+
+  public int getMetricsDumpMinutes()
+  {
+    return metricsDumpMinutes;
+  }
+
   //--------------------------------
 
   public boolean isInsideTempStreamDisplayed()
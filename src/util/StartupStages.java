@@ -0,0 +1,134 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class runs the startup of the subsystems as named stages.
+            Each stage runs once the stages it depends on are complete, so
+            stages without a dependency between them run at the same time on
+            a small pool of threads.  Stages that touch the GUI are run on the
+            event dispatch thread.  The time each stage takes and the time
+            since startup at which it completed are logged.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package util;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StartupStages
+{
+  private final long startTime;
+  private final ExecutorService executor;
+  private final Map<String, CompletableFuture<Void>> stages = new HashMap<>();
+  private final Logger logger = Logger.getInstance();
+
+  /**
+   * Constructor.
+   *
+   * @param startTime The time the program started, from System.nanoTime().
+   * @param threads The number of stages that may run at the same time.
+   */
+  public StartupStages(long startTime, int threads)
+  {
+    this.startTime = startTime;
+
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    executor = Executors.newFixedThreadPool(threads, runnable ->
+    {
+      Thread thread = new Thread(runnable, "Startup-" + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Method to add a stage that runs in the background.
+   *
+   * @param name The name of the stage, used for the dependencies and the log.
+   * @param task The work of the stage.
+   * @param dependencies The names of the stages that must complete first.
+   */
+  public void addStage(String name, Runnable task, String... dependencies)
+  {
+    addStage(name, task, false, dependencies);
+  }
+
+  /**
+   * Method to add a stage that runs on the event dispatch thread.
+   *
+   * @param name The name of the stage, used for the dependencies and the log.
+   * @param task The work of the stage.
+   * @param dependencies The names of the stages that must complete first.
+   */
+  public void addGuiStage(String name, Runnable task, String... dependencies)
+  {
+    addStage(name, task, true, dependencies);
+  }
+
+  /**
+   * Internal method to add a stage.  A stage whose dependency failed is not run.
+   *
+   * @param name The name of the stage.
+   * @param task The work of the stage.
+   * @param onGuiThread Whether or not the stage runs on the event dispatch thread.
+   * @param dependencies The names of the stages that must complete first.
+   */
+  private synchronized void addStage(String name, Runnable task, boolean onGuiThread, String... dependencies)
+  {
+    CompletableFuture<?>[] dependencyStages = new CompletableFuture<?>[dependencies.length];
+    for (int i = 0; i < dependencies.length; i++)
+    {
+      dependencyStages[i] = stages.get(dependencies[i]);
+      if (dependencyStages[i] == null)
+        throw new IllegalArgumentException("Startup stage " + name + " depends on unknown stage " + dependencies[i]);
+    }
+
+    Runnable timedTask = () ->
+    {
+      long stageStart = System.nanoTime();
+      try
+      {
+        task.run();
+      }
+      catch (RuntimeException e)
+      {
+        logger.logData("Startup: Stage " + name + " failed: " + e.getLocalizedMessage());
+        throw e;
+      }
+      long stageEnd = System.nanoTime();
+      logger.logData("Startup: Stage " + name + " took " + TimeUnit.NANOSECONDS.toMillis(stageEnd - stageStart) +
+                       " ms, done at " + TimeUnit.NANOSECONDS.toMillis(stageEnd - startTime) + " ms.");
+    };
+
+    CompletableFuture<Void> stage = CompletableFuture.allOf(dependencyStages)
+      .thenRunAsync(timedTask, onGuiThread ? SwingUtilities::invokeLater : executor);
+    stages.put(name, stage);
+  }
+
+  /**
+   * Method called once all the stages have been added.  Logs the total startup time once every stage is complete
+   * and then releases the threads.
+   */
+  public synchronized void finish()
+  {
+    CompletableFuture.allOf(stages.values().toArray(new CompletableFuture<?>[0]))
+      .whenComplete((result, exception) ->
+      {
+        logger.logData("Startup: " + (exception == null ? "Complete" : "Incomplete") + " after " +
+                         TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms.");
+        executor.shutdown();
+      });
+  }
+}
@@ -0,0 +1,98 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class answers an archive query of the web API: the count,
+            lowest, highest, average and total of one weather record field
+            over hour, day, month, season or year buckets between two dates.
+            The ArchiveAggregator runs the query, so it never disturbs the file
+            the windows have open and days outside the range are never touched.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Run the query with the ArchiveAggregator.
+*/
+package webapi;
+
+import dbif.ArchiveAggregator;
+import dbif.ArchiveCatalog;
+import dbif.ArchiveField;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+class ArchiveQuery
+{
+  // An hourly query is limited to about a year so one response cannot grow without bound.
+  static final int MAX_HOURLY_DAYS = 366;
+
+  /**
+   * Method to tell which version of the data a query would read, so a cached response can be checked without
+   * reading the files.  The version changes whenever a month file in the range is written.
+   *
+   * @param start The first day.
+   * @param end The last day.
+   * @return The version.
+   */
+  static long getVersion(LocalDate start, LocalDate end)
+  {
+    long version = 17;
+    for (ArchiveCatalog.Entry entry : ArchiveCatalog.getInstance().getEntries(YearMonth.from(start)))
+    {
+      if (entry.getYearMonth().isAfter(YearMonth.from(end)))
+        break;
+      version = version * 31 + entry.getYearMonth().hashCode();
+      version = version * 31 + entry.getLastModified();
+      version = version * 31 + entry.getSize();
+    }
+    return version;
+  }
+
+  /**
+   * Method to run a query.
+   *
+   * @param field The field.
+   * @param start The first day.
+   * @param end The last day.
+   * @param bucket The size of the buckets.
+   * @return The response.
+   * @throws IOException A month file could not be read.
+   */
+  static JsonSnapshot run(ArchiveField field, LocalDate start, LocalDate end, ArchiveAggregator.Bucket bucket)
+    throws IOException
+  {
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("field", field.getName())
+      .add("bucket", bucket.name().toLowerCase())
+      .add("start", start.toString())
+      .add("end", end.toString())
+      .startArray("buckets");
+
+    ArchiveAggregator.Query query = new ArchiveAggregator.Query(start, end, bucket, field);
+    for (ArchiveAggregator.Result result : ArchiveAggregator.getInstance().run(query))
+    {
+      ArchiveAggregator.Aggregate aggregate = result.get(field);
+      if (aggregate.getCount() == 0)
+        continue;
+
+      // Rounded to the resolution of the values so float noise does not reach the client.
+      json.startObject()
+        .add("time", result.getStart().toString())
+        .add("count", aggregate.getCount())
+        .add("min", aggregate.getMin())
+        .add("max", aggregate.getMax())
+        .add("avg", Math.round(aggregate.getSum() / aggregate.getCount() * 1000) / 1000.0)
+        .add("sum", Math.round(aggregate.getSum() * 1000) / 1000.0)
+        .endObject();
+    }
+
+    json.endArray().endObject();
+    return JsonSnapshot.of(json.toBytes());
+  }
+}
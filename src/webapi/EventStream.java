@@ -0,0 +1,257 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class pushes the live events to every subscriber: each LOOP
+            packet and each archive record as it is stored.  An event is put in
+            the server-sent events format once when it is published and the
+            same bytes are queued for every subscriber.  Publishing only adds
+            to the subscriber queues, which drop their oldest event when full,
+            so a slow or stalled client can never hold up the CommandControl.
+            A new subscriber is first given the latest event of each kind so
+            it does not wait for the next one to know the current state.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Add a subscriber before giving it the latest events.
+*/
+package webapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventStream
+{
+  public static final String LOOP_EVENT = "loop";
+  public static final String ARCHIVE_EVENT = "archive";
+  public static final int QUEUE_CAPACITY = 32;
+
+  private final List<EventSubscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final Map<String, Event> latestEvents = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+  private final AtomicLong published = new AtomicLong();
+
+  // The drops of the subscribers that have left, so the total does not go down when they go.
+  private final AtomicLong departedDrops = new AtomicLong();
+
+  /**
+   * One published event.  The frame is shared by all the subscribers and must not be changed.
+   */
+  public static final class Event
+  {
+    private final long id;
+    private final String name;
+    private final byte[] frame;
+    private final long time = System.currentTimeMillis();
+
+    private Event(long id, String name, byte[] json)
+    {
+      this.id = id;
+      this.name = name;
+
+      // The JSON is on one line, so it is a single data field.
+      byte[] head = ("id: " + id + "\nevent: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+      frame = new byte[head.length + json.length + 2];
+      System.arraycopy(head, 0, frame, 0, head.length);
+      System.arraycopy(json, 0, frame, head.length, json.length);
+      frame[frame.length - 2] = '\n';
+      frame[frame.length - 1] = '\n';
+    }
+
+    public long getId()
+    {
+      return id;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * Method to get the event in the server-sent events format, ready to write.
+     *
+     * @return The bytes, shared and not to be changed.
+     */
+    public byte[] getFrame()
+    {
+      return frame;
+    }
+
+    public long getTime()
+    {
+      return time;
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final EventStream INSTANCE = new EventStream();
+  }
+
+  public static EventStream getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  EventStream() { }
+
+  /**
+   * Method to publish an event to all the subscribers.
+   *
+   * @param name The kind of event.
+   * @param json The event data, JSON on one line encoded as UTF-8.
+   */
+  public void publish(String name, byte[] json)
+  {
+    Event event = new Event(nextId.getAndIncrement(), name, json);
+    latestEvents.put(name, event);
+    published.incrementAndGet();
+    for (EventSubscriber subscriber : subscribers)
+      subscriber.offer(event);
+  }
+
+  /**
+   * Method to add a subscriber.
+   *
+   * @param name The name of the subscriber, shown in the statistics.
+   * @param capacity The most events queued for the subscriber.
+   * @return The subscriber, already holding the latest event of each kind.
+   */
+  public EventSubscriber subscribe(String name, int capacity)
+  {
+    // The subscriber is added first, so an event published meanwhile is either queued or among the latest ones.
+    EventSubscriber subscriber = new EventSubscriber(this, name, capacity);
+    subscribers.add(subscriber);
+    subscriber.offerLatest(latestEvents.values());
+    return subscriber;
+  }
+
+  /**
+   * Method called by a subscriber when it is closed.
+   *
+   * @param subscriber The subscriber.
+   */
+  void unsubscribe(EventSubscriber subscriber)
+  {
+    if (subscribers.remove(subscriber))
+      departedDrops.addAndGet(subscriber.getDropped());
+  }
+
+  public int getSubscriberCount()
+  {
+    return subscribers.size();
+  }
+
+  public long getPublishedCount()
+  {
+    return published.get();
+  }
+
+  /**
+   * Method to get the number of events dropped because a subscriber's queue was full.
+   *
+   * @return The total since startup.
+   */
+  public long getDroppedCount()
+  {
+    long dropped = departedDrops.get();
+    for (EventSubscriber subscriber : subscribers)
+      dropped += subscriber.getDropped();
+    return dropped;
+  }
+
+  /**
+   * Method to get how far behind the slowest subscriber is.
+   *
+   * @return The age in milliseconds of the oldest event waiting for any subscriber.
+   */
+  public long getMaxLagMillis()
+  {
+    long lag = 0;
+    for (EventSubscriber subscriber : subscribers)
+      lag = Math.max(lag, subscriber.getLagMillis());
+    return lag;
+  }
+
+  /**
+   * Method to get the statistics as JSON.
+   *
+   * @return The statistics encoded as UTF-8.
+   */
+  public byte[] getStatistics()
+  {
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("subscribers", getSubscriberCount())
+      .add("published", getPublishedCount())
+      .add("dropped", getDroppedCount())
+      .add("maxLagMillis", getMaxLagMillis())
+      .startArray("clients");
+    for (EventSubscriber subscriber : subscribers)
+    {
+      json.startObject()
+        .add("name", subscriber.getName())
+        .add("connected", subscriber.getConnected())
+        .add("delivered", subscriber.getDelivered())
+        .add("dropped", subscriber.getDropped())
+        .add("queued", subscriber.getQueued())
+        .add("lagMillis", subscriber.getLagMillis())
+        .endObject();
+    }
+    return json.endArray().endObject().toBytes();
+  }
+
+  /**
+   * Method used to test the class.  A fast and a stalled subscriber listen in this program while events are
+   * published faster than the stalled one takes them.
+   *
+   * @param args Not used.
+   * @throws InterruptedException The test was interrupted.
+   */
+  public static void main(String[] args) throws InterruptedException
+  {
+    EventStream eventStream = new EventStream();
+    EventSubscriber fast = eventStream.subscribe("fast", QUEUE_CAPACITY);
+    EventSubscriber stalled = eventStream.subscribe("stalled", 4);
+
+    long[] received = new long[1];
+    Thread reader = new Thread(() ->
+    {
+      try
+      {
+        while (fast.poll(1000) != null)
+          received[0]++;
+      }
+      catch (InterruptedException e)
+      {
+        // Done.
+      }
+    });
+    reader.start();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 100000; i++)
+      eventStream.publish(LOOP_EVENT, ("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+    long publishNanos = System.nanoTime() - start;
+    reader.join();
+
+    System.out.println("Published " + eventStream.getPublishedCount() + " in " + publishNanos / 1000000 + " ms");
+    System.out.println("Fast received " + received[0] + ", dropped " + fast.getDropped());
+    System.out.println("Stalled queued " + stalled.getQueued() + ", dropped " + stalled.getDropped() +
+                       ", oldest waiting " + new String(stalled.poll(0).getFrame(), StandardCharsets.UTF_8).trim()
+                         .replace('\n', ' '));
+    System.out.println(new String(eventStream.getStatistics(), StandardCharsets.UTF_8));
+    stalled.close();
+    System.out.println("After close: " + eventStream.getSubscriberCount() + " subscriber, dropped " +
+                       eventStream.getDroppedCount());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is one subscriber to the live events.  Each subscriber
+            has its own queue of a fixed size.  When the queue is full the
+            oldest event is dropped to make room, so a slow client only ever
+            loses its own old events and the publisher never waits for it.
+            The subscriber can be an HTTP client or a listener in this program.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Merge the latest events into the queue without repeats.
+*/
+package webapi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+public class EventSubscriber
+{
+  private final EventStream eventStream;
+  private final String name;
+  private final int capacity;
+  private final ArrayDeque<EventStream.Event> queue;
+  private final long connected = System.currentTimeMillis();
+  private boolean closed = false;
+  private long delivered = 0;
+  private long dropped = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param eventStream The stream the subscriber belongs to.
+   * @param name The name of the subscriber, shown in the statistics.
+   * @param capacity The most events queued.
+   */
+  EventSubscriber(EventStream eventStream, String name, int capacity)
+  {
+    this.eventStream = eventStream;
+    this.name = name;
+    this.capacity = Math.max(1, capacity);
+    this.queue = new ArrayDeque<>(this.capacity);
+  }
+
+  /**
+   * Method called by the publisher to queue an event.  This never waits.
+   *
+   * @param event The event.
+   */
+  synchronized void offer(EventStream.Event event)
+  {
+    if (closed)
+      return;
+
+    if (queue.size() == capacity)
+    {
+      queue.pollFirst();
+      dropped++;
+    }
+    queue.addLast(event);
+    notifyAll();
+  }
+
+  /**
+   * Method called when the subscriber is added to give it the latest event of each kind.  Events published since
+   * it was added may already be queued, so an event already queued is not queued again and the queue is kept in
+   * the order the events were published.  The events past the capacity are the oldest and are left out.
+   *
+   * @param latest The latest event of each kind.
+   */
+  synchronized void offerLatest(Collection<EventStream.Event> latest)
+  {
+    if (closed)
+      return;
+
+    List<EventStream.Event> events = new ArrayList<>(queue);
+    for (EventStream.Event event : latest)
+    {
+      if (!queue.contains(event))
+        events.add(event);
+    }
+    events.sort(Comparator.comparingLong(EventStream.Event::getId));
+
+    queue.clear();
+    queue.addAll(events.subList(Math.max(0, events.size() - capacity), events.size()));
+    notifyAll();
+  }
+
+  /**
+   * Method to take the next event, waiting for one if the queue is empty.
+   *
+   * @param timeoutMillis The most time to wait.
+   * @return The event or null if none arrived in time or the subscriber was closed.
+   * @throws InterruptedException The wait was interrupted.
+   */
+  public synchronized EventStream.Event poll(long timeoutMillis) throws InterruptedException
+  {
+    long end = System.currentTimeMillis() + timeoutMillis;
+    while (queue.isEmpty() && !closed)
+    {
+      long wait = end - System.currentTimeMillis();
+      if (wait <= 0)
+        return null;
+      wait(wait);
+    }
+
+    EventStream.Event event = queue.pollFirst();
+    if (event != null)
+      delivered++;
+    return event;
+  }
+
+  /**
+   * Method to stop the subscription.  Any thread waiting in poll returns.
+   */
+  public void close()
+  {
+    synchronized (this)
+    {
+      if (closed)
+        return;
+      closed = true;
+      queue.clear();
+      notifyAll();
+    }
+    eventStream.unsubscribe(this);
+  }
+
+  public synchronized boolean isClosed()
+  {
+    return closed;
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public long getConnected()
+  {
+    return connected;
+  }
+
+  public synchronized int getQueued()
+  {
+    return queue.size();
+  }
+
+  public synchronized long getDelivered()
+  {
+    return delivered;
+  }
+
+  public synchronized long getDropped()
+  {
+    return dropped;
+  }
+
+  /**
+   * Method to get how far behind the subscriber is.
+   *
+   * @return The age in milliseconds of the oldest event waiting, zero when nothing is waiting.
+   */
+  public synchronized long getLagMillis()
+  {
+    EventStream.Event oldest = queue.peekFirst();
+    return oldest == null ? 0 : System.currentTimeMillis() - oldest.getTime();
+  }
+}
@@ -0,0 +1,164 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class writes JSON text directly into one string builder.  The
+            web API responses are written once and then served many times, so
+            the values are written in a fixed order without building a tree of
+            objects first.  Values that are not numbers are written as null.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package webapi;
+
+import java.nio.charset.StandardCharsets;
+
+class JsonBuilder
+{
+  private final StringBuilder text = new StringBuilder(512);
+
+  // Whether a comma is needed before the next value of the current object or array.
+  private boolean needComma = false;
+
+  JsonBuilder startObject()
+  {
+    comma();
+    text.append('{');
+    needComma = false;
+    return this;
+  }
+
+  JsonBuilder startObject(String name)
+  {
+    name(name);
+    text.append('{');
+    needComma = false;
+    return this;
+  }
+
+  JsonBuilder endObject()
+  {
+    text.append('}');
+    needComma = true;
+    return this;
+  }
+
+  JsonBuilder startArray(String name)
+  {
+    name(name);
+    text.append('[');
+    needComma = false;
+    return this;
+  }
+
+  JsonBuilder endArray()
+  {
+    text.append(']');
+    needComma = true;
+    return this;
+  }
+
+  JsonBuilder add(String name, float value)
+  {
+    name(name);
+    if (Float.isNaN(value) || Float.isInfinite(value))
+      text.append("null");
+    else
+      text.append(value);
+    needComma = true;
+    return this;
+  }
+
+  JsonBuilder add(String name, double value)
+  {
+    name(name);
+    if (Double.isNaN(value) || Double.isInfinite(value))
+      text.append("null");
+    else
+      text.append(value);
+    needComma = true;
+    return this;
+  }
+
+  JsonBuilder add(String name, long value)
+  {
+    name(name);
+    text.append(value);
+    needComma = true;
+    return this;
+  }
+
+  JsonBuilder add(String name, String value)
+  {
+    name(name);
+    string(value);
+    needComma = true;
+    return this;
+  }
+
+  /**
+   * Internal method to write the comma before a value if needed and the name of the value.
+   *
+   * @param name The name.
+   */
+  private void name(String name)
+  {
+    comma();
+    string(name);
+    text.append(':');
+  }
+
+  private void comma()
+  {
+    if (needComma)
+      text.append(',');
+  }
+
+  /**
+   * Internal method to write a quoted string with the characters JSON does not allow escaped.
+   *
+   * @param value The string or null.
+   */
+  private void string(String value)
+  {
+    if (value == null)
+    {
+      text.append("null");
+      return;
+    }
+
+    text.append('"');
+    for (int i = 0; i < value.length(); i++)
+    {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\')
+        text.append('\\').append(c);
+      else if (c < 0x20)
+        text.append(String.format("\\u%04x", (int)c));
+      else
+        text.append(c);
+    }
+    text.append('"');
+  }
+
+  /**
+   * Method to get the JSON text.
+   *
+   * @return The text encoded as UTF-8.
+   */
+  byte[] toBytes()
+  {
+    return text.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String toString()
+  {
+    return text.toString();
+  }
+}
@@ -0,0 +1,100 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds one finished JSON response: the bytes to send and
+            the entity tag a client sends back to ask if it has changed.  A
+            snapshot is never changed, so it is served to any number of
+            clients at the same time without copying or locking.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package webapi;
+
+import java.util.zip.CRC32;
+
+public final class JsonSnapshot
+{
+  private final byte[] body;
+  private final String etag;
+  private final long created = System.currentTimeMillis();
+
+  /**
+   * Constructor.
+   *
+   * @param body The JSON text encoded as UTF-8.
+   * @param etag The entity tag, quoted, or null for a response that is never reused.
+   */
+  JsonSnapshot(byte[] body, String etag)
+  {
+    this.body = body;
+    this.etag = etag;
+  }
+
+  /**
+   * Method to create a snapshot whose entity tag is the checksum of the body, so the same content always has the
+   * same tag.
+   *
+   * @param body The JSON text encoded as UTF-8.
+   * @return The snapshot.
+   */
+  static JsonSnapshot of(byte[] body)
+  {
+    CRC32 crc = new CRC32();
+    crc.update(body, 0, body.length);
+    return new JsonSnapshot(body, "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) +
+                                  "\"");
+  }
+
+  /**
+   * Method to get the body.  The array is shared and must not be changed.
+   *
+   * @return The JSON text encoded as UTF-8.
+   */
+  public byte[] getBody()
+  {
+    return body;
+  }
+
+  public String getEtag()
+  {
+    return etag;
+  }
+
+  /**
+   * Method to get the time the snapshot was made.
+   *
+   * @return The time in milliseconds since epoch.
+   */
+  public long getCreated()
+  {
+    return created;
+  }
+
+  /**
+   * Method to tell if the If-None-Match header of a request names this snapshot.
+   *
+   * @param ifNoneMatch The header value or null.
+   * @return Whether the client already has this snapshot.
+   */
+  public boolean matches(String ifNoneMatch)
+  {
+    if (ifNoneMatch == null || etag == null)
+      return false;
+
+    for (String tag : ifNoneMatch.split(","))
+    {
+      tag = tag.trim();
+      if (tag.startsWith("W/"))
+        tag = tag.substring(2);
+      if (tag.equals(etag) || tag.equals("*"))
+        return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class holds the JSON of the current conditions and of the
+            hi/low values.  The JSON is written once when a LOOP packet or new
+            hi/low values arrive from the console, so a request only hands out
+            the bytes already made however many clients are polling.  Nothing
+            here touches the serial link.  The same JSON of the LOOP packets and
+            of each stored archive record is published to the EventStream.
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Publish the LOOP and archive events.
+*/
+package webapi;
+
+import algorithms.Calculations;
+import data.consolerecord.DmpDataExtended;
+import data.consolerecord.HiLoData;
+import data.consolerecord.LoopData;
+import util.TimeUtil;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public class LiveSnapshots
+{
+  private final EventStream eventStream = EventStream.getInstance();
+  private volatile JsonSnapshot loopSnapshot = null;
+  private volatile JsonSnapshot hiLowSnapshot = null;
+
+  private static class SingletonHelper
+  {
+    private static final LiveSnapshots INSTANCE = new LiveSnapshots();
+  }
+
+  public static LiveSnapshots getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private LiveSnapshots() { }
+
+  /**
+   * Method called with each LOOP packet to write the current conditions.
+   *
+   * @param data The LOOP data.
+   * @return The new snapshot.
+   */
+  public JsonSnapshot setLoopData(LoopData data)
+  {
+    float outsideTemp = data.getOutsideTemp();
+    float outsideHumidity = data.getOutsideHumidity();
+    float windSpeed = data.getWindSpeed() & 0xFF;
+
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("time", LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString())
+      .add("outsideTemp", outsideTemp)
+      .add("insideTemp", data.getInsideTemp())
+      .add("greenhouseTemp", data.getSoilTemp1())
+      .add("outsideHumidity", outsideHumidity)
+      .add("insideHumidity", data.getInsideHumidity() & 0xFF)
+      .add("dewPoint", tenths(Calculations.calculateDewPoint(outsideTemp, outsideHumidity)))
+      .add("windChill", tenths(Calculations.calculateWindChill(outsideTemp, windSpeed)))
+      .add("heatIndex", tenths(Calculations.calculateHeatIndex(outsideTemp, outsideHumidity)))
+      .add("pressure", data.getPressure())
+      .add("pressureTrend", data.getPressureTrend())
+      .add("windSpeed", windSpeed)
+      .add("averageWindSpeed", data.getAverageWindSpeed() & 0xFF)
+      .add("windDirection", data.getWindDirection())
+      .add("rainRate", data.getRainRate())
+      .add("dailyRain", data.getDailyRain())
+      .add("monthlyRain", data.getMonthlyRain())
+      .add("yearlyRain", data.getYearlyRain())
+      .add("solarRadiation", data.getSolarRadiation())
+      .add("uv", data.getUv() & 0xFF)
+      .add("dailyET", data.getDailyET())
+      .add("monthlyET", data.getMonthlyET())
+      .add("yearlyET", data.getYearlyET())
+      .add("consoleBattery", data.getConsoleBatteryVolt())
+      .add("transmitterBattery", data.getTransBatteryStatus())
+      .add("sunrise", data.getSunriseTime())
+      .add("sunset", data.getSunsetTime())
+      .endObject();
+
+    JsonSnapshot snapshot = JsonSnapshot.of(json.toBytes());
+    loopSnapshot = snapshot;
+    eventStream.publish(EventStream.LOOP_EVENT, snapshot.getBody());
+    return snapshot;
+  }
+
+  /**
+   * Method called with each archive record once it is stored and its derived values calculated.  The record is
+   * only published, the archive queries read the stored records.
+   *
+   * @param data The archive record.
+   */
+  public void setArchiveData(DmpDataExtended data)
+  {
+    short dateStamp = data.getDateStamp();
+    short timeStamp = data.getTimeStamp();
+    String time = String.format("%04d-%02d-%02dT%02d:%02d", TimeUtil.getYear(dateStamp), TimeUtil.getMonth(dateStamp),
+                                TimeUtil.getDay(dateStamp), TimeUtil.getHour(timeStamp), TimeUtil.getMinute(timeStamp));
+
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("time", time)
+      .add("outsideTemp", data.getOutsideTemp())
+      .add("hiOutsideTemp", data.getHighOutsideTemp())
+      .add("lowOutsideTemp", data.getLowOutsideTemp())
+      .add("insideTemp", data.getInsideTemp())
+      .add("outsideHumidity", data.getOutsideHumidity() & 0xFF)
+      .add("insideHumidity", data.getInsideHumidity() & 0xFF)
+      .add("dewPoint", tenths(data.getDewPoint()))
+      .add("windChill", tenths(data.getWindChill()))
+      .add("heatIndex", tenths(data.getHeatIndex()))
+      .add("thw", tenths(data.getThw()))
+      .add("thsw", tenths(data.getThsw()))
+      .add("pressure", data.getPressure())
+      .add("rain", data.getRainfall())
+      .add("hiRainRate", data.getHighRainRate())
+      .add("windSpeed", data.getAverageWindSpeed())
+      .add("hiWindSpeed", data.getHighWindSpeed())
+      .add("solarRadiation", data.getSolarRadiation())
+      .add("hiSolarRadiation", data.getHighSolarRadiation())
+      .add("et", data.getEvapotranspiration())
+      .add("heatDD", data.getHeatDD())
+      .add("coolDD", data.getCoolDD())
+      .endObject();
+
+    eventStream.publish(EventStream.ARCHIVE_EVENT, json.toBytes());
+  }
+
+  /**
+   * Method called when the hi/low values change, from a HILOWS snapshot or from the LOOP tracking.
+   *
+   * @param data The hi/low data.
+   * @return The new snapshot.
+   */
+  public JsonSnapshot setHiLowData(HiLoData data)
+  {
+    JsonBuilder json = new JsonBuilder().startObject();
+    json.add("time", LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).toString());
+    addRange(json, "outsideTemp", data.getDailyLowOutsideTemp(), data.getTimeOfLowOutsideTemp(),
+             data.getDailyHighOutsideTemp(), data.getTimeOfHighOutsideTemp(), data.getMonthlyLowOutsideTemp(),
+             data.getMonthlyHighOutsideTemp(), data.getYearlyLowOutsideTemp(), data.getYearlyHighOutsideTemp());
+    addRange(json, "insideTemp", data.getDailyLowInsideTemp(), data.getTimeOfLowInsideTemp(),
+             data.getDailyHighInsideTemp(), data.getTimeOfHighInsideTemp(), data.getMonthlyLowInsideTemp(),
+             data.getMonthlyHighInsideTemp(), data.getYearlyLowInsideTemp(), data.getYearlyHighInsideTemp());
+    addRange(json, "greenhouseTemp", data.getDailyLowSoil1Temp(), data.getTimeOfLowSoil1Temp(),
+             data.getDailyHighSoil1Temp(), data.getTimeOfHighSoil1Temp(), data.getMonthlyLowSoil1Temp(),
+             data.getMonthlyHighSoil1Temp(), data.getYearlyLowSoil1Temp(), data.getYearlyHighSoil1Temp());
+    addRange(json, "outsideHumidity", data.getDailyLowOutsideHumidity(), data.getTimeOfLowOutsideHumidity(),
+             data.getDailyHighOutsideHumidity(), data.getTimeOfHighOutsideHumidity(),
+             data.getMonthlyLowOutsideHumidity(), data.getMonthlyHighOutsideHumidity(),
+             data.getYearlyLowOutsideHumidity(), data.getYearlyHighOutsideHumidity());
+    addRange(json, "insideHumidity", data.getDailyLowInsideHumidity(), data.getTimeOfLowInsideHumidity(),
+             data.getDailyHighInsideHumidity(), data.getTimeOfHighInsideHumidity(),
+             data.getMonthlyLowInsideHumidity(), data.getMonthlyHighInsideHumidity(),
+             data.getYearlyLowInsideHumidity(), data.getYearlyHighInsideHumidity());
+    addRange(json, "pressure", data.getDailyLowPressure(), data.getTimeOfLowPressure(),
+             data.getDailyHighPressure(), data.getTimeOfHighPressure(), data.getMonthlyLowPressure(),
+             data.getMonthlyHighPressure(), data.getYearlyLowPressure(), data.getYearlyHighPressure());
+    addHigh(json, "windSpeed", data.getDailyHighWindSpeed() & 0xFF, data.getTimeOfHighWindSpeed(),
+            data.getMonthlyHighWindSpeed() & 0xFF, data.getYearlyHighWindSpeed() & 0xFF);
+    addHigh(json, "rainRate", data.getDailyHighRainRate(), data.getTimeOfHighRainRate(),
+            data.getMonthlyHighRainRate(), data.getYearlyHighRainRate());
+    addHigh(json, "solarRadiation", data.getDailyHighSolarRadiation(), data.getTimeOfHighSolarRadiation(),
+            data.getMonthlyHighSolarRadiation(), data.getYearlyHighSolarRadiation());
+    json.endObject();
+
+    JsonSnapshot snapshot = JsonSnapshot.of(json.toBytes());
+    hiLowSnapshot = snapshot;
+    return snapshot;
+  }
+
+  /**
+   * Internal method to write the daily, monthly and yearly lows and highs of a value.
+   */
+  private static void addRange(JsonBuilder json, String name, float dayLow, short dayLowTime, float dayHigh,
+                               short dayHighTime, float monthLow, float monthHigh, float yearLow, float yearHigh)
+  {
+    json.startObject(name)
+      .add("dayLow", dayLow)
+      .add("dayLowTime", formatTime(dayLowTime))
+      .add("dayHigh", dayHigh)
+      .add("dayHighTime", formatTime(dayHighTime))
+      .add("monthLow", monthLow)
+      .add("monthHigh", monthHigh)
+      .add("yearLow", yearLow)
+      .add("yearHigh", yearHigh)
+      .endObject();
+  }
+
+  /**
+   * Internal method to write the daily, monthly and yearly highs of a value that only has highs.
+   */
+  private static void addHigh(JsonBuilder json, String name, float dayHigh, short dayHighTime, float monthHigh,
+                              float yearHigh)
+  {
+    json.startObject(name)
+      .add("dayHigh", dayHigh)
+      .add("dayHighTime", formatTime(dayHighTime))
+      .add("monthHigh", monthHigh)
+      .add("yearHigh", yearHigh)
+      .endObject();
+  }
+
+  /**
+   * Internal method to round a calculated value to the tenths the console values have.
+   *
+   * @param value The value.
+   * @return The rounded value.
+   */
+  private static float tenths(float value)
+  {
+    return Math.round(value * 10) / 10f;
+  }
+
+  /**
+   * Internal method to format a console time of day, hours times 100 plus minutes.
+   *
+   * @param time The console time.
+   * @return The time as HH:MM or null if there is no time.
+   */
+  private static String formatTime(short time)
+  {
+    if (time < 0 || time > 2359)
+      return null;
+    return String.format("%02d:%02d", time / 100, time % 100);
+  }
+
+  /**
+   * Method to get the current conditions.
+   *
+   * @return The snapshot or null if no LOOP packet has arrived yet.
+   */
+  public JsonSnapshot getLoopSnapshot()
+  {
+    return loopSnapshot;
+  }
+
+  /**
+   * Method to get the hi/low values.
+   *
+   * @return The snapshot or null if no hi/low values have arrived yet.
+   */
+  public JsonSnapshot getHiLowSnapshot()
+  {
+    return hiLowSnapshot;
+  }
+}
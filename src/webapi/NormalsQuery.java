@@ -0,0 +1,71 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class answers a normals query of the web API: the climate
+            normals of a calendar day and of its month for each element, so a
+            dashboard can show how a day compares to normal.  The normals are
+            already made by the ClimateNormals, so no archive file is read.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package webapi;
+
+import dbif.ClimateNormals;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+
+class NormalsQuery
+{
+  /**
+   * Method to run a query.
+   *
+   * @param date The day.
+   * @return The response.
+   */
+  static JsonSnapshot run(LocalDate date)
+  {
+    ClimateNormals normals = ClimateNormals.getInstance();
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("date", date.toString())
+      .add("days", normals.getDays());
+
+    json.startObject("day");
+    for (ClimateNormals.Element element : ClimateNormals.Element.values())
+      addNormal(json, element.getName(), normals.getDayNormal(element, MonthDay.from(date)));
+    json.endObject();
+
+    json.startObject("month");
+    for (ClimateNormals.Element element : ClimateNormals.Element.values())
+      addNormal(json, element.getName(), normals.getMonthNormal(element, date.getMonthValue()));
+    json.endObject();
+
+    json.endObject();
+    return JsonSnapshot.of(json.toBytes());
+  }
+
+  /**
+   * Internal method to write one normal.  An element with no normal is left out.
+   */
+  private static void addNormal(JsonBuilder json, String name, ClimateNormals.Normal normal)
+  {
+    if (normal == null)
+      return;
+
+    json.startObject(name)
+      .add("count", normal.getCount())
+      .add("mean", normal.getMean())
+      .add("stdDev", normal.getStdDev())
+      .add("p10", normal.getPercentile(10))
+      .add("p50", normal.getPercentile(50))
+      .add("p90", normal.getPercentile(90))
+      .endObject();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class answers a records query of the web API: the top days of
+            each element for a calendar day, for its month and for all time.
+            The records are already kept by the RecordsIndex, so no archive
+            file is read.
+
+  Mods:		  10/19/26  Initial Release.
+*/
+package webapi;
+
+import dbif.RecordsIndex;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.util.List;
+
+class RecordsQuery
+{
+  /**
+   * Method to run a query.
+   *
+   * @param date The day whose calendar day and month are wanted.
+   * @return The response.
+   */
+  static JsonSnapshot run(LocalDate date)
+  {
+    RecordsIndex index = RecordsIndex.getInstance();
+    JsonBuilder json = new JsonBuilder()
+      .startObject()
+      .add("date", date.toString());
+
+    json.startObject("day");
+    for (RecordsIndex.Element element : RecordsIndex.Element.values())
+      addRecords(json, element.getName(), index.getDayRecords(element, MonthDay.from(date)));
+    json.endObject();
+
+    json.startObject("month");
+    for (RecordsIndex.Element element : RecordsIndex.Element.values())
+      addRecords(json, element.getName(), index.getMonthRecords(element, date.getMonthValue()));
+    json.endObject();
+
+    json.startObject("allTime");
+    for (RecordsIndex.Element element : RecordsIndex.Element.values())
+      addRecords(json, element.getName(), index.getAllTimeRecords(element));
+    json.endObject();
+
+    // The last day is known once the lists have been asked for, which loads the index.
+    LocalDate lastDate = index.getLastDate();
+    json.add("through", lastDate == null ? null : lastDate.toString());
+    json.endObject();
+    return JsonSnapshot.of(json.toBytes());
+  }
+
+  /**
+   * Internal method to write the records of one element, best first.  The time is left out of a value that only
+   * has a day.
+   */
+  private static void addRecords(JsonBuilder json, String name, List<RecordsIndex.Entry> entries)
+  {
+    json.startArray(name);
+    for (RecordsIndex.Entry entry : entries)
+    {
+      LocalDateTime timestamp = entry.getTimestamp();
+      json.startObject()
+        .add("value", entry.getValue())
+        .add("time", timestamp != null ? timestamp.toString() : entry.getDate().toString())
+        .endObject();
+    }
+    json.endArray();
+  }
+}
@@ -0,0 +1,597 @@
+/*
+  Copyright 2021, William Glasford
+
+  This file is part of the Weather Station software.  You can redistribute it
+  and/or modify it under the terms of the GNU General Public License as
+  published by the Free Software Foundation; either version 3 of the License,
+  or any later version. This software is distributed without any warranty
+  expressed or implied. See the GNU General Public License for more details.
+
+  Purpose:	This class is a small web server that lets other machines on the
+            network read the station data as JSON without going near the
+            serial link.  It listens on the configured address, only this
+            machine by default, and only the configured web site origin may
+            read the responses from a browser.  The current conditions and
+            hi/low values are the snapshots already written by the
+            LiveSnapshots.  Archive query responses are kept and served again
+            until a month file in their range changes.  Every response carries
+            an entity tag, so a client polling with If-None-Match gets a
+            bodiless 304 until the data changes.  The live events are streamed
+            as server-sent events, each client on its own thread so a stream
+            never holds a request thread.
+
+            GET /api/current
+            GET /api/hilows
+            GET /api/archive?field=outsideTemp&start=yyyy-mm-dd&end=yyyy-mm-dd
+                            &bucket=hour|day|month|season|year|all
+            GET /api/normals?date=yyyy-mm-dd
+            GET /api/records?date=yyyy-mm-dd
+            GET /api/events
+            GET /api/events/stats
+
+  Mods:		  10/19/26  Initial Release.
+            10/19/26  Added the live event stream.
+            10/19/26  Added the season, year and all buckets to the archive
+                      query.
+            10/19/26  Added the climate normals query.
+            10/19/26  Added the records query.
+            10/19/26  Listen on the configured address and allow the
+                      configured origin.
+            10/19/26  Drop the event clients that stop reading.
+*/
+package webapi;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dbif.ArchiveAggregator;
+import dbif.ArchiveCatalog;
+import dbif.ArchiveField;
+import util.ConfigProperties;
+import util.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WebApiServer
+{
+  private static final int THREADS = 4;
+  private static final int CACHED_QUERIES = 64;
+  private static final int MAX_EVENT_CLIENTS = 64;
+  private static final long KEEPALIVE_MILLIS = 15000;
+  private static final long WRITE_TIMEOUT_MILLIS = 30000;
+  private static final String JSON_TYPE = "application/json; charset=utf-8";
+  private static final byte[] KEEPALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] RETRY = "retry: 5000\n\n".getBytes(StandardCharsets.UTF_8);
+  private static final String CORS_ORIGIN = ConfigProperties.instance().getHttpCorsOrigin();
+
+  private final LiveSnapshots liveSnapshots = LiveSnapshots.getInstance();
+  private final EventStream eventStream = EventStream.getInstance();
+  private final Logger logger = Logger.getInstance();
+  private HttpServer server = null;
+  private ExecutorService executor = null;
+  private ExecutorService eventExecutor = null;
+  private ScheduledExecutorService watchdog = null;
+
+  // The time each event stream write must end by, by the thread writing it.
+  private final Map<Thread, Long> writeDeadlines = new ConcurrentHashMap<>();
+
+  // The archive query responses most recently used, with the version of the data each was made from.
+  private final Map<String, CachedQuery> queryCache = new LinkedHashMap<String, CachedQuery>(16, 0.75f, true)
+  {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedQuery> eldest)
+    {
+      return size() > CACHED_QUERIES;
+    }
+  };
+
+  private static class CachedQuery
+  {
+    private final long version;
+    private final JsonSnapshot snapshot;
+
+    CachedQuery(long version, JsonSnapshot snapshot)
+    {
+      this.version = version;
+      this.snapshot = snapshot;
+    }
+  }
+
+  private static class SingletonHelper
+  {
+    private static final WebApiServer INSTANCE = new WebApiServer();
+  }
+
+  public static WebApiServer getInstance()
+  {
+    return SingletonHelper.INSTANCE;
+  }
+
+  private WebApiServer() { }
+
+  /**
+   * Method to start the server on the configured port.  Nothing is started if the port is zero.
+   */
+  public void start()
+  {
+    start(ConfigProperties.instance().getHttpPort());
+  }
+
+  /**
+   * Method to start the server on the configured address.
+   *
+   * @param port The port to listen on, zero to not start.
+   */
+  public synchronized void start(int port)
+  {
+    if (server != null || port <= 0)
+      return;
+
+    String bind = ConfigProperties.instance().getHttpBind();
+    try
+    {
+      server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      logger.logData("WebApiServer: Unable to listen on " + bind + " port " + port + ": " + e.getLocalizedMessage());
+      server = null;
+      return;
+    }
+
+    // A small pool is plenty, a request only hands out bytes that are already made.
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    executor = Executors.newFixedThreadPool(THREADS, runnable ->
+    {
+      Thread thread = new Thread(runnable, "WebApi-" + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.setExecutor(executor);
+    AtomicInteger eventThreadNumber = new AtomicInteger(1);
+    eventExecutor = Executors.newCachedThreadPool(runnable ->
+    {
+      Thread thread = new Thread(runnable, "WebApi-Events-" + eventThreadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    watchdog = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+      Thread thread = new Thread(runnable, "WebApi-Watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    watchdog.scheduleWithFixedDelay(this::interruptStalledWriters, 1, 1, TimeUnit.SECONDS);
+    server.createContext("/api/current", exchange -> sendSnapshot(exchange, liveSnapshots.getLoopSnapshot(), false));
+    server.createContext("/api/hilows", exchange -> sendSnapshot(exchange, liveSnapshots.getHiLowSnapshot(), false));
+    server.createContext("/api/archive", this::handleArchive);
+    server.createContext("/api/normals", this::handleNormals);
+    server.createContext("/api/records", this::handleRecords);
+    server.createContext("/api/events", this::handleEvents);
+    server.createContext("/api/events/stats", exchange ->
+      sendSnapshot(exchange, new JsonSnapshot(eventStream.getStatistics(), null), false));
+    server.createContext("/", exchange -> sendError(exchange, 404, "Not found"));
+    server.start();
+    logger.logData("WebApiServer: Listening on " + bind + " port " + port);
+  }
+
+  /**
+   * Method to stop the server.
+   */
+  public synchronized void stop()
+  {
+    if (server == null)
+      return;
+
+    server.stop(0);
+    executor.shutdown();
+    eventExecutor.shutdownNow();
+    watchdog.shutdownNow();
+    server = null;
+    executor = null;
+    eventExecutor = null;
+    watchdog = null;
+  }
+
+  /**
+   * Method to get the port the server is listening on.
+   *
+   * @return The port or zero if the server is not running.
+   */
+  public synchronized int getPort()
+  {
+    return server == null ? 0 : server.getAddress().getPort();
+  }
+
+  /**
+   * Internal method to answer an archive query.
+   *
+   * @param exchange The request.
+   * @throws IOException The response could not be sent.
+   */
+  private void handleArchive(HttpExchange exchange) throws IOException
+  {
+    Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+    ArchiveField field = ArchiveField.fromName(parameters.getOrDefault("field", "outsideTemp"));
+    if (field == null)
+    {
+      sendError(exchange, 400, "Unknown field: " + parameters.get("field"));
+      return;
+    }
+
+    ArchiveAggregator.Bucket bucket;
+    LocalDate start;
+    LocalDate end;
+    try
+    {
+      bucket = ArchiveAggregator.Bucket.valueOf(parameters.getOrDefault("bucket", "day").toUpperCase());
+      end = parameters.containsKey("end") ? LocalDate.parse(parameters.get("end")) : LocalDate.now();
+      start = parameters.containsKey("start") ? LocalDate.parse(parameters.get("start")) : end;
+    }
+    catch (IllegalArgumentException | DateTimeParseException e)
+    {
+      sendError(exchange, 400, "Bad query: " + e.getLocalizedMessage());
+      return;
+    }
+    if (end.isBefore(start))
+    {
+      sendError(exchange, 400, "The end is before the start.");
+      return;
+    }
+    if (bucket == ArchiveAggregator.Bucket.HOUR && ChronoUnit.DAYS.between(start, end) >= ArchiveQuery.MAX_HOURLY_DAYS)
+    {
+      sendError(exchange, 400, "Hourly queries are limited to " + ArchiveQuery.MAX_HOURLY_DAYS + " days.");
+      return;
+    }
+
+    String key = field.getName() + "/" + start + "/" + end + "/" + bucket;
+    long version = ArchiveQuery.getVersion(start, end);
+    JsonSnapshot snapshot = null;
+    synchronized (queryCache)
+    {
+      CachedQuery cached = queryCache.get(key);
+      if (cached != null && cached.version == version)
+        snapshot = cached.snapshot;
+    }
+
+    if (snapshot == null)
+    {
+      try
+      {
+        snapshot = ArchiveQuery.run(field, start, end, bucket);
+      }
+      catch (IOException e)
+      {
+        logger.logData("WebApiServer: Archive query failed: " + e.getLocalizedMessage());
+        sendError(exchange, 500, "The archive could not be read.");
+        return;
+      }
+      synchronized (queryCache)
+      {
+        queryCache.put(key, new CachedQuery(version, snapshot));
+      }
+    }
+
+    // A range that ends before the month being written will not change, so clients can keep it a while.
+    YearMonth latest = ArchiveCatalog.getInstance().getLatestMonth();
+    sendSnapshot(exchange, snapshot, latest != null && YearMonth.from(end).isBefore(latest));
+  }
+
+  /**
+   * Internal method to answer a normals query.
+   *
+   * @param exchange The request.
+   * @throws IOException The response could not be sent.
+   */
+  private void handleNormals(HttpExchange exchange) throws IOException
+  {
+    Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+    LocalDate date;
+    try
+    {
+      date = parameters.containsKey("date") ? LocalDate.parse(parameters.get("date")) : LocalDate.now();
+    }
+    catch (DateTimeParseException e)
+    {
+      sendError(exchange, 400, "Bad query: " + e.getLocalizedMessage());
+      return;
+    }
+    sendSnapshot(exchange, NormalsQuery.run(date), false);
+  }
+
+  /**
+   * Internal method to answer a records query.
+   *
+   * @param exchange The request.
+   * @throws IOException The response could not be sent.
+   */
+  private void handleRecords(HttpExchange exchange) throws IOException
+  {
+    Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+    LocalDate date;
+    try
+    {
+      date = parameters.containsKey("date") ? LocalDate.parse(parameters.get("date")) : LocalDate.now();
+    }
+    catch (DateTimeParseException e)
+    {
+      sendError(exchange, 400, "Bad query: " + e.getLocalizedMessage());
+      return;
+    }
+    sendSnapshot(exchange, RecordsQuery.run(date), false);
+  }
+
+  /**
+   * Internal method to start streaming the live events to a client.  The stream is written by its own thread and
+   * the request thread returns at once.
+   *
+   * @param exchange The request.
+   * @throws IOException The response could not be sent.
+   */
+  private void handleEvents(HttpExchange exchange) throws IOException
+  {
+    if (!exchange.getRequestMethod().equals("GET"))
+    {
+      sendError(exchange, 405, "Only GET is supported.");
+      return;
+    }
+    if (eventStream.getSubscriberCount() >= MAX_EVENT_CLIENTS)
+    {
+      sendError(exchange, 503, "Too many event clients.");
+      return;
+    }
+
+    Headers headers = exchange.getResponseHeaders();
+    headers.set("Content-Type", "text/event-stream; charset=utf-8");
+    headers.set("Cache-Control", "no-cache");
+    setCorsHeader(headers);
+    exchange.sendResponseHeaders(200, 0);
+
+    EventSubscriber subscriber =
+      eventStream.subscribe(exchange.getRemoteAddress().toString(), EventStream.QUEUE_CAPACITY);
+    try
+    {
+      eventExecutor.execute(() -> streamEvents(exchange, subscriber));
+    }
+    catch (RuntimeException e)
+    {
+      // The server is stopping.
+      subscriber.close();
+      exchange.close();
+    }
+  }
+
+  /**
+   * Internal method that writes the events of one client until it goes away.  A comment is sent when there have
+   * been no events for a while so a dead connection is found and the client knows the stream is alive.  A client
+   * that stops reading is dropped when a write has not ended in time, which frees its thread and its place.
+   *
+   * @param exchange The request.
+   * @param subscriber The client's subscription.
+   */
+  private void streamEvents(HttpExchange exchange, EventSubscriber subscriber)
+  {
+    try (OutputStream out = exchange.getResponseBody())
+    {
+      out.write(RETRY);
+      out.flush();
+      while (!subscriber.isClosed())
+      {
+        EventStream.Event event = subscriber.poll(KEEPALIVE_MILLIS);
+        if (event == null && subscriber.isClosed())
+          break;
+        writeEvent(out, event == null ? KEEPALIVE : event.getFrame());
+      }
+    }
+    catch (IOException | InterruptedException e)
+    {
+      // The client went away, stopped reading or the server is stopping.
+    }
+    finally
+    {
+      subscriber.close();
+      exchange.close();
+    }
+  }
+
+  /**
+   * Internal method to write to an event stream within the write timeout.  The watchdog interrupts a write that
+   * has not ended in time, which closes the connection.
+   *
+   * @param out The stream of the client.
+   * @param bytes The bytes to write.
+   * @throws IOException The write failed or timed out.
+   */
+  private void writeEvent(OutputStream out, byte[] bytes) throws IOException
+  {
+    Thread writer = Thread.currentThread();
+    writeDeadlines.put(writer, System.currentTimeMillis() + WRITE_TIMEOUT_MILLIS);
+    try
+    {
+      out.write(bytes);
+      out.flush();
+    }
+    catch (IOException e)
+    {
+      writeDeadlines.remove(writer);
+      throw e;
+    }
+
+    // The watchdog removes the deadline of a write it interrupts.
+    if (writeDeadlines.remove(writer) == null)
+      throw new InterruptedIOException("The client stopped reading.");
+  }
+
+  /**
+   * Internal method run by the watchdog to interrupt the event stream writes that are past their deadline.
+   */
+  private void interruptStalledWriters()
+  {
+    long now = System.currentTimeMillis();
+    for (Map.Entry<Thread, Long> deadline : writeDeadlines.entrySet())
+    {
+      if (deadline.getValue() < now && writeDeadlines.remove(deadline.getKey(), deadline.getValue()))
+      {
+        logger.logData("WebApiServer: Dropping an event client that stopped reading.");
+        deadline.getKey().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Internal method to split a query string into its parameters.
+   *
+   * @param query The raw query string or null.
+   * @return The parameters by name.
+   */
+  private static Map<String, String> getParameters(String query)
+  {
+    Map<String, String> parameters = new HashMap<>();
+    if (query == null)
+      return parameters;
+
+    for (String pair : query.split("&"))
+    {
+      int equals = pair.indexOf('=');
+      if (equals <= 0)
+        continue;
+      try
+      {
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                       URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+      catch (IOException | IllegalArgumentException e)
+      {
+        // Ignore a parameter that is not encoded properly.
+      }
+    }
+    return parameters;
+  }
+
+  /**
+   * Internal method to send a snapshot, or a 304 if the client already has it.
+   *
+   * @param exchange The request.
+   * @param snapshot The snapshot or null if there is no data yet.
+   * @param unchanging Whether the data will not change, so the client may keep it without asking.
+   * @throws IOException The response could not be sent.
+   */
+  private void sendSnapshot(HttpExchange exchange, JsonSnapshot snapshot, boolean unchanging) throws IOException
+  {
+    String method = exchange.getRequestMethod();
+    if (!method.equals("GET") && !method.equals("HEAD"))
+    {
+      sendError(exchange, 405, "Only GET is supported.");
+      return;
+    }
+    if (snapshot == null)
+    {
+      sendError(exchange, 503, "No data has been received from the console yet.");
+      return;
+    }
+
+    Headers headers = exchange.getResponseHeaders();
+    if (snapshot.getEtag() != null)
+      headers.set("ETag", snapshot.getEtag());
+    headers.set("Cache-Control", unchanging ? "max-age=3600" : "no-cache");
+    setCorsHeader(headers);
+    try
+    {
+      if (snapshot.matches(exchange.getRequestHeaders().getFirst("If-None-Match")))
+      {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+
+      headers.set("Content-Type", JSON_TYPE);
+      byte[] body = snapshot.getBody();
+      if (method.equals("HEAD"))
+      {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody())
+      {
+        out.write(body);
+      }
+    }
+    finally
+    {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Internal method to let the configured web site read the response from a browser.  Nothing is set when no origin
+   * is configured, so no other site can.
+   *
+   * @param headers The response headers.
+   */
+  private static void setCorsHeader(Headers headers)
+  {
+    if (!CORS_ORIGIN.isEmpty())
+      headers.set("Access-Control-Allow-Origin", CORS_ORIGIN);
+  }
+
+  /**
+   * Internal method to send an error as a JSON message.
+   *
+   * @param exchange The request.
+   * @param status The HTTP status.
+   * @param message The message.
+   * @throws IOException The response could not be sent.
+   */
+  private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+  {
+    byte[] body = new JsonBuilder().startObject().add("error", message).endObject().toBytes();
+    exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+    setCorsHeader(exchange.getResponseHeaders());
+    try
+    {
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody())
+      {
+        out.write(body);
+      }
+    }
+    finally
+    {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Method used to test the class.  The server is started on the given port, or the configured one, and answers
+   * archive queries from the database directory until the program is stopped.
+   *
+   * @param args The port.
+   * @throws InterruptedException The wait was interrupted.
+   */
+  public static void main(String[] args) throws InterruptedException
+  {
+    WebApiServer server = WebApiServer.getInstance();
+    server.start(args.length > 0 ? Integer.parseInt(args[0]) : ConfigProperties.instance().getHttpPort());
+    System.out.println("Listening on port " + server.getPort() + ", latest month " +
+                       ArchiveCatalog.getInstance().getLatestMonth());
+    Thread.currentThread().join();
+  }
+}
@@ -13,11 +13,15 @@
             This interface was almost the same as the Weather Underground interface.
 
   Mods:		  09/01/21 Initial Release.
+            10/19/26  Record the upload times and failures.
 */
 package wxserverif;
 
 import data.consolerecord.DmpDataExtended;
 import data.consolerecord.LoopData;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import util.ConfigProperties;
 import util.TimeUtil;
 
@@ -34,6 +38,8 @@ public class WeatherServerIF
 {
   private static final ConfigProperties PROPS = ConfigProperties.instance();
   private static WeatherServerIF instance = null;
+  private final LatencyHistogram sendLatency = MetricsRegistry.getInstance().histogram("upload.send");
+  private final Counter sendFailures = MetricsRegistry.getInstance().counter("upload.failures");
 
   // Last data readings.
   private float outTemp;
@@ -148,6 +154,7 @@ public class WeatherServerIF
     http_url += "&softwaretype=wtgwx_ver1.0";
     http_url += "&action=updateraw";
 
+    long start = System.nanoTime();
     try
     {
       URL url = new URL(http_url);
@@ -156,6 +163,7 @@ public class WeatherServerIF
       if (connection.getResponseCode() != 200)
       {
         System.out.println("Bad response code: " + connection.getResponseCode());
+        sendFailures.increment();
         return false;
       }
       readResponse(connection);
@@ -164,8 +172,13 @@ public class WeatherServerIF
     catch (IOException e)
     {
       e.printStackTrace();
+      sendFailures.increment();
       return false;
     }
+    finally
+    {
+      sendLatency.recordSince(start);
+    }
   }
 
   /**